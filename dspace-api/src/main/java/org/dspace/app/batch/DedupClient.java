@@ -58,7 +58,7 @@ public class DedupClient {
         Context context = new Context();
         context.turnOffAuthorisationSystem();
 
-        String usage = "./dspace index-deduplication [-chfueo[r <item handle/uuid>]]"
+        String usage = "./dspace index-deduplication [-chfueob[r <item handle/uuid>]]"
                 + " or nothing to update/clean an existing index.";
         Options options = new Options();
         HelpFormatter formatter = new HelpFormatter();
@@ -85,6 +85,9 @@ public class DedupClient {
 
         options.addOption("e", "readfile", true, "Read the identifier from a file");
 
+        options.addOption("b", "batch", false,
+                "rebuild the whole index in batches, grouping the items by signature to find the potential matches");
+
         try {
             line = new PosixParser().parse(options, args);
         } catch (Exception e) {
@@ -154,7 +157,11 @@ public class DedupClient {
         } else {
             log.info("Updating and Cleaning Index");
             indexer.cleanIndex(line.hasOption("f"));
-            indexer.updateIndex(context, line.hasOption("f"));
+            if (line.hasOption("b")) {
+                indexer.rebuildIndex(context);
+            } else {
+                indexer.updateIndex(context, line.hasOption("f"));
+            }
         }
 
         log.info("Done with indexing");
@@ -39,6 +39,14 @@ public interface DedupService {
 
     public void updateIndex(Context context, boolean b);
 
+    /**
+     * Rebuild the FAKE and MATCH documents of all the items in batches: the
+     * signatures are computed in parallel and the potential matches are found
+     * grouping the items by signature instead of querying the index for each
+     * item.
+     */
+    public void rebuildIndex(Context context);
+
     public void optimize();
 
     public void unIndexContent(Context context, String handleOrUuid) throws IllegalStateException, SQLException;
@@ -19,8 +19,14 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.validator.routines.UrlValidator;
 import org.apache.log4j.Logger;
@@ -38,6 +44,7 @@ import org.dspace.app.deduplication.service.DedupService;
 import org.dspace.app.deduplication.service.SearchDeduplication;
 import org.dspace.app.deduplication.service.SolrDedupServiceIndexPlugin;
 import org.dspace.app.deduplication.utils.Signature;
+import org.dspace.app.deduplication.utils.SignatureBlocks;
 import org.dspace.app.util.Util;
 import org.dspace.content.DSpaceObject;
 import org.dspace.content.Item;
@@ -105,6 +112,10 @@ public class SolrDedupServiceImpl implements DedupService {
 
     private DSpace dspace = new DSpace();
 
+    private List<Signature> signatureAlgorithms;
+
+    private SearchDeduplication searchDeduplication;
+
     public static final String SUBQUERY_NOT_IN_REJECTED = "-({!join from=" + RESOURCE_ID_FIELD + " to="
             + RESOURCE_ID_FIELD + "}" + RESOURCE_FLAG_FIELD + ":reject_admin)";
 
@@ -255,9 +266,7 @@ public class SolrDedupServiceImpl implements DedupService {
         // the FAKE identifier
         String dedupID = iu.getID() + "-" + iu.getID();
 
-        // retrieve all search plugin to build search document in the same index
-        SearchDeduplication searchSignature = dspace.getServiceManager()
-                .getServiceByName("item".toUpperCase() + "SearchDeduplication", SearchDeduplication.class);
+        SearchDeduplication searchSignature = getSearchDeduplication();
 
         // build the dedup reject in the dedup index core
         buildFromDedupReject(ctx, iu, tmpMapFilter, tmpFilter, searchSignature);
@@ -279,52 +288,43 @@ public class SolrDedupServiceImpl implements DedupService {
     private void fillSignature(Context ctx, DSpaceObject iu, Map<String, List<String>> tmpMapFilter,
             List<String> tmpFilter) {
         // get all algorithms to build signature
-        List<Signature> signAlgo = dspace.getServiceManager().getServicesByType(Signature.class);
-        for (Signature algo : signAlgo) {
+        for (Signature algo : getSignatureAlgorithms()) {
             if (iu.getType() == algo.getResourceTypeID()) {
                 List<String> signatures = algo.getSignature(iu, ctx);
                 for (String signature : signatures) {
                     if (StringUtils.isNotEmpty(signature)) {
                         String key = algo.getSignatureType() + "_signature";
-                        if (tmpMapFilter.containsKey(key)) {
-                            List<String> obj = tmpMapFilter.get(key);
-                            obj.add(signature);
-                            tmpMapFilter.put(key, obj);
-                        } else {
-                            List<String> obj = new ArrayList<String>();
-                            obj.add(signature);
-                            tmpMapFilter.put(key, obj);
-                        }
+                        tmpMapFilter.computeIfAbsent(key, k -> new ArrayList<>()).add(signature);
                     }
                 }
             }
         }
 
-        String result = "";
-        int index = 0;
-        for (String tmpF : tmpMapFilter.keySet()) {
-            if (index > 0) {
-                result += " OR ";
-            }
-
-            result += tmpF + ":(";
-            int jindex = 0;
-            for (String s : tmpMapFilter.get(tmpF)) {
-                if (jindex > 0) {
-                    result += " OR ";
-                }
-                result += s;
-                jindex++;
-            }
-            result += ")";
-            index++;
-        }
+        String result = tmpMapFilter.entrySet().stream()
+                .map(entry -> entry.getKey() + ":(" + String.join(" OR ", entry.getValue()) + ")")
+                .collect(Collectors.joining(" OR "));
 
         if (StringUtils.isNotBlank(result)) {
             tmpFilter.add(result);
         }
     }
 
+    private List<Signature> getSignatureAlgorithms() {
+        if (signatureAlgorithms == null) {
+            signatureAlgorithms = dspace.getServiceManager().getServicesByType(Signature.class);
+        }
+        return signatureAlgorithms;
+    }
+
+    private SearchDeduplication getSearchDeduplication() {
+        if (searchDeduplication == null) {
+            // retrieve all search plugin to build search document in the same index
+            searchDeduplication = dspace.getServiceManager()
+                    .getServiceByName("item".toUpperCase() + "SearchDeduplication", SearchDeduplication.class);
+        }
+        return searchDeduplication;
+    }
+
     private void buildPotentialMatch(Context ctx, DSpaceObject iu, Map<String, List<String>> tmpMapFilter,
             List<String> tmpFilter, SearchDeduplication searchSignature) throws SearchServiceException {
         tmpFilter.add("+" + RESOURCE_FLAG_FIELD + ":" + DeduplicationFlag.FAKE.getDescription());
@@ -410,6 +410,24 @@ public class SolrDedupServiceImpl implements DedupService {
 
     public void build(Context ctx, UUID firstId, UUID secondId, DeduplicationFlag flag,
             Map<String, List<String>> signatures, SearchDeduplication searchSignature, String note) {
+        SolrInputDocument doc = createDocument(ctx, firstId, secondId, flag, signatures, searchSignature, note);
+        String dedupID = (String) doc.getFieldValue(RESOURCE_ID_FIELD);
+
+        // write the document to the index
+        try {
+            writeDocument(doc);
+            log.info("Wrote " + flag.description + " duplicate: " + dedupID + " to Index");
+        } catch (RuntimeException e) {
+            log.error("Error while writing a " + flag.description + " to deduplication index: " + dedupID + " message:"
+                    + e.getMessage(), e);
+        } catch (IOException e) {
+            log.error("Error while writing a " + flag.description + " to deduplication index: " + dedupID + " message:"
+                    + e.getMessage(), e);
+        }
+    }
+
+    private SolrInputDocument createDocument(Context ctx, UUID firstId, UUID secondId, DeduplicationFlag flag,
+            Map<String, List<String>> signatures, SearchDeduplication searchSignature, String note) {
         SolrInputDocument doc = new SolrInputDocument();
 
         // build upgraded document
@@ -448,18 +466,7 @@ public class SolrDedupServiceImpl implements DedupService {
             }
 
         }
-
-        // write the document to the index
-        try {
-            writeDocument(doc);
-            log.info("Wrote " + flag.description + " duplicate: " + dedupID + " to Index");
-        } catch (RuntimeException e) {
-            log.error("Error while writing a " + flag.description + " to deduplication index: " + dedupID + " message:"
-                    + e.getMessage(), e);
-        } catch (IOException e) {
-            log.error("Error while writing a " + flag.description + " to deduplication index: " + dedupID + " message:"
-                    + e.getMessage(), e);
-        }
+        return doc;
     }
 
     protected void writeDocument(SolrInputDocument doc) throws IOException {
@@ -619,6 +626,101 @@ public class SolrDedupServiceImpl implements DedupService {
         }
     }
 
+    @Override
+    public void rebuildIndex(Context context) {
+        try {
+            List<UUID> ids = findAllItemIds(context);
+            SearchDeduplication searchSignature = getSearchDeduplication();
+            SignatureBlocks blocks = new SignatureBlocks(
+                    configurationService.getIntProperty("deduplication.indexer.batch.max-block-size", 100));
+
+            // compute the signatures, index the FAKE documents and group the items by signature
+            buildInBatches(ids, (ctx, id, documents) -> {
+                Item item = itemService.find(ctx, id);
+                if (item == null) {
+                    return;
+                }
+                Map<String, List<String>> tmpMapFilter = new HashMap<String, List<String>>();
+                List<String> tmpFilter = new ArrayList<String>();
+                fillSignature(ctx, item, tmpMapFilter, tmpFilter);
+                if (!tmpFilter.isEmpty()) {
+                    buildFromDedupReject(ctx, item, tmpMapFilter, tmpFilter, searchSignature);
+                    documents.add(createDocument(ctx, id, id, DeduplicationFlag.FAKE, tmpMapFilter,
+                            searchSignature, null));
+                    blocks.add(id, tmpMapFilter);
+                }
+                ctx.uncacheEntity(item);
+            });
+            commit();
+
+            // all the items have been grouped, so the previous potential matches can be replaced at once
+            delete(RESOURCE_RESOURCETYPE_FIELD + ":" + Constants.ITEM + " AND " + RESOURCE_FLAG_FIELD + ":"
+                    + DeduplicationFlag.MATCH.description);
+            buildInBatches(blocks.getCandidates(), (ctx, candidate, documents) -> documents.add(
+                    createDocument(ctx, candidate.getLeft(), candidate.getRight(), DeduplicationFlag.MATCH,
+                            blocks.getSharedSignatures(candidate.getLeft(), candidate.getRight()), searchSignature,
+                            null)));
+            commit();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error(e.getMessage(), e);
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Build the documents of the given elements with a pool of
+     * deduplication.indexer.items.threads threads, each batch of
+     * deduplication.indexer.batch.size elements with its own context and added
+     * to the index with a single request.
+     */
+    private <T> void buildInBatches(List<T> elements, BatchDocumentBuilder<T> builder)
+            throws InterruptedException {
+        int numThreads = configurationService.getIntProperty("deduplication.indexer.items.threads", 5);
+        int batchSize = configurationService.getIntProperty("deduplication.indexer.batch.size", 500);
+        AtomicInteger done = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            for (List<T> batch : Lists.partition(elements, batchSize)) {
+                executor.execute(() -> {
+                    buildBatch(batch, builder);
+                    log.info("Deduplication index: " + done.addAndGet(batch.size()) + " / " + elements.size());
+                });
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private <T> void buildBatch(List<T> batch, BatchDocumentBuilder<T> builder) {
+        Context context = new Context(Context.Mode.READ_ONLY);
+        context.turnOffAuthorisationSystem();
+        try {
+            List<SolrInputDocument> documents = new ArrayList<>();
+            for (T element : batch) {
+                try {
+                    builder.build(context, element, documents);
+                } catch (Exception e) {
+                    log.error("Error while building the deduplication documents of " + element, e);
+                }
+            }
+            if (!documents.isEmpty() && getSolr() != null) {
+                getSolr().add(documents);
+            }
+        } catch (SolrServerException | IOException | RuntimeException e) {
+            log.error("Error while writing to deduplication index: " + e.getMessage(), e);
+        } finally {
+            context.abort();
+        }
+    }
+
+    @FunctionalInterface
+    private interface BatchDocumentBuilder<T> {
+        void build(Context context, T element, List<SolrInputDocument> documents) throws Exception;
+    }
+
     @Override
     public void optimize() {
         try {
@@ -654,11 +756,7 @@ public class SolrDedupServiceImpl implements DedupService {
         int numThreads = configurationService.getIntProperty("deduplication.indexer.items.threads", 5);
 
         if (ids == null) {
-            ids = new ArrayList<>();
-            Iterator<Item> items = itemService.findAllUnfiltered(context);
-            for (Item item : ImmutableList.copyOf(items)) {
-                ids.add(item.getID());
-            }
+            ids = findAllItemIds(context);
         }
         List<UUID>[] arrayIDList = Util.splitList(ids, numThreads);
         List<IndexerThread> threads = new ArrayList<IndexerThread>();
@@ -676,6 +774,15 @@ public class SolrDedupServiceImpl implements DedupService {
         }
     }
 
+    private List<UUID> findAllItemIds(Context context) throws SQLException {
+        List<UUID> ids = new ArrayList<>();
+        Iterator<Item> items = itemService.findAllUnfiltered(context);
+        for (Item item : ImmutableList.copyOf(items)) {
+            ids.add(item.getID());
+        }
+        return ids;
+    }
+
     class IndexerThread extends Thread {
         private boolean onlyFake;
 
@@ -702,9 +809,7 @@ public class SolrDedupServiceImpl implements DedupService {
                         List<String> tmpFilter = new ArrayList<String>();
                         fillSignature(context, (DSpaceObject) item, tmpMapFilter, tmpFilter);
                         if (!tmpFilter.isEmpty()) {
-                            // retrieve all search plugin to build search document in the same index
-                            SearchDeduplication searchSignature = dspace.getServiceManager().getServiceByName(
-                                    "item".toUpperCase() + "SearchDeduplication", SearchDeduplication.class);
+                            SearchDeduplication searchSignature = getSearchDeduplication();
                             if (onlyFake) {
                                 buildFromDedupReject(context, item, tmpMapFilter, tmpFilter, searchSignature);
                                 build(context, item.getID(), item.getID(), DeduplicationFlag.FAKE, tmpMapFilter,
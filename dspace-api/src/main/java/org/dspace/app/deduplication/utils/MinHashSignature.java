@@ -0,0 +1,229 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.app.deduplication.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import com.ibm.icu.text.Normalizer;
+import org.apache.commons.lang3.StringUtils;
+import org.dspace.content.DSpaceObject;
+import org.dspace.content.Item;
+import org.dspace.content.MetadataValue;
+import org.dspace.content.factory.ContentServiceFactory;
+import org.dspace.core.Context;
+
+/**
+ * Signature finding the near duplicates of a metadata value, and not only the values equal after normalization as
+ * {@link MD5ValueSignature}: the MinHash sketch of the character shingles of the normalized value is split in bands
+ * (locality sensitive hashing), and each band is a signature. Two values share at least a band with a high
+ * probability when the Jaccard similarity of their shingles is above the threshold, and with a low probability when
+ * it is below, so that the items sharing a signature are the candidate near duplicates.
+ * <p>
+ * The number of bands and of rows of each band are chosen from the number of hashes so that the similarity at which
+ * the probability of sharing a band rises fastest is the closest to the threshold. Changing the shingle size, the
+ * number of hashes or the threshold changes all the signatures, so the deduplication index has to be rebuilt.
+ */
+public class MinHashSignature implements Signature {
+
+    private static final long GOLDEN_RATIO = 0x9e3779b97f4a7c15L;
+
+    private String metadata;
+
+    private int resourceTypeID;
+
+    private String signatureType;
+
+    private String normalizationRegexp = "[^\\p{L}\\p{N}]";
+
+    private int shingleSize = 5;
+
+    private int numHashes = 128;
+
+    private double threshold = 0.8;
+
+    private boolean useEntityType = true;
+
+    @Override
+    public List<String> getSignature(DSpaceObject item, Context context) {
+        String scope = null;
+        if (useEntityType && item instanceof Item) {
+            scope = ContentServiceFactory.getInstance().getItemService()
+                                         .getMetadataFirstValue((Item) item, "dspace", "entity", "type", null);
+        }
+        List<String> result = new ArrayList<>();
+        List<MetadataValue> values = ContentServiceFactory.getInstance().getDSpaceObjectService(item)
+                                                          .getMetadataByMetadataString(item, metadata);
+        for (MetadataValue value : values) {
+            result.addAll(getBands(scope, value.getValue()));
+        }
+        return result;
+    }
+
+    /**
+     * @param scope the scope of the value, e.g. the entity type, as only the values of the same scope can match
+     * @param value the metadata value
+     * @return a signature for each band of the MinHash sketch of the value
+     */
+    public List<String> getBands(String scope, String value) {
+        String text = normalize(value);
+        if (text.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        long[] minHashes = new long[numHashes];
+        Arrays.fill(minHashes, Long.MAX_VALUE);
+        int size = Math.min(shingleSize, text.length());
+        for (int start = 0; start + size <= text.length(); start++) {
+            long shingle = hash(text, start, start + size);
+            for (int i = 0; i < numHashes; i++) {
+                long hash = mix(shingle ^ mix((i + 1) * GOLDEN_RATIO));
+                if (hash < minHashes[i]) {
+                    minHashes[i] = hash;
+                }
+            }
+        }
+
+        int[] layout = getLayout();
+        int bands = layout[0];
+        int rows = layout[1];
+        long scopeHash = scope != null ? hash(scope, 0, scope.length()) : 0;
+        List<String> result = new ArrayList<>(bands);
+        for (int band = 0; band < bands; band++) {
+            long hash = scopeHash + band;
+            for (int row = 0; row < rows; row++) {
+                hash = mix(hash * GOLDEN_RATIO ^ minHashes[band * rows + row]);
+            }
+            result.add(band + "-" + Long.toHexString(hash));
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of bands and of rows of each band, whose probability of a shared band rises steeply
+     *         around a similarity of (1/bands)^(1/rows), the closest to the threshold
+     */
+    public int[] getLayout() {
+        int[] layout = { numHashes, 1 };
+        double distance = Double.MAX_VALUE;
+        for (int rows = 1; rows <= numHashes; rows++) {
+            int bands = numHashes / rows;
+            double candidate = Math.abs(Math.pow(1.0 / bands, 1.0 / rows) - threshold);
+            if (candidate < distance) {
+                distance = candidate;
+                layout = new int[] { bands, rows };
+            }
+        }
+        return layout;
+    }
+
+    private String normalize(String value) {
+        if (StringUtils.isBlank(value)) {
+            return StringUtils.EMPTY;
+        }
+        String norm = Normalizer.normalize(value, Normalizer.NFD);
+        if (StringUtils.isNotBlank(normalizationRegexp)) {
+            norm = norm.replaceAll(normalizationRegexp, "");
+        }
+        return norm.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 64 bit FNV-1a hash of the characters, as the 32 bits of {@link String#hashCode()} would collide too often.
+     */
+    private static long hash(String text, int start, int end) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = start; i < end; i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * Finalization step of MurmurHash3, so that close inputs give unrelated outputs.
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    @Override
+    public String getMetadata() {
+        return metadata;
+    }
+
+    public void setMetadata(String metadata) {
+        this.metadata = metadata;
+    }
+
+    @Override
+    public int getResourceTypeID() {
+        return resourceTypeID;
+    }
+
+    public void setResourceTypeID(int resourceTypeID) {
+        this.resourceTypeID = resourceTypeID;
+    }
+
+    @Override
+    public String getSignatureType() {
+        return signatureType;
+    }
+
+    public void setSignatureType(String signatureType) {
+        this.signatureType = signatureType;
+    }
+
+    public String getNormalizationRegexp() {
+        return normalizationRegexp;
+    }
+
+    public void setNormalizationRegexp(String normalizationRegexp) {
+        this.normalizationRegexp = normalizationRegexp;
+    }
+
+    public int getShingleSize() {
+        return shingleSize;
+    }
+
+    public void setShingleSize(int shingleSize) {
+        this.shingleSize = shingleSize;
+    }
+
+    public int getNumHashes() {
+        return numHashes;
+    }
+
+    public void setNumHashes(int numHashes) {
+        this.numHashes = numHashes;
+    }
+
+    public double getThreshold() {
+        return threshold;
+    }
+
+    public void setThreshold(double threshold) {
+        this.threshold = threshold;
+    }
+
+    public boolean isUseEntityType() {
+        return useEntityType;
+    }
+
+    public void setUseEntityType(boolean useEntityType) {
+        this.useEntityType = useEntityType;
+    }
+}
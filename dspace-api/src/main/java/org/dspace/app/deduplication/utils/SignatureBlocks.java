@@ -0,0 +1,102 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.app.deduplication.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Groups the items by the signatures computed during a batch rebuild of the deduplication index, so that the
+ * potential matches are the pairs of items sharing a block instead of the result of a query for each item. Two
+ * items share a block when they have the same value for the same signature type, as in the query of the potential
+ * matches of a single item.
+ * <p>
+ * The items are added concurrently while their signatures are computed; the candidates and the shared signatures
+ * are read once all the items have been added.
+ */
+public class SignatureBlocks {
+
+    private static final Logger log = LogManager.getLogger(SignatureBlocks.class);
+
+    private final int maxBlockSize;
+
+    private final Map<String, List<UUID>> blocks = new HashMap<>();
+
+    private final Map<UUID, Map<String, List<String>>> signatures = new HashMap<>();
+
+    /**
+     * @param maxBlockSize the maximum number of items of a block, larger blocks come from signatures too generic to
+     *                     identify duplicates and are ignored
+     */
+    public SignatureBlocks(int maxBlockSize) {
+        this.maxBlockSize = maxBlockSize;
+    }
+
+    /**
+     * @param id             the id of the item
+     * @param itemSignatures the signatures of the item, by signature type
+     */
+    public synchronized void add(UUID id, Map<String, List<String>> itemSignatures) {
+        signatures.put(id, itemSignatures);
+        for (Map.Entry<String, List<String>> entry : itemSignatures.entrySet()) {
+            for (String signature : new LinkedHashSet<>(entry.getValue())) {
+                blocks.computeIfAbsent(entry.getKey() + ":" + signature, key -> new ArrayList<>()).add(id);
+            }
+        }
+    }
+
+    /**
+     * @return the pairs of items sharing at least a block, each pair once with the lower id first
+     */
+    public List<Pair<UUID, UUID>> getCandidates() {
+        Set<Pair<UUID, UUID>> candidates = new LinkedHashSet<>();
+        for (Map.Entry<String, List<UUID>> block : blocks.entrySet()) {
+            List<UUID> ids = block.getValue();
+            if (ids.size() > maxBlockSize) {
+                log.warn("Skipping the {} items sharing the signature {}", ids.size(), block.getKey());
+                continue;
+            }
+            for (int i = 0; i < ids.size(); i++) {
+                for (int j = i + 1; j < ids.size(); j++) {
+                    UUID first = ids.get(i);
+                    UUID second = ids.get(j);
+                    candidates.add(first.compareTo(second) < 0 ? Pair.of(first, second) : Pair.of(second, first));
+                }
+            }
+        }
+        return new ArrayList<>(candidates);
+    }
+
+    /**
+     * @return the signatures the given items have in common, by signature type
+     */
+    public Map<String, List<String>> getSharedSignatures(UUID firstId, UUID secondId) {
+        Map<String, List<String>> shared = new HashMap<>();
+        Map<String, List<String>> secondSignatures = signatures.get(secondId);
+        signatures.get(firstId).forEach((type, values) -> {
+            List<String> secondValues = secondSignatures.get(type);
+            if (secondValues != null) {
+                List<String> common = values.stream().filter(secondValues::contains).collect(Collectors.toList());
+                if (!common.isEmpty()) {
+                    shared.put(type, common);
+                }
+            }
+        });
+        return shared;
+    }
+}
@@ -77,6 +77,8 @@ public class MediaFilterCLITool {
                           "do not print anything except in the event of errors.");
         options.addOption("f", "force", false,
                           "force all bitstreams to be processed");
+        options.addOption("c", "incremental", false,
+                          "only process bitstreams whose checksum or filter version changed since they were filtered");
         options.addOption("i", "identifier", true,
                           "ONLY process bitstreams belonging to identifier");
         options.addOption("m", "maximum", true,
@@ -177,6 +179,7 @@ public class MediaFilterCLITool {
 
         MediaFilterService mediaFilterService = MediaFilterServiceFactory.getInstance().getMediaFilterService();
         mediaFilterService.setForce(isForce);
+        mediaFilterService.setIncremental(line.hasOption('c'));
         mediaFilterService.setQuiet(isQuiet);
         mediaFilterService.setVerbose(isVerbose);
         mediaFilterService.setMax2Process(max2Process);
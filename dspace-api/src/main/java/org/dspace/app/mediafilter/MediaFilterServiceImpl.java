@@ -8,12 +8,27 @@
 package org.dspace.app.mediafilter;
 
 import java.io.InputStream;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.collections4.ListUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.dspace.app.mediafilter.service.MediaFilterService;
 import org.dspace.authorize.service.AuthorizeService;
 import org.dspace.content.Bitstream;
@@ -32,6 +47,7 @@ import org.dspace.content.service.ItemService;
 import org.dspace.core.Constants;
 import org.dspace.core.Context;
 import org.dspace.core.SelfNamedPlugin;
+import org.dspace.eperson.EPerson;
 import org.dspace.eperson.Group;
 import org.dspace.eperson.service.GroupService;
 import org.dspace.services.ConfigurationService;
@@ -48,6 +64,8 @@ import org.springframework.beans.factory.annotation.Autowired;
  * maximum number of items.
  */
 public class MediaFilterServiceImpl implements MediaFilterService, InitializingBean {
+    private static final Logger log = LogManager.getLogger();
+
     @Autowired(required = true)
     protected AuthorizeService authorizeService;
     @Autowired(required = true)
@@ -69,9 +87,20 @@ public class MediaFilterServiceImpl implements MediaFilterService, InitializingB
 
     protected int max2Process = Integer.MAX_VALUE;  // maximum number items to process
 
-    protected int processed = 0;   // number items processed
+    protected AtomicInteger processed = new AtomicInteger();   // number items processed
+
+    // current item being processed by each thread
+    protected ThreadLocal<Item> currentItem = new ThreadLocal<>();
 
-    protected Item currentItem = null;   // current item being processed
+    // permits of the filters whose concurrency is limited, by filter key
+    protected Map<String, Semaphore> filterPermits = new ConcurrentHashMap<>();
+
+    // threads running the filters when filter-media.timeout is set, shared by all the bitstreams
+    protected final ExecutorService filterExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "media-filter");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     protected List<FormatFilter> filterClasses = null;
 
@@ -84,6 +113,7 @@ public class MediaFilterServiceImpl implements MediaFilterService, InitializingB
     protected boolean isVerbose = false;
     protected boolean isQuiet = false;
     protected boolean isForce = false; // default to not forced
+    protected boolean isIncremental = false; // only process changed sources, when not forced
 
     protected MediaFilterServiceImpl() {
 
@@ -113,10 +143,7 @@ public class MediaFilterServiceImpl implements MediaFilterService, InitializingB
             }
         } else {
             //otherwise, just find every item and process
-            Iterator<Item> itemIterator = itemService.findAll(context);
-            while (itemIterator.hasNext() && processed < max2Process) {
-                applyFiltersItem(context, itemIterator.next());
-            }
+            applyFiltersItems(context, itemService.findAll(context));
         }
     }
 
@@ -141,28 +168,107 @@ public class MediaFilterServiceImpl implements MediaFilterService, InitializingB
         throws Exception {
         //only apply filters if collection not in skip-list
         if (!inSkipList(collection.getHandle())) {
-            Iterator<Item> itemIterator = itemService.findAllByCollection(context, collection);
-            while (itemIterator.hasNext() && processed < max2Process) {
+            applyFiltersItems(context, itemService.findAllByCollection(context, collection));
+        }
+    }
+
+    /**
+     * Apply the filters to the given items, in the given context or, when
+     * filter-media.threads is more than 1, with a pool of threads each
+     * processing a batch of items with its own context, committed after each
+     * item.
+     */
+    protected void applyFiltersItems(Context context, Iterator<Item> itemIterator) throws Exception {
+        int threads = configurationService.getIntProperty("filter-media.threads", 1);
+        if (threads <= 1) {
+            while (itemIterator.hasNext() && processed.get() < max2Process) {
                 applyFiltersItem(context, itemIterator.next());
             }
+            return;
+        }
+
+        List<UUID> itemIds = new ArrayList<>();
+        while (itemIterator.hasNext()) {
+            Item item = itemIterator.next();
+            itemIds.add(item.getID());
+            context.uncacheEntity(item);
+        }
+        int batchSize = configurationService.getIntProperty("filter-media.batch-size", 20);
+        EPerson currentUser = context.getCurrentUser();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> batches = new ArrayList<>();
+            for (List<UUID> batch : ListUtils.partition(itemIds, batchSize)) {
+                batches.add(executor.submit(() -> {
+                    applyFiltersItems(currentUser, batch);
+                    return null;
+                }));
+            }
+            for (Future<?> batch : batches) {
+                try {
+                    batch.get();
+                } catch (ExecutionException e) {
+                    log.error("Error filtering a batch of items", e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
         }
     }
 
+    private void applyFiltersItems(EPerson currentUser, List<UUID> itemIds) throws Exception {
+        Context context = createContext();
+        try {
+            context.setCurrentUser(currentUser);
+            // have to be super-user to do the filtering
+            context.turnOffAuthorisationSystem();
+            for (UUID itemId : itemIds) {
+                if (processed.get() >= max2Process) {
+                    break;
+                }
+                Item item = itemService.find(context, itemId);
+                if (item != null) {
+                    applyFiltersItem(context, item);
+                    context.commit();
+                }
+            }
+            context.complete();
+        } finally {
+            if (context.isValid()) {
+                context.abort();
+            }
+        }
+    }
+
+    /**
+     * Create the context of a batch of items filtered in parallel.
+     */
+    protected Context createContext() {
+        return new Context();
+    }
+
+    /**
+     * Create the context of a filter run with a timeout, used by the filter thread only.
+     */
+    protected Context createFilterContext() {
+        return new Context(Context.Mode.READ_ONLY);
+    }
+
     @Override
     public void applyFiltersItem(Context c, Item item) throws Exception {
         //only apply filters if item not in skip-list
         if (!inSkipList(item.getHandle())) {
             //cache this item in MediaFilterManager
             //so it can be accessed by MediaFilters as necessary
-            currentItem = item;
+            currentItem.set(item);
 
             if (filterItem(c, item)) {
                 // increment processed count
-                ++processed;
+                processed.incrementAndGet();
             }
             // clear item objects from context cache and internal cache
-            c.uncacheEntity(currentItem);
-            currentItem = null;
+            c.uncacheEntity(item);
+            currentItem.remove();
         }
     }
 
@@ -329,6 +435,17 @@ public class MediaFilterServiceImpl implements MediaFilterService, InitializingB
             }
         }
 
+        // in incremental mode, overwrite the derivative of a changed source or filter
+        if (!overWrite && isIncremental && existingBitstream != null) {
+            if (!hasFilterRecord(existingBitstream)) {
+                // written before the records: assumed up to date, the changes are detected from now on
+                setFilterRecord(context, existingBitstream, source, formatFilter);
+                bitstreamService.update(context, existingBitstream);
+            } else if (!isUpToDate(existingBitstream, source, formatFilter)) {
+                overWrite = true;
+            }
+        }
+
         // if exists and overwrite = false, exit
         if (!overWrite && (existingBitstream != null)) {
             if (!isQuiet) {
@@ -352,7 +469,7 @@ public class MediaFilterServiceImpl implements MediaFilterService, InitializingB
                 InputStream srcStream = bitstreamService.retrieve(context, source);
                 // filter the source stream to produce the destination stream
                 // this is the hard work, check for OutOfMemoryErrors at the end of the try clause.
-                InputStream destStream = formatFilter.getDestinationStream(item, srcStream, isVerbose);
+                InputStream destStream = getDestinationStream(item, srcStream, formatFilter);
         ) {
             if (destStream == null) {
                 if (!isQuiet) {
@@ -378,6 +495,7 @@ public class MediaFilterServiceImpl implements MediaFilterService, InitializingB
             b.setSource(context, "Written by FormatFilter " + formatFilter.getClass().getName() +
                     " on " + DCDate.getCurrent() + " (GMT).");
             b.setDescription(context, formatFilter.getDescription());
+            setFilterRecord(context, b, source, formatFilter);
             // Set the format of the bitstream
             BitstreamFormat bf = bitstreamFormatService.findByShortDescription(context,
                     formatFilter.getFormatString());
@@ -419,9 +537,149 @@ public class MediaFilterServiceImpl implements MediaFilterService, InitializingB
         return true;
     }
 
+    /**
+     * Run the filter within its concurrency limit, the
+     * filter.&lt;class-name&gt;[.&lt;plugin-name&gt;].maxConcurrency property,
+     * and within the filter-media.timeout seconds if any.
+     * <p>
+     * With a timeout, the filter runs on a thread of a shared pool, with its own
+     * copy of the item loaded in a separate context, as a filter that timed out
+     * can't be stopped: it is abandoned, still holding its permit until it ends,
+     * while the calling thread goes on with the item.
+     */
+    protected InputStream getDestinationStream(Item item, InputStream source, FormatFilter formatFilter)
+        throws Exception {
+        Semaphore permits = getPermits(formatFilter);
+        int timeout = configurationService.getIntProperty("filter-media.timeout", 0);
+        if (permits != null) {
+            permits.acquire();
+        }
+        if (timeout <= 0) {
+            try {
+                return formatFilter.getDestinationStream(item, source, isVerbose);
+            } finally {
+                if (permits != null) {
+                    permits.release();
+                }
+            }
+        }
+
+        UUID itemId = item.getID();
+        // set by the filter thread when it starts, or by the calling thread to abandon a filter not started
+        AtomicBoolean started = new AtomicBoolean();
+        Future<InputStream> destination;
+        try {
+            destination = filterExecutor.submit(() -> {
+                if (!started.compareAndSet(false, true)) {
+                    return null;
+                }
+                Context filterContext = createFilterContext();
+                try {
+                    Item copy = itemService.find(filterContext, itemId);
+                    return formatFilter.getDestinationStream(copy, source, isVerbose);
+                } finally {
+                    filterContext.abort();
+                    if (permits != null) {
+                        permits.release();
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            if (permits != null) {
+                permits.release();
+            }
+            throw e;
+        }
+        try {
+            return destination.get(timeout, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            if (started.compareAndSet(false, true) && permits != null) {
+                permits.release();
+            }
+            // only interrupts the filters waiting for I/O or an external process
+            destination.cancel(true);
+            log.warn("Filter {} timed out after {} seconds on item {}, abandoning it",
+                     formatFilter.getClass().getName(), timeout, item.getHandle());
+            throw new IllegalStateException("Filter " + formatFilter.getClass().getName()
+                                                + " timed out after " + timeout + " seconds", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private Semaphore getPermits(FormatFilter formatFilter) {
+        String key = getFilterKey(formatFilter);
+        int maxConcurrency = configurationService.getIntProperty("filter." + key + ".maxConcurrency", 0);
+        if (maxConcurrency <= 0) {
+            return null;
+        }
+        return filterPermits.computeIfAbsent(key, k -> new Semaphore(maxConcurrency));
+    }
+
+    /**
+     * @return the key of the filter in the configuration, i.e. the class name
+     *         followed by the plugin name for the self named plugins
+     */
+    private String getFilterKey(FormatFilter formatFilter) {
+        String pluginName = null;
+        if (formatFilter instanceof SelfNamedPlugin) {
+            pluginName = ((SelfNamedPlugin) formatFilter).getPluginInstanceName();
+        }
+        return formatFilter.getClass().getName() + (pluginName != null ? "." + pluginName : "");
+    }
+
+    /**
+     * @return the version of the filter, the
+     *         filter.&lt;class-name&gt;[.&lt;plugin-name&gt;].version property
+     */
+    protected String getFilterVersion(FormatFilter formatFilter) {
+        return configurationService.getProperty("filter." + getFilterKey(formatFilter) + ".version", "1");
+    }
+
+    /**
+     * @return the checksum of the bitstream, prefixed by its algorithm
+     */
+    protected String getChecksum(Bitstream source) {
+        return source.getChecksumAlgorithm() + ":" + source.getChecksum();
+    }
+
+    /**
+     * Record in the derivative the checksum of its source and the version of
+     * its filter, in the dspace.filter.checksum and dspace.filter.version
+     * fields, to find later whether it is up to date.
+     */
+    protected void setFilterRecord(Context context, Bitstream derivative, Bitstream source,
+                                   FormatFilter formatFilter) throws SQLException {
+        bitstreamService.setMetadataSingleValue(context, derivative, "dspace", "filter", "checksum", null,
+                                                getChecksum(source));
+        bitstreamService.setMetadataSingleValue(context, derivative, "dspace", "filter", "version", null,
+                                                getFilterVersion(formatFilter));
+    }
+
+    /**
+     * @return true if the derivative records the checksum of its source
+     */
+    protected boolean hasFilterRecord(Bitstream derivative) {
+        return bitstreamService.getMetadataFirstValue(derivative, "dspace", "filter", "checksum", Item.ANY) != null;
+    }
+
+    /**
+     * @return true if the derivative has been written from the current content
+     *         of the source by the current version of the filter
+     */
+    protected boolean isUpToDate(Bitstream derivative, Bitstream source, FormatFilter formatFilter) {
+        return getChecksum(source).equals(
+                bitstreamService.getMetadataFirstValue(derivative, "dspace", "filter", "checksum", Item.ANY))
+            && getFilterVersion(formatFilter).equals(
+                bitstreamService.getMetadataFirstValue(derivative, "dspace", "filter", "version", Item.ANY));
+    }
+
     @Override
     public Item getCurrentItem() {
-        return currentItem;
+        return currentItem.get();
     }
 
     @Override
@@ -451,6 +709,11 @@ public class MediaFilterServiceImpl implements MediaFilterService, InitializingB
         this.isForce = isForce;
     }
 
+    @Override
+    public void setIncremental(boolean isIncremental) {
+        this.isIncremental = isIncremental;
+    }
+
     @Override
     public void setMax2Process(int max2Process) {
         this.max2Process = max2Process;
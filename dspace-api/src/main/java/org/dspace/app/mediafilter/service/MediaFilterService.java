@@ -117,6 +117,17 @@ public interface MediaFilterService {
 
     public void setForce(boolean isForce);
 
+    /**
+     * In incremental mode, an existing derivative is replaced only when the
+     * checksum of its source or the version of its filter changed since it
+     * was written, as recorded in its dspace.filter.checksum and
+     * dspace.filter.version fields. A derivative without them is assumed up to
+     * date and gets them recorded.
+     *
+     * @param isIncremental whether to process only the changed bitstreams
+     */
+    public void setIncremental(boolean isIncremental);
+
     public void setMax2Process(int max2Process);
 
     public void setFilterClasses(List<FormatFilter> filterClasses);
@@ -0,0 +1,56 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.app.metrics;
+
+import java.util.UUID;
+
+/**
+ * The values of a new last {@link CrisMetrics} of a resource, written without loading the resource or the
+ * previous metrics in the Hibernate session.
+ */
+public class CrisMetricsEntry {
+
+    private final UUID resourceId;
+
+    private final double metricCount;
+
+    private final Double deltaPeriod1;
+
+    private final Double deltaPeriod2;
+
+    private final String remark;
+
+    public CrisMetricsEntry(UUID resourceId, double metricCount, Double deltaPeriod1, Double deltaPeriod2,
+                            String remark) {
+        this.resourceId = resourceId;
+        this.metricCount = metricCount;
+        this.deltaPeriod1 = deltaPeriod1;
+        this.deltaPeriod2 = deltaPeriod2;
+        this.remark = remark;
+    }
+
+    public UUID getResourceId() {
+        return resourceId;
+    }
+
+    public double getMetricCount() {
+        return metricCount;
+    }
+
+    public Double getDeltaPeriod1() {
+        return deltaPeriod1;
+    }
+
+    public Double getDeltaPeriod2() {
+        return deltaPeriod2;
+    }
+
+    public String getRemark() {
+        return remark;
+    }
+}
@@ -7,11 +7,14 @@
  */
 package org.dspace.app.metrics.dao;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.dspace.app.metrics.CrisMetrics;
+import org.dspace.app.metrics.CrisMetricsEntry;
 import org.dspace.content.DSpaceObject;
 import org.dspace.core.Context;
 import org.dspace.core.GenericDAO;
@@ -48,4 +51,34 @@ public interface CrisMetricsDAO extends GenericDAO<CrisMetrics> {
     public List<CrisMetrics> findMetricByResourceIdMetricTypeAndBetweenSomeDate(Context context, String metricType,
            UUID resourceId, Date before, Date after) throws SQLException;
 
+    /**
+     * Find the count of the most recent metric of the given type acquired between two dates for each of the given
+     * resources, with a single query.
+     *
+     * @param context     DSpace context object
+     * @param metricType  the metric type
+     * @param resourceIds the uuids of the resources
+     * @param before      the start of the period, inclusive
+     * @param after       the end of the period, exclusive
+     * @return the metric count of the resources having a metric in the period
+     * @throws SQLException if database error
+     */
+    public Map<UUID, Double> findMetricCountsByResourceIdsMetricTypeAndBetweenSomeDate(Context context,
+           String metricType, Collection<UUID> resourceIds, Date before, Date after) throws SQLException;
+
+    /**
+     * Insert the given entries as the last metrics of the given type of their resources, with two JDBC batches
+     * in the transaction of the context: one marking the previous last metrics of the resources as not last,
+     * one inserting the new metrics. Entries of resources that don't exist anymore are skipped.
+     *
+     * @param context         DSpace context object
+     * @param metricType      the metric type
+     * @param acquisitionDate the acquisition date of the new metrics
+     * @param entries         the new metrics
+     * @return the number of resources that already had a last metric of the given type
+     * @throws SQLException if database error
+     */
+    public int createLastMetrics(Context context, String metricType, Date acquisitionDate,
+                                 List<CrisMetricsEntry> entries) throws SQLException;
+
 }
\ No newline at end of file
@@ -7,10 +7,18 @@
  */
 package org.dspace.app.metrics.dao;
 
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import javax.persistence.Query;
 import javax.persistence.criteria.CriteriaBuilder;
@@ -19,12 +27,15 @@ import javax.persistence.criteria.Join;
 import javax.persistence.criteria.Root;
 
 import org.dspace.app.metrics.CrisMetrics;
+import org.dspace.app.metrics.CrisMetricsEntry;
 import org.dspace.app.metrics.CrisMetrics_;
 import org.dspace.content.DSpaceObject;
 import org.dspace.content.DSpaceObject_;
 import org.dspace.content.Item_;
 import org.dspace.core.AbstractHibernateDAO;
 import org.dspace.core.Context;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
 
 /**
  * Hibernate implementation of the Database Access Object interface class for the CrisMetrics object.
@@ -136,4 +147,101 @@ public class CrisMetricsDAOImpl extends AbstractHibernateDAO<CrisMetrics> implem
         return list(context, criteriaQuery, false, CrisMetrics.class, -1, -1);
     }
 
-}
\ No newline at end of file
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<UUID, Double> findMetricCountsByResourceIdsMetricTypeAndBetweenSomeDate(Context context,
+            String metricType, Collection<UUID> resourceIds, Date before, Date after) throws SQLException {
+        Map<UUID, Double> counts = new HashMap<>();
+        if (resourceIds.isEmpty()) {
+            return counts;
+        }
+        Query query = createQuery(context,
+                "SELECT m.resource.id, m.metricCount, m.acquisitionDate FROM " + CrisMetrics.class.getSimpleName()
+                        + " m WHERE m.metricType = :metricType AND m.acquisitionDate >= :before"
+                        + " AND m.acquisitionDate < :after AND m.resource.id IN (:resourceIds)");
+        query.setParameter("metricType", metricType);
+        query.setParameter("before", before);
+        query.setParameter("after", after);
+        query.setParameter("resourceIds", resourceIds);
+        Map<UUID, Date> acquisitionDates = new HashMap<>();
+        for (Object[] row : (List<Object[]>) query.getResultList()) {
+            UUID resourceId = (UUID) row[0];
+            Date acquisitionDate = (Date) row[2];
+            Date latest = acquisitionDates.get(resourceId);
+            if (latest == null || acquisitionDate.after(latest)) {
+                acquisitionDates.put(resourceId, acquisitionDate);
+                counts.put(resourceId, (Double) row[1]);
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int createLastMetrics(Context context, String metricType, Date acquisitionDate,
+                                 List<CrisMetricsEntry> entries) throws SQLException {
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        Set<UUID> resourceIds = new HashSet<>();
+        for (CrisMetricsEntry entry : entries) {
+            resourceIds.add(entry.getResourceId());
+        }
+        // the statistics may still refer to deleted objects, that would break the foreign key
+        Query existing = createQuery(context, "SELECT d.id FROM DSpaceObject d WHERE d.id IN (:resourceIds)");
+        existing.setParameter("resourceIds", resourceIds);
+        Set<UUID> existingIds = new HashSet<>((List<UUID>) existing.getResultList());
+
+        Session session = getHibernateSession(context);
+        // pending changes of the session must be written before the statements below
+        session.flush();
+        String nextId = ((SessionFactoryImplementor) session.getSessionFactory()).getJdbcServices().getDialect()
+                .getSelectSequenceNextValString("cris_metrics_seq");
+        String update = "UPDATE cris_metrics SET last = ? WHERE metrictype = ? AND resource_id = ? AND last = ?";
+        String insert = "INSERT INTO cris_metrics (id, metrictype, metriccount, acquisitiondate, resource_id, last,"
+                + " remark, deltaperiod1, deltaperiod2) VALUES (" + nextId + ", ?, ?, ?, ?, ?, ?, ?, ?)";
+        int[] replaced = new int[1];
+        session.doWork(connection -> {
+            try (PreparedStatement updateStatement = connection.prepareStatement(update);
+                 PreparedStatement insertStatement = connection.prepareStatement(insert)) {
+                Timestamp timestamp = new Timestamp(acquisitionDate.getTime());
+                for (CrisMetricsEntry entry : entries) {
+                    if (!existingIds.contains(entry.getResourceId())) {
+                        continue;
+                    }
+                    updateStatement.setBoolean(1, false);
+                    updateStatement.setString(2, metricType);
+                    updateStatement.setObject(3, entry.getResourceId());
+                    updateStatement.setBoolean(4, true);
+                    updateStatement.addBatch();
+
+                    insertStatement.setString(1, metricType);
+                    insertStatement.setDouble(2, entry.getMetricCount());
+                    insertStatement.setTimestamp(3, timestamp);
+                    insertStatement.setObject(4, entry.getResourceId());
+                    insertStatement.setBoolean(5, true);
+                    insertStatement.setString(6, entry.getRemark());
+                    setDouble(insertStatement, 7, entry.getDeltaPeriod1());
+                    setDouble(insertStatement, 8, entry.getDeltaPeriod2());
+                    insertStatement.addBatch();
+                }
+                for (int count : updateStatement.executeBatch()) {
+                    if (count > 0) {
+                        replaced[0]++;
+                    }
+                }
+                insertStatement.executeBatch();
+            }
+        });
+        return replaced[0];
+    }
+
+    private void setDouble(PreparedStatement statement, int index, Double value) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, Types.DOUBLE);
+        } else {
+            statement.setDouble(index, value);
+        }
+    }
+
+}
@@ -9,8 +9,10 @@ package org.dspace.app.metrics.service;
 import java.sql.SQLException;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
 
 import org.dspace.app.metrics.CrisMetrics;
 import org.dspace.authorize.AuthorizeException;
@@ -69,4 +71,21 @@ public interface CrisMetricsService {
                                                        String metricType, UUID resourceId,
                                                        Date startDate, String period) throws SQLException;
 
+    /**
+     * Store the given counts as the new last metrics of the given type of many resources at once, with the same
+     * deltas of {@link #getCrisMetricByPeriod} for a week and a month, but loading the previous counts with one
+     * query per period and writing the metrics with JDBC batches. The metrics already loaded in the context are
+     * not refreshed.
+     *
+     * @param context         DSpace context object
+     * @param metricType      the CrisMetric type
+     * @param counts          the new count of each resource
+     * @param remarks         the remark of each resource
+     * @param acquisitionDate the acquisition date of the new metrics
+     * @return the number of resources that already had a last metric of the given type
+     * @throws SQLException   if database error
+     */
+    public int storeLastMetrics(Context context, String metricType, Map<UUID, Double> counts,
+                                Function<UUID, String> remarks, Date acquisitionDate) throws SQLException;
+
 }
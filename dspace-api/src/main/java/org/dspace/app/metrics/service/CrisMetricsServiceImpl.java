@@ -7,17 +7,21 @@
  */
 package org.dspace.app.metrics.service;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.time.DateUtils;
 import org.apache.logging.log4j.Logger;
 import org.dspace.app.metrics.CrisMetrics;
+import org.dspace.app.metrics.CrisMetricsEntry;
 import org.dspace.app.metrics.dao.CrisMetricsDAO;
 import org.dspace.authorize.AuthorizeException;
 import org.dspace.authorize.service.AuthorizeService;
@@ -131,6 +135,35 @@ public class CrisMetricsServiceImpl implements CrisMetricsService {
         return Optional.empty();
     }
 
+    @Override
+    public int storeLastMetrics(Context context, String metricType, Map<UUID, Double> counts,
+                                Function<UUID, String> remarks, Date acquisitionDate) throws SQLException {
+        Map<UUID, Double> lastWeek = getPeriodCounts(context, metricType, counts,
+                DateUtils.addDays(acquisitionDate, -7));
+        Map<UUID, Double> lastMonth = getPeriodCounts(context, metricType, counts,
+                DateUtils.addMonths(acquisitionDate, -1));
+        List<CrisMetricsEntry> entries = new ArrayList<>(counts.size());
+        for (Map.Entry<UUID, Double> count : counts.entrySet()) {
+            UUID resourceId = count.getKey();
+            Double week = lastWeek.get(resourceId);
+            Double month = lastMonth.get(resourceId);
+            entries.add(new CrisMetricsEntry(resourceId, count.getValue(),
+                    week != null ? count.getValue() - week : null,
+                    month != null ? count.getValue() - month : null,
+                    remarks.apply(resourceId)));
+        }
+        int replaced = crisMetricsDAO.createLastMetrics(context, metricType, acquisitionDate, entries);
+        log.info(LogHelper.getHeader(context, "store_last_cris_metrics",
+                "metric_type=" + metricType + ",count=" + entries.size()));
+        return replaced;
+    }
+
+    private Map<UUID, Double> getPeriodCounts(Context context, String metricType, Map<UUID, Double> counts,
+                                              Date date) throws SQLException {
+        return crisMetricsDAO.findMetricCountsByResourceIdsMetricTypeAndBetweenSomeDate(context, metricType,
+                counts.keySet(), getDateByDelta(date, 0), getDateByDelta(date, +1));
+    }
+
     private Optional<CrisMetrics> getPeriodStatus(Context context, String metricType, UUID resourceId, Date date)
             throws SQLException {
         List<CrisMetrics> metrics = crisMetricsDAO.findMetricByResourceIdMetricTypeAndBetweenSomeDate(context,
@@ -10,16 +10,27 @@ package org.dspace.app.sitemap;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Date;
-import java.util.Iterator;
 import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -27,25 +38,21 @@ import org.apache.commons.cli.DefaultParser;
 import org.apache.commons.cli.HelpFormatter;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
-import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.lang3.tuple.Triple;
 import org.apache.logging.log4j.Logger;
 import org.dspace.content.Collection;
 import org.dspace.content.Community;
-import org.dspace.content.Item;
 import org.dspace.content.factory.ContentServiceFactory;
 import org.dspace.content.service.CollectionService;
 import org.dspace.content.service.CommunityService;
 import org.dspace.content.service.ItemService;
 import org.dspace.core.Context;
 import org.dspace.core.LogHelper;
-import org.dspace.discovery.DiscoverQuery;
-import org.dspace.discovery.DiscoverResult;
-import org.dspace.discovery.SearchService;
-import org.dspace.discovery.SearchServiceException;
-import org.dspace.discovery.SearchUtils;
+import org.dspace.discovery.IndexPartition;
 import org.dspace.services.ConfigurationService;
 import org.dspace.services.factory.DSpaceServicesFactory;
 
@@ -67,7 +74,6 @@ public class GenerateSitemaps {
     private static final ItemService itemService = ContentServiceFactory.getInstance().getItemService();
     private static final ConfigurationService configurationService =
         DSpaceServicesFactory.getInstance().getConfigurationService();
-    private static final SearchService searchService = SearchUtils.getSearchService();
 
     /**
      * Default constructor
@@ -95,6 +101,8 @@ public class GenerateSitemaps {
         options
             .addOption("d", "delete", false,
                 "delete sitemaps dir and its contents");
+        options.addOption("i", "incremental", false,
+                          "only write again the sitemaps of the items changed since the previous run");
 
         CommandLine line = null;
 
@@ -130,7 +138,7 @@ public class GenerateSitemaps {
 
         // Note the negation (CLI options indicate NOT to generate a sitemap)
         if (!line.hasOption('b') || !line.hasOption('s')) {
-            generateSitemaps(!line.hasOption('b'), !line.hasOption('s'));
+            generateSitemaps(!line.hasOption('b'), !line.hasOption('s'), line.hasOption('i'));
         }
 
         if (line.hasOption('d')) {
@@ -161,7 +169,7 @@ public class GenerateSitemaps {
      * @throws IOException  if IO error occurs.
      */
     public static void generateSitemapsScheduled() throws IOException, SQLException {
-        generateSitemaps(true, true);
+        generateSitemaps(true, true, configurationService.getBooleanProperty("sitemap.incremental", false));
     }
 
     /**
@@ -188,6 +196,29 @@ public class GenerateSitemaps {
      *                      if IO error occurs.
      */
     public static void generateSitemaps(boolean makeHTMLMap, boolean makeSitemapOrg) throws SQLException, IOException {
+        generateSitemaps(makeHTMLMap, makeSitemapOrg, false);
+    }
+
+    /**
+     * Generate sitemap.org protocol and/or basic HTML sitemaps.
+     * <p>
+     * The items are split in shards by ranges of their UUID, and the URLs of
+     * each shard are listed in parallel in the shards directory of the
+     * sitemaps, reading only the id, the last modification date and the entity
+     * type of the items. The sitemap files are then written from the lists of
+     * all the shards. In incremental mode, the shards whose items didn't
+     * change since the previous run are not listed again.
+     *
+     * @param makeHTMLMap    if {@code true}, generate an HTML sitemap.
+     * @param makeSitemapOrg if {@code true}, generate an sitemap.org sitemap.
+     * @param incremental    if {@code true}, only list again the shards whose items changed.
+     * @throws SQLException if database error
+     *                      if a database error occurs.
+     * @throws IOException  if IO error
+     *                      if IO error occurs.
+     */
+    public static void generateSitemaps(boolean makeHTMLMap, boolean makeSitemapOrg, boolean incremental)
+        throws SQLException, IOException {
         String uiURLStem = configurationService.getProperty("dspace.ui.url");
         String sitemapStem = uiURLStem + "/sitemap";
 
@@ -195,6 +226,34 @@ public class GenerateSitemaps {
         if (!outputDir.exists() && !outputDir.mkdir()) {
             log.error("Unable to create output directory");
         }
+        File shardsDir = new File(outputDir, "shards");
+        FileUtils.forceMkdir(shardsDir);
+
+        List<File> shardFiles = new ArrayList<>();
+        File structureFile = new File(shardsDir, "structure.txt");
+        shardFiles.add(structureFile);
+
+        int threads = configurationService.getIntProperty("sitemap.threads", 4);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        List<Future<Long>> itemShards = new ArrayList<>();
+        int[] structureCounts;
+        try {
+            int shardCount = configurationService.getIntProperty("sitemap.item-shards", 16);
+            for (IndexPartition partition : IndexPartition.split(shardCount)) {
+                File shardFile = new File(shardsDir, "items-" + partition.getIndex() + ".txt");
+                shardFiles.add(shardFile);
+                itemShards.add(executor.submit(() -> listItemShard(shardFile, partition, incremental,
+                                                                   uiURLStem)));
+            }
+            structureCounts = listStructureShard(structureFile, uiURLStem);
+        } finally {
+            executor.shutdown();
+        }
+
+        long itemCount = 0;
+        for (Future<Long> itemShard : itemShards) {
+            itemCount += getShardResult(itemShard);
+        }
 
         AbstractGenerator html = null;
         AbstractGenerator sitemapsOrg = null;
@@ -207,86 +266,31 @@ public class GenerateSitemaps {
             sitemapsOrg = new SitemapsOrgGenerator(outputDir, sitemapStem, ".xml");
         }
 
-        Context c = new Context(Context.Mode.READ_ONLY);
-
-        List<Community> comms = communityService.findAll(c);
-
-        for (Community comm : comms) {
-            String url = uiURLStem + "/communities/" + comm.getID();
-
-            if (makeHTMLMap) {
-                html.addURL(url, null);
-            }
-            if (makeSitemapOrg) {
-                sitemapsOrg.addURL(url, null);
-            }
-
-            c.uncacheEntity(comm);
-        }
-
-        List<Collection> colls = collectionService.findAll(c);
-
-        for (Collection coll : colls) {
-            String url = uiURLStem + "/collections/" + coll.getID();
-
-            if (makeHTMLMap) {
-                html.addURL(url, null);
-            }
-            if (makeSitemapOrg) {
-                sitemapsOrg.addURL(url, null);
-            }
-
-            c.uncacheEntity(coll);
-        }
-
-        Iterator<Item> allItems = itemService.findAll(c);
-        int itemCount = 0;
-
-        while (allItems.hasNext()) {
-            Item i = allItems.next();
-
-            DiscoverQuery entityQuery = new DiscoverQuery();
-            entityQuery.setQuery("search.uniqueid:\"Item-" + i.getID() + "\" and entityType:*");
-            entityQuery.addSearchField("entityType");
-
-            try {
-                DiscoverResult discoverResult = searchService.search(c, entityQuery);
-
-                String url;
-                if (CollectionUtils.isNotEmpty(discoverResult.getIndexableObjects())
-                    && CollectionUtils.isNotEmpty(discoverResult.getSearchDocument(
-                        discoverResult.getIndexableObjects().get(0)).get(0).getSearchFieldValues("entityType"))
-                    && StringUtils.isNotBlank(discoverResult.getSearchDocument(
-                        discoverResult.getIndexableObjects().get(0)).get(0).getSearchFieldValues("entityType").get(0))
-                ) {
-                    url = uiURLStem + "/entities/" + StringUtils.lowerCase(discoverResult.getSearchDocument(
-                            discoverResult.getIndexableObjects().get(0))
-                        .get(0).getSearchFieldValues("entityType").get(0)) + "/" + i.getID();
-                } else {
-                    url = uiURLStem + "/items/" + i.getID();
-                }
-                Date lastMod = i.getLastModified();
-
-                if (makeHTMLMap) {
-                    html.addURL(url, lastMod);
-                }
-                if (makeSitemapOrg) {
-                    sitemapsOrg.addURL(url, lastMod);
+        for (File shardFile : shardFiles) {
+            try (BufferedReader reader = Files.newBufferedReader(shardFile.toPath(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String url = StringUtils.substringBefore(line, "\t");
+                    String lastModified = StringUtils.substringAfter(line, "\t");
+                    Date lastMod = lastModified.isEmpty() ? null : new Date(Long.parseLong(lastModified));
+
+                    if (makeHTMLMap) {
+                        html.addURL(url, lastMod);
+                    }
+                    if (makeSitemapOrg) {
+                        sitemapsOrg.addURL(url, lastMod);
+                    }
                 }
-            } catch (SearchServiceException e) {
-                log.error("Failed getting entitytype through solr for item " + i.getID() + ": " + e.getMessage());
             }
-
-            c.uncacheEntity(i);
-
-            itemCount++;
         }
 
+        Context c = new Context(Context.Mode.READ_ONLY);
+
         if (makeHTMLMap) {
             int files = html.finish();
             log.info(LogHelper.getHeader(c, "write_sitemap",
                                           "type=html,num_files=" + files + ",communities="
-                                              + comms.size() + ",collections=" + colls.size()
+                                              + structureCounts[0] + ",collections=" + structureCounts[1]
                                               + ",items=" + itemCount));
         }
 
@@ -294,13 +298,155 @@ public class GenerateSitemaps {
             int files = sitemapsOrg.finish();
             log.info(LogHelper.getHeader(c, "write_sitemap",
                                           "type=html,num_files=" + files + ",communities="
-                                              + comms.size() + ",collections=" + colls.size()
+                                              + structureCounts[0] + ",collections=" + structureCounts[1]
                                               + ",items=" + itemCount));
         }
 
         c.abort();
     }
 
+    /**
+     * List the URLs of the communities and of the collections in the given file.
+     *
+     * @return the number of communities and of collections
+     */
+    private static int[] listStructureShard(File shardFile, String uiURLStem) throws SQLException, IOException {
+        int pageSize = configurationService.getIntProperty("sitemap.page-size", 1000);
+        int[] counts = new int[2];
+        Context c = new Context(Context.Mode.READ_ONLY);
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(shardFile.toPath(),
+                                                                       StandardCharsets.UTF_8))) {
+            List<Community> comms;
+            do {
+                comms = communityService.findAll(c, pageSize, counts[0]);
+                for (Community comm : comms) {
+                    out.println(uiURLStem + "/communities/" + comm.getID() + "\t");
+                    c.uncacheEntity(comm);
+                }
+                counts[0] += comms.size();
+            } while (comms.size() == pageSize);
+
+            List<Collection> colls;
+            do {
+                colls = collectionService.findAll(c, pageSize, counts[1]);
+                for (Collection coll : colls) {
+                    out.println(uiURLStem + "/collections/" + coll.getID() + "\t");
+                    c.uncacheEntity(coll);
+                }
+                counts[1] += colls.size();
+            } while (colls.size() == pageSize);
+        } finally {
+            c.abort();
+        }
+        return counts;
+    }
+
+    /**
+     * List the URLs of the archived items of the given partition in the given
+     * file, on a read-only context of its own.
+     *
+     * @return the number of items
+     */
+    private static long listItemShard(File shardFile, IndexPartition partition, boolean incremental,
+                                      String uiURLStem) throws SQLException, IOException {
+        int pageSize = configurationService.getIntProperty("sitemap.page-size", 1000);
+        Context c = new Context(Context.Mode.READ_ONLY);
+        try {
+            return listItemShard(c, itemService, shardFile, partition, incremental, uiURLStem, pageSize);
+        } finally {
+            c.abort();
+        }
+    }
+
+    /**
+     * List the URLs and the last modification dates of the archived items of
+     * the given partition in the given file, unless in incremental mode and
+     * none of them changed since the file was written: the number of items
+     * and their latest modification date are stored next to the file, and
+     * compared with the current ones.
+     *
+     * @return the number of items
+     */
+    static long listItemShard(Context c, ItemService itemService, File shardFile, IndexPartition partition,
+                              boolean incremental, String uiURLStem, int pageSize)
+        throws SQLException, IOException {
+        Pair<Long, Date> count = itemService.countArchived(c, partition.getLowerBound(),
+                                                           partition.getUpperBound());
+        Properties state = new Properties();
+        state.setProperty("url", uiURLStem);
+        state.setProperty("partition", partition.toString());
+        state.setProperty("items", String.valueOf(count.getLeft()));
+        state.setProperty("lastModified", count.getRight() == null ? ""
+            : String.valueOf(count.getRight().getTime()));
+        File stateFile = new File(shardFile.getParentFile(),
+                                  StringUtils.removeEnd(shardFile.getName(), ".txt") + ".properties");
+        if (incremental && shardFile.isFile() && state.equals(readState(stateFile))) {
+            log.debug("Items of the sitemap shard " + partition + " unchanged");
+            return count.getLeft();
+        }
+        Files.deleteIfExists(stateFile.toPath());
+
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(shardFile.toPath(),
+                                                                       StandardCharsets.UTF_8))) {
+            UUID lowerBound = partition.getLowerBound();
+            UUID lastId = null;
+            List<Triple<UUID, Date, String>> page;
+            do {
+                page = itemService.findArchivedSummaries(c, lowerBound, partition.getUpperBound(), pageSize);
+                for (Triple<UUID, Date, String> item : page) {
+                    // skip the last item of the previous page, and the other entity types of an item
+                    if (item.getLeft().equals(lastId)) {
+                        continue;
+                    }
+                    lastId = item.getLeft();
+                    String url;
+                    if (StringUtils.isNotBlank(item.getRight())) {
+                        url = uiURLStem + "/entities/" + StringUtils.lowerCase(item.getRight()) + "/" + lastId;
+                    } else {
+                        url = uiURLStem + "/items/" + lastId;
+                    }
+                    out.println(url + "\t" + (item.getMiddle() == null ? "" : item.getMiddle().getTime()));
+                }
+                if (lastId == null || lastId.equals(lowerBound)) {
+                    break;
+                }
+                lowerBound = lastId;
+            } while (page.size() == pageSize);
+        }
+
+        try (OutputStream out = Files.newOutputStream(stateFile.toPath())) {
+            state.store(out, null);
+        }
+        return count.getLeft();
+    }
+
+    private static Properties readState(File stateFile) throws IOException {
+        Properties state = new Properties();
+        if (stateFile.isFile()) {
+            try (InputStream in = Files.newInputStream(stateFile.toPath())) {
+                state.load(in);
+            }
+        }
+        return state;
+    }
+
+    private static long getShardResult(Future<Long> shard) throws SQLException, IOException {
+        try {
+            return shard.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while listing the sitemap URLs", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
     /**
      * Ping all search engines configured in {@code dspace.cfg}.
      *
@@ -0,0 +1,107 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.authorize;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import org.dspace.authorize.factory.AuthorizeServiceFactory;
+import org.dspace.core.Constants;
+import org.dspace.core.Context;
+import org.dspace.event.Consumer;
+import org.dspace.event.Event;
+
+/**
+ * Consumer that evicts from the {@link AuthorizationDecisionCache} the decisions affected by changes to the
+ * group memberships and to the state of the objects, once the transaction holding them has been committed.
+ * The changes to the resource policies themselves are evicted by {@link ResourcePolicyServiceImpl}.
+ * <p>
+ * Changes to collections, communities and the site, as well as changes to the group hierarchy, may affect the
+ * decisions on any object through the admin inheritance and the nested groups, so they clear the whole cache.
+ */
+public class AuthorizationCacheConsumer implements Consumer {
+
+    private final Set<UUID> objects = new HashSet<>();
+    private final Set<UUID> epersons = new HashSet<>();
+    private boolean clearAll = false;
+
+    @Override
+    public void initialize() throws Exception {
+    }
+
+    @Override
+    public void consume(Context ctx, Event event) throws Exception {
+        int eventType = event.getEventType();
+        switch (event.getSubjectType()) {
+            case Constants.GROUP:
+                if (eventType == Event.DELETE
+                    || ((eventType == Event.ADD || eventType == Event.REMOVE)
+                        && event.getObjectType() == Constants.GROUP)) {
+                    clearAll = true;
+                } else if ((eventType == Event.ADD || eventType == Event.REMOVE) && event.getObjectID() != null) {
+                    epersons.add(event.getObjectID());
+                }
+                break;
+            case Constants.EPERSON:
+                if (eventType == Event.MODIFY || eventType == Event.DELETE) {
+                    epersons.add(event.getSubjectID());
+                }
+                break;
+            case Constants.ITEM:
+            case Constants.BUNDLE:
+            case Constants.BITSTREAM:
+                if (eventType != Event.MODIFY_METADATA && eventType != Event.CREATE) {
+                    objects.add(event.getSubjectID());
+                    if (event.getObjectID() != null) {
+                        objects.add(event.getObjectID());
+                    }
+                }
+                break;
+            case Constants.COLLECTION:
+            case Constants.COMMUNITY:
+                if ((eventType == Event.ADD || eventType == Event.REMOVE)
+                    && event.getObjectType() == Constants.ITEM) {
+                    objects.add(event.getObjectID());
+                } else if (eventType != Event.MODIFY_METADATA && eventType != Event.CREATE) {
+                    clearAll = true;
+                }
+                break;
+            case Constants.SITE:
+                if (eventType != Event.MODIFY_METADATA) {
+                    clearAll = true;
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public void end(Context ctx) throws Exception {
+        AuthorizationDecisionCache cache = AuthorizeServiceFactory.getInstance().getAuthorizationDecisionCache();
+        // a decision evicted before the commit could be taken again from the old state and cached
+        if (cache.isEnabled() && clearAll) {
+            ctx.addAfterCommitCallback(cache::invalidateAll);
+        } else if (cache.isEnabled() && (!objects.isEmpty() || !epersons.isEmpty())) {
+            Set<UUID> modifiedObjects = new HashSet<>(objects);
+            Set<UUID> modifiedEPersons = new HashSet<>(epersons);
+            ctx.addAfterCommitCallback(() -> {
+                modifiedObjects.forEach(cache::invalidateObject);
+                modifiedEPersons.forEach(cache::invalidateEPerson);
+            });
+        }
+        clearAll = false;
+        objects.clear();
+        epersons.clear();
+    }
+
+    @Override
+    public void finish(Context ctx) throws Exception {
+    }
+}
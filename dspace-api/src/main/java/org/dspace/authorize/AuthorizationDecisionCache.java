@@ -0,0 +1,269 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.authorize;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PostConstruct;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.dspace.content.Bitstream;
+import org.dspace.content.Bundle;
+import org.dspace.content.DSpaceObject;
+import org.dspace.content.Item;
+import org.dspace.core.Constants;
+import org.dspace.core.Context;
+import org.dspace.eperson.EPerson;
+import org.dspace.services.ConfigurationService;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Node-wide cache of the decisions taken by {@link AuthorizeServiceImpl}, shared by all the contexts.
+ * <p>
+ * A decision is identified by the object, the action, the inheritance flag, the eperson and the special
+ * groups of the context. Decisions are evicted after <code>authorize.cache.ttl</code> seconds, when the cache
+ * exceeds <code>authorize.cache.max-size</code> entries and, precisely, once the change is committed: by
+ * {@link ResourcePolicyServiceImpl} when the policies of an object change and by the
+ * {@link AuthorizationCacheConsumer} when the group memberships or the items change.
+ * <p>
+ * A decision is only stored if no eviction happened while it was taken, as it may have been computed from
+ * the policies of before the change. A context that changed policies or groups takes its decisions from the
+ * database until it is committed, so that they are neither served from the cache nor stored in it.
+ * <p>
+ * The cache is disabled unless <code>authorize.cache.enabled</code> is true.
+ */
+public class AuthorizationDecisionCache {
+
+    private static final Logger log = LogManager.getLogger();
+
+    @Autowired(required = true)
+    private ConfigurationService configurationService;
+
+    private boolean enabled;
+
+    private Cache<Key, Decision> cache;
+
+    /**
+     * Incremented before each eviction, so that the decisions taken meanwhile are not stored
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        enabled = configurationService.getBooleanProperty("authorize.cache.enabled", false);
+        long maxSize = configurationService.getLongProperty("authorize.cache.max-size", 10000);
+        long ttl = configurationService.getLongProperty("authorize.cache.ttl", 300);
+        cache = CacheBuilder.newBuilder()
+                            .maximumSize(maxSize)
+                            .expireAfterWrite(ttl, TimeUnit.SECONDS)
+                            .recordStats()
+                            .build();
+        if (enabled) {
+            log.info("Shared authorization cache enabled, max size {}, ttl {} seconds", maxSize, ttl);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Check if the given context can use the shared cache.
+     *
+     * @param context the DSpace context
+     * @return true if the cache is enabled and the context has no uncommitted changes
+     */
+    public boolean isUsable(Context context) {
+        return enabled && !context.hasEvents() && !context.hasAfterCommitCallbacks();
+    }
+
+    /**
+     * @return the current generation of the cache, to read before taking a decision that will be stored
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * @return the cached decision, or null if it has not been taken yet
+     */
+    public Boolean get(Context context, DSpaceObject dso, int action, EPerson eperson, boolean useInheritance) {
+        Decision decision = cache.getIfPresent(new Key(context, dso, action, eperson, useInheritance));
+        return decision != null ? decision.authorized : null;
+    }
+
+    /**
+     * Store a decision, together with the objects whose changes invalidate it. The decision is discarded if
+     * an eviction happened since the given generation.
+     *
+     * @param generation the generation of the cache read before the decision was taken
+     */
+    public void put(Context context, DSpaceObject dso, int action, EPerson eperson, boolean useInheritance,
+                    boolean authorized, long generation) {
+        if (this.generation.get() != generation) {
+            return;
+        }
+        Key key = new Key(context, dso, action, eperson, useInheritance);
+        cache.put(key, new Decision(authorized, getDependencies(dso)));
+        if (this.generation.get() != generation) {
+            // an eviction started meanwhile and may have missed the decision
+            cache.invalidate(key);
+        }
+    }
+
+    /**
+     * Evict the decisions on the object with the given id and on the objects contained in it.
+     *
+     * @param id the id of the modified object
+     */
+    public void invalidateObject(UUID id) {
+        generation.incrementAndGet();
+        cache.asMap().entrySet().removeIf(entry -> entry.getValue().dependencies.contains(id));
+    }
+
+    /**
+     * Evict the decisions taken for the eperson with the given id.
+     *
+     * @param id the id of the eperson whose memberships changed
+     */
+    public void invalidateEPerson(UUID id) {
+        generation.incrementAndGet();
+        cache.asMap().keySet().removeIf(key -> Objects.equals(key.eperson, id));
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    /**
+     * Evict the decisions affected by a change to the policies of the given object once the change is
+     * committed. The policies of collections, communities and the site are inherited by the objects they
+     * contain, so their changes evict all the decisions.
+     *
+     * @param context the context holding the change
+     * @param dso     the object whose policies changed, null if the policies of many objects changed
+     */
+    public void invalidateAfterCommit(Context context, DSpaceObject dso) {
+        if (!enabled) {
+            return;
+        }
+        if (dso == null || dso.getType() == Constants.COLLECTION || dso.getType() == Constants.COMMUNITY
+            || dso.getType() == Constants.SITE) {
+            context.addAfterCommitCallback(this::invalidateAll);
+        } else {
+            UUID id = dso.getID();
+            context.addAfterCommitCallback(() -> invalidateObject(id));
+        }
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public long getHitCount() {
+        return cache.stats().hitCount();
+    }
+
+    public long getMissCount() {
+        return cache.stats().missCount();
+    }
+
+    public long getEvictionCount() {
+        return cache.stats().evictionCount();
+    }
+
+    /**
+     * @return the hit, miss and eviction statistics of the cache
+     */
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    /**
+     * The decisions on bundles and bitstreams also depend on the state of their items, e.g. custom
+     * policies are ignored while the item is in workspace or workflow.
+     */
+    private Set<UUID> getDependencies(DSpaceObject dso) {
+        Set<UUID> dependencies = new HashSet<>();
+        dependencies.add(dso.getID());
+        List<Bundle> bundles = new ArrayList<>();
+        if (dso instanceof Bitstream) {
+            bundles.addAll(((Bitstream) dso).getBundles());
+        } else if (dso instanceof Bundle) {
+            bundles.add((Bundle) dso);
+        }
+        for (Bundle bundle : bundles) {
+            dependencies.add(bundle.getID());
+            for (Item item : bundle.getItems()) {
+                dependencies.add(item.getID());
+            }
+        }
+        return dependencies;
+    }
+
+    private static final class Decision {
+        private final boolean authorized;
+        private final Set<UUID> dependencies;
+
+        private Decision(boolean authorized, Set<UUID> dependencies) {
+            this.authorized = authorized;
+            this.dependencies = dependencies;
+        }
+    }
+
+    private static final class Key {
+        private final UUID object;
+        private final int action;
+        private final UUID eperson;
+        private final boolean useInheritance;
+        private final Set<UUID> specialGroups;
+
+        private Key(Context context, DSpaceObject dso, int action, EPerson eperson, boolean useInheritance) {
+            this.object = dso.getID();
+            this.action = action;
+            this.eperson = eperson != null ? eperson.getID() : null;
+            this.useInheritance = useInheritance;
+            List<UUID> groups = context.getSpecialGroupUuids();
+            this.specialGroups = groups.isEmpty() ? Collections.emptySet() : new HashSet<>(groups);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return action == key.action && useInheritance == key.useInheritance && object.equals(key.object)
+                && Objects.equals(eperson, key.eperson) && specialGroups.equals(key.specialGroups);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(object, action, eperson, useInheritance, specialGroups);
+        }
+    }
+}
@@ -78,6 +78,8 @@ public class AuthorizeServiceImpl implements AuthorizeService {
     protected WorkflowItemService workflowItemService;
     @Autowired(required = true)
     private SearchService searchService;
+    @Autowired(required = true)
+    private AuthorizationDecisionCache authorizationDecisionCache;
 
 
     protected AuthorizeServiceImpl() {
@@ -246,6 +248,36 @@ public class AuthorizeServiceImpl implements AuthorizeService {
             return cachedResult;
         }
 
+        // If the same decision was taken by another context and cached
+        if (!authorizationDecisionCache.isUsable(c)) {
+            return authorizeWithPolicies(c, o, action, e, useInheritance);
+        }
+        Boolean sharedResult = authorizationDecisionCache.get(c, o, action, e, useInheritance);
+        if (sharedResult != null) {
+            return sharedResult;
+        }
+        long generation = authorizationDecisionCache.getGeneration();
+        boolean result = authorizeWithPolicies(c, o, action, e, useInheritance);
+        authorizationDecisionCache.put(c, o, action, e, useInheritance, result, generation);
+        return result;
+    }
+
+    /**
+     * Check the policies to see if the given user can perform the given action on the given object.
+     *
+     * @param c              current context
+     * @param o              object action is being attempted on
+     * @param action         ID of action being attempted, from
+     *                       <code>org.dspace.core.Constants</code>
+     * @param e              user attempting action
+     * @param useInheritance flag to say if ADMIN action on the current object or parent
+     *                       object can be used
+     * @return <code>true</code> if user is authorized to perform the given
+     * action, <code>false</code> otherwise
+     * @throws SQLException if database error
+     */
+    protected boolean authorizeWithPolicies(Context c, DSpaceObject o, int action, EPerson e,
+                                            boolean useInheritance) throws SQLException {
         // is eperson set? if not, userToCheck = null (anonymous)
         EPerson userToCheck = null;
         if (e != null) {
@@ -51,6 +51,9 @@ public class ResourcePolicyServiceImpl implements ResourcePolicyService {
     @Autowired
     private GroupService groupService;
 
+    @Autowired(required = true)
+    private AuthorizationDecisionCache authorizationDecisionCache;
+
     protected ResourcePolicyServiceImpl() {
     }
 
@@ -140,6 +143,7 @@ public class ResourcePolicyServiceImpl implements ResourcePolicyService {
         // FIXME: authorizations
         // Remove ourself
         resourcePolicyDAO.delete(context, resourcePolicy);
+        authorizationDecisionCache.invalidateAfterCommit(context, resourcePolicy.getdSpaceObject());
 
         context.turnOffAuthorisationSystem();
         if (resourcePolicy.getdSpaceObject() != null) {
@@ -219,6 +223,7 @@ public class ResourcePolicyServiceImpl implements ResourcePolicyService {
     @Override
     public void removeAllPolicies(Context c, DSpaceObject o) throws SQLException, AuthorizeException {
         resourcePolicyDAO.deleteByDso(c, o);
+        authorizationDecisionCache.invalidateAfterCommit(c, o);
         c.turnOffAuthorisationSystem();
         contentServiceFactory.getDSpaceObjectService(o).updateLastModified(c, o);
         c.restoreAuthSystemState();
@@ -227,6 +232,7 @@ public class ResourcePolicyServiceImpl implements ResourcePolicyService {
     @Override
     public void removePolicies(Context c, DSpaceObject o, String type) throws SQLException, AuthorizeException {
         resourcePolicyDAO.deleteByDsoAndType(c, o, type);
+        authorizationDecisionCache.invalidateAfterCommit(c, o);
         c.turnOffAuthorisationSystem();
         contentServiceFactory.getDSpaceObjectService(o).updateLastModified(c, o);
         c.restoreAuthSystemState();
@@ -236,6 +242,7 @@ public class ResourcePolicyServiceImpl implements ResourcePolicyService {
     public void removeDsoGroupPolicies(Context context, DSpaceObject dso, Group group)
         throws SQLException, AuthorizeException {
         resourcePolicyDAO.deleteByDsoGroupPolicies(context, dso, group);
+        authorizationDecisionCache.invalidateAfterCommit(context, dso);
         context.turnOffAuthorisationSystem();
         contentServiceFactory.getDSpaceObjectService(dso).updateLastModified(context, dso);
         context.restoreAuthSystemState();
@@ -245,6 +252,7 @@ public class ResourcePolicyServiceImpl implements ResourcePolicyService {
     public void removeDsoEPersonPolicies(Context context, DSpaceObject dso, EPerson ePerson)
         throws SQLException, AuthorizeException {
         resourcePolicyDAO.deleteByDsoEPersonPolicies(context, dso, ePerson);
+        authorizationDecisionCache.invalidateAfterCommit(context, dso);
         context.turnOffAuthorisationSystem();
         contentServiceFactory.getDSpaceObjectService(dso).updateLastModified(context, dso);
         context.restoreAuthSystemState();
@@ -254,11 +262,13 @@ public class ResourcePolicyServiceImpl implements ResourcePolicyService {
     @Override
     public void removeAllEPersonPolicies(Context context, EPerson ePerson) throws SQLException, AuthorizeException {
         resourcePolicyDAO.deleteByEPerson(context, ePerson);
+        authorizationDecisionCache.invalidateAfterCommit(context, null);
     }
 
     @Override
     public void removeGroupPolicies(Context c, Group group) throws SQLException {
         resourcePolicyDAO.deleteByGroup(c, group);
+        authorizationDecisionCache.invalidateAfterCommit(c, null);
     }
 
     @Override
@@ -267,6 +277,7 @@ public class ResourcePolicyServiceImpl implements ResourcePolicyService {
             removeAllPolicies(c, o);
         } else {
             resourcePolicyDAO.deleteByDsoAndAction(c, o, actionId);
+            authorizationDecisionCache.invalidateAfterCommit(c, o);
             c.turnOffAuthorisationSystem();
             contentServiceFactory.getDSpaceObjectService(o).updateLastModified(c, o);
             c.restoreAuthSystemState();
@@ -277,6 +288,7 @@ public class ResourcePolicyServiceImpl implements ResourcePolicyService {
     public void removeDsoAndTypeNotEqualsToPolicies(Context c, DSpaceObject o, String type)
         throws SQLException, AuthorizeException {
         resourcePolicyDAO.deleteByDsoAndTypeNotEqualsTo(c, o, type);
+        authorizationDecisionCache.invalidateAfterCommit(c, o);
         c.turnOffAuthorisationSystem();
         contentServiceFactory.getDSpaceObjectService(o).updateLastModified(c, o);
         c.restoreAuthSystemState();
@@ -316,6 +328,7 @@ public class ResourcePolicyServiceImpl implements ResourcePolicyService {
             //Update the last modified timestamp of all related DSpace Objects
             context.turnOffAuthorisationSystem();
             for (DSpaceObject dSpaceObject : relatedDSpaceObjects) {
+                authorizationDecisionCache.invalidateAfterCommit(context, dSpaceObject);
                 //A policy for a DSpace Object has been modified, fire a modify event on the DSpace object
                 contentServiceFactory.getDSpaceObjectService(dSpaceObject).updateLastModified(context, dSpaceObject);
             }
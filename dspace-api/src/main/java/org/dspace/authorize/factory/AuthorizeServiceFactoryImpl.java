@@ -7,6 +7,7 @@
  */
 package org.dspace.authorize.factory;
 
+import org.dspace.authorize.AuthorizationDecisionCache;
 import org.dspace.authorize.service.AuthorizeService;
 import org.dspace.authorize.service.ResourcePolicyService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,6 +24,8 @@ public class AuthorizeServiceFactoryImpl extends AuthorizeServiceFactory {
     private AuthorizeService authorizeService;
     @Autowired(required = true)
     private ResourcePolicyService resourcePolicyService;
+    @Autowired(required = true)
+    private AuthorizationDecisionCache authorizationDecisionCache;
 
     @Override
     public AuthorizeService getAuthorizeService() {
@@ -33,4 +36,9 @@ public class AuthorizeServiceFactoryImpl extends AuthorizeServiceFactory {
     public ResourcePolicyService getResourcePolicyService() {
         return resourcePolicyService;
     }
+
+    @Override
+    public AuthorizationDecisionCache getAuthorizationDecisionCache() {
+        return authorizationDecisionCache;
+    }
 }
@@ -0,0 +1,96 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.checker;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the bytes per second read by all the streams wrapped by the same
+ * limiter, so that the checksum checker reading with many threads doesn't
+ * starve the other users of the asset store.
+ */
+public class ByteRateLimiter {
+
+    private final long bytesPerSecond;
+
+    /**
+     * The time at which the bytes read so far are within the limit.
+     */
+    private long nextFree = System.nanoTime();
+
+    /**
+     * @param bytesPerSecond the maximum number of bytes read per second
+     */
+    public ByteRateLimiter(long bytesPerSecond) {
+        if (bytesPerSecond <= 0) {
+            throw new IllegalArgumentException("The bytes per second must be positive");
+        }
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    /**
+     * Account the given bytes, waiting until the bytes read before them are
+     * within the limit.
+     *
+     * @param bytes the number of bytes read
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void acquire(long bytes) throws InterruptedException {
+        long wait;
+        synchronized (this) {
+            long now = System.nanoTime();
+            if (nextFree < now) {
+                nextFree = now;
+            }
+            wait = nextFree - now;
+            nextFree += TimeUnit.SECONDS.toNanos(bytes) / bytesPerSecond;
+        }
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    /**
+     * @param in the stream to read
+     * @return a stream reading the given one within the limit
+     */
+    public InputStream limit(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int read = super.read();
+                if (read != -1) {
+                    account(1);
+                }
+                return read;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int read = super.read(b, off, len);
+                if (read > 0) {
+                    account(read);
+                }
+                return read;
+            }
+
+            private void account(int bytes) throws IOException {
+                try {
+                    acquire(bytes);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException(e.getMessage());
+                }
+            }
+        };
+    }
+}
@@ -8,11 +8,23 @@
 package org.dspace.checker;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.collections4.MapUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.Logger;
 import org.dspace.checker.factory.CheckerServiceFactory;
 import org.dspace.checker.service.ChecksumHistoryService;
@@ -20,6 +32,9 @@ import org.dspace.checker.service.ChecksumResultService;
 import org.dspace.checker.service.MostRecentChecksumService;
 import org.dspace.content.Bitstream;
 import org.dspace.core.Context;
+import org.dspace.core.Utils;
+import org.dspace.services.ConfigurationService;
+import org.dspace.services.factory.DSpaceServicesFactory;
 import org.dspace.storage.bitstore.factory.StorageServiceFactory;
 import org.dspace.storage.bitstore.service.BitstreamStorageService;
 
@@ -78,17 +93,63 @@ public final class CheckerCommand {
      */
     private boolean reportVerbose = false;
 
+    /**
+     * Number of threads reading the bitstreams, the checker.threads property.
+     */
+    private int threads;
+
+    /**
+     * Number of results recorded in the same transaction when reading with
+     * many threads, the checker.batch-size property.
+     */
+    private int batchSize;
+
+    /**
+     * Limit of the bytes read per second by all the threads, from the
+     * checker.max-bytes-per-second property, null if unlimited.
+     */
+    private ByteRateLimiter rateLimiter;
+
+    /**
+     * The asset store numbers whose bitstreams are read first, from the
+     * checker.store-priority property, e.g. the stores on faster media.
+     */
+    private List<Integer> storePriority = new ArrayList<>();
+
     /**
      * Default constructor uses DSpace plugin manager to construct dependencies.
      *
      * @param context Context
      */
     public CheckerCommand(Context context) {
-        checksumService = CheckerServiceFactory.getInstance().getMostRecentChecksumService();
-        checksumHistoryService = CheckerServiceFactory.getInstance().getChecksumHistoryService();
-        bitstreamStorageService = StorageServiceFactory.getInstance().getBitstreamStorageService();
-        checksumResultService = CheckerServiceFactory.getInstance().getChecksumResultService();
+        this(context, CheckerServiceFactory.getInstance().getMostRecentChecksumService(),
+             CheckerServiceFactory.getInstance().getChecksumHistoryService(),
+             StorageServiceFactory.getInstance().getBitstreamStorageService(),
+             CheckerServiceFactory.getInstance().getChecksumResultService(),
+             DSpaceServicesFactory.getInstance().getConfigurationService());
+    }
+
+    /**
+     * Constructor with the given dependencies.
+     */
+    CheckerCommand(Context context, MostRecentChecksumService checksumService,
+                   ChecksumHistoryService checksumHistoryService, BitstreamStorageService bitstreamStorageService,
+                   ChecksumResultService checksumResultService, ConfigurationService configurationService) {
+        this.checksumService = checksumService;
+        this.checksumHistoryService = checksumHistoryService;
+        this.bitstreamStorageService = bitstreamStorageService;
+        this.checksumResultService = checksumResultService;
         this.context = context;
+
+        threads = configurationService.getIntProperty("checker.threads", 1);
+        batchSize = Math.max(1, configurationService.getIntProperty("checker.batch-size", 100));
+        long maxBytesPerSecond = configurationService.getLongProperty("checker.max-bytes-per-second", 0);
+        if (maxBytesPerSecond > 0) {
+            rateLimiter = new ByteRateLimiter(maxBytesPerSecond);
+        }
+        for (String store : configurationService.getArrayProperty("checker.store-priority")) {
+            storePriority.add(Integer.valueOf(store.trim()));
+        }
     }
 
     /**
@@ -120,22 +181,140 @@ public final class CheckerCommand {
         // bitstream table - this always done.
         checksumService.updateMissingBitstreams(context);
 
+        if (threads > 1) {
+            processInParallel();
+            return;
+        }
+
         Bitstream bitstream = dispatcher.next();
 
         while (bitstream != null) {
             LOG.debug("Processing bitstream id = " + bitstream.getID());
             MostRecentChecksum info = checkBitstream(bitstream);
-
-            if (reportVerbose
-                || !ChecksumResultCode.CHECKSUM_MATCH.equals(info.getChecksumResult().getResultCode())) {
-                collector.collect(context, info);
-            }
+            collect(info);
 
             context.uncacheEntity(bitstream);
             bitstream = dispatcher.next();
         }
     }
 
+    /**
+     * Check the bitstreams of the dispatcher with a pool of threads reading
+     * them, by batches of checker.batch-size bitstreams read in the order of
+     * the store priority. The database is only accessed by the calling
+     * thread, that records the results of a batch once all its bitstreams
+     * have been read.
+     *
+     * @throws SQLException if database error
+     */
+    protected void processInParallel() throws SQLException {
+        ExecutorService readers = Executors.newFixedThreadPool(threads);
+        try {
+            Bitstream bitstream = dispatcher.next();
+            while (bitstream != null) {
+                List<ChecksumTask> tasks = new ArrayList<>();
+                List<MostRecentChecksum> checked = new ArrayList<>();
+                List<Bitstream> bitstreams = new ArrayList<>();
+                while (bitstream != null && tasks.size() + checked.size() < batchSize) {
+                    LOG.debug("Processing bitstream id = " + bitstream.getID());
+                    MostRecentChecksum info = checksumService.findByBitstream(context, bitstream);
+                    if (info != null && info.isToBeProcessed() && !info.getBitstream().isDeleted()) {
+                        // mark the bitstream as processed, so that the dispatcher moves to the next one
+                        info.setProcessStartDate(new Date());
+                        info.setProcessEndDate(info.getProcessStartDate());
+                        tasks.add(new ChecksumTask(info));
+                    } else {
+                        info = checkBitstream(bitstream);
+                        collect(info);
+                        checked.add(info);
+                    }
+                    bitstreams.add(bitstream);
+                    bitstream = dispatcher.next();
+                }
+
+                checked.addAll(readBatch(readers, tasks));
+                // the markers of the batch are only committed with its results
+                context.commit();
+                for (MostRecentChecksum info : checked) {
+                    checksumService.uncache(context, info);
+                }
+                for (Bitstream checkedBitstream : bitstreams) {
+                    context.uncacheEntity(checkedBitstream);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while checking the bitstreams", e);
+        } finally {
+            readers.shutdownNow();
+        }
+    }
+
+    /**
+     * Read the bitstreams of a batch with the pool of threads, those of the
+     * stores with the highest priority first, and record their results.
+     *
+     * @return the results of the batch
+     */
+    private List<MostRecentChecksum> readBatch(ExecutorService readers, List<ChecksumTask> tasks)
+        throws SQLException, InterruptedException {
+        // stable sort, the bitstreams of the same store are read in dispatch order
+        tasks.sort(Comparator.comparingInt(task -> task.priority));
+        List<Future<?>> reads = new ArrayList<>();
+        for (ChecksumTask task : tasks) {
+            reads.add(readers.submit(task));
+        }
+        List<MostRecentChecksum> results = new ArrayList<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            try {
+                reads.get(i).get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Error reading a bitstream", e.getCause());
+            }
+            ChecksumTask task = tasks.get(i);
+            recordChecksum(task.info, task.checksumMap, task.error);
+            collect(task.info);
+            checksumService.update(context, task.info);
+            checksumHistoryService.addHistory(context, task.info);
+            results.add(task.info);
+        }
+        return results;
+    }
+
+    private void collect(MostRecentChecksum info) {
+        if (reportVerbose
+            || !ChecksumResultCode.CHECKSUM_MATCH.equals(info.getChecksumResult().getResultCode())) {
+            collector.collect(context, info);
+        }
+    }
+
+    /**
+     * Reads a bitstream in one of the threads.
+     */
+    private class ChecksumTask implements Runnable {
+        private final MostRecentChecksum info;
+        private final int priority;
+        private Map checksumMap;
+        private IOException error;
+
+        ChecksumTask(MostRecentChecksum info) {
+            this.info = info;
+            int index = storePriority.indexOf(info.getBitstream().getStoreNumber());
+            this.priority = index >= 0 ? index : storePriority.size();
+        }
+
+        @Override
+        public void run() {
+            try {
+                checksumMap = computeChecksum(info.getBitstream());
+            } catch (IOException e) {
+                error = e;
+            } catch (RuntimeException e) {
+                error = new IOException(e);
+            }
+        }
+    }
+
     /**
      * Check a specified bitstream.
      *
@@ -244,8 +423,70 @@ public final class CheckerCommand {
     protected void processBitstream(MostRecentChecksum info) throws SQLException {
         info.setProcessStartDate(new Date());
 
+        Map checksumMap = null;
+        IOException error = null;
+        try {
+            checksumMap = computeChecksum(info.getBitstream());
+        } catch (IOException e) {
+            error = e;
+        }
+
+        try {
+            recordChecksum(info, checksumMap, error);
+        } finally {
+            // record new checksum and comparison result in db
+            checksumService.update(context, info);
+            checksumHistoryService.addHistory(context, info);
+        }
+    }
+
+    /**
+     * Read the bitstream to compute its checksum. When the reads are limited,
+     * the bitstream is read here through the limit, with the algorithm of its
+     * stored checksum; otherwise the checksum is computed by its store. Only
+     * the asset store is accessed, not the database, so that the checksums
+     * can be computed by many threads.
+     *
+     * @param bitstream the bitstream to read
+     * @return the checksum and the checksum algorithm, null if the bitstream
+     *         is not in the asset store
+     * @throws IOException if the bitstream can't be read
+     */
+    protected Map computeChecksum(Bitstream bitstream) throws IOException {
+        if (rateLimiter == null) {
+            return bitstreamStorageService.computeChecksum(context, bitstream);
+        }
+        String algorithm = StringUtils.defaultIfBlank(bitstream.getChecksumAlgorithm(), "MD5");
+        try (InputStream in = rateLimiter.limit(bitstreamStorageService.retrieve(context, bitstream))) {
+            MessageDigest digest = MessageDigest.getInstance(algorithm);
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            Map<String, String> checksumMap = new HashMap<>();
+            checksumMap.put("checksum", Utils.toHex(digest.digest()));
+            checksumMap.put("checksum_algorithm", algorithm);
+            return checksumMap;
+        } catch (NoSuchAlgorithmException | SQLException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Record the computed checksum and the result of its comparison with the
+     * expected one in the given info, without storing it.
+     *
+     * @param info        BitstreamInfo to handle
+     * @param checksumMap the checksum computed from the asset store
+     * @param error       the error reading the bitstream, if any
+     * @throws SQLException if database error
+     */
+    protected void recordChecksum(MostRecentChecksum info, Map checksumMap, IOException error) throws SQLException {
         try {
-            Map checksumMap = bitstreamStorageService.computeChecksum(context, info.getBitstream());
+            if (error != null) {
+                throw error;
+            }
             if (MapUtils.isNotEmpty(checksumMap)) {
                 info.setBitstreamFound(true);
                 if (checksumMap.containsKey("checksum")) {
@@ -274,10 +515,6 @@ public final class CheckerCommand {
                           + info.getBitstream().getID(), e);
         } finally {
             info.setProcessEndDate(new Date());
-
-            // record new checksum and comparison result in db
-            checksumService.update(context, info);
-            checksumHistoryService.addHistory(context, info);
         }
     }
 
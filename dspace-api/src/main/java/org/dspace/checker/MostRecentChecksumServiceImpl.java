@@ -188,4 +188,9 @@ public class MostRecentChecksumServiceImpl implements MostRecentChecksumService
     public void update(Context context, MostRecentChecksum mostRecentChecksum) throws SQLException {
         mostRecentChecksumDAO.save(context, mostRecentChecksum);
     }
+
+    @Override
+    public void uncache(Context context, MostRecentChecksum mostRecentChecksum) throws SQLException {
+        mostRecentChecksumDAO.uncache(context, mostRecentChecksum);
+    }
 }
@@ -42,4 +42,6 @@ public interface MostRecentChecksumDAO extends GenericDAO<MostRecentChecksum> {
     public List<MostRecentChecksum> findNotInHistory(Context context) throws SQLException;
 
     public MostRecentChecksum findByBitstream(Context context, Bitstream bitstream) throws SQLException;
+
+    public void uncache(Context context, MostRecentChecksum mostRecentChecksum) throws SQLException;
 }
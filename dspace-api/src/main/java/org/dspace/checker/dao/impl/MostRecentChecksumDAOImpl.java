@@ -30,6 +30,7 @@ import org.dspace.checker.dao.MostRecentChecksumDAO;
 import org.dspace.content.Bitstream;
 import org.dspace.core.AbstractHibernateDAO;
 import org.dspace.core.Context;
+import org.hibernate.Session;
 
 /**
  * Hibernate implementation of the Database Access Object interface class for the MostRecentChecksum object.
@@ -161,4 +162,12 @@ public class MostRecentChecksumDAOImpl extends AbstractHibernateDAO<MostRecentCh
 
         return list(context, criteriaQuery, false, MostRecentChecksum.class, -1, -1);
     }
+
+    @Override
+    public void uncache(Context context, MostRecentChecksum mostRecentChecksum) throws SQLException {
+        Session session = getHibernateSession(context);
+        if (session.contains(mostRecentChecksum)) {
+            session.evict(mostRecentChecksum);
+        }
+    }
 }
@@ -46,4 +46,13 @@ public interface MostRecentChecksumService {
     public List<MostRecentChecksum> findNotInHistory(Context context) throws SQLException;
 
     public void update(Context context, MostRecentChecksum mostRecentChecksum) throws SQLException;
+
+    /**
+     * Remove the given record from the cache of the context, once stored.
+     *
+     * @param context            Context
+     * @param mostRecentChecksum the record, ignored if not cached
+     * @throws SQLException if database error
+     */
+    public void uncache(Context context, MostRecentChecksum mostRecentChecksum) throws SQLException;
 }
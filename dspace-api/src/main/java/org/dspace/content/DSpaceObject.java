@@ -76,6 +76,13 @@ public abstract class DSpaceObject implements Serializable, ReloadableEntity<jav
     @Transient
     private boolean modified = false;
 
+    /**
+     * Index of the metadata by field, built on the first lookup and dropped
+     * when the metadata are modified
+     */
+    @Transient
+    private transient MetadataIndex metadataIndex;
+
     /**
      * This will read our predefinedUUID property to pass it along to the UUID generator
      */
@@ -199,6 +206,17 @@ public abstract class DSpaceObject implements Serializable, ReloadableEntity<jav
 
     protected void setMetadataModified() {
         this.modifiedMetadata = true;
+        this.metadataIndex = null;
+    }
+
+    /**
+     * @return the index of the current metadata by field
+     */
+    MetadataIndex getMetadataIndex() {
+        if (metadataIndex == null || !metadataIndex.isIndexOf(getMetadata())) {
+            metadataIndex = new MetadataIndex(getMetadata());
+        }
+        return metadataIndex;
     }
 
     public boolean isModified() {
@@ -136,9 +136,10 @@ public abstract class DSpaceObjectServiceImpl<T extends DSpaceObject> implements
 
     @Override
     public List<MetadataValue> getMetadata(T dso, String schema, String element, String qualifier, String lang) {
-        // Build up list of matching values
+        // Build up list of matching values, visiting only the values of the field
+        List<MetadataValue> candidates = dso.getMetadataIndex().getCandidates(schema, element, qualifier);
         List<MetadataValue> values = new ArrayList<>();
-        for (MetadataValue dcv : dso.getMetadata()) {
+        for (MetadataValue dcv : candidates != null ? candidates : dso.getMetadata()) {
             if (match(schema, element, qualifier, lang, dcv)) {
                 values.add(dcv);
             }
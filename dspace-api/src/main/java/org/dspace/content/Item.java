@@ -115,6 +115,9 @@ public class Item extends DSpaceObject implements DSpaceObjectLegacySupport {
     @Transient
     private List<MetadataValue> cachedMetadata = new ArrayList<>();
 
+    @Transient
+    private transient MetadataIndex cachedMetadataIndex;
+
     /**
      * Protected constructor, create object using:
      * {@link org.dspace.content.service.ItemService#create(Context, WorkspaceItem)}
@@ -400,6 +403,17 @@ public class Item extends DSpaceObject implements DSpaceObjectLegacySupport {
 
     protected void setCachedMetadata(List<MetadataValue> cachedMetadata) {
         this.cachedMetadata = cachedMetadata;
+        this.cachedMetadataIndex = null;
         modifiedMetadataCache = false;
     }
+
+    /**
+     * @return the index of the cached metadata by field
+     */
+    MetadataIndex getCachedMetadataIndex() {
+        if (cachedMetadataIndex == null || !cachedMetadataIndex.isIndexOf(cachedMetadata)) {
+            cachedMetadataIndex = new MetadataIndex(cachedMetadata);
+        }
+        return cachedMetadataIndex;
+    }
 }
@@ -12,6 +12,7 @@ import java.io.InputStream;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.Iterator;
@@ -26,6 +27,8 @@ import java.util.stream.Stream;
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.lang3.tuple.Triple;
 import org.apache.logging.log4j.Logger;
 import org.dspace.app.metrics.service.CrisMetricsService;
 import org.dspace.app.orcid.OrcidHistory;
@@ -256,6 +259,30 @@ public class ItemServiceImpl extends DSpaceObjectServiceImpl<Item> implements It
         return itemDAO.findAll(context, true, true);
     }
 
+    @Override
+    public Iterator<Item> findAllUnfiltered(Context context, UUID lowerBound, UUID upperBound)
+        throws SQLException {
+        return itemDAO.findAll(context, true, true, lowerBound, upperBound);
+    }
+
+    @Override
+    public List<Triple<UUID, Date, String>> findArchivedSummaries(Context context, UUID lowerBound,
+                                                                  UUID upperBound, int limit) throws SQLException {
+        MetadataField entityTypeField = metadataFieldService.findByElement(context, "dspace", "entity", "type");
+        List<Triple<UUID, Date, String>> summaries = new ArrayList<>();
+        for (Object[] row : itemDAO.findArchivedSummaries(context, entityTypeField, lowerBound, upperBound, limit)) {
+            summaries.add(Triple.of((UUID) row[0], (Date) row[1], (String) row[2]));
+        }
+        return summaries;
+    }
+
+    @Override
+    public Pair<Long, Date> countArchived(Context context, UUID lowerBound, UUID upperBound)
+        throws SQLException {
+        Object[] row = itemDAO.countArchived(context, lowerBound, upperBound);
+        return Pair.of((Long) row[0], (Date) row[1]);
+    }
+
     @Override
     public Iterator<Item> findBySubmitter(Context context, EPerson eperson) throws SQLException {
         return itemDAO.findBySubmitter(context, eperson);
@@ -1522,6 +1549,12 @@ prevent the generation of resource policy entry values with null dspace_object a
     @Override
     public List<MetadataValue> getMetadata(Item item, String schema, String element, String qualifier, String lang,
                                            boolean enableVirtualMetadata) {
+        return getMetadata(null, item, schema, element, qualifier, lang, enableVirtualMetadata);
+    }
+
+    @Override
+    public List<MetadataValue> getMetadata(Context context, Item item, String schema, String element,
+                                           String qualifier, String lang, boolean enableVirtualMetadata) {
 
         enableVirtualMetadata = enableVirtualMetadata
                 && configurationService.getBooleanProperty("item.enable-virtual-metadata", false);
@@ -1533,19 +1566,15 @@ prevent the generation of resource policy entry values with null dspace_object a
         if (item.isModifiedMetadataCache()) {
             log.debug("Called getMetadata for " + item.getID() + " with invalid cache");
             //rebuild cache
-            List<MetadataValue> dbMetadataValues = item.getMetadata();
-
-            List<MetadataValue> fullMetadataValueList = new LinkedList<>();
-            fullMetadataValueList.addAll(relationshipMetadataService.getRelationshipMetadata(item, true));
-            fullMetadataValueList.addAll(dbMetadataValues);
-
-            item.setCachedMetadata(sortMetadataValueList(fullMetadataValueList));
+            setCachedMetadata(item, context != null ? getRelationshipMetadata(context, item)
+                : relationshipMetadataService.getRelationshipMetadata(item, true));
         }
 
         log.debug("Called getMetadata for " + item.getID() + " based on cache");
-        // Build up list of matching values based on the cache
+        // Build up list of matching values based on the cache, visiting only the values of the field
+        List<MetadataValue> candidates = item.getCachedMetadataIndex().getCandidates(schema, element, qualifier);
         List<MetadataValue> values = new ArrayList<>();
-        for (MetadataValue dcv : item.getCachedMetadata()) {
+        for (MetadataValue dcv : candidates != null ? candidates : item.getCachedMetadata()) {
             if (match(schema, element, qualifier, lang, dcv)) {
                 values.add(dcv);
             }
@@ -1555,6 +1584,46 @@ prevent the generation of resource policy entry values with null dspace_object a
         return values;
     }
 
+    @Override
+    public void cacheVirtualMetadata(Context context, List<Item> items) throws SQLException {
+        if (!configurationService.getBooleanProperty("item.enable-virtual-metadata", false)) {
+            return;
+        }
+        List<Item> uncachedItems = new ArrayList<>();
+        for (Item item : items) {
+            if (item.isModifiedMetadataCache()) {
+                uncachedItems.add(item);
+            }
+        }
+        if (uncachedItems.isEmpty()) {
+            return;
+        }
+        Map<UUID, List<RelationshipMetadataValue>> relationshipMetadata =
+            relationshipMetadataService.getRelationshipMetadata(context, uncachedItems, true);
+        for (Item item : uncachedItems) {
+            setCachedMetadata(item, relationshipMetadata.get(item.getID()));
+        }
+    }
+
+    private List<RelationshipMetadataValue> getRelationshipMetadata(Context context, Item item) {
+        try {
+            return relationshipMetadataService.getRelationshipMetadata(context, item, true);
+        } catch (SQLException e) {
+            log.error("Lookup for Relationships for item with uuid: " + item.getID() + " caused DSpace to crash", e);
+            return Collections.emptyList();
+        }
+    }
+
+    private void setCachedMetadata(Item item, List<RelationshipMetadataValue> relationshipMetadata) {
+        List<MetadataValue> dbMetadataValues = item.getMetadata();
+
+        List<MetadataValue> fullMetadataValueList = new LinkedList<>();
+        fullMetadataValueList.addAll(relationshipMetadata);
+        fullMetadataValueList.addAll(dbMetadataValues);
+
+        item.setCachedMetadata(sortMetadataValueList(fullMetadataValueList));
+    }
+
     @Override
     public String getEntityType(Item item) {
         return getMetadataFirstValue(item, new MetadataFieldName("dspace.entity.type"), Item.ANY);
@@ -0,0 +1,94 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.content;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Index of a list of metadata values by schema and element, then by qualifier,
+ * so that the lookup of the values of a field only visits the values of that
+ * field instead of the whole list. The values of each bucket keep the order
+ * of the list.
+ * <p>
+ * The index only narrows the candidates of a lookup: they still have to be
+ * matched, e.g. on the language, that may be changed without a change of the
+ * list. The index is built for a list and is dropped by its owner when the
+ * metadata are modified; {@link #isIndexOf(List)} also detects a list
+ * replaced or resized behind the back of the owner.
+ */
+final class MetadataIndex {
+
+    private final List<MetadataValue> source;
+
+    private final int size;
+
+    /**
+     * False if some values have no field or schema, that the lookups by
+     * schema match anyway: the index can't be used then.
+     */
+    private boolean usable = true;
+
+    private final Map<String, List<MetadataValue>> byElement = new HashMap<>();
+
+    private final Map<String, Map<String, List<MetadataValue>>> byQualifier = new HashMap<>();
+
+    MetadataIndex(List<MetadataValue> values) {
+        this.source = values;
+        this.size = values.size();
+        for (MetadataValue value : values) {
+            MetadataField field = value.getMetadataField();
+            if (field == null || field.getMetadataSchema() == null) {
+                usable = false;
+                break;
+            }
+            String key = field.getMetadataSchema().getName() + "." + field.getElement();
+            byElement.computeIfAbsent(key, k -> new ArrayList<>()).add(value);
+            // the HashMap keeps the unqualified values under the null key
+            byQualifier.computeIfAbsent(key, k -> new HashMap<>())
+                       .computeIfAbsent(field.getQualifier(), k -> new ArrayList<>()).add(value);
+        }
+    }
+
+    /**
+     * @param values a list of metadata values
+     * @return true if this is the index of the given list, as it is now
+     */
+    boolean isIndexOf(List<MetadataValue> values) {
+        return values == source && values.size() == size;
+    }
+
+    /**
+     * Get the values that may match a lookup, with the same wildcard and blank
+     * qualifier semantics as the lookups of the {@link DSpaceObject} services.
+     *
+     * @param schema    the schema name, or <code>Item.ANY</code>
+     * @param element   the element, or <code>Item.ANY</code>
+     * @param qualifier the qualifier, <code>Item.ANY</code>, or blank for the unqualified values
+     * @return the candidate values in the order of the list, or null if all the values are candidates
+     */
+    List<MetadataValue> getCandidates(String schema, String element, String qualifier) {
+        if (!usable || Item.ANY.equals(schema) || Item.ANY.equals(element)) {
+            return null;
+        }
+        String key = schema + "." + element;
+        if (Item.ANY.equals(qualifier)) {
+            return byElement.getOrDefault(key, Collections.emptyList());
+        }
+        Map<String, List<MetadataValue>> qualifiers = byQualifier.get(key);
+        if (qualifiers == null) {
+            return Collections.emptyList();
+        }
+        return qualifiers.getOrDefault(StringUtils.isBlank(qualifier) ? null : qualifier, Collections.emptyList());
+    }
+}
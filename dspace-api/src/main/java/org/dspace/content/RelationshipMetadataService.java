@@ -9,6 +9,8 @@ package org.dspace.content;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 import org.dspace.content.virtual.VirtualMetadataPopulator;
 import org.dspace.core.Context;
@@ -21,7 +23,9 @@ public interface RelationshipMetadataService {
 
     /**
      * This method retrieves a list of MetadataValue objects that get constructed from processing
-     * the given Item's Relationships through the config given to the {@link VirtualMetadataPopulator}
+     * the given Item's Relationships through the config given to the {@link VirtualMetadataPopulator}.
+     * The Relationships are retrieved with a Context kept for the current thread: prefer
+     * {@link #getRelationshipMetadata(Context, Item, boolean)} with the context of the caller
      * @param item  The Item that will be processed through it's Relationships
      * @param enableVirtualMetadata This parameter will determine whether the list of Relationship metadata
      *                              should be populated with metadata that is being generated through the
@@ -30,6 +34,39 @@ public interface RelationshipMetadataService {
      */
     public List<RelationshipMetadataValue> getRelationshipMetadata(Item item, boolean enableVirtualMetadata);
 
+    /**
+     * This method retrieves the RelationshipMetadataValue objects of the given Item with the given context, see
+     * {@link #getRelationshipMetadata(Context, List, boolean)}
+     * @param context               The relevant DSpace context
+     * @param item                  The Item that will be processed through it's Relationships
+     * @param enableVirtualMetadata This parameter will determine whether the list of Relationship metadata
+     *                              should be populated with metadata that is being generated through the
+     *                              VirtualMetadataPopulator functionality or not
+     * @return      The unmodifiable list of MetadataValue objects constructed through the Relationships
+     * @throws SQLException If something goes wrong
+     */
+    public List<RelationshipMetadataValue> getRelationshipMetadata(Context context, Item item,
+                                                                   boolean enableVirtualMetadata)
+        throws SQLException;
+
+    /**
+     * This method retrieves the RelationshipMetadataValue objects of many Items at once, with the given context:
+     * the Relationships of all the Items and their related Items are retrieved in one query, instead of one query
+     * per Item. The values are cached in
+     * the context when it is read only, for the following calls of the same request
+     * @param context               The relevant DSpace context
+     * @param items                 The Items that will be processed through their Relationships
+     * @param enableVirtualMetadata This parameter will determine whether the list of Relationship metadata
+     *                              should be populated with metadata that is being generated through the
+     *                              VirtualMetadataPopulator functionality or not
+     * @return      The unmodifiable list of MetadataValue objects constructed through the Relationships of
+     *              each Item, by the Item uuid
+     * @throws SQLException If something goes wrong
+     */
+    public Map<UUID, List<RelationshipMetadataValue>> getRelationshipMetadata(Context context, List<Item> items,
+                                                                              boolean enableVirtualMetadata)
+        throws SQLException;
+
     /**
      * Retrieves the list of RelationshipMetadataValue objects specific to only one Relationship of the item.
      *
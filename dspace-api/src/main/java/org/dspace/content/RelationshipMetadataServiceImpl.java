@@ -8,11 +8,14 @@
 package org.dspace.content;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.UUID;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.Logger;
@@ -40,27 +43,82 @@ public class RelationshipMetadataServiceImpl implements RelationshipMetadataServ
     @Autowired(required = true)
     protected MetadataFieldService metadataFieldService;
 
+    /**
+     * The context of the calls without one, kept for each thread
+     */
+    private final ThreadLocal<Context> threadContext = new ThreadLocal<>();
+
     @Override
     public List<RelationshipMetadataValue> getRelationshipMetadata(Item item, boolean enableVirtualMetadata) {
-        Context context = new Context();
         List<RelationshipMetadataValue> fullMetadataValueList = new LinkedList<>();
         try {
-            String entityType = getEntityTypeStringFromMetadata(item);
-            if (StringUtils.isNotBlank(entityType)) {
-                List<Relationship> relationships = relationshipService.findByItem(context, item, -1, -1, true);
-                for (Relationship relationship : relationships) {
-                    fullMetadataValueList
-                        .addAll(findRelationshipMetadataValueForItemRelationship(context, item, entityType,
-                                relationship, enableVirtualMetadata));
-                }
-
-            }
+            fullMetadataValueList.addAll(getRelationshipMetadata(getThreadContext(), item, enableVirtualMetadata));
         } catch (SQLException e) {
             log.error("Lookup for Relationships for item with uuid: " + item.getID() + " caused DSpace to crash", e);
         }
         return fullMetadataValueList;
     }
 
+    /**
+     * Get the context of the calls without one on the current thread, created on the first call. It is never
+     * closed, as it shares the Hibernate session of the thread with the contexts of the callers. It is not read
+     * only, so it doesn't cache the relationships between the calls.
+     *
+     * @return the context of the current thread
+     */
+    Context getThreadContext() {
+        Context context = threadContext.get();
+        if (context == null) {
+            context = new Context();
+            threadContext.set(context);
+        }
+        return context;
+    }
+
+    @Override
+    public List<RelationshipMetadataValue> getRelationshipMetadata(Context context, Item item,
+                                                                   boolean enableVirtualMetadata)
+        throws SQLException {
+        return getRelationshipMetadata(context, Collections.singletonList(item), enableVirtualMetadata)
+            .get(item.getID());
+    }
+
+    @Override
+    public Map<UUID, List<RelationshipMetadataValue>> getRelationshipMetadata(Context context, List<Item> items,
+                                                                              boolean enableVirtualMetadata)
+        throws SQLException {
+        Map<UUID, List<RelationshipMetadataValue>> metadataValues = new HashMap<>();
+        List<Item> entities = new ArrayList<>();
+        for (Item item : items) {
+            List<RelationshipMetadataValue> cached = context.getCachedRelationshipMetadata(item,
+                                                                                           enableVirtualMetadata);
+            if (cached != null) {
+                metadataValues.put(item.getID(), cached);
+            } else if (StringUtils.isNotBlank(getEntityTypeStringFromMetadata(item))) {
+                entities.add(item);
+            } else {
+                metadataValues.put(item.getID(), Collections.emptyList());
+            }
+        }
+        if (entities.isEmpty()) {
+            return metadataValues;
+        }
+
+        Map<UUID, List<Relationship>> relationships = relationshipService.findByItems(context, entities, true);
+        for (Item item : entities) {
+            String entityType = getEntityTypeStringFromMetadata(item);
+            List<RelationshipMetadataValue> fullMetadataValueList = new LinkedList<>();
+            for (Relationship relationship : relationships.getOrDefault(item.getID(), Collections.emptyList())) {
+                fullMetadataValueList.addAll(findRelationshipMetadataValueForItemRelationship(context, item,
+                    entityType, relationship, enableVirtualMetadata));
+            }
+            List<RelationshipMetadataValue> values = Collections.unmodifiableList(fullMetadataValueList);
+            context.cacheRelationshipMetadata(item, enableVirtualMetadata, values);
+            metadataValues.put(item.getID(), values);
+        }
+        return metadataValues;
+    }
+
     public String getEntityTypeStringFromMetadata(Item item) {
         List<MetadataValue> list = item.getMetadata();
         for (MetadataValue mdv : list) {
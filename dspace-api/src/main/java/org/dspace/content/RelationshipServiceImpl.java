@@ -12,12 +12,16 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -39,6 +43,8 @@ public class RelationshipServiceImpl implements RelationshipService {
 
     private static final Logger log = LogManager.getLogger();
 
+    private static final int FIND_BY_ITEMS_BATCH_SIZE = 500;
+
     @Autowired(required = true)
     protected RelationshipDAO relationshipDAO;
 
@@ -363,7 +369,45 @@ public class RelationshipServiceImpl implements RelationshipService {
                                          boolean excludeTilted) throws SQLException {
 
         List<Relationship> list = relationshipDAO.findByItem(context, item, limit, offset, excludeTilted);
+        sortByItem(list, item);
+        return list;
+    }
+
+    @Override
+    public Map<UUID, List<Relationship>> findByItems(Context context, List<Item> items, boolean excludeTilted)
+            throws SQLException {
+        Map<UUID, Item> itemsById = new LinkedHashMap<>();
+        for (Item item : items) {
+            itemsById.put(item.getID(), item);
+        }
+        Map<UUID, List<Relationship>> relationships = new HashMap<>();
+        // the items are split to keep the IN clauses of the query within the limits of the databases
+        for (List<Item> batch : ListUtils.partition(new ArrayList<>(itemsById.values()), FIND_BY_ITEMS_BATCH_SIZE)) {
+            for (Relationship relationship : relationshipDAO.findByItems(context, batch, excludeTilted)) {
+                RelationshipType.Tilted tilted = relationship.getRelationshipType().getTilted();
+                UUID leftId = relationship.getLeftItem().getID();
+                UUID rightId = relationship.getRightItem().getID();
+                boolean left = itemsById.containsKey(leftId)
+                    && (!excludeTilted || tilted != RelationshipType.Tilted.RIGHT);
+                boolean right = itemsById.containsKey(rightId)
+                    && (!excludeTilted || tilted != RelationshipType.Tilted.LEFT);
+                if (left) {
+                    relationships.computeIfAbsent(leftId, id -> new ArrayList<>()).add(relationship);
+                }
+                // a relationship of an item with itself is listed once, as findByItem does
+                if (right && !(left && leftId.equals(rightId))) {
+                    relationships.computeIfAbsent(rightId, id -> new ArrayList<>()).add(relationship);
+                }
+            }
+        }
+        relationships.forEach((id, list) -> sortByItem(list, itemsById.get(id)));
+        return relationships;
+    }
 
+    /**
+     * Sort the relationships of an item by type, then by the place of the item in them.
+     */
+    private void sortByItem(List<Relationship> list, Item item) {
         list.sort((o1, o2) -> {
             int relationshipType = o1.getRelationshipType().getLeftwardType()
                                      .compareTo(o2.getRelationshipType().getLeftwardType());
@@ -377,7 +421,6 @@ public class RelationshipServiceImpl implements RelationshipService {
                 }
             }
         });
-        return list;
     }
 
     @Override
@@ -0,0 +1,290 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.content.authority;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiPredicate;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.commons.lang3.StringUtils;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * Immutable index of the nodes of a controlled vocabulary file, read once
+ * so that the lookups of {@link DSpaceControlledVocabulary} don't parse and
+ * walk the XML document on each call. The nodes are numbered in document
+ * order, the root node being the first one, and each node keeps its parent
+ * and children numbers.
+ * <p>
+ * The labels are searched by substring, as the vocabulary always did, so the
+ * search scans the lowercased labels; the ids and the exact labels are looked
+ * up in hash maps.
+ */
+final class ControlledVocabularyIndex {
+
+    private static final String NODE = "node";
+
+    private static final int[] NO_CHILDREN = new int[0];
+
+    private final String[] ids;
+
+    private final String[] labels;
+
+    private final String[] lowercaseLabels;
+
+    private final String[] notes;
+
+    private final boolean[] selectable;
+
+    private final int[] parents;
+
+    private final int[][] children;
+
+    /**
+     * True if the root element of the document is a node, that is then the
+     * node 0.
+     */
+    private final boolean rootNode;
+
+    private final Map<String, Integer> byId = new HashMap<>();
+
+    private final Map<String, List<Integer>> byLabel = new HashMap<>();
+
+    private ControlledVocabularyIndex(Document document) {
+        NodeList nodes = document.getElementsByTagName(NODE);
+        int size = nodes.getLength();
+        ids = new String[size];
+        labels = new String[size];
+        lowercaseLabels = new String[size];
+        notes = new String[size];
+        selectable = new boolean[size];
+        parents = new int[size];
+        children = new int[size][];
+        rootNode = NODE.equals(document.getDocumentElement().getNodeName());
+
+        Map<Node, Integer> numbers = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            Element node = (Element) nodes.item(i);
+            numbers.put(node, i);
+            ids[i] = node.hasAttribute("id") ? node.getAttribute("id") : null;
+            labels[i] = node.hasAttribute("label") ? node.getAttribute("label") : null;
+            lowercaseLabels[i] = labels[i] != null ? labels[i].toLowerCase(Locale.ROOT) : "";
+            selectable[i] = !node.hasAttribute("selectable") || Boolean.valueOf(node.getAttribute("selectable"));
+            notes[i] = findNote(node);
+            if (ids[i] != null) {
+                byId.putIfAbsent(ids[i], i);
+            }
+            if (labels[i] != null) {
+                byLabel.computeIfAbsent(labels[i], label -> new ArrayList<>()).add(i);
+            }
+        }
+
+        for (int i = 0; i < size; i++) {
+            Element node = (Element) nodes.item(i);
+            // the nodes are nested as node/isComposedBy/node
+            Node parent = node.getParentNode();
+            Node grandParent = parent != null ? parent.getParentNode() : null;
+            parents[i] = grandParent != null && "isComposedBy".equals(parent.getNodeName())
+                && NODE.equals(grandParent.getNodeName()) ? numbers.get(grandParent) : -1;
+            children[i] = findChildren(node, numbers);
+        }
+    }
+
+    /**
+     * Read the vocabulary file of the given source.
+     *
+     * @param source the source of the vocabulary file
+     * @return the index of the vocabulary
+     * @throws ParserConfigurationException if the XML parser can't be created
+     * @throws SAXException                 if the file is not valid XML
+     * @throws IOException                  if the file can't be read
+     */
+    static ControlledVocabularyIndex load(InputSource source)
+        throws ParserConfigurationException, SAXException, IOException {
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(source);
+        return new ControlledVocabularyIndex(document);
+    }
+
+    private static String findNote(Element node) {
+        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if ("hasNote".equals(child.getNodeName()) && StringUtils.isNotBlank(child.getTextContent())) {
+                return child.getTextContent();
+            }
+        }
+        return null;
+    }
+
+    private static int[] findChildren(Element node, Map<Node, Integer> numbers) {
+        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if ("isComposedBy".equals(child.getNodeName())) {
+                List<Integer> found = new ArrayList<>();
+                for (Node grandChild = child.getFirstChild(); grandChild != null;
+                     grandChild = grandChild.getNextSibling()) {
+                    if (NODE.equals(grandChild.getNodeName())) {
+                        found.add(numbers.get(grandChild));
+                    }
+                }
+                return found.stream().mapToInt(Integer::intValue).toArray();
+            }
+        }
+        return NO_CHILDREN;
+    }
+
+    /**
+     * @return the number of the root node, or -1 if the root element of the document is not a node
+     */
+    int getRoot() {
+        return rootNode && ids.length > 0 ? 0 : -1;
+    }
+
+    /**
+     * @param node a node number
+     * @return true if the node is the root element of the document
+     */
+    boolean isRoot(int node) {
+        return node == getRoot();
+    }
+
+    /**
+     * @param id a node id
+     * @return the number of the first node with the given id, or -1 if there is none
+     */
+    int findById(String id) {
+        return byId.getOrDefault(id, -1);
+    }
+
+    /**
+     * Find the nodes whose lowercased label contains the last part of the
+     * hierarchy, and that descend from a node containing the previous part,
+     * and so on.
+     *
+     * @param parts the lowercased parts of the hierarchy to search
+     * @return the numbers of the matching nodes, in document order
+     */
+    List<Integer> searchLabels(String[] parts) {
+        return findHierarchy(parts, (node, part) -> lowercaseLabels[node].contains(part));
+    }
+
+    /**
+     * Find the nodes whose label is the last part of the hierarchy, and that
+     * descend from a node with the previous part as label, and so on.
+     *
+     * @param parts the labels of the hierarchy to find
+     * @return the numbers of the matching nodes, in document order
+     */
+    List<Integer> findByLabels(String[] parts) {
+        List<Integer> lastLabel = byLabel.getOrDefault(parts[parts.length - 1], Collections.emptyList());
+        if (parts.length == 1 || lastLabel.isEmpty()) {
+            return Collections.unmodifiableList(lastLabel);
+        }
+        return findHierarchy(parts, (node, part) -> part.equals(labels[node]));
+    }
+
+    private List<Integer> findHierarchy(String[] parts, BiPredicate<Integer, String> matches) {
+        boolean[] matched = new boolean[ids.length];
+        for (int node = 0; node < ids.length; node++) {
+            matched[node] = matches.test(node, parts[0]);
+        }
+        for (int part = 1; part < parts.length; part++) {
+            boolean[] descendants = new boolean[ids.length];
+            for (int node = 0; node < ids.length; node++) {
+                descendants[node] = matches.test(node, parts[part]) && hasAncestorIn(node, matched);
+            }
+            matched = descendants;
+        }
+        List<Integer> result = new ArrayList<>();
+        for (int node = 0; node < ids.length; node++) {
+            if (matched[node]) {
+                result.add(node);
+            }
+        }
+        return result;
+    }
+
+    private boolean hasAncestorIn(int node, boolean[] nodes) {
+        for (int ancestor = parents[node]; ancestor >= 0; ancestor = parents[ancestor]) {
+            if (nodes[ancestor]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param node a node number
+     * @return the number of the parent node, or -1 for the root node
+     */
+    int getParent(int node) {
+        return parents[node];
+    }
+
+    /**
+     * @param node a node number
+     * @return the numbers of the children nodes, in document order
+     */
+    int[] getChildren(int node) {
+        return children[node];
+    }
+
+    /**
+     * @param node a node number
+     * @return true if some children of the node have an id
+     */
+    boolean hasChildrenWithId(int node) {
+        for (int child : children[node]) {
+            if (ids[child] != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    String getId(int node) {
+        return ids[node];
+    }
+
+    String getLabel(int node) {
+        return labels[node];
+    }
+
+    String getNote(int node) {
+        return notes[node];
+    }
+
+    boolean isSelectable(int node) {
+        return selectable[node];
+    }
+
+    /**
+     * @param node      a node number
+     * @param delimiter the delimiter of the labels
+     * @return the labels of the node and its ancestors, from the root node, joined by the delimiter
+     */
+    String getHierarchy(int node, String delimiter) {
+        List<String> hierarchy = new ArrayList<>();
+        for (int ancestor = node; ancestor >= 0; ancestor = parents[ancestor]) {
+            if (labels[ancestor] != null) {
+                hierarchy.add(labels[ancestor]);
+            }
+        }
+        Collections.reverse(hierarchy);
+        return String.join(delimiter, hierarchy);
+    }
+}
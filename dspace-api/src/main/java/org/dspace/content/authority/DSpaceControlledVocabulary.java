@@ -8,28 +8,26 @@
 package org.dspace.content.authority;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Objects;
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.xml.parsers.ParserConfigurationException;
 
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.Pair;
 import org.apache.logging.log4j.Logger;
 import org.dspace.core.I18nUtil;
 import org.dspace.core.SelfNamedPlugin;
 import org.dspace.services.ConfigurationService;
 import org.dspace.services.factory.DSpaceServicesFactory;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
 
 /**
  * ChoiceAuthority source that reads the hierarchical vocabularies
@@ -61,14 +59,15 @@ import org.xml.sax.InputSource;
 public class DSpaceControlledVocabulary extends SelfNamedPlugin implements HierarchicalAuthority {
 
     private static Logger log = org.apache.logging.log4j.LogManager.getLogger(DSpaceControlledVocabulary.class);
-    protected static String xpathTemplate = "//node[contains(translate(@label,'ABCDEFGHIJKLMNOPQRSTUVWXYZ'," +
-        "'abcdefghijklmnopqrstuvwxyz'),'%s')]";
-    protected static String idTemplate = "//node[@id = '%s']";
-    protected static String labelTemplate = "//node[@label = '%s']";
-    protected static String idParentTemplate = "//node[@id = '%s']/parent::isComposedBy/parent::node";
-    protected static String rootTemplate = "/node";
     protected static String pluginNames[] = null;
 
+    /**
+     * The indexes of the vocabularies by file name, i.e. by vocabulary and locale, shared by all the instances as
+     * the plugin service creates a new instance for each lookup, with the last modification time of the file
+     * they were read from
+     */
+    private static final Map<String, Pair<Long, ControlledVocabularyIndex>> indexes = new ConcurrentHashMap<>();
+
     protected String vocabularyName = null;
     protected InputSource vocabulary = null;
     protected Map<Locale,InputSource> vocabularies = null;
@@ -149,46 +148,21 @@ public class DSpaceControlledVocabulary extends SelfNamedPlugin implements Hiera
         }
     }
 
-    protected String buildString(Node node) {
-        if (node.getNodeType() == Node.DOCUMENT_NODE) {
-            return ("");
-        } else {
-            String parentValue = buildString(node.getParentNode());
-            Node currentLabel = node.getAttributes().getNamedItem("label");
-            if (currentLabel != null) {
-                String currentValue = currentLabel.getNodeValue();
-                if (parentValue.equals("")) {
-                    return currentValue;
-                } else {
-                    return (parentValue + this.hierarchyDelimiter + currentValue);
-                }
-            } else {
-                return (parentValue);
-            }
-        }
-    }
-
     @Override
     public Choices getMatches(String text, int start, int limit, String locale) {
         init();
         log.debug("Getting matches for '" + text + "'");
-        String xpathExpression = "";
+        ControlledVocabularyIndex index = getIndexByLocale(locale);
+        if (index == null) {
+            return new Choices(true);
+        }
         String[] textHierarchy = text.split(hierarchyDelimiter, -1);
         for (int i = 0; i < textHierarchy.length; i++) {
-            xpathExpression += String.format(xpathTemplate, textHierarchy[i].replaceAll("'", "&apos;").toLowerCase());
-        }
-        XPath xpath = XPathFactory.newInstance().newXPath();
-        int total = 0;
-        List<Choice> choices = new ArrayList<Choice>();
-        try {
-            NodeList results = (NodeList) xpath.evaluate(xpathExpression, getVocabularyByLocale(locale),
-                    XPathConstants.NODESET);
-            total = results.getLength();
-            choices = getChoicesFromNodeList(results, start, limit);
-        } catch (XPathExpressionException e) {
-            log.warn(e.getMessage(), e);
-            return new Choices(true);
+            textHierarchy[i] = textHierarchy[i].toLowerCase(Locale.ROOT);
         }
+        List<Integer> results = index.searchLabels(textHierarchy);
+        int total = results.size();
+        List<Choice> choices = getChoicesFromNodeList(index, results, start, limit);
         return new Choices(choices.toArray(new Choice[choices.size()]), start, total, Choices.CF_AMBIGUOUS,
                 total > start + limit);
     }
@@ -197,21 +171,12 @@ public class DSpaceControlledVocabulary extends SelfNamedPlugin implements Hiera
     public Choices getBestMatch(String text, String locale) {
         init();
         log.debug("Getting best matches for '" + text + "'");
-        String xpathExpression = "";
-        String[] textHierarchy = text.split(hierarchyDelimiter, -1);
-        for (int i = 0; i < textHierarchy.length; i++) {
-            xpathExpression += String.format(labelTemplate, textHierarchy[i].replaceAll("'", "&apos;"));
-        }
-        XPath xpath = XPathFactory.newInstance().newXPath();
-        List<Choice> choices = new ArrayList<Choice>();
-        try {
-            NodeList results = (NodeList) xpath.evaluate(xpathExpression, getVocabularyByLocale(locale),
-                    XPathConstants.NODESET);
-            choices = getChoicesFromNodeList(results, 0, 1);
-        } catch (XPathExpressionException e) {
-            log.warn(e.getMessage(), e);
+        ControlledVocabularyIndex index = getIndexByLocale(locale);
+        if (index == null) {
             return new Choices(true);
         }
+        String[] textHierarchy = text.split(hierarchyDelimiter, -1);
+        List<Choice> choices = getChoicesFromNodeList(index, index.findByLabels(textHierarchy), 0, 1);
         return new Choices(choices.toArray(new Choice[choices.size()]), 0, choices.size(), Choices.CF_AMBIGUOUS, false);
     }
 
@@ -227,13 +192,12 @@ public class DSpaceControlledVocabulary extends SelfNamedPlugin implements Hiera
 
     @Override
     public Choice getChoice(String authKey, String locale) {
-        Node node;
-        try {
-            node = getNode(authKey, locale);
-        } catch (XPathExpressionException e) {
+        init();
+        ControlledVocabularyIndex index = getIndexByLocale(locale);
+        if (index == null) {
             return null;
         }
-        return createChoiceFromNode(node);
+        return createChoiceFromNode(index, index.findById(authKey));
     }
 
     @Override
@@ -244,28 +208,32 @@ public class DSpaceControlledVocabulary extends SelfNamedPlugin implements Hiera
     @Override
     public Choices getTopChoices(String authorityName, int start, int limit, String locale) {
         init();
-        String xpathExpression = rootTemplate;
-        return getChoicesByXpath(xpathExpression, start, limit, locale);
+        ControlledVocabularyIndex index = getIndexByLocale(locale);
+        if (index == null) {
+            return new Choices(true);
+        }
+        return getChildChoices(index, index.getRoot(), start, limit);
     }
 
     @Override
     public Choices getChoicesByParent(String authorityName, String parentId, int start, int limit, String locale) {
         init();
-        String xpathExpression = String.format(idTemplate, parentId);
-        return getChoicesByXpath(xpathExpression, start, limit, locale);
+        ControlledVocabularyIndex index = getIndexByLocale(locale);
+        if (index == null) {
+            return new Choices(true);
+        }
+        return getChildChoices(index, index.findById(parentId), start, limit);
     }
 
     @Override
     public Choice getParentChoice(String authorityName, String childId, String locale) {
         init();
-        try {
-            String xpathExpression = String.format(idParentTemplate, childId);
-            Choice choice = createChoiceFromNode(getNodeFromXPath(xpathExpression, locale));
-            return choice;
-        } catch (XPathExpressionException e) {
-            log.error(e.getMessage(), e);
+        ControlledVocabularyIndex index = getIndexByLocale(locale);
+        if (index == null) {
             return null;
         }
+        int child = index.findById(childId);
+        return child < 0 ? null : createChoiceFromNode(index, index.getParent(child));
     }
 
     @Override
@@ -273,46 +241,28 @@ public class DSpaceControlledVocabulary extends SelfNamedPlugin implements Hiera
         return preloadLevel;
     }
 
-    private boolean isRootElement(Node node) {
-        if (node != null && node.getOwnerDocument().getDocumentElement().equals(node)) {
-            return true;
-        }
-        return false;
-    }
-
-    private Node getNode(String key, String locale) throws XPathExpressionException {
-        init();
-        String xpathExpression = String.format(idTemplate, key);
-        Node node = getNodeFromXPath(xpathExpression, locale);
-        return node;
-    }
-
-    private Node getNodeFromXPath(String xpathExpression, String locale) throws XPathExpressionException {
-        XPath xpath = XPathFactory.newInstance().newXPath();
-        Node node = (Node) xpath.evaluate(xpathExpression, getVocabularyByLocale(locale), XPathConstants.NODE);
-        return node;
-    }
-
-    private List<Choice> getChoicesFromNodeList(NodeList results, int start, int limit) {
+    private List<Choice> getChoicesFromNodeList(ControlledVocabularyIndex index, List<Integer> results, int start,
+                                                int limit) {
         List<Choice> choices = new ArrayList<Choice>();
-        for (int i = 0; i < results.getLength(); i++) {
+        for (int i = 0; i < results.size(); i++) {
             if (i < start) {
                 continue;
             }
             if (choices.size() == limit) {
                 break;
             }
-            Node node = results.item(i);
-            Choice choice = new Choice(getAuthority(node), getLabel(node), getValue(node),
-                    isSelectable(node));
-            choice.extras = addOtherInformation(getParent(node), getNote(node), getChildren(node), getAuthority(node));
+            int node = results.get(i);
+            Choice choice = new Choice(index.getId(node), getLabel(index, node), getValue(index, node),
+                    index.isSelectable(node));
+            choice.extras = addOtherInformation(getParent(index, node), index.getNote(node),
+                    index.hasChildrenWithId(node), index.getId(node));
             choices.add(choice);
         }
         return choices;
     }
 
     private Map<String, String> addOtherInformation(String parentCurr, String noteCurr,
-            List<String> childrenCurr, String authorityCurr) {
+            boolean hasChildrenCurr, String authorityCurr) {
         Map<String, String> extras = new HashMap<String, String>();
         if (StringUtils.isNotBlank(parentCurr)) {
             extras.put("parent", parentCurr);
@@ -320,7 +270,7 @@ public class DSpaceControlledVocabulary extends SelfNamedPlugin implements Hiera
         if (StringUtils.isNotBlank(noteCurr)) {
             extras.put("note", noteCurr);
         }
-        if (childrenCurr.size() > 0) {
+        if (hasChildrenCurr) {
             extras.put("hasChildren", "true");
         } else {
             extras.put("hasChildren", "false");
@@ -330,147 +280,99 @@ public class DSpaceControlledVocabulary extends SelfNamedPlugin implements Hiera
     }
 
     private String getNodeLabel(String key, boolean useHierarchy, String locale) {
-        try {
-            Node node = getNode(key, locale);
-            if (Objects.isNull(node)) {
-                return null;
-            }
-            if (useHierarchy) {
-                return this.buildString(node);
-            } else {
-                return node.getAttributes().getNamedItem("label").getNodeValue();
-            }
-        } catch (XPathExpressionException e) {
+        init();
+        ControlledVocabularyIndex index = getIndexByLocale(locale);
+        if (index == null) {
             return ("");
         }
+        int node = index.findById(key);
+        if (node < 0) {
+            return null;
+        }
+        if (useHierarchy) {
+            return index.getHierarchy(node, hierarchyDelimiter);
+        } else {
+            return index.getLabel(node);
+        }
     }
 
-    private String getLabel(Node node) {
-        String hierarchy = this.buildString(node);
+    private String getLabel(ControlledVocabularyIndex index, int node) {
         if (this.suggestHierarchy) {
-            return hierarchy;
+            return index.getHierarchy(node, hierarchyDelimiter);
         } else {
-            return node.getAttributes().getNamedItem("label").getNodeValue();
+            return index.getLabel(node);
         }
     }
 
-    private String getValue(Node node) {
-        String hierarchy = this.buildString(node);
+    private String getValue(ControlledVocabularyIndex index, int node) {
         if (this.storeHierarchy) {
-            return hierarchy;
+            return index.getHierarchy(node, hierarchyDelimiter);
         } else {
-            return node.getAttributes().getNamedItem("label").getNodeValue();
+            return index.getLabel(node);
         }
     }
 
-    private String getNote(Node node) {
-        NodeList childNodes = node.getChildNodes();
-        for (int ci = 0; ci < childNodes.getLength(); ci++) {
-            Node firstChild = childNodes.item(ci);
-            if (firstChild != null && "hasNote".equals(firstChild.getNodeName())) {
-                String nodeValue = firstChild.getTextContent();
-                if (StringUtils.isNotBlank(nodeValue)) {
-                    return nodeValue;
-                }
-            }
+    private String getParent(ControlledVocabularyIndex index, int node) {
+        int parent = index.getParent(node);
+        if (parent >= 0 && !index.isRoot(parent)) {
+            return index.getHierarchy(parent, hierarchyDelimiter);
         }
         return null;
     }
 
-    private List<String> getChildren(Node node) {
-        List<String> children = new ArrayList<String>();
-        NodeList childNodes = node.getChildNodes();
-        for (int ci = 0; ci < childNodes.getLength(); ci++) {
-            Node firstChild = childNodes.item(ci);
-            if (firstChild != null && "isComposedBy".equals(firstChild.getNodeName())) {
-                for (int cii = 0; cii < firstChild.getChildNodes().getLength(); cii++) {
-                    Node childN = firstChild.getChildNodes().item(cii);
-                    if (childN != null && "node".equals(childN.getNodeName())) {
-                        Node childIdAttr = childN.getAttributes().getNamedItem("id");
-                        if (null != childIdAttr) {
-                            children.add(childIdAttr.getNodeValue());
-                        }
-                    }
-                }
-                break;
-            }
+    private Choices getChildChoices(ControlledVocabularyIndex index, int parent, int start, int limit) {
+        if (parent < 0) {
+            return new Choices(false);
         }
-        return children;
-    }
-
-    private boolean isSelectable(Node node) {
-        Node selectableAttr = node.getAttributes().getNamedItem("selectable");
-        if (null != selectableAttr) {
-            return Boolean.valueOf(selectableAttr.getNodeValue());
-        } else { // Default is true
-            return true;
+        List<Choice> choices = new ArrayList<Choice>();
+        int[] children = index.getChildren(parent);
+        for (int i = start; i < children.length && choices.size() < limit; i++) {
+            choices.add(createChoiceFromNode(index, children[i]));
         }
+        return new Choices(choices.toArray(new Choice[choices.size()]), start, children.length,
+                Choices.CF_AMBIGUOUS, false);
     }
 
-    private String getParent(Node node) {
-        Node parentN = node.getParentNode();
-        if (parentN != null) {
-            parentN = parentN.getParentNode();
-            if (parentN != null && !isRootElement(parentN)) {
-                return buildString(parentN);
-            }
+    private Choice createChoiceFromNode(ControlledVocabularyIndex index, int node) {
+        if (node >= 0 && !index.isRoot(node)) {
+            Choice choice = new Choice(index.getId(node), getLabel(index, node), getValue(index, node),
+                    index.isSelectable(node));
+            choice.extras = addOtherInformation(getParent(index, node), index.getNote(node),
+                    index.hasChildrenWithId(node), index.getId(node));
+            return choice;
         }
         return null;
     }
 
-    private String getAuthority(Node node) {
-        Node idAttr = node.getAttributes().getNamedItem("id");
-        if (null != idAttr) { // 'id' is optional
-            return idAttr.getNodeValue();
-        } else {
+    /**
+     * Get the index of the vocabulary of the given locale. The vocabulary file is read on the first call of any
+     * instance, and read again when it has been modified since, so that the changes of the file are seen without
+     * a restart.
+     *
+     * @param locale the locale
+     * @return the index of the vocabulary, or null if the vocabulary file can't be read
+     */
+    ControlledVocabularyIndex getIndexByLocale(String locale) {
+        InputSource source = vocabularies != null ? vocabularies.get(I18nUtil.getSupportedLocale(locale)) : null;
+        if (source == null) {
+            log.error("No vocabulary file for the locale " + locale + " of " + vocabularyName);
             return null;
         }
-    }
-
-    private Choices getChoicesByXpath(String xpathExpression, int start, int limit, String locale) {
-        List<Choice> choices = new ArrayList<Choice>();
-        XPath xpath = XPathFactory.newInstance().newXPath();
-        try {
-            Node parentNode = (Node) xpath.evaluate(xpathExpression, getVocabularyByLocale(locale),
-                    XPathConstants.NODE);
-            int count = 0;
-            if (parentNode != null) {
-                NodeList childNodes = (NodeList) xpath.evaluate(".//isComposedBy", parentNode, XPathConstants.NODE);
-                if (null != childNodes) {
-                    for (int i = 0; i < childNodes.getLength(); i++) {
-                        Node childNode = childNodes.item(i);
-                        if (childNode != null && "node".equals(childNode.getNodeName())) {
-                            if (count < start || choices.size() >= limit) {
-                                count++;
-                                continue;
-                            }
-                            count++;
-                            choices.add(createChoiceFromNode(childNode));
-                        }
-                    }
+        long lastModified = new File(source.getSystemId()).lastModified();
+        Pair<Long, ControlledVocabularyIndex> index = indexes.get(source.getSystemId());
+        if (index == null || index.getLeft() != lastModified) {
+            index = indexes.compute(source.getSystemId(), (fileName, cached) -> {
+                if (cached != null && cached.getLeft() == lastModified) {
+                    return cached;
                 }
-                return new Choices(choices.toArray(new Choice[choices.size()]), start, count,
-                        Choices.CF_AMBIGUOUS, false);
-            }
-        } catch (XPathExpressionException e) {
-            log.warn(e.getMessage(), e);
-            return new Choices(true);
-        }
-        return new Choices(false);
-    }
-
-    private Choice createChoiceFromNode(Node node) {
-        if (node != null && !isRootElement(node)) {
-            Choice choice = new Choice(getAuthority(node), getLabel(node), getValue(node),
-                    isSelectable(node));
-            choice.extras = addOtherInformation(getParent(node), getNote(node),getChildren(node), getAuthority(node));
-            return choice;
+                try {
+                    return Pair.of(lastModified, ControlledVocabularyIndex.load(source));
+                } catch (ParserConfigurationException | SAXException | IOException e) {
+                    log.error("Error reading the vocabulary " + fileName, e);
+                    return null;
+                }
+            });
         }
-        return null;
-    }
-
-    private InputSource getVocabularyByLocale(String locale) {
-        Locale currentLocale = I18nUtil.getSupportedLocale(locale);
-        return vocabularies.get(currentLocale);
+        return index != null ? index.getRight() : null;
     }
 }
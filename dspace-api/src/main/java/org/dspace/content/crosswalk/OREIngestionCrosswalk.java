@@ -7,18 +7,27 @@
  */
 package org.dspace.content.crosswalk;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.net.ConnectException;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.sql.SQLException;
-import java.text.NumberFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.logging.log4j.Logger;
 import org.dspace.authorize.AuthorizeException;
@@ -34,6 +43,8 @@ import org.dspace.content.service.BundleService;
 import org.dspace.content.service.ItemService;
 import org.dspace.core.Constants;
 import org.dspace.core.Context;
+import org.dspace.services.ConfigurationService;
+import org.dspace.services.factory.DSpaceServicesFactory;
 import org.jdom.Attribute;
 import org.jdom.Document;
 import org.jdom.Element;
@@ -75,6 +86,8 @@ public class OREIngestionCrosswalk
                                                                                    .getBitstreamFormatService();
     protected BundleService bundleService = ContentServiceFactory.getInstance().getBundleService();
     protected ItemService itemService = ContentServiceFactory.getInstance().getItemService();
+    protected ConfigurationService configurationService = DSpaceServicesFactory.getInstance()
+                                                                               .getConfigurationService();
 
 
     @Override
@@ -128,13 +141,39 @@ public class OREIngestionCrosswalk
             throw new CrosswalkException("JDOM exception occurred while ingesting the ORE", e);
         }
 
+        // the resources may be downloaded at once in temporary files, then ingested one by one
+        int downloadThreads = configurationService.getIntProperty("oai.harvester.oreDownloadThreads", 1);
+        ExecutorService executor = null;
+        List<Future<File>> downloads = null;
+        if (downloadThreads > 1 && aggregatedResources.size() > 1) {
+            executor = Executors.newFixedThreadPool(Math.min(downloadThreads, aggregatedResources.size()));
+            downloads = new ArrayList<>();
+            for (Element resource : aggregatedResources) {
+                String href = resource.getAttributeValue("href");
+                downloads.add(href != null ? executor.submit(() -> download(href)) : null);
+            }
+        }
+
+        try {
+            ingestResources(context, item, doc, aggregatedResources, downloads, entryId);
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+                deleteDownloads(downloads);
+            }
+        }
+        log.info(
+            "OREIngest for Item " + item.getID() + " took: " + (new Date().getTime() - timeStart.getTime()) + "ms.");
+    }
+
+    private void ingestResources(Context context, Item item, Document doc, List<Element> aggregatedResources,
+                                 List<Future<File>> downloads, String entryId)
+        throws CrosswalkException, IOException, SQLException, AuthorizeException {
+
         // Next for each resource, create a bitstream
         XPath xpathDesc;
-        NumberFormat nf = NumberFormat.getInstance();
-        nf.setGroupingUsed(false);
-        nf.setMinimumIntegerDigits(4);
-
-        for (Element resource : aggregatedResources) {
+        for (int i = 0; i < aggregatedResources.size(); i++) {
+            Element resource = aggregatedResources.get(i);
             String href = resource.getAttributeValue("href");
             log.debug("ORE processing: " + href);
 
@@ -172,27 +211,21 @@ public class OREIngestionCrosswalk
                 targetBundle = targetBundles.get(0);
             }
 
-            URL ARurl = null;
             InputStream in = null;
             if (href != null) {
-                try {
-                    // Make sure the url string escapes all the oddball characters
-                    String processedURL = encodeForURL(href);
-                    // Generate a requeset for the aggregated resource
-                    ARurl = new URL(processedURL);
-                    in = ARurl.openStream();
-                } catch (FileNotFoundException fe) {
-                    log.error("The provided URI failed to return a resource: " + href);
-                } catch (ConnectException fe) {
-                    log.error("The provided URI was invalid: " + href);
-                }
+                in = downloads != null ? openDownload(downloads.get(i)) : openResource(href);
             } else {
                 throw new CrosswalkException("Entry did not contain link to resource: " + entryId);
             }
 
             // ingest and update
             if (in != null) {
-                Bitstream newBitstream = bitstreamService.create(context, targetBundle, in);
+                Bitstream newBitstream;
+                try {
+                    newBitstream = bitstreamService.create(context, targetBundle, in);
+                } finally {
+                    in.close();
+                }
 
                 String bsName = resource.getAttributeValue("title");
                 newBitstream.setName(context, bsName);
@@ -213,8 +246,80 @@ public class OREIngestionCrosswalk
             }
 
         }
-        log.info(
-            "OREIngest for Item " + item.getID() + " took: " + (new Date().getTime() - timeStart.getTime()) + "ms.");
+    }
+
+    /**
+     * Open the stream of an aggregated resource.
+     *
+     * @param href the link to the resource
+     * @return the stream of the resource, or null if it can't be retrieved
+     */
+    private InputStream openResource(String href) throws IOException {
+        try {
+            // Make sure the url string escapes all the oddball characters
+            String processedURL = encodeForURL(href);
+            // Generate a requeset for the aggregated resource
+            URL ARurl = new URL(processedURL);
+            return ARurl.openStream();
+        } catch (FileNotFoundException fe) {
+            log.error("The provided URI failed to return a resource: " + href);
+        } catch (ConnectException fe) {
+            log.error("The provided URI was invalid: " + href);
+        }
+        return null;
+    }
+
+    /**
+     * Download an aggregated resource in a temporary file.
+     *
+     * @param href the link to the resource
+     * @return the temporary file, or null if the resource can't be retrieved
+     */
+    private File download(String href) throws IOException {
+        try (InputStream in = openResource(href)) {
+            if (in == null) {
+                return null;
+            }
+            File file = File.createTempFile("ore-", ".tmp");
+            try {
+                Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                Files.deleteIfExists(file.toPath());
+                throw e;
+            }
+            return file;
+        }
+    }
+
+    private InputStream openDownload(Future<File> download) throws IOException {
+        File file;
+        try {
+            file = download.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while downloading the ORE resources");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+        return file != null ? new FileInputStream(file) : null;
+    }
+
+    private void deleteDownloads(List<Future<File>> downloads) {
+        for (Future<File> download : downloads) {
+            try {
+                File file = download != null && download.isDone() && !download.isCancelled() ? download.get() : null;
+                if (file != null) {
+                    Files.deleteIfExists(file.toPath());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException | IOException e) {
+                log.debug("Could not delete an ORE download", e);
+            }
+        }
     }
 
 
@@ -34,6 +34,47 @@ public interface ItemDAO extends DSpaceObjectLegacySupportDAO<Item> {
 
     public Iterator<Item> findAll(Context context, boolean archived, boolean withdrawn) throws SQLException;
 
+    /**
+     * Find all Items installed or withdrawn whose UUID falls in the given range, ordered by id.
+     *
+     * @param context    context
+     * @param archived   whether to find archived
+     * @param withdrawn  whether to find withdrawn
+     * @param lowerBound the inclusive lower bound of the UUID range, null for no lower bound
+     * @param upperBound the exclusive upper bound of the UUID range, null for no upper bound
+     * @return iterator over items
+     * @throws SQLException if database error
+     */
+    public Iterator<Item> findAll(Context context, boolean archived, boolean withdrawn,
+                                  UUID lowerBound, UUID upperBound) throws SQLException;
+
+    /**
+     * Find the id, the last modification date and the value of the given field of a page of the archived Items
+     * whose UUID falls in the given range, ordered by id, without loading the Items. An Item with many values of
+     * the field is returned once for each value.
+     *
+     * @param context    context
+     * @param field      the field whose value is returned
+     * @param lowerBound the inclusive lower bound of the UUID range, null for no lower bound
+     * @param upperBound the exclusive upper bound of the UUID range, null for no upper bound
+     * @param limit      the maximum number of rows
+     * @return the id, the last modification date and the value of the field, or null, of each Item
+     * @throws SQLException if database error
+     */
+    public List<Object[]> findArchivedSummaries(Context context, MetadataField field, UUID lowerBound,
+                                                UUID upperBound, int limit) throws SQLException;
+
+    /**
+     * Count the archived Items whose UUID falls in the given range, and find their latest modification date.
+     *
+     * @param context    context
+     * @param lowerBound the inclusive lower bound of the UUID range, null for no lower bound
+     * @param upperBound the exclusive upper bound of the UUID range, null for no upper bound
+     * @return the number of Items and their latest modification date, which is null if there are none
+     * @throws SQLException if database error
+     */
+    public Object[] countArchived(Context context, UUID lowerBound, UUID upperBound) throws SQLException;
+
     /**
      * Find all Items modified since a Date.
      *
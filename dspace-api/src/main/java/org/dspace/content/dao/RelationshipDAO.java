@@ -54,6 +54,19 @@ public interface RelationshipDAO extends GenericDAO<Relationship> {
     List<Relationship> findByItem(Context context, Item item, Integer limit, Integer offset, boolean excludeTilted)
             throws SQLException;
 
+    /**
+     * This method returns in one query the Relationship objects that have one of the given Item objects
+     * as a leftItem or a rightItem, fetching their types and items along with them
+     * @param context         The relevant DSpace context
+     * @param items           The items that should be either a leftItem or a rightItem of all
+     *                        the Relationship objects in the returned list
+     * @param excludeTilted   If true, excludes tilted relationships
+     * @return                The list of Relationship objects that contain either a left or a
+     *                        right item that is one of the given items
+     * @throws SQLException   If something goes wrong
+     */
+    List<Relationship> findByItems(Context context, List<Item> items, boolean excludeTilted) throws SQLException;
+
     /**
      * This method returns the next leftplace integer to use for a relationship with this item as the leftItem
      *
@@ -79,6 +79,78 @@ public class ItemDAOImpl extends AbstractHibernateDSODAO<Item> implements ItemDA
         return iterate(query);
     }
 
+    @Override
+    public Iterator<Item> findAll(Context context, boolean archived, boolean withdrawn,
+                                  UUID lowerBound, UUID upperBound) throws SQLException {
+        StringBuilder queryStr = new StringBuilder();
+        queryStr.append("FROM Item WHERE (inArchive=:in_archive or withdrawn=:withdrawn)");
+        if (lowerBound != null) {
+            queryStr.append(" AND id >= :lower_bound");
+        }
+        if (upperBound != null) {
+            queryStr.append(" AND id < :upper_bound");
+        }
+        queryStr.append(" ORDER BY id");
+
+        Query query = createQuery(context, queryStr.toString());
+        query.setParameter("in_archive", archived);
+        query.setParameter("withdrawn", withdrawn);
+        if (lowerBound != null) {
+            query.setParameter("lower_bound", lowerBound);
+        }
+        if (upperBound != null) {
+            query.setParameter("upper_bound", upperBound);
+        }
+        return iterate(query);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Object[]> findArchivedSummaries(Context context, MetadataField field, UUID lowerBound,
+                                                UUID upperBound, int limit) throws SQLException {
+        StringBuilder queryStr = new StringBuilder();
+        queryStr.append("SELECT i.id, i.lastModified, mv.value FROM Item i");
+        queryStr.append(" left join i.metadata mv on mv.metadataField = :field");
+        queryStr.append(" WHERE i.inArchive = true");
+        appendRange(queryStr, lowerBound, upperBound);
+        queryStr.append(" ORDER BY i.id");
+
+        Query query = createQuery(context, queryStr.toString());
+        query.setParameter("field", field);
+        setRange(query, lowerBound, upperBound);
+        query.setMaxResults(limit);
+        return query.getResultList();
+    }
+
+    @Override
+    public Object[] countArchived(Context context, UUID lowerBound, UUID upperBound) throws SQLException {
+        StringBuilder queryStr = new StringBuilder();
+        queryStr.append("SELECT count(i), max(i.lastModified) FROM Item i WHERE i.inArchive = true");
+        appendRange(queryStr, lowerBound, upperBound);
+
+        Query query = createQuery(context, queryStr.toString());
+        setRange(query, lowerBound, upperBound);
+        return (Object[]) query.getSingleResult();
+    }
+
+    private void appendRange(StringBuilder queryStr, UUID lowerBound, UUID upperBound) {
+        if (lowerBound != null) {
+            queryStr.append(" AND i.id >= :lower_bound");
+        }
+        if (upperBound != null) {
+            queryStr.append(" AND i.id < :upper_bound");
+        }
+    }
+
+    private void setRange(Query query, UUID lowerBound, UUID upperBound) {
+        if (lowerBound != null) {
+            query.setParameter("lower_bound", lowerBound);
+        }
+        if (upperBound != null) {
+            query.setParameter("upper_bound", upperBound);
+        }
+    }
+
     @Override
     public Iterator<Item> findAll(Context context, boolean archived,
                                   boolean withdrawn, boolean discoverable, Date lastModified)
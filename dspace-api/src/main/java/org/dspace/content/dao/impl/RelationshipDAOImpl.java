@@ -73,6 +73,29 @@ public class RelationshipDAOImpl extends AbstractHibernateDAO<Relationship> impl
         return list(context, criteriaQuery, false, Relationship.class, limit, offset);
     }
 
+    @Override
+    public List<Relationship> findByItems(Context context, List<Item> items, boolean excludeTilted)
+            throws SQLException {
+        // the items are fetched with the relationships, they would be selected one by one otherwise
+        StringBuilder queryString = new StringBuilder("SELECT r FROM Relationship r ")
+            .append("JOIN FETCH r.relationshipType t JOIN FETCH r.leftItem JOIN FETCH r.rightItem WHERE ");
+        if (excludeTilted) {
+            // as in findByItem, the left items exclude the types tilted right and the right items the types
+            // tilted left
+            queryString.append("(r.leftItem IN (:items) AND (t.tilted IS NULL OR t.tilted <> :right)) ")
+                       .append("OR (r.rightItem IN (:items) AND (t.tilted IS NULL OR t.tilted <> :left))");
+        } else {
+            queryString.append("r.leftItem IN (:items) OR r.rightItem IN (:items)");
+        }
+        Query query = createQuery(context, queryString.toString());
+        query.setParameter("items", items);
+        if (excludeTilted) {
+            query.setParameter("right", RelationshipType.Tilted.RIGHT);
+            query.setParameter("left", RelationshipType.Tilted.LEFT);
+        }
+        return list(query);
+    }
+
     @Override
     public int countByItem(Context context, Item item)
             throws SQLException {
@@ -7,6 +7,7 @@
  */
 package org.dspace.content.service;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.sql.SQLException;
@@ -166,6 +167,35 @@ public interface BitstreamService extends DSpaceObjectService<Bitstream>, DSpace
     public InputStream retrieve(Context context, Bitstream bitstream)
         throws IOException, SQLException, AuthorizeException;
 
+    /**
+     * Retrieve a range of the contents of the bitstream
+     *
+     * @param context   DSpace context object
+     * @param bitstream DSpace bitstream
+     * @param offset    the position of the first byte to retrieve
+     * @param length    the number of bytes to retrieve, or -1 to retrieve all the bytes after the offset
+     * @return a stream from which the requested range of the bitstream can be read.
+     * @throws IOException        if IO error
+     * @throws SQLException       if database error
+     * @throws AuthorizeException if authorization error
+     */
+    public InputStream retrieve(Context context, Bitstream bitstream, long offset, long length)
+        throws IOException, SQLException, AuthorizeException;
+
+    /**
+     * Retrieve the file holding the contents of the bitstream, if it is stored
+     * on the local file system
+     *
+     * @param context   DSpace context object
+     * @param bitstream DSpace bitstream
+     * @return the file holding the contents of the bitstream, or null if it is not stored in a local file
+     * @throws IOException        if IO error
+     * @throws SQLException       if database error
+     * @throws AuthorizeException if authorization error
+     */
+    public File retrieveLocalFile(Context context, Bitstream bitstream)
+        throws IOException, SQLException, AuthorizeException;
+
     /**
      * Determine if this bitstream is registered (available elsewhere on
      * filesystem than in assetstore). More about registered items:
@@ -15,6 +15,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.UUID;
 
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.lang3.tuple.Triple;
 import org.dspace.authorize.AuthorizeException;
 import org.dspace.authorize.ResourcePolicy;
 import org.dspace.content.Bitstream;
@@ -113,6 +115,49 @@ public interface ItemService
      */
     public Iterator<Item> findAllUnfiltered(Context context) throws SQLException;
 
+    /**
+     * Get all "final" items in the archive whose UUID falls in the given range,
+     * both archived ("in archive" flag) or withdrawn items are included. Items
+     * are returned ordered by their UUID.
+     *
+     * @param context    DSpace context object
+     * @param lowerBound the inclusive lower bound of the UUID range, null for no lower bound
+     * @param upperBound the exclusive upper bound of the UUID range, null for no upper bound
+     * @return an iterator over the items in the archive.
+     * @throws SQLException if database error
+     */
+    public Iterator<Item> findAllUnfiltered(Context context, UUID lowerBound, UUID upperBound)
+        throws SQLException;
+
+    /**
+     * Get the id, the last modification date and the entity type of a page of
+     * the archived items whose UUID falls in the given range, ordered by their
+     * UUID, without loading the items. The next page starts from the id of the
+     * last item of the page, which may be returned again.
+     *
+     * @param context    DSpace context object
+     * @param lowerBound the inclusive lower bound of the UUID range, null for no lower bound
+     * @param upperBound the exclusive upper bound of the UUID range, null for no upper bound
+     * @param limit      the maximum number of items of the page
+     * @return the id, the last modification date and the entity type, or null, of the items
+     * @throws SQLException if database error
+     */
+    public List<Triple<UUID, Date, String>> findArchivedSummaries(Context context, UUID lowerBound,
+                                                                  UUID upperBound, int limit) throws SQLException;
+
+    /**
+     * Count the archived items whose UUID falls in the given range, and get
+     * their latest modification date, e.g. to find if any of them changed.
+     *
+     * @param context    DSpace context object
+     * @param lowerBound the inclusive lower bound of the UUID range, null for no lower bound
+     * @param upperBound the exclusive upper bound of the UUID range, null for no upper bound
+     * @return the number of items and their latest modification date, which is null if there are none
+     * @throws SQLException if database error
+     */
+    public Pair<Long, Date> countArchived(Context context, UUID lowerBound, UUID upperBound)
+        throws SQLException;
+
     /**
      * Find all the items in the archive by a given submitter. The order is
      * indeterminate. Only items with the "in archive" flag set are included.
@@ -767,6 +812,37 @@ public interface ItemService
     public List<MetadataValue> getMetadata(Item item, String schema, String element, String qualifier,
                                            String lang, boolean enableVirtualMetadata);
 
+    /**
+     * Get the metadata of the item as {@link #getMetadata(Item, String, String, String, String, boolean)}, but
+     * resolve its virtual metadata, when they are not cached yet, with the given context instead of the context
+     * kept for the calls without one.
+     *
+     * @param context      DSpace context object, null to use the context of the current thread
+     * @param item         Item
+     * @param schema       the schema for the metadata field
+     * @param element      the element name
+     * @param qualifier    the qualifier
+     * @param lang         the ISO639 language code
+     * @param enableVirtualMetadata
+     *                     Enables virtual metadata calculation and inclusion from the
+     *                     relationships.
+     * @return metadata fields that match the parameters
+     */
+    public List<MetadataValue> getMetadata(Context context, Item item, String schema, String element,
+                                           String qualifier, String lang, boolean enableVirtualMetadata);
+
+    /**
+     * Resolve at once the virtual metadata of the given items, with the relationships of all the items retrieved
+     * in one query, and cache them on each item: the following calls of
+     * {@link #getMetadata(Item, String, String, String, String, boolean)} on these items then don't resolve them
+     * item by item. Nothing is done if the virtual metadata are disabled or already cached.
+     *
+     * @param context DSpace context object
+     * @param items   the items whose metadata will be read
+     * @throws SQLException if database error
+     */
+    public void cacheVirtualMetadata(Context context, List<Item> items) throws SQLException;
+
     /**
      * Returns the item's entity type, if any.
      *
@@ -9,6 +9,7 @@ package org.dspace.content.service;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.dspace.authorize.AuthorizeException;
@@ -49,6 +50,19 @@ public interface RelationshipService extends DSpaceCRUDService<Relationship> {
     List<Relationship> findByItem(Context context, Item item, Integer limit, Integer offset, boolean excludeTilted)
             throws SQLException;
 
+    /**
+     * Retrieves in one query the Relationships of each of the given Items, in the order of
+     * {@link #findByItem(Context, Item, Integer, Integer, boolean)}
+     * @param context         The relevant DSpace context
+     * @param items           The Items whose relationships are retrieved
+     * @param excludeTilted   If true, excludes tilted relationships
+     * @return                The relationships of each item by the item uuid, the items without relationships
+     *                        are not included
+     * @throws SQLException   If something goes wrong
+     */
+    Map<UUID, List<Relationship>> findByItems(Context context, List<Item> items, boolean excludeTilted)
+            throws SQLException;
+
     /**
      * Retrieves the full list of relationships currently in the system
      * @param context   The relevant DSpace context
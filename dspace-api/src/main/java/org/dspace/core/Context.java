@@ -9,6 +9,7 @@ package org.dspace.core;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.LinkedList;
 import java.util.List;
@@ -22,6 +23,8 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import org.apache.logging.log4j.Logger;
 import org.dspace.authorize.ResourcePolicy;
 import org.dspace.content.DSpaceObject;
+import org.dspace.content.Item;
+import org.dspace.content.RelationshipMetadataValue;
 import org.dspace.eperson.EPerson;
 import org.dspace.eperson.Group;
 import org.dspace.eperson.factory.EPersonServiceFactory;
@@ -118,6 +121,11 @@ public class Context implements AutoCloseable {
      */
     private final ContextReadOnlyCache readOnlyCache = new ContextReadOnlyCache();
 
+    /**
+     * Tasks to run after the current transaction has been committed
+     */
+    private final Deque<Runnable> afterCommitCallbacks = new ConcurrentLinkedDeque<>();
+
     protected EventService eventService;
 
     private DBConnection dbConnection;
@@ -438,6 +446,38 @@ public class Context implements AutoCloseable {
                 reloadContextBoundEntities();
             }
         }
+        runAfterCommitCallbacks();
+    }
+
+    /**
+     * Register a task to be run once the current transaction has been successfully committed, e.g. to hand
+     * the dispatched events over to other threads only when they can see the committed changes. The
+     * registered tasks are discarded if the transaction is rolled back.
+     *
+     * @param callback the task to run after the commit
+     */
+    public void addAfterCommitCallback(Runnable callback) {
+        afterCommitCallbacks.add(callback);
+    }
+
+    /**
+     * Whether or not tasks are waiting for the current transaction to be committed, i.e. the context
+     * holds changes that the other contexts can't see yet.
+     * @return true or false
+     */
+    public boolean hasAfterCommitCallbacks() {
+        return !afterCommitCallbacks.isEmpty();
+    }
+
+    private void runAfterCommitCallbacks() {
+        while (!afterCommitCallbacks.isEmpty()) {
+            Runnable callback = afterCommitCallbacks.poll();
+            try {
+                callback.run();
+            } catch (RuntimeException e) {
+                log.error("Error running a task after the commit", e);
+            }
+        }
     }
 
 
@@ -559,6 +599,7 @@ public class Context implements AutoCloseable {
             }
         } finally {
             events = null;
+            afterCommitCallbacks.clear();
         }
     }
 
@@ -597,6 +638,7 @@ public class Context implements AutoCloseable {
                 log.error("Error closing the database connection", ex);
             }
             events = null;
+            afterCommitCallbacks.clear();
         }
     }
 
@@ -666,6 +708,16 @@ public class Context implements AutoCloseable {
         return specialGroups.contains(groupID);
     }
 
+    /**
+     * Get the identifiers of the special groups that current user is a member of,
+     * without loading the groups.
+     *
+     * @return list of special group IDs
+     */
+    public List<UUID> getSpecialGroupUuids() {
+        return specialGroups != null ? Collections.unmodifiableList(specialGroups) : Collections.emptyList();
+    }
+
     /**
      * Get an array of all of the special groups that current user is a member of.
      *
@@ -914,6 +966,21 @@ public class Context implements AutoCloseable {
         }
     }
 
+    public List<RelationshipMetadataValue> getCachedRelationshipMetadata(Item item, boolean enableVirtualMetadata) {
+        if (isReadOnly()) {
+            return readOnlyCache.getCachedRelationshipMetadata(item, enableVirtualMetadata);
+        } else {
+            return null;
+        }
+    }
+
+    public void cacheRelationshipMetadata(Item item, boolean enableVirtualMetadata,
+                                          List<RelationshipMetadataValue> values) {
+        if (isReadOnly()) {
+            readOnlyCache.cacheRelationshipMetadata(item, enableVirtualMetadata, values);
+        }
+    }
+
     /**
      * Reload all entities related to this context.
      *
@@ -8,11 +8,15 @@
 package org.dspace.core;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Set;
+import java.util.UUID;
 
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 import org.dspace.content.DSpaceObject;
+import org.dspace.content.Item;
+import org.dspace.content.RelationshipMetadataValue;
 import org.dspace.eperson.EPerson;
 import org.dspace.eperson.Group;
 import org.springframework.util.CollectionUtils;
@@ -40,6 +44,13 @@ public class ContextReadOnlyCache {
      */
     private final HashMap<String, Set<Group>> allMemberGroupsCache = new HashMap<>();
 
+    /**
+     * Relationship metadata cache that is used when the context is in READ_ONLY mode.
+     * The key of the cache is: Item ID and enable virtual metadata boolean.
+     */
+    private final HashMap<Pair<UUID, Boolean>, List<RelationshipMetadataValue>> relationshipMetadataCache =
+        new HashMap<>();
+
     public Boolean getCachedAuthorizationResult(DSpaceObject dspaceObject, int action,
         EPerson eperson, Boolean useInheritance) {
         return authorizedActionsCache.get(AuthorizedActionKey.of(dspaceObject, action, eperson, useInheritance));
@@ -80,10 +91,20 @@ public class ContextReadOnlyCache {
         return allMemberGroupsCache.get(buildAllMembersGroupKey(ePerson));
     }
 
+    public List<RelationshipMetadataValue> getCachedRelationshipMetadata(Item item, boolean enableVirtualMetadata) {
+        return relationshipMetadataCache.get(new ImmutablePair<>(item.getID(), enableVirtualMetadata));
+    }
+
+    public void cacheRelationshipMetadata(Item item, boolean enableVirtualMetadata,
+                                          List<RelationshipMetadataValue> values) {
+        relationshipMetadataCache.put(new ImmutablePair<>(item.getID(), enableVirtualMetadata), values);
+    }
+
     public void clear() {
         authorizedActionsCache.clear();
         groupMembershipCache.clear();
         allMemberGroupsCache.clear();
+        relationshipMetadataCache.clear();
     }
 
     private String buildAllMembersGroupKey(EPerson ePerson) {
@@ -7,7 +7,9 @@
  */
 package org.dspace.discovery;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -47,6 +49,10 @@ public class IndexEventConsumer implements Consumer {
 
     IndexObjectFactoryFactory indexObjectServiceFactory = IndexObjectFactoryFactory.getInstance();
 
+    IndexingQueue indexingQueue = DSpaceServicesFactory.getInstance().getServiceManager()
+                                                       .getServiceByName(IndexingQueue.class.getName(),
+                                                                         IndexingQueue.class);
+
     @Override
     public void initialize() throws Exception {
 
@@ -198,6 +204,11 @@ public class IndexEventConsumer implements Consumer {
     @Override
     public void end(Context ctx) throws Exception {
 
+        if (indexingQueue != null && indexingQueue.isEnabled()) {
+            enqueue(ctx);
+            return;
+        }
+
         try {
             for (String uid : uniqueIdsToDelete) {
                 try {
@@ -241,6 +252,23 @@ public class IndexEventConsumer implements Consumer {
         }
     }
 
+    /**
+     * Hand the objects to delete and update over to the node-wide {@link IndexingQueue}, once the transaction
+     * is committed so that the queue reloads their committed state.
+     */
+    private void enqueue(Context ctx) {
+        if (!objectsToUpdate.isEmpty() || !uniqueIdsToDelete.isEmpty()) {
+            List<String> toDelete = new ArrayList<>(uniqueIdsToDelete);
+            List<IndexableObject> toUpdate = new ArrayList<>(objectsToUpdate);
+            ctx.addAfterCommitCallback(() -> {
+                toDelete.forEach(indexingQueue::delete);
+                toUpdate.forEach(indexingQueue::update);
+            });
+            objectsToUpdate.clear();
+            uniqueIdsToDelete.clear();
+        }
+    }
+
     @Override
     public void finish(Context ctx) throws Exception {
         // No-op
@@ -0,0 +1,100 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.discovery;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A slice of the identifier space of an indexable object type, used to split a
+ * full reindex into independent units of work.
+ * <p>
+ * The UUID space is cut in contiguous ranges on the 32 most significant bits,
+ * compared as unsigned values, so that each partition can be resolved with a
+ * simple range query on the database (see {@link #getLowerBound()} and
+ * {@link #getUpperBound()}). Objects identified by something else than a UUID
+ * (e.g. workflow tasks) are assigned to a partition by the hash of their id.
+ */
+public class IndexPartition {
+
+    private static final long RANGE = 1L << 32;
+
+    private final int index;
+    private final int count;
+
+    public IndexPartition(int index, int count) {
+        if (count < 1 || index < 0 || index >= count) {
+            throw new IllegalArgumentException("Invalid partition " + index + " of " + count);
+        }
+        this.index = index;
+        this.count = count;
+    }
+
+    /**
+     * Split the identifier space in the given number of partitions.
+     *
+     * @param count the number of partitions
+     * @return the list of all the partitions, ordered by index
+     */
+    public static List<IndexPartition> split(int count) {
+        List<IndexPartition> partitions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            partitions.add(new IndexPartition(i, count));
+        }
+        return partitions;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return the inclusive lower bound of this partition, null for the first partition
+     */
+    public UUID getLowerBound() {
+        return index == 0 ? null : boundary(index);
+    }
+
+    /**
+     * @return the exclusive upper bound of this partition, null for the last partition
+     */
+    public UUID getUpperBound() {
+        return index == count - 1 ? null : boundary(index + 1);
+    }
+
+    /**
+     * Check if the given identifier belongs to this partition.
+     *
+     * @param id the identifier of an indexable object
+     * @return true if the object identified by the given id belongs to this partition
+     */
+    public boolean contains(Serializable id) {
+        if (id instanceof UUID) {
+            long high = ((UUID) id).getMostSignificantBits() >>> 32;
+            return (high * count) >>> 32 == index;
+        }
+        return Math.floorMod(id.hashCode(), count) == index;
+    }
+
+    private UUID boundary(int i) {
+        // round up so that the boundary is consistent with contains()
+        long high = (i * RANGE + count - 1) / count;
+        return new UUID(high << 32, 0L);
+    }
+
+    @Override
+    public String toString() {
+        return (index + 1) + "/" + count;
+    }
+}
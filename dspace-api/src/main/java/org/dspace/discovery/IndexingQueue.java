@@ -0,0 +1,432 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.discovery;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.common.SolrInputDocument;
+import org.dspace.core.Context;
+import org.dspace.discovery.indexobject.factory.IndexFactory;
+import org.dspace.discovery.indexobject.factory.IndexObjectFactoryFactory;
+import org.dspace.services.ConfigurationService;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Node-wide queue of the discovery index updates requested by the {@link IndexEventConsumer}.
+ * <p>
+ * Requests for the same indexable object are coalesced until the object has not been requested again for
+ * <code>discovery.index.queue.delay</code> milliseconds, or its first request is older than
+ * <code>discovery.index.queue.max-delay</code> milliseconds, so that the parent collections, communities and
+ * related entities touched by every commit of a bulk import are indexed once instead of at each commit. The
+ * objects are then reloaded in a new {@link Context}, so that their latest committed state is indexed, and sent
+ * to the search core in batches of <code>discovery.index.queue.batch-size</code> documents, made visible by
+ * Solr within <code>discovery.index.queue.commit-within</code> milliseconds instead of an explicit commit.
+ * <p>
+ * A batch that fails is queued again, and retried after <code>discovery.index.queue.retry-delay</code>
+ * milliseconds, doubled at each attempt, up to <code>discovery.index.queue.max-retries</code> times. The
+ * requests still failing after that are logged with their unique index ids, to be indexed again with
+ * <code>index-discovery -i &lt;uuid&gt;</code>.
+ * <p>
+ * The queue is disabled unless <code>discovery.index.queue.enabled</code> is true. On a regular shutdown the
+ * requests that could not be flushed are saved to <code>discovery.index.queue.pending-file</code> and queued
+ * again at the next start. As the queue is held in memory, the requests not yet flushed are lost if the node
+ * is killed: run <code>index-discovery</code> (without <code>-b</code>, to only update the stale documents)
+ * to reconcile the index.
+ */
+public class IndexingQueue {
+
+    private static final Logger log = LogManager.getLogger();
+
+    @Autowired(required = true)
+    protected IndexObjectFactoryFactory indexObjectFactoryFactory;
+
+    @Autowired(required = true)
+    protected SolrSearchCore solrSearchCore;
+
+    @Autowired(required = true)
+    protected ConfigurationService configurationService;
+
+    private boolean enabled;
+    private long delay;
+    private long maxDelay;
+    private int batchSize;
+    private int commitWithin;
+    private int maxPending;
+    private int maxRetries;
+    private long retryDelay;
+    private File pendingFile;
+
+    /**
+     * Pending requests by unique index id, in the order they have been first requested, guarded by itself
+     */
+    private final Map<String, Request> pending = new LinkedHashMap<>();
+
+    private final Object flushLock = new Object();
+
+    private ScheduledExecutorService scheduler;
+
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong indexed = new AtomicLong();
+    private final AtomicLong deleted = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        enabled = configurationService.getBooleanProperty("discovery.index.queue.enabled", false);
+        delay = Math.max(0, configurationService.getLongProperty("discovery.index.queue.delay", 2000));
+        maxDelay = Math.max(delay, configurationService.getLongProperty("discovery.index.queue.max-delay", 30000));
+        batchSize = Math.max(1, configurationService.getIntProperty("discovery.index.queue.batch-size", 200));
+        commitWithin = Math.max(0, configurationService.getIntProperty("discovery.index.queue.commit-within",
+                                                                       5000));
+        maxPending = Math.max(batchSize,
+                              configurationService.getIntProperty("discovery.index.queue.max-pending", 50000));
+        maxRetries = Math.max(0, configurationService.getIntProperty("discovery.index.queue.max-retries", 5));
+        retryDelay = Math.max(0, configurationService.getLongProperty("discovery.index.queue.retry-delay", 5000));
+        String path = configurationService.getProperty("discovery.index.queue.pending-file");
+        if (StringUtils.isBlank(path) && StringUtils.isNotBlank(configurationService.getProperty("dspace.dir"))) {
+            path = configurationService.getProperty("dspace.dir") + File.separator + "var" + File.separator
+                + "discovery-index-queue.pending";
+        }
+        pendingFile = StringUtils.isNotBlank(path) ? new File(path) : null;
+        if (enabled) {
+            load();
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "discovery-indexing-queue");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long period = Math.max(100, delay / 2);
+            scheduler.scheduleWithFixedDelay(() -> flush(false), period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stop the flushing thread, flush all the pending requests and save the ones that could not be flushed.
+     */
+    @PreDestroy
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            scheduler = null;
+        }
+        flush(true);
+        save();
+        log.info("Discovery indexing queue stopped, {}", getMetrics());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Request the (re)indexing of an object.
+     *
+     * @param indexableObject the object to index
+     */
+    public void update(IndexableObject indexableObject) {
+        request(indexableObject.getType(), String.valueOf(indexableObject.getID()), false);
+    }
+
+    /**
+     * Request the removal of a document from the index, before any indexing of the same object requested later.
+     *
+     * @param uniqueIndexID the unique index id of the document, i.e. type-id
+     */
+    public void delete(String uniqueIndexID) {
+        request(StringUtils.substringBefore(uniqueIndexID, "-"), StringUtils.substringAfter(uniqueIndexID, "-"),
+                true);
+    }
+
+    private void request(String type, String id, boolean delete) {
+        requested.incrementAndGet();
+        long now = System.currentTimeMillis();
+        boolean full;
+        synchronized (pending) {
+            Request request = pending.get(type + "-" + id);
+            if (request == null) {
+                request = new Request(type, id, now);
+                pending.put(request.getUniqueIndexID(), request);
+            } else {
+                coalesced.incrementAndGet();
+            }
+            request.lastRequested = now;
+            if (delete) {
+                // a document deleted after being requested for indexing is only indexed again if still resolvable
+                request.delete = true;
+            }
+            full = pending.size() >= maxPending;
+        }
+        if (full && scheduler != null) {
+            scheduler.execute(() -> flush(true));
+        }
+    }
+
+    /**
+     * Send to the search core the pending requests that are due. The requests waiting for a retry are only sent
+     * once their retry delay has elapsed.
+     *
+     * @param all true to send all the pending requests, regardless of their delay
+     */
+    public void flush(boolean all) {
+        synchronized (flushLock) {
+            List<Request> batch;
+            while (!(batch = poll(all)).isEmpty()) {
+                try {
+                    process(batch);
+                } catch (Exception e) {
+                    log.warn("Unable to index {} queued objects: {}", batch.size(), batch, e);
+                    retry(batch);
+                }
+            }
+        }
+    }
+
+    private void retry(List<Request> batch) {
+        long now = System.currentTimeMillis();
+        List<Request> givenUp = new ArrayList<>();
+        synchronized (pending) {
+            for (Request request : batch) {
+                Request newer = pending.get(request.getUniqueIndexID());
+                if (newer != null) {
+                    // requested again in the meantime, the new request covers the failed one
+                    newer.delete |= request.delete;
+                } else if (request.attempts >= maxRetries) {
+                    givenUp.add(request);
+                } else {
+                    request.retryAt = now + (retryDelay << request.attempts);
+                    request.attempts++;
+                    pending.put(request.getUniqueIndexID(), request);
+                    retried.incrementAndGet();
+                }
+            }
+        }
+        if (!givenUp.isEmpty()) {
+            failed.addAndGet(givenUp.size());
+            log.error("Gave up indexing {} queued objects after {} retries, reindex them with index-discovery -i: {}",
+                      givenUp.size(), maxRetries, givenUp);
+        }
+    }
+
+    private List<Request> poll(boolean all) {
+        long now = System.currentTimeMillis();
+        List<Request> batch = new ArrayList<>(batchSize);
+        synchronized (pending) {
+            Iterator<Request> requests = pending.values().iterator();
+            while (requests.hasNext() && batch.size() < batchSize) {
+                Request request = requests.next();
+                if (request.retryAt > now) {
+                    continue;
+                }
+                if (all || now - request.lastRequested >= delay || now - request.firstRequested >= maxDelay) {
+                    batch.add(request);
+                    requests.remove();
+                }
+            }
+        }
+        return batch;
+    }
+
+    private void process(List<Request> batch) throws SQLException, IOException, SolrServerException {
+        SolrClient solr = solrSearchCore.getSolr();
+        if (solr == null) {
+            return;
+        }
+        Context context = createContext();
+        try {
+            List<String> deletedIds = new ArrayList<>();
+            List<SolrInputDocument> documents = new ArrayList<>();
+            for (Request request : batch) {
+                IndexFactory indexFactory = indexObjectFactoryFactory.getIndexFactoryByType(request.type);
+                if (indexFactory == null) {
+                    log.warn("Unable to index {}, unknown type", request.getUniqueIndexID());
+                    continue;
+                }
+                if (request.delete) {
+                    indexFactory.delete(request.getUniqueIndexID());
+                    deletedIds.add(request.getUniqueIndexID());
+                }
+                Optional<IndexableObject> indexableObject = indexFactory.findIndexableObject(context, request.id);
+                if (indexableObject.isPresent()) {
+                    documents.add(indexFactory.buildCompleteDocument(context, indexableObject.get()));
+                    context.uncacheEntity(indexableObject.get().getIndexedObject());
+                } else if (!request.delete) {
+                    log.debug("{} no longer exists, skipping it", request.getUniqueIndexID());
+                }
+            }
+            if (!documents.isEmpty()) {
+                solr.add(documents, commitWithin);
+            } else if (!deletedIds.isEmpty()) {
+                // the deletions have been sent already, repeat them only to have them committed in time
+                UpdateRequest update = new UpdateRequest();
+                update.deleteById(deletedIds);
+                update.setCommitWithin(commitWithin);
+                update.process(solr);
+            }
+            indexed.addAndGet(documents.size());
+            deleted.addAndGet(deletedIds.size());
+            log.debug("Flushed {} indexed and {} deleted documents", documents.size(), deletedIds.size());
+        } finally {
+            context.abort();
+        }
+    }
+
+    /**
+     * Queue the requests saved by the previous shutdown.
+     */
+    private void load() {
+        if (pendingFile == null || !pendingFile.exists()) {
+            return;
+        }
+        try {
+            List<String> lines = Files.readAllLines(pendingFile.toPath(), StandardCharsets.UTF_8);
+            for (String line : lines) {
+                String uniqueIndexID = StringUtils.substringBefore(line, "\t");
+                if (StringUtils.isNotBlank(uniqueIndexID)) {
+                    request(StringUtils.substringBefore(uniqueIndexID, "-"),
+                            StringUtils.substringAfter(uniqueIndexID, "-"), line.endsWith("\tdelete"));
+                }
+            }
+            Files.delete(pendingFile.toPath());
+            log.info("Queued {} index requests saved at the previous shutdown", lines.size());
+        } catch (IOException e) {
+            log.error("Unable to read the pending index requests from {}", pendingFile, e);
+        }
+    }
+
+    /**
+     * Save the requests that could not be flushed, to queue them again at the next start.
+     */
+    private void save() {
+        List<String> lines = new ArrayList<>();
+        synchronized (pending) {
+            for (Request request : pending.values()) {
+                lines.add(request.getUniqueIndexID() + (request.delete ? "\tdelete" : ""));
+            }
+        }
+        if (lines.isEmpty()) {
+            return;
+        }
+        if (pendingFile == null) {
+            log.error("Unable to index {} queued objects, reindex them with index-discovery -i: {}", lines.size(),
+                      lines);
+            return;
+        }
+        try {
+            pendingFile.getParentFile().mkdirs();
+            Files.write(pendingFile.toPath(), lines, StandardCharsets.UTF_8);
+            log.warn("Saved {} pending index requests to {}", lines.size(), pendingFile);
+        } catch (IOException e) {
+            log.error("Unable to save the pending index requests {} to {}", lines, pendingFile, e);
+        }
+    }
+
+    /**
+     * Create the context used to load the objects to index.
+     */
+    protected Context createContext() {
+        Context context = new Context(Context.Mode.READ_ONLY);
+        context.turnOffAuthorisationSystem();
+        return context;
+    }
+
+    /**
+     * @return the number of requests waiting to be sent to the search core
+     */
+    public int getPendingCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    public long getRequestedCount() {
+        return requested.get();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    public long getIndexedCount() {
+        return indexed.get();
+    }
+
+    public long getDeletedCount() {
+        return deleted.get();
+    }
+
+    public long getRetriedCount() {
+        return retried.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * @return a human readable summary of the queue metrics
+     */
+    public String getMetrics() {
+        return "pending=" + getPendingCount() + ", requested=" + requested.get() + ", coalesced="
+            + coalesced.get() + ", indexed=" + indexed.get() + ", deleted=" + deleted.get() + ", retried="
+            + retried.get() + ", failed=" + failed.get();
+    }
+
+    private static final class Request {
+        private final String type;
+        private final String id;
+        private final long firstRequested;
+        private long lastRequested;
+        private boolean delete;
+        private int attempts;
+        private long retryAt;
+
+        private Request(String type, String id, long firstRequested) {
+            this.type = type;
+            this.id = id;
+            this.firstRequested = firstRequested;
+        }
+
+        private String getUniqueIndexID() {
+            return type + "-" + id;
+        }
+
+        @Override
+        public String toString() {
+            return getUniqueIndexID();
+        }
+    }
+}
@@ -0,0 +1,245 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.discovery;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.SolrInputDocument;
+import org.dspace.core.Context;
+import org.dspace.discovery.indexobject.factory.IndexFactory;
+import org.dspace.services.ConfigurationService;
+
+/**
+ * Rebuild the discovery index of an indexable object type splitting its identifier
+ * space in {@link IndexPartition}s that are processed concurrently by a pool of workers.
+ * <p>
+ * Each worker uses its own {@link Context}, builds at most
+ * <code>discovery.index.parallel.batch-size</code> documents in memory and sends them to
+ * the search core with a single request. Once all the documents of a partition have been
+ * sent, the partition is recorded in a checkpoint file so that an interrupted reindex
+ * can be resumed skipping the partitions already completed. The checkpoint is removed
+ * when all the partitions of the type have been processed successfully.
+ * <p>
+ * Only the types whose factory resolves the partitions in the database (see
+ * {@link IndexFactory#supportsPartitions()}) are split; the other ones, usually much
+ * smaller, are indexed by a single worker in one pass.
+ * <p>
+ * The following configuration properties are supported:
+ * <ul>
+ * <li>discovery.index.parallel.threads: the number of workers (default 1, i.e. no parallel reindex)</li>
+ * <li>discovery.index.parallel.partitions: the number of partitions for each type (default 64)</li>
+ * <li>discovery.index.parallel.batch-size: the number of documents sent in a single request (default 500)</li>
+ * <li>discovery.index.parallel.resume: whether to skip the partitions completed by a previous run
+ * (default true)</li>
+ * <li>discovery.index.parallel.checkpoint-dir: where checkpoints are stored
+ * (default ${dspace.dir}/var/discovery-reindex)</li>
+ * </ul>
+ */
+public class PartitionedIndexUpdater {
+
+    private static final Logger log = LogManager.getLogger(PartitionedIndexUpdater.class);
+
+    private final SolrServiceImpl solrService;
+    private final SolrClient solr;
+    private final int threads;
+    private final int partitions;
+    private final int batchSize;
+    private final boolean resume;
+    private final File checkpointDir;
+
+    public PartitionedIndexUpdater(SolrServiceImpl solrService, SolrClient solr,
+                                   ConfigurationService configurationService) {
+        this.solrService = solrService;
+        this.solr = solr;
+        this.threads = Math.max(1, configurationService.getIntProperty("discovery.index.parallel.threads", 1));
+        this.partitions = Math.max(1,
+            configurationService.getIntProperty("discovery.index.parallel.partitions", 64));
+        this.batchSize = Math.max(1,
+            configurationService.getIntProperty("discovery.index.parallel.batch-size", 500));
+        this.resume = configurationService.getBooleanProperty("discovery.index.parallel.resume", true);
+        String dir = configurationService.getProperty("discovery.index.parallel.checkpoint-dir");
+        if (StringUtils.isBlank(dir)) {
+            dir = configurationService.getProperty("dspace.dir") + File.separator + "var"
+                + File.separator + "discovery-reindex";
+        }
+        this.checkpointDir = new File(dir);
+    }
+
+    /**
+     * @param configurationService the DSpace configuration
+     * @return true if the parallel reindex has been enabled configuring more than one worker
+     */
+    public static boolean isEnabled(ConfigurationService configurationService) {
+        return configurationService.getIntProperty("discovery.index.parallel.threads", 1) > 1;
+    }
+
+    /**
+     * Index all the objects of the type handled by the given factory.
+     *
+     * @param indexFactory the factory of the type to index
+     * @param force        whether or not to force the reindexing of objects not modified since the last indexing
+     * @return the number of processed objects
+     * @throws IOException if the checkpoint cannot be read or written
+     */
+    public long update(IndexFactory indexFactory, boolean force) throws IOException {
+        final String type = indexFactory.getType();
+        if (!indexFactory.supportsPartitions()) {
+            // the type can't be split in the database, scan it once instead of once per partition
+            try {
+                long count = indexPartition(indexFactory, null, force);
+                log.info("Indexed {} objects of {} in a single pass", count, type);
+                return count;
+            } catch (Exception e) {
+                throw new IOException("Unable to index " + type, e);
+            }
+        }
+        final File checkpoint = new File(checkpointDir, type + "-" + partitions + ".checkpoint");
+        final Set<Integer> completed = resume ? readCheckpoint(checkpoint) : new HashSet<>();
+        if (!resume) {
+            Files.deleteIfExists(checkpoint.toPath());
+        }
+        if (!completed.isEmpty()) {
+            log.info("Resuming the reindex of {}: {} of {} partitions already completed", type,
+                completed.size(), partitions);
+        }
+
+        final AtomicLong processed = new AtomicLong();
+        final AtomicInteger done = new AtomicInteger(completed.size());
+        final long start = System.currentTimeMillis();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Long>> results = new ArrayList<>();
+        List<IndexPartition> submitted = new ArrayList<>();
+        try {
+            for (IndexPartition partition : IndexPartition.split(partitions)) {
+                if (completed.contains(partition.getIndex())) {
+                    continue;
+                }
+                submitted.add(partition);
+                results.add(executor.submit(() -> {
+                    long count = indexPartition(indexFactory, partition, force);
+                    markCompleted(checkpoint, partition);
+                    long total = processed.addAndGet(count);
+                    long seconds = Math.max(1, (System.currentTimeMillis() - start) / 1000);
+                    log.info("Indexed partition {} of {} ({} objects), {} of {} partitions completed,"
+                        + " {} objects processed at {} objects/s", partition, type, count,
+                        done.incrementAndGet(), partitions, total, total / seconds);
+                    return count;
+                }));
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        List<String> failures = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++) {
+            try {
+                results.get(i).get();
+            } catch (ExecutionException e) {
+                log.error("Unable to index partition " + submitted.get(i) + " of " + type, e.getCause());
+                failures.add(submitted.get(i).toString());
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while indexing " + type, e);
+            }
+        }
+        if (!failures.isEmpty()) {
+            throw new IOException("Unable to index the partitions " + String.join(", ", failures) + " of " + type
+                + ", run the reindex again to resume from the last completed partition");
+        }
+
+        Files.deleteIfExists(checkpoint.toPath());
+        return processed.get();
+    }
+
+    /**
+     * Index the objects of the given partition, or all the objects of the type if
+     * the partition is null.
+     */
+    private long indexPartition(IndexFactory indexFactory, IndexPartition partition, boolean force)
+        throws Exception {
+        Context context = createContext();
+        context.turnOffAuthorisationSystem();
+        try {
+            long count = 0;
+            List<SolrInputDocument> batch = new ArrayList<>(batchSize);
+            Iterator<IndexableObject> indexableObjects = partition != null
+                ? indexFactory.findAll(context, partition) : indexFactory.findAll(context);
+            while (indexableObjects.hasNext()) {
+                IndexableObject indexableObject = indexableObjects.next();
+                if (force || solrService.requiresIndexing(indexableObject.getUniqueIndexID(),
+                                                          indexableObject.getLastModified())) {
+                    batch.add(indexFactory.buildCompleteDocument(context, indexableObject));
+                    if (batch.size() >= batchSize) {
+                        flush(batch);
+                    }
+                }
+                context.uncacheEntity(indexableObject.getIndexedObject());
+                count++;
+            }
+            flush(batch);
+            context.complete();
+            return count;
+        } finally {
+            if (context.isValid()) {
+                context.abort();
+            }
+        }
+    }
+
+    protected Context createContext() {
+        return new Context(Context.Mode.READ_ONLY);
+    }
+
+    private void flush(List<SolrInputDocument> batch) throws IOException, SolrServerException {
+        if (!batch.isEmpty()) {
+            solr.add(batch);
+            batch.clear();
+        }
+    }
+
+    private Set<Integer> readCheckpoint(File checkpoint) throws IOException {
+        Set<Integer> completed = new HashSet<>();
+        if (checkpoint.exists()) {
+            for (String line : Files.readAllLines(checkpoint.toPath(), StandardCharsets.UTF_8)) {
+                if (StringUtils.isNumeric(StringUtils.trim(line))) {
+                    completed.add(Integer.valueOf(line.trim()));
+                }
+            }
+        }
+        return Collections.unmodifiableSet(completed);
+    }
+
+    private synchronized void markCompleted(File checkpoint, IndexPartition partition) throws IOException {
+        Files.createDirectories(checkpointDir.toPath());
+        Files.write(checkpoint.toPath(), (partition.getIndex() + "\n").getBytes(StandardCharsets.UTF_8),
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+}
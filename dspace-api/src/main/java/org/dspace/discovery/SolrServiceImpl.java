@@ -320,13 +320,33 @@ public class SolrServiceImpl implements SearchService, IndexingService {
         updateIndex(context, force, null);
     }
 
+    /**
+     * Iterates over all the objects of the given type, or of all the types if no
+     * type is provided, and updates them in the index.
+     * <p>
+     * When <code>discovery.index.parallel.threads</code> is greater than one the
+     * objects of each type are split in partitions of their identifier space that
+     * are indexed concurrently and can be resumed after a failure, see
+     * {@link PartitionedIndexUpdater}.
+     *
+     * @param context the dspace context
+     * @param force   whether or not to force the reindexing
+     * @param type    the type of the objects to index, null for all the types
+     */
     @Override
     public void updateIndex(Context context, boolean force, String type) {
         try {
             final List<IndexFactory> indexableObjectServices = indexObjectServiceFactory.
                 getIndexFactories();
+            final PartitionedIndexUpdater partitionedIndexUpdater =
+                PartitionedIndexUpdater.isEnabled(configurationService) && solrSearchCore.getSolr() != null
+                    ? new PartitionedIndexUpdater(this, solrSearchCore.getSolr(), configurationService) : null;
             for (IndexFactory indexableObjectService : indexableObjectServices) {
                 if (type == null || StringUtils.equals(indexableObjectService.getType(), type)) {
+                    if (partitionedIndexUpdater != null) {
+                        partitionedIndexUpdater.update(indexableObjectService, force);
+                        continue;
+                    }
                     final Iterator<IndexableObject> indexableObjects = indexableObjectService.findAll(context);
                     while (indexableObjects.hasNext()) {
                         final IndexableObject indexableObject = indexableObjects.next();
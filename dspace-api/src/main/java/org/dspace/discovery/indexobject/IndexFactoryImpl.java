@@ -90,58 +90,68 @@ public abstract class IndexFactoryImpl<T extends IndexableObject, S> implements
             throws IOException, SolrServerException {
         final SolrClient solr = solrSearchCore.getSolr();
         if (solr != null) {
-            // If full text stream(s) were passed in, we'll index them as part of the SolrInputDocument
-            if (!ConfigurationService.getBooleanProperty("discovery.ignore-fulltext", false) && streams != null
-                    && !streams.isEmpty()) {
-                // limit full text indexing to first 100,000 characters unless configured otherwise
-                final int charLimit = DSpaceServicesFactory.getInstance().getConfigurationService()
-                                                           .getIntProperty("discovery.solr.fulltext.charLimit",
-                                                                           100000);
-
-                // Use Tika's Text parser as the streams are always from the TEXT bundle (i.e. already extracted text)
-                // TODO: We may wish to consider using Tika to extract the text in the future.
-                TextAndCSVParser tikaParser = new TextAndCSVParser();
-                BodyContentHandler tikaHandler = new BodyContentHandler(charLimit);
-                Metadata tikaMetadata = new Metadata();
-                ParseContext tikaContext = new ParseContext();
-
-                // Use Apache Tika to parse the full text stream(s)
-                try (InputStream fullTextStreams = streams.getStream()) {
-                    tikaParser.parse(fullTextStreams, tikaHandler, tikaMetadata, tikaContext);
-                } catch (SAXException saxe) {
-                    // Check if this SAXException is just a notice that this file was longer than the character limit.
-                    // Unfortunately there is not a unique, public exception type to catch here. This error is thrown
-                    // by Tika's WriteOutContentHandler when it encounters a document longer than the char limit
-                    // https://github.com/apache/tika/blob/main/tika-core/src/main/java/org/apache/tika/sax/WriteOutContentHandler.java
-                    if (saxe.getMessage().contains("limit has been reached")) {
-                        // log that we only indexed up to that configured limit
-                        log.info("Full text is larger than the configured limit (discovery.solr.fulltext.charLimit)."
-                                     + " Only the first {} characters were indexed.", charLimit);
-                    } else {
-                        throw new IOException("Tika parsing error. Could not index full text.", saxe);
-                    }
-                } catch (TikaException ex) {
-                    throw new IOException("Tika parsing error. Could not index full text.", ex);
-                }
+            addFullText(doc, streams);
+
+            // Add document to index
+            solr.add(doc);
+        }
+    }
 
-                // Write Tika metadata to "tika_meta_*" fields.
-                // This metadata is not very useful right now, but we'll keep it just in case it becomes more useful.
-                for (String name : tikaMetadata.names()) {
-                    for (String value : tikaMetadata.getValues(name)) {
-                        doc.addField("tika_meta_" + name, value);
-                    }
+    /**
+     * Add the full text extracted from the given streams to the document, if full text indexing is enabled.
+     *
+     * @param doc     the solr document to enrich
+     * @param streams list of bitstream content streams
+     * @throws IOException A general class of exceptions produced by failed or interrupted I/O operations.
+     */
+    protected void addFullText(SolrInputDocument doc, FullTextContentStreams streams) throws IOException {
+        // If full text stream(s) were passed in, we'll index them as part of the SolrInputDocument
+        if (!ConfigurationService.getBooleanProperty("discovery.ignore-fulltext", false) && streams != null
+                && !streams.isEmpty()) {
+            // limit full text indexing to first 100,000 characters unless configured otherwise
+            final int charLimit = DSpaceServicesFactory.getInstance().getConfigurationService()
+                                                       .getIntProperty("discovery.solr.fulltext.charLimit",
+                                                                       100000);
+
+            // Use Tika's Text parser as the streams are always from the TEXT bundle (i.e. already extracted text)
+            // TODO: We may wish to consider using Tika to extract the text in the future.
+            TextAndCSVParser tikaParser = new TextAndCSVParser();
+            BodyContentHandler tikaHandler = new BodyContentHandler(charLimit);
+            Metadata tikaMetadata = new Metadata();
+            ParseContext tikaContext = new ParseContext();
+
+            // Use Apache Tika to parse the full text stream(s)
+            try (InputStream fullTextStreams = streams.getStream()) {
+                tikaParser.parse(fullTextStreams, tikaHandler, tikaMetadata, tikaContext);
+            } catch (SAXException saxe) {
+                // Check if this SAXException is just a notice that this file was longer than the character limit.
+                // Unfortunately there is not a unique, public exception type to catch here. This error is thrown
+                // by Tika's WriteOutContentHandler when it encounters a document longer than the char limit
+                // https://github.com/apache/tika/blob/main/tika-core/src/main/java/org/apache/tika/sax/WriteOutContentHandler.java
+                if (saxe.getMessage().contains("limit has been reached")) {
+                    // log that we only indexed up to that configured limit
+                    log.info("Full text is larger than the configured limit (discovery.solr.fulltext.charLimit)."
+                                 + " Only the first {} characters were indexed.", charLimit);
+                } else {
+                    throw new IOException("Tika parsing error. Could not index full text.", saxe);
                 }
+            } catch (TikaException ex) {
+                throw new IOException("Tika parsing error. Could not index full text.", ex);
+            }
 
-                // Save (parsed) full text to "fulltext" field
-                doc.addField("fulltext", tikaHandler.toString());
+            // Write Tika metadata to "tika_meta_*" fields.
+            // This metadata is not very useful right now, but we'll keep it just in case it becomes more useful.
+            for (String name : tikaMetadata.names()) {
+                for (String value : tikaMetadata.getValues(name)) {
+                    doc.addField("tika_meta_" + name, value);
+                }
             }
 
-            // Add document to index
-            solr.add(doc);
+            // Save (parsed) full text to "fulltext" field
+            doc.addField("fulltext", tikaHandler.toString());
         }
     }
 
-
     /**
      * Index the provided value as use for a sidebar facet
      * @param document  The solr document
@@ -11,6 +11,7 @@ import java.io.IOException;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -44,6 +45,7 @@ import org.dspace.core.Context;
 import org.dspace.core.CrisConstants;
 import org.dspace.core.LogHelper;
 import org.dspace.discovery.FullTextContentStreams;
+import org.dspace.discovery.IndexPartition;
 import org.dspace.discovery.IndexableObject;
 import org.dspace.discovery.SearchUtils;
 import org.dspace.discovery.configuration.DiscoveryConfiguration;
@@ -116,6 +118,28 @@ public class ItemIndexFactoryImpl extends DSpaceObjectIndexFactoryImpl<Indexable
         };
     }
 
+    @Override
+    public boolean supportsPartitions() {
+        return true;
+    }
+
+    @Override
+    public Iterator<IndexableItem> findAll(Context context, IndexPartition partition) throws SQLException {
+        Iterator<Item> items = itemService.findAllUnfiltered(context, partition.getLowerBound(),
+            partition.getUpperBound());
+        return new Iterator<IndexableItem>() {
+            @Override
+            public boolean hasNext() {
+                return items.hasNext();
+            }
+
+            @Override
+            public IndexableItem next() {
+                return new IndexableItem(items.next());
+            }
+        };
+    }
+
     @Override
     public String getType() {
         return IndexableItem.TYPE;
@@ -132,11 +156,13 @@ public class ItemIndexFactoryImpl extends DSpaceObjectIndexFactoryImpl<Indexable
     @Override
     public SolrInputDocument buildDocument(Context context, IndexableItem indexableItem)
             throws SQLException, IOException {
+        final Item item = indexableItem.getIndexedObject();
+        // resolve the virtual metadata with the context of the indexer
+        itemService.cacheVirtualMetadata(context, Collections.singletonList(item));
+
         // Add the ID's, types and call the SolrServiceIndexPlugins
         SolrInputDocument doc = super.buildDocument(context, indexableItem);
 
-        final Item item = indexableItem.getIndexedObject();
-
         doc.addField("archived", item.isArchived());
         doc.addField("withdrawn", item.isWithdrawn());
         doc.addField("discoverable", item.isDiscoverable());
@@ -724,6 +750,14 @@ public class ItemIndexFactoryImpl extends DSpaceObjectIndexFactoryImpl<Indexable
         writeDocument(solrInputDocument, new FullTextContentStreams(context, indexableObject.getIndexedObject()));
     }
 
+    @Override
+    public SolrInputDocument buildCompleteDocument(Context context, IndexableItem indexableObject)
+            throws SQLException, IOException {
+        SolrInputDocument doc = buildDocument(context, indexableObject);
+        addFullText(doc, new FullTextContentStreams(context, indexableObject.getIndexedObject()));
+        return doc;
+    }
+
     @Override
     public List<String> getLocations(Context context, IndexableItem indexableDSpaceObject)
             throws SQLException {
@@ -13,9 +13,11 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
+import org.apache.commons.collections4.IteratorUtils;
 import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.common.SolrInputDocument;
 import org.dspace.core.Context;
+import org.dspace.discovery.IndexPartition;
 import org.dspace.discovery.IndexableObject;
 
 /**
@@ -33,6 +35,30 @@ public interface IndexFactory<T extends IndexableObject, S> {
      */
     Iterator<T> findAll(Context context) throws SQLException;
 
+    /**
+     * Check if the instances of this indexable object type are retrieved by partition from the database, see
+     * {@link #findAll(Context, IndexPartition)}. Types that are not partitioned in the database are indexed in a
+     * single pass over {@link #findAll(Context)}.
+     * @return              true if this factory resolves the partitions in the database
+     */
+    default boolean supportsPartitions() {
+        return false;
+    }
+
+    /**
+     * Retrieve all instances of a certain indexable object type that belong to the given partition.
+     * Unless {@link #supportsPartitions()} returns true, all the instances are read and those outside of the
+     * partition are skipped.
+     * @param context       DSpace context object
+     * @param partition     The partition of the identifier space to retrieve
+     * @return              An iterator containing the objects of the partition to be indexed
+     * @throws SQLException If database error
+     */
+    default Iterator<T> findAll(Context context, IndexPartition partition) throws SQLException {
+        return IteratorUtils.filteredIterator(findAll(context),
+                                              indexableObject -> partition.contains(indexableObject.getID()));
+    }
+
     /**
      * Return the type of the indexable object
      * @return a string containing the type
@@ -46,6 +72,19 @@ public interface IndexFactory<T extends IndexableObject, S> {
      */
     SolrInputDocument buildDocument(Context context, T indexableObject) throws SQLException, IOException;
 
+    /**
+     * Create the solr document exactly as it would be sent to the search core by
+     * {@link #writeDocument(Context, IndexableObject, SolrInputDocument)}, so that it can be written
+     * later together with other documents in a single request.
+     * @param context           DSpace context object
+     * @param indexableObject   the indexableObject that we want to index
+     * @return                  the complete solr document
+     */
+    default SolrInputDocument buildCompleteDocument(Context context, T indexableObject)
+            throws SQLException, IOException {
+        return buildDocument(context, indexableObject);
+    }
+
     /**
      * Write the provided document to the solr core
      * @param context               DSpace context object
@@ -0,0 +1,69 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.eperson;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.dspace.core.Constants;
+import org.dspace.core.Context;
+import org.dspace.eperson.factory.EPersonServiceFactory;
+import org.dspace.event.Consumer;
+import org.dspace.event.Event;
+
+/**
+ * Consumer that applies the group2group and epersongroup changes to the {@link GroupMembershipIndex}, in the
+ * order they have been made, once the transaction holding them has been committed. Changes that are rolled
+ * back are never applied.
+ */
+public class GroupMembershipConsumer implements Consumer {
+
+    private final List<Event> events = new ArrayList<>();
+
+    @Override
+    public void initialize() throws Exception {
+    }
+
+    @Override
+    public void consume(Context ctx, Event event) throws Exception {
+        int eventType = event.getEventType();
+        if (eventType == Event.ADD || eventType == Event.REMOVE || eventType == Event.DELETE) {
+            events.add(event);
+        }
+    }
+
+    @Override
+    public void end(Context ctx) throws Exception {
+        GroupMembershipIndex index = EPersonServiceFactory.getInstance().getGroupMembershipIndex();
+        if (index.isEnabled() && !events.isEmpty()) {
+            List<Event> committed = new ArrayList<>(events);
+            ctx.addAfterCommitCallback(() -> committed.forEach(event -> apply(index, event)));
+        }
+        events.clear();
+    }
+
+    private void apply(GroupMembershipIndex index, Event event) {
+        if (event.getSubjectType() == Constants.EPERSON) {
+            index.invalidateEPerson(event.getSubjectID());
+        } else if (event.getSubjectType() == Constants.GROUP) {
+            if (event.getEventType() == Event.DELETE) {
+                index.removeGroup(event.getSubjectID());
+            } else if (event.getObjectType() == Constants.EPERSON) {
+                index.invalidateEPerson(event.getObjectID());
+            } else if (event.getObjectType() == Constants.GROUP && event.getEventType() == Event.ADD) {
+                index.addGroupMember(event.getSubjectID(), event.getObjectID());
+            } else if (event.getObjectType() == Constants.GROUP && event.getEventType() == Event.REMOVE) {
+                index.removeGroupMember(event.getSubjectID(), event.getObjectID());
+            }
+        }
+    }
+
+    @Override
+    public void finish(Context ctx) throws Exception {
+    }
+}
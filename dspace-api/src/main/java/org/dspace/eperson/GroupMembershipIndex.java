@@ -0,0 +1,306 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.eperson;
+
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PostConstruct;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.dspace.core.Context;
+import org.dspace.eperson.dao.GroupDAO;
+import org.dspace.services.ConfigurationService;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * In-memory, node-wide index of the group memberships, used by {@link GroupServiceImpl} to answer membership
+ * checks without querying the database.
+ * <p>
+ * The index holds the transitive closure of the group hierarchy (for each group, all the groups it is directly
+ * or indirectly a member of), loaded from the database on first use, and for each eperson the set of groups
+ * it is directly or indirectly a member of, loaded on demand. Both are kept up to date incrementally by the
+ * {@link GroupMembershipConsumer} once the group2group and epersongroup changes are committed, and reloaded
+ * after <code>eperson.group.membership-index.ttl</code> seconds to pick up the changes committed by other nodes.
+ * <p>
+ * The groups of an eperson read from the database while a change is applied may predate it, so they are
+ * returned but not kept. A context that added or removed members answers from the database until it is
+ * committed, as only it can see its changes. The index is disabled unless
+ * <code>eperson.group.membership-index.enabled</code> is true.
+ */
+public class GroupMembershipIndex {
+
+    private static final Logger log = LogManager.getLogger();
+
+    @Autowired(required = true)
+    private GroupDAO groupDAO;
+
+    @Autowired(required = true)
+    private ConfigurationService configurationService;
+
+    private boolean enabled;
+
+    private long ttl;
+
+    /**
+     * Direct parent groups of each group, only for the groups that are members of other groups
+     */
+    private final Map<UUID, Set<UUID>> parents = new HashMap<>();
+
+    /**
+     * Direct member groups of each group, only for the groups that have member groups
+     */
+    private final Map<UUID, Set<UUID>> children = new HashMap<>();
+
+    /**
+     * Transitive closure of {@link #parents}, the values are immutable and replaced on change
+     */
+    private volatile Map<UUID, Set<UUID>> ancestors;
+
+    private volatile long loadedAt;
+
+    private Cache<UUID, Set<UUID>> memberships;
+
+    /**
+     * Incremented before each change to the index, so that the memberships loaded meanwhile are not kept
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        enabled = configurationService.getBooleanProperty("eperson.group.membership-index.enabled", false);
+        ttl = TimeUnit.SECONDS.toMillis(
+            configurationService.getLongProperty("eperson.group.membership-index.ttl", 3600));
+        memberships = CacheBuilder.newBuilder()
+                                  .maximumSize(configurationService
+                                      .getLongProperty("eperson.group.membership-index.max-size", 10000))
+                                  .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+                                  .build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Check if the given context can be served from the index.
+     *
+     * @param context the DSpace context
+     * @return true if the index is enabled and the context has no uncommitted changes
+     */
+    public boolean isUsable(Context context) {
+        return enabled && !context.hasEvents() && !context.hasAfterCommitCallbacks();
+    }
+
+    /**
+     * Check if a group is directly or indirectly a member of another group.
+     *
+     * @param context the DSpace context, used to load the hierarchy if needed
+     * @param parent  the id of the parent group
+     * @param child   the id of the child group
+     * @return true if child is a member of parent, through any number of groups
+     * @throws SQLException if the hierarchy can't be loaded
+     */
+    public boolean isParentOf(Context context, UUID parent, UUID child) throws SQLException {
+        return getAncestors(context, child).contains(parent);
+    }
+
+    /**
+     * @param context the DSpace context, used to load the hierarchy if needed
+     * @param group   the id of a group
+     * @return the ids of all the groups the given group is directly or indirectly a member of
+     * @throws SQLException if the hierarchy can't be loaded
+     */
+    public Set<UUID> getAncestors(Context context, UUID group) throws SQLException {
+        return getAncestors(context).getOrDefault(group, Collections.emptySet());
+    }
+
+    /**
+     * Get the groups the eperson is directly or indirectly a member of. Special groups and the anonymous
+     * group are not included.
+     *
+     * @param context the DSpace context, used to load the memberships if needed
+     * @param ePerson the eperson
+     * @return the ids of the groups of the eperson
+     * @throws SQLException if the memberships can't be loaded
+     */
+    public Set<UUID> getMemberGroups(Context context, EPerson ePerson) throws SQLException {
+        Set<UUID> cached = memberships.getIfPresent(ePerson.getID());
+        if (cached != null) {
+            return cached;
+        }
+        long loadGeneration = generation.get();
+        Map<UUID, Set<UUID>> closure = getAncestors(context);
+        Set<UUID> groups = new HashSet<>();
+        for (Group group : groupDAO.findByEPerson(context, ePerson)) {
+            groups.add(group.getID());
+            groups.addAll(closure.getOrDefault(group.getID(), Collections.emptySet()));
+        }
+        groups = Collections.unmodifiableSet(groups);
+        if (generation.get() == loadGeneration) {
+            memberships.put(ePerson.getID(), groups);
+            if (generation.get() != loadGeneration) {
+                // a change started meanwhile and may have missed these memberships
+                memberships.invalidate(ePerson.getID());
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * Record that the child group has become a member of the parent group.
+     */
+    public synchronized void addGroupMember(UUID parent, UUID child) {
+        generation.incrementAndGet();
+        if (ancestors == null) {
+            return;
+        }
+        parents.computeIfAbsent(child, id -> new HashSet<>()).add(parent);
+        children.computeIfAbsent(parent, id -> new HashSet<>()).add(child);
+        Set<UUID> added = new HashSet<>(ancestors.getOrDefault(parent, Collections.emptySet()));
+        added.add(parent);
+        Map<UUID, Set<UUID>> closure = new HashMap<>(ancestors);
+        for (UUID group : getDescendants(child)) {
+            Set<UUID> groupAncestors = new HashSet<>(closure.getOrDefault(group, Collections.emptySet()));
+            groupAncestors.addAll(added);
+            closure.put(group, Collections.unmodifiableSet(groupAncestors));
+        }
+        ancestors = closure;
+        memberships.invalidateAll();
+    }
+
+    /**
+     * Record that the child group is no longer a member of the parent group.
+     */
+    public synchronized void removeGroupMember(UUID parent, UUID child) {
+        generation.incrementAndGet();
+        if (ancestors == null) {
+            return;
+        }
+        remove(parents, child, parent);
+        remove(children, parent, child);
+        Map<UUID, Set<UUID>> closure = new HashMap<>(ancestors);
+        for (UUID group : getDescendants(child)) {
+            closure.put(group, computeAncestors(group));
+        }
+        closure.values().removeIf(Set::isEmpty);
+        ancestors = closure;
+        memberships.invalidateAll();
+    }
+
+    /**
+     * Remove a deleted group from the hierarchy.
+     */
+    public synchronized void removeGroup(UUID group) {
+        generation.incrementAndGet();
+        if (ancestors == null) {
+            return;
+        }
+        for (UUID parent : new HashSet<>(parents.getOrDefault(group, Collections.emptySet()))) {
+            removeGroupMember(parent, group);
+        }
+        for (UUID child : new HashSet<>(children.getOrDefault(group, Collections.emptySet()))) {
+            removeGroupMember(group, child);
+        }
+        memberships.invalidateAll();
+    }
+
+    /**
+     * Forget the groups of an eperson whose direct memberships have changed, they are reloaded on demand.
+     */
+    public void invalidateEPerson(UUID ePerson) {
+        generation.incrementAndGet();
+        memberships.invalidate(ePerson);
+    }
+
+    public synchronized void invalidateAll() {
+        generation.incrementAndGet();
+        ancestors = null;
+        memberships.invalidateAll();
+    }
+
+    private Map<UUID, Set<UUID>> getAncestors(Context context) throws SQLException {
+        Map<UUID, Set<UUID>> closure = ancestors;
+        if (closure == null || System.currentTimeMillis() - loadedAt > ttl) {
+            closure = load(context);
+        }
+        return closure;
+    }
+
+    private synchronized Map<UUID, Set<UUID>> load(Context context) throws SQLException {
+        if (ancestors != null && System.currentTimeMillis() - loadedAt <= ttl) {
+            return ancestors;
+        }
+        parents.clear();
+        children.clear();
+        for (Pair<UUID, UUID> group2group : groupDAO.getGroup2GroupResults(context, false)) {
+            parents.computeIfAbsent(group2group.getRight(), id -> new HashSet<>()).add(group2group.getLeft());
+            children.computeIfAbsent(group2group.getLeft(), id -> new HashSet<>()).add(group2group.getRight());
+        }
+        Map<UUID, Set<UUID>> closure = new HashMap<>();
+        for (UUID group : parents.keySet()) {
+            closure.put(group, computeAncestors(group));
+        }
+        memberships.invalidateAll();
+        loadedAt = System.currentTimeMillis();
+        ancestors = closure;
+        log.debug("Loaded the group hierarchy, {} groups are members of other groups", closure.size());
+        return closure;
+    }
+
+    private Set<UUID> computeAncestors(UUID group) {
+        Set<UUID> result = new HashSet<>();
+        Deque<UUID> queue = new ArrayDeque<>(parents.getOrDefault(group, Collections.emptySet()));
+        while (!queue.isEmpty()) {
+            UUID parent = queue.poll();
+            if (result.add(parent)) {
+                queue.addAll(parents.getOrDefault(parent, Collections.emptySet()));
+            }
+        }
+        return Collections.unmodifiableSet(result);
+    }
+
+    private Set<UUID> getDescendants(UUID group) {
+        Set<UUID> result = new HashSet<>();
+        Deque<UUID> queue = new ArrayDeque<>();
+        queue.add(group);
+        while (!queue.isEmpty()) {
+            UUID child = queue.poll();
+            if (result.add(child)) {
+                queue.addAll(children.getOrDefault(child, Collections.emptySet()));
+            }
+        }
+        return result;
+    }
+
+    private void remove(Map<UUID, Set<UUID>> map, UUID key, UUID value) {
+        Set<UUID> values = map.get(key);
+        if (values != null) {
+            values.remove(value);
+            if (values.isEmpty()) {
+                map.remove(key);
+            }
+        }
+    }
+}
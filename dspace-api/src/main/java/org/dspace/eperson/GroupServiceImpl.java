@@ -95,6 +95,8 @@ public class GroupServiceImpl extends DSpaceObjectServiceImpl<Group> implements
     protected ClaimedTaskService claimedTaskService;
     @Autowired(required = true)
     protected XmlWorkflowFactory workflowFactory;
+    @Autowired(required = true)
+    protected GroupMembershipIndex groupMembershipIndex;
 
     protected GroupServiceImpl() {
         super();
@@ -243,6 +245,9 @@ public class GroupServiceImpl extends DSpaceObjectServiceImpl<Group> implements
 
     @Override
     public boolean isParentOf(Context context, Group parentGroup, Group childGroup) throws SQLException {
+        if (groupMembershipIndex.isUsable(context)) {
+            return groupMembershipIndex.isParentOf(context, parentGroup.getID(), childGroup.getID());
+        }
         return group2GroupCacheDAO.findByParentAndChild(context, parentGroup, childGroup) != null;
     }
 
@@ -329,6 +334,12 @@ public class GroupServiceImpl extends DSpaceObjectServiceImpl<Group> implements
             return cachedGroupMembership;
         }
 
+        if (groupMembershipIndex.isUsable(context)) {
+            Set<Group> groups = allMemberGroupsSetFromIndex(context, ePerson);
+            context.cacheAllMemberGroupsSet(ePerson, groups);
+            return groups;
+        }
+
         Set<Group> groups = new HashSet<>();
 
         if (ePerson != null) {
@@ -363,6 +374,38 @@ public class GroupServiceImpl extends DSpaceObjectServiceImpl<Group> implements
         return groups;
     }
 
+    /**
+     * Resolve the groups of the given eperson from the {@link GroupMembershipIndex}, the groups are loaded
+     * by id so that they can be served by the second level cache.
+     */
+    protected Set<Group> allMemberGroupsSetFromIndex(Context context, EPerson ePerson) throws SQLException {
+        Set<UUID> groupIds = new HashSet<>();
+        if (ePerson != null) {
+            groupIds.addAll(groupMembershipIndex.getMemberGroups(context, ePerson));
+        }
+        List<UUID> direct = new ArrayList<>();
+        if ((context.getCurrentUser() == null) || (context.getCurrentUser().equals(ePerson))) {
+            direct.addAll(context.getSpecialGroupUuids());
+        }
+        Group anonymous = findByName(context, Group.ANONYMOUS);
+        if (anonymous != null) {
+            direct.add(anonymous.getID());
+        }
+        for (UUID groupId : direct) {
+            groupIds.add(groupId);
+            groupIds.addAll(groupMembershipIndex.getAncestors(context, groupId));
+        }
+
+        Set<Group> groups = new HashSet<>();
+        for (UUID groupId : groupIds) {
+            Group group = find(context, groupId);
+            if (group != null) {
+                groups.add(group);
+            }
+        }
+        return groups;
+    }
+
     @Override
     public List<EPerson> allMembers(Context c, Group g) throws SQLException {
         // two queries - first to get all groups which are a member of this group
@@ -603,6 +646,9 @@ public class GroupServiceImpl extends DSpaceObjectServiceImpl<Group> implements
 
     protected boolean isEPersonInGroup(Context context, Group group, EPerson ePerson)
         throws SQLException {
+        if (groupMembershipIndex.isUsable(context)) {
+            return groupMembershipIndex.getMemberGroups(context, ePerson).contains(group.getID());
+        }
         return groupDAO.findByIdAndMembership(context, group.getID(), ePerson) != null;
     }
 
@@ -7,6 +7,7 @@
  */
 package org.dspace.eperson.factory;
 
+import org.dspace.eperson.GroupMembershipIndex;
 import org.dspace.eperson.service.AccountService;
 import org.dspace.eperson.service.EPersonService;
 import org.dspace.eperson.service.GroupService;
@@ -35,6 +36,8 @@ public class EPersonServiceFactoryImpl extends EPersonServiceFactory {
     private SubscribeService subscribeService;
     @Autowired(required = true)
     private SupervisorService supervisorService;
+    @Autowired(required = true)
+    private GroupMembershipIndex groupMembershipIndex;
 
     @Override
     public EPersonService getEPersonService() {
@@ -65,4 +68,9 @@ public class EPersonServiceFactoryImpl extends EPersonServiceFactory {
     public SupervisorService getSupervisorService() {
         return supervisorService;
     }
+
+    @Override
+    public GroupMembershipIndex getGroupMembershipIndex() {
+        return groupMembershipIndex;
+    }
 }
@@ -0,0 +1,327 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.event;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.dspace.core.Context;
+import org.dspace.eperson.EPerson;
+import org.dspace.eperson.factory.EPersonServiceFactory;
+
+/**
+ * Runs a {@link Consumer} on a pool of worker threads, on behalf of the {@link AsyncDispatcher}.
+ * <p>
+ * Each worker owns its instance of the consumer, as consumers are not thread safe, and a bounded queue of
+ * batches of events. The events of the same DSpace object always go to the same worker, so that they are
+ * consumed in the order they have been dispatched. When the queue of a worker is full the dispatching thread
+ * waits for room, slowing down the producers instead of dropping events. The workers themselves never wait:
+ * the events dispatched while they commit are consumed inline, see {@link #isWorkerThread()}.
+ * <p>
+ * A batch is consumed with a new {@link Context} bound to the user that dispatched the events, and committed
+ * after the consumer's {@link Consumer#end(Context)}. A failed batch is retried up to
+ * <code>maxRetries</code> times with a new instance of the consumer, waiting <code>retryDelay</code>
+ * milliseconds more at each attempt; then its events are appended to a dead letter file, if a directory has
+ * been configured, and logged. So are the events submitted after the shutdown, or still queued when it times
+ * out.
+ */
+public class AsyncConsumerExecutor {
+
+    private static final Logger log = LogManager.getLogger();
+
+    private final String name;
+    private final Supplier<Consumer> consumerFactory;
+    private final int maxRetries;
+    private final long retryDelay;
+    private final File deadLetterDir;
+    private final List<Worker> workers = new ArrayList<>();
+
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+
+    /**
+     * @param name            the name of the executor, used for the threads, the logs and the dead letter file
+     * @param consumerFactory the factory of the initialized consumer instances, one for each worker
+     * @param threads         the number of workers
+     * @param queueSize       the maximum number of batches waiting for each worker
+     * @param maxRetries      the number of times a failed batch is retried
+     * @param retryDelay      the delay in milliseconds before the first retry
+     * @param deadLetterDir   the directory of the dead letter file, null to only log the failed events
+     */
+    public AsyncConsumerExecutor(String name, Supplier<Consumer> consumerFactory, int threads, int queueSize,
+                                 int maxRetries, long retryDelay, File deadLetterDir) {
+        this.name = name;
+        this.consumerFactory = consumerFactory;
+        this.maxRetries = maxRetries;
+        this.retryDelay = retryDelay;
+        this.deadLetterDir = deadLetterDir;
+        for (int i = 0; i < threads; i++) {
+            workers.add(new Worker(consumerFactory.get(), queueSize, name + "-" + i));
+        }
+    }
+
+    /**
+     * @return true if the current thread is the worker of an executor, which must not wait for room in a queue
+     */
+    public static boolean isWorkerThread() {
+        return Thread.currentThread() instanceof WorkerThread;
+    }
+
+    /**
+     * Queue the events of a committed transaction, waiting if the queue of a worker is full.
+     *
+     * @param events        the events to consume, in dispatch order
+     * @param userId        the id of the user that dispatched the events, null for anonymous
+     * @param specialGroups the special groups of the dispatching context
+     */
+    public void submit(List<Event> events, UUID userId, List<UUID> specialGroups) {
+        List<List<Event>> batches = new ArrayList<>(workers.size());
+        for (int i = 0; i < workers.size(); i++) {
+            batches.add(new ArrayList<>());
+        }
+        for (Event event : events) {
+            batches.get(Math.floorMod(getKey(event).hashCode(), workers.size())).add(event);
+        }
+        for (int i = 0; i < workers.size(); i++) {
+            List<Event> batch = batches.get(i);
+            if (!batch.isEmpty()) {
+                queue(workers.get(i), new BatchTask(workers.get(i), batch, userId, specialGroups));
+            }
+        }
+    }
+
+    private void queue(Worker worker, BatchTask task) {
+        BlockingQueue<Runnable> queue = worker.executor.getQueue();
+        try {
+            while (!worker.executor.isShutdown()) {
+                if (queue.offer(task, 1, TimeUnit.SECONDS)) {
+                    // the worker may have stopped before taking it
+                    if (!worker.executor.isShutdown() || !queue.remove(task)) {
+                        return;
+                    }
+                    break;
+                }
+            }
+            log.error("{} events submitted to {} after its shutdown", task.batch.size(), name);
+            deadLetter(task.batch, new IllegalStateException(name + " has been shut down"));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while queueing {} events for {}", task.batch.size(), name);
+            deadLetter(task.batch, e);
+        }
+    }
+
+    /**
+     * @return the number of batches waiting to be consumed
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (Worker worker : workers) {
+            depth += worker.executor.getQueue().size();
+        }
+        return depth;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getProcessedCount() {
+        return processed.get();
+    }
+
+    public long getRetriedCount() {
+        return retried.get();
+    }
+
+    public long getDeadLetterCount() {
+        return deadLettered.get();
+    }
+
+    /**
+     * @return a human readable summary of the executor metrics
+     */
+    public String getMetrics() {
+        return name + ": queued=" + getQueueDepth() + ", processed=" + processed.get() + ", retried="
+            + retried.get() + ", deadLettered=" + deadLettered.get();
+    }
+
+    /**
+     * Stop accepting events and wait for the queued ones to be consumed, then stop the workers and dead letter
+     * the events still queued.
+     *
+     * @param timeout the maximum time in milliseconds to wait
+     */
+    public void shutdown(long timeout) {
+        long deadline = System.currentTimeMillis() + timeout;
+        for (Worker worker : workers) {
+            worker.executor.shutdown();
+        }
+        for (Worker worker : workers) {
+            try {
+                if (!worker.executor.awaitTermination(Math.max(0, deadline - System.currentTimeMillis()),
+                                                      TimeUnit.MILLISECONDS)) {
+                    stop(worker);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stop(worker);
+            }
+        }
+        log.info("Asynchronous consumer stopped, {}", getMetrics());
+    }
+
+    private void stop(Worker worker) {
+        List<Runnable> pending = worker.executor.shutdownNow();
+        log.warn("{} batches of events not consumed by {} at shutdown", pending.size(), name);
+        for (Runnable task : pending) {
+            deadLetter(((BatchTask) task).batch, new IllegalStateException(name + " has been shut down"));
+        }
+    }
+
+    /**
+     * Create the context used to consume a batch of events.
+     */
+    protected Context createContext(UUID userId, List<UUID> specialGroups) throws SQLException {
+        Context context = new Context();
+        if (userId != null) {
+            EPerson user = EPersonServiceFactory.getInstance().getEPersonService().find(context, userId);
+            context.setCurrentUser(user);
+        }
+        for (UUID group : specialGroups) {
+            context.setSpecialGroup(group);
+        }
+        return context;
+    }
+
+    private void consume(Worker worker, List<Event> batch, UUID userId, List<UUID> specialGroups) {
+        Exception failure = null;
+        for (int attempt = 0; attempt <= maxRetries; attempt++) {
+            if (attempt > 0) {
+                retried.incrementAndGet();
+                try {
+                    Thread.sleep(retryDelay * attempt);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            Context context = null;
+            try {
+                if (attempt > 0) {
+                    // the failed attempt may have left events in the consumer
+                    worker.consumer = consumerFactory.get();
+                }
+                context = createContext(userId, specialGroups);
+                for (Event event : batch) {
+                    worker.consumer.consume(context, event);
+                }
+                worker.consumer.end(context);
+                context.complete();
+                processed.addAndGet(batch.size());
+                return;
+            } catch (Exception e) {
+                failure = e;
+                log.warn("{} failed to consume {} events (attempt {} of {})", name, batch.size(), attempt + 1,
+                         maxRetries + 1, e);
+            } finally {
+                if (context != null && context.isValid()) {
+                    context.abort();
+                }
+            }
+        }
+        deadLetter(batch, failure);
+    }
+
+    private synchronized void deadLetter(List<Event> batch, Exception failure) {
+        deadLettered.addAndGet(batch.size());
+        log.error("{} gave up consuming {} events: {}", name, batch.size(), batch, failure);
+        if (deadLetterDir == null) {
+            return;
+        }
+        deadLetterDir.mkdirs();
+        File file = new File(deadLetterDir, name + ".deadletter");
+        try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file, true),
+                                                                         StandardCharsets.UTF_8))) {
+            for (Event event : batch) {
+                writer.println(String.join("\t", String.valueOf(System.currentTimeMillis()),
+                    event.getEventTypeAsString(), event.getSubjectTypeAsString(),
+                    String.valueOf(event.getSubjectID()), event.getObjectTypeAsString(),
+                    String.valueOf(event.getObjectID()), String.valueOf(event.getDetail()),
+                    String.valueOf(failure)));
+            }
+        } catch (IOException e) {
+            log.error("Unable to write the dead letter file {}", file, e);
+        }
+    }
+
+    private Object getKey(Event event) {
+        if (event.getSubjectID() != null) {
+            return event.getSubjectID();
+        }
+        return event.getObjectID() != null ? event.getObjectID() : event.getSubjectType();
+    }
+
+    private final class BatchTask implements Runnable {
+        private final Worker worker;
+        private final List<Event> batch;
+        private final UUID userId;
+        private final List<UUID> specialGroups;
+
+        private BatchTask(Worker worker, List<Event> batch, UUID userId, List<UUID> specialGroups) {
+            this.worker = worker;
+            this.batch = batch;
+            this.userId = userId;
+            this.specialGroups = specialGroups;
+        }
+
+        @Override
+        public void run() {
+            consume(worker, batch, userId, specialGroups);
+        }
+    }
+
+    private static final class WorkerThread extends Thread {
+        private WorkerThread(Runnable runnable, String name) {
+            super(runnable, name);
+            setDaemon(true);
+        }
+    }
+
+    private static final class Worker {
+        // only used by the worker thread
+        private Consumer consumer;
+        private final ThreadPoolExecutor executor;
+
+        private Worker(Consumer consumer, int queueSize, String threadName) {
+            this.consumer = consumer;
+            BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(queueSize);
+            this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, queue,
+                                                   runnable -> new WorkerThread(runnable, threadName));
+            // tasks are put directly in the queue to block when it is full, so the thread must be running
+            this.executor.prestartAllCoreThreads();
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.event;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.dspace.core.Context;
+import org.dspace.core.Utils;
+import org.dspace.services.ConfigurationService;
+import org.dspace.services.factory.DSpaceServicesFactory;
+
+/**
+ * Dispatcher that hands the events over to the consumers asynchronously, once the transaction that produced
+ * them has been committed, so that saving an object doesn't wait for indexing, deduplication, ORCID
+ * queueing and so on.
+ * <p>
+ * Each asynchronous consumer runs in an {@link AsyncConsumerExecutor} shared by all the instances of the
+ * dispatcher, which keeps the events of each DSpace object in order and handles retries, dead letters and
+ * queue depth metrics. The consumers stay synchronous unless they are enabled with
+ * <code>event.consumer.&lt;name&gt;.async = true</code>, as most of them expect to see the events within
+ * the transaction. The events dispatched by the workers themselves are always consumed synchronously, so
+ * that a worker never waits for room in its own queue.
+ * <p>
+ * The executors are stopped with the {@link org.dspace.event.service.EventService}, when the application
+ * context is closed.
+ * <p>
+ * Example configuration:
+ * <pre>
+ *  event.dispatcher.default.class = org.dspace.event.AsyncDispatcher
+ *  event.dispatcher.default.async.threads = 2
+ *  event.dispatcher.default.async.queue-size = 1000
+ *  event.dispatcher.default.async.max-retries = 3
+ *  event.dispatcher.default.async.retry-delay = 1000
+ *  event.dispatcher.default.async.dead-letter-dir = ${dspace.dir}/var/event-dead-letter
+ *  event.dispatcher.default.async.shutdown-timeout = 30000
+ *  event.consumer.discovery.async = true
+ * </pre>
+ */
+public class AsyncDispatcher extends Dispatcher {
+
+    private static final Logger log = LogManager.getLogger(AsyncDispatcher.class);
+
+    private static final Map<String, AsyncConsumerExecutor> executors = new ConcurrentHashMap<>();
+
+    private final ConfigurationService configurationService = DSpaceServicesFactory.getInstance()
+                                                                                   .getConfigurationService();
+
+    public AsyncDispatcher(String name) {
+        super(name);
+    }
+
+    /**
+     * @return the executors of all the asynchronous consumers, to report their metrics
+     */
+    public static Collection<AsyncConsumerExecutor> getExecutors() {
+        return Collections.unmodifiableCollection(executors.values());
+    }
+
+    /**
+     * Wait for the queued events to be consumed and stop all the asynchronous consumers. The dispatchers
+     * already created run their consumers synchronously afterwards.
+     */
+    public static synchronized void shutdown() {
+        for (AsyncConsumerExecutor executor : executors.values()) {
+            executor.shutdown(DSpaceServicesFactory.getInstance().getConfigurationService()
+                .getLongProperty("event.dispatcher." + executor.getName().split("\\.")[0]
+                    + ".async.shutdown-timeout", 30000));
+        }
+        executors.clear();
+    }
+
+    @Override
+    public void addConsumerProfile(ConsumerProfile cp) throws IllegalArgumentException {
+        if (consumers.containsKey(cp.getName())) {
+            throw new IllegalArgumentException(
+                "This dispatcher already has a consumer named \"" + cp.getName() + "\"");
+        }
+        consumers.put(cp.getName(), cp);
+        if (isAsync(cp)) {
+            executors.computeIfAbsent(getExecutorName(cp), key -> createExecutor(key, cp.getName()));
+        }
+    }
+
+    /**
+     * Consume the events added to this Context with the synchronous consumers and schedule them for the
+     * asynchronous ones once the transaction is committed.
+     *
+     * @param ctx the execution context
+     */
+    @Override
+    public void dispatch(Context ctx) {
+        if (consumers.isEmpty() || !ctx.hasEvents()) {
+            return;
+        }
+
+        // the worker threads consume the events of their own transactions inline, see AsyncConsumerExecutor
+        boolean inline = AsyncConsumerExecutor.isWorkerThread();
+        String tid = "TX" + Utils.generateKey();
+        Map<AsyncConsumerExecutor, List<Event>> asyncEvents = new LinkedHashMap<>();
+        List<ConsumerProfile> syncConsumers = new ArrayList<>();
+
+        while (ctx.hasEvents()) {
+            Event event = ctx.pollEvent();
+            event.setDispatcher(getIdentifier());
+            event.setTransactionID(tid);
+
+            for (ConsumerProfile cp : consumers.values()) {
+                if (!event.pass(cp.getFilters())) {
+                    continue;
+                }
+                AsyncConsumerExecutor executor = !inline && isAsync(cp) ? executors.get(getExecutorName(cp)) : null;
+                if (executor != null) {
+                    asyncEvents.computeIfAbsent(executor, e -> new ArrayList<>()).add(event);
+                    event.setBitSet(cp.getName());
+                    continue;
+                }
+                if (!syncConsumers.contains(cp)) {
+                    syncConsumers.add(cp);
+                }
+                try {
+                    cp.getConsumer().consume(ctx, event);
+                    event.setBitSet(cp.getName());
+                } catch (Exception e) {
+                    log.error("Consumer(\"" + cp.getName() + "\").consume threw: " + e.toString(), e);
+                }
+            }
+        }
+
+        for (ConsumerProfile cp : syncConsumers) {
+            try {
+                cp.getConsumer().end(ctx);
+            } catch (Exception e) {
+                log.error("Error in Consumer(\"" + cp.getName() + "\").end: " + e.toString(), e);
+            }
+        }
+
+        if (!asyncEvents.isEmpty()) {
+            UUID userId = ctx.getCurrentUser() != null ? ctx.getCurrentUser().getID() : null;
+            List<UUID> specialGroups = new ArrayList<>(ctx.getSpecialGroupUuids());
+            ctx.addAfterCommitCallback(() -> {
+                for (Map.Entry<AsyncConsumerExecutor, List<Event>> entry : asyncEvents.entrySet()) {
+                    entry.getKey().submit(entry.getValue(), userId, specialGroups);
+                    if (log.isDebugEnabled()) {
+                        log.debug(entry.getKey().getMetrics());
+                    }
+                }
+            });
+        }
+    }
+
+    private boolean isAsync(ConsumerProfile cp) {
+        return configurationService.getBooleanProperty("event.consumer." + cp.getName() + ".async", false);
+    }
+
+    private String getExecutorName(ConsumerProfile cp) {
+        return name + "." + cp.getName();
+    }
+
+    private AsyncConsumerExecutor createExecutor(String executorName, String consumerName) {
+        String prefix = "event.dispatcher." + name + ".async.";
+        String deadLetterDir = configurationService.getProperty(prefix + "dead-letter-dir");
+        if (StringUtils.isBlank(deadLetterDir)) {
+            deadLetterDir = configurationService.getProperty("dspace.dir") + File.separator + "var"
+                + File.separator + "event-dead-letter";
+        }
+        return new AsyncConsumerExecutor(executorName, () -> {
+            try {
+                ConsumerProfile profile = ConsumerProfile.makeConsumerProfile(consumerName);
+                profile.getConsumer().initialize();
+                return profile.getConsumer();
+            } catch (Exception e) {
+                throw new IllegalStateException("Unable to create the consumer " + consumerName, e);
+            }
+        }, Math.max(1, configurationService.getIntProperty(prefix + "threads", 2)),
+            Math.max(1, configurationService.getIntProperty(prefix + "queue-size", 1000)),
+            Math.max(0, configurationService.getIntProperty(prefix + "max-retries", 3)),
+            Math.max(0, configurationService.getLongProperty(prefix + "retry-delay", 1000)),
+            new File(deadLetterDir));
+    }
+}
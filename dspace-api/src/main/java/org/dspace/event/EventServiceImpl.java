@@ -13,6 +13,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import javax.annotation.PreDestroy;
 
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.pool2.KeyedObjectPool;
@@ -62,6 +63,15 @@ public class EventServiceImpl implements EventService {
         log.info("EventService dispatcher pool initialized");
     }
 
+    /**
+     * Stop the workers of the asynchronous consumers with the application context, so that they don't outlive
+     * a redeployment.
+     */
+    @PreDestroy
+    public void destroy() {
+        AsyncDispatcher.shutdown();
+    }
+
     private void initPool() {
 
         if (dispatcherPool == null) {
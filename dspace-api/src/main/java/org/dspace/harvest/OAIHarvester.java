@@ -11,7 +11,6 @@ import static java.lang.String.format;
 import static java.lang.String.valueOf;
 import static org.apache.commons.lang3.BooleanUtils.toBoolean;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
-import static org.apache.commons.lang3.StringUtils.isNotEmpty;
 import static org.dspace.app.harvest.Harvest.LOG_DELIMITER;
 import static org.dspace.app.harvest.Harvest.LOG_PREFIX;
 import static org.dspace.authority.service.AuthorityValueService.SPLIT;
@@ -265,22 +264,27 @@ public class OAIHarvester {
         OAIHarvesterResponseDTO responseDTO, Date toDate, String repositoryId, OAIHarvesterReport report,
         OAIHarvesterOptions options) {
 
-        while (responseDTO != null) {
+        // the next pages are requested while the records of the current one are processed
+        int prefetchPages = configurationService.getIntProperty("oai.harvester.prefetchPages", 1);
+        try (OAIResponsePrefetcher prefetcher = new OAIResponsePrefetcher(oaiHarvesterClient,
+            harvestRow.getOaiSource(), responseDTO, prefetchPages)) {
 
-            if (responseDTO.hasErrors()) {
-                handleResponseErrors(responseDTO.getErrors());
-                return;
-            }
+            while (responseDTO != null) {
+
+                if (responseDTO.hasErrors()) {
+                    handleResponseErrors(responseDTO.getErrors());
+                    return;
+                }
 
-            List<Element> records = getAllRecords(responseDTO.getDocument());
+                List<Element> records = getAllRecords(responseDTO.getDocument());
 
-            // Process the obtained records
-            harvestRow = processRecords(context, harvestRow, records, repositoryId, report, options);
+                // Process the obtained records
+                harvestRow = processRecords(context, harvestRow, records, repositoryId, report, options);
 
-            // keep going if there are more records to process
-            String token = responseDTO.getResumptionToken();
-            responseDTO = isNotEmpty(token) ? oaiHarvesterClient.listRecords(harvestRow.getOaiSource(), token) : null;
+                // keep going if there are more records to process
+                responseDTO = prefetcher.next();
 
+            }
         }
 
     }
@@ -0,0 +1,151 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.harvest;
+
+import static org.apache.commons.lang3.StringUtils.isNotEmpty;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.dspace.harvest.model.OAIHarvesterResponseDTO;
+import org.dspace.harvest.service.OAIHarvesterClient;
+
+/**
+ * Requests the pages following a ListRecords response, by their resumption
+ * tokens, on a separate thread: up to the given number of pages are
+ * requested and parsed ahead, while the records of the current page are
+ * ingested. With no page ahead, each page is requested when the previous one
+ * is ingested.
+ */
+final class OAIResponsePrefetcher implements AutoCloseable {
+
+    private static final Logger log = LogManager.getLogger();
+
+    /**
+     * A page requested ahead, or the failure of its request.
+     */
+    private static final class Page {
+
+        private final OAIHarvesterResponseDTO response;
+
+        private final RuntimeException failure;
+
+        private Page(OAIHarvesterResponseDTO response, RuntimeException failure) {
+            this.response = response;
+            this.failure = failure;
+        }
+    }
+
+    private static final Page END = new Page(null, null);
+
+    private final OAIHarvesterClient client;
+
+    private final String baseURL;
+
+    private final BlockingQueue<Page> pages;
+
+    private final ExecutorService executor;
+
+    /**
+     * The last page returned, when the pages are not requested ahead.
+     */
+    private OAIHarvesterResponseDTO current;
+
+    private boolean ended;
+
+    /**
+     * @param client        the OAI client
+     * @param baseURL       the repository base url
+     * @param first         the first response of the ListRecords request
+     * @param prefetchPages the number of pages to request ahead
+     */
+    OAIResponsePrefetcher(OAIHarvesterClient client, String baseURL, OAIHarvesterResponseDTO first,
+        int prefetchPages) {
+        this.client = client;
+        this.baseURL = baseURL;
+        this.current = first;
+        if (prefetchPages > 0) {
+            this.pages = new ArrayBlockingQueue<>(prefetchPages);
+            this.executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "oai-harvester-prefetch");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.executor.execute(() -> fetch(first));
+        } else {
+            this.pages = null;
+            this.executor = null;
+        }
+    }
+
+    /**
+     * Get the next page, waiting for it if it is still requested.
+     *
+     * @return the next page, or null if the previous one was the last
+     */
+    OAIHarvesterResponseDTO next() {
+        if (ended) {
+            return null;
+        }
+        if (executor == null) {
+            current = hasNext(current) ? client.listRecords(baseURL, current.getResumptionToken()) : null;
+            ended = current == null;
+            return current;
+        }
+        Page page;
+        try {
+            page = pages.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HarvestingException("Interrupted while waiting for the next page of " + baseURL);
+        }
+        if (page.failure != null) {
+            ended = true;
+            throw page.failure;
+        }
+        ended = page == END;
+        return page.response;
+    }
+
+    private boolean hasNext(OAIHarvesterResponseDTO response) {
+        return !response.hasErrors() && isNotEmpty(response.getResumptionToken());
+    }
+
+    private void fetch(OAIHarvesterResponseDTO first) {
+        try {
+            OAIHarvesterResponseDTO response = first;
+            while (hasNext(response)) {
+                Page page;
+                try {
+                    response = client.listRecords(baseURL, response.getResumptionToken());
+                    page = new Page(response, null);
+                } catch (RuntimeException e) {
+                    log.debug("Request of the next page of " + baseURL + " failed", e);
+                    pages.put(new Page(null, e));
+                    return;
+                }
+                pages.put(page);
+            }
+            pages.put(END);
+        } catch (InterruptedException e) {
+            // the harvest was stopped
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
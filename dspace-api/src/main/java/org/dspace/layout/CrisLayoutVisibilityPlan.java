@@ -0,0 +1,115 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.layout;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.dspace.content.MetadataField;
+
+/**
+ * The visibility of the metadata fields in the boxes of an entity type,
+ * compiled once from the boxes so that the metadata of the items can be
+ * filtered without scanning the boxes for each value: a field is public if it
+ * is in a public box, guarded by the other boxes including it, directly or in
+ * a metadata group, and subject to the default metadata security if it is in
+ * no box.
+ * <p>
+ * The plan only holds the ids of the boxes, so that it can be shared between
+ * the requests: the access to a guarding box is checked on the box loaded in
+ * the context of the request.
+ */
+public class CrisLayoutVisibilityPlan {
+
+    private final boolean empty;
+
+    private final Set<Integer> publicFields;
+
+    private final Map<Integer, List<Integer>> guardingBoxes;
+
+    private final long created = System.currentTimeMillis();
+
+    private CrisLayoutVisibilityPlan(boolean empty, Set<Integer> publicFields,
+                                     Map<Integer, List<Integer>> guardingBoxes) {
+        this.empty = empty;
+        this.publicFields = publicFields;
+        this.guardingBoxes = guardingBoxes;
+    }
+
+    /**
+     * Compile the plan of the given boxes.
+     *
+     * @param boxes the boxes of an entity type
+     * @return the visibility plan of the fields of the boxes
+     */
+    public static CrisLayoutVisibilityPlan compile(List<CrisLayoutBox> boxes) {
+        Set<Integer> publicFields = new HashSet<>();
+        Map<Integer, Set<Integer>> guardingBoxes = new HashMap<>();
+        for (CrisLayoutBox box : boxes) {
+            boolean publicBox = box.getSecurity() == LayoutSecurity.PUBLIC.getValue();
+            for (CrisLayoutField field : box.getLayoutFields()) {
+                if (!(field instanceof CrisLayoutFieldMetadata)) {
+                    continue;
+                }
+                if (publicBox) {
+                    publicFields.add(field.getMetadataField().getID());
+                } else {
+                    addGuardingBox(guardingBoxes, field.getMetadataField(), box);
+                    for (CrisMetadataGroup metadataGroup : field.getCrisMetadataGroupList()) {
+                        addGuardingBox(guardingBoxes, metadataGroup.getMetadataField(), box);
+                    }
+                }
+            }
+        }
+
+        Map<Integer, List<Integer>> guardingBoxLists = new HashMap<>();
+        guardingBoxes.forEach((field, boxIds) -> guardingBoxLists.put(field, new ArrayList<>(boxIds)));
+        return new CrisLayoutVisibilityPlan(boxes.isEmpty(), publicFields, guardingBoxLists);
+    }
+
+    private static void addGuardingBox(Map<Integer, Set<Integer>> guardingBoxes, MetadataField field,
+                                       CrisLayoutBox box) {
+        guardingBoxes.computeIfAbsent(field.getID(), id -> new LinkedHashSet<>()).add(box.getID());
+    }
+
+    /**
+     * @return true if the entity type has no boxes
+     */
+    public boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * @param field a metadata field
+     * @return true if the field is in a public box
+     */
+    public boolean isPublic(MetadataField field) {
+        return publicFields.contains(field.getID());
+    }
+
+    /**
+     * @param field a metadata field
+     * @return the ids of the boxes that are not public including the field, empty if the field is in no such box
+     */
+    public List<Integer> getGuardingBoxes(MetadataField field) {
+        return guardingBoxes.getOrDefault(field.getID(), Collections.emptyList());
+    }
+
+    /**
+     * @return the time the plan was compiled, in milliseconds
+     */
+    public long getCreated() {
+        return created;
+    }
+}
@@ -19,6 +19,7 @@ import org.dspace.content.MetadataValue;
 import org.dspace.core.Context;
 import org.dspace.layout.CrisLayoutBox;
 import org.dspace.layout.CrisLayoutBoxConfiguration;
+import org.dspace.layout.CrisLayoutVisibilityPlan;
 import org.dspace.service.DSpaceCRUDService;
 
 /**
@@ -108,6 +109,23 @@ public interface CrisLayoutBoxService extends DSpaceCRUDService<CrisLayoutBox> {
     public List<CrisLayoutBox> findEntityBoxes(
             Context context, String entityType, Integer limit, Integer offset) throws SQLException;
 
+    /**
+     * Returns the visibility plan of the metadata fields in the boxes of the specified entity type, compiled from
+     * its boxes and cached until a change of the boxes or of their fields is committed
+     * @param context The relevant DSpace Context
+     * @param entityType entity type label {@link EntityType}
+     * @return the visibility plan {@link CrisLayoutVisibilityPlan}
+     * @throws SQLException An exception that provides information on a database errors.
+     */
+    public CrisLayoutVisibilityPlan getVisibilityPlan(Context context, String entityType) throws SQLException;
+
+    /**
+     * Discards the cached visibility plans once the given context is committed, after a change of the boxes or
+     * of their fields in this context
+     * @param context The relevant DSpace Context
+     */
+    public void invalidateVisibilityPlans(Context context);
+
     /**
      * Returns all metadata field associated at box
      * @param context The relevant DSpace Context
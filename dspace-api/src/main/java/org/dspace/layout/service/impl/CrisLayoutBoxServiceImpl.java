@@ -13,10 +13,13 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import org.apache.commons.collections.CollectionUtils;
@@ -34,11 +37,13 @@ import org.dspace.discovery.configuration.DiscoveryConfigurationUtilsService;
 import org.dspace.layout.CrisLayoutBox;
 import org.dspace.layout.CrisLayoutBoxConfiguration;
 import org.dspace.layout.CrisLayoutField;
+import org.dspace.layout.CrisLayoutVisibilityPlan;
 import org.dspace.layout.dao.CrisLayoutBoxDAO;
 import org.dspace.layout.service.CrisLayoutBoxAccessService;
 import org.dspace.layout.service.CrisLayoutBoxService;
 import org.dspace.metrics.CrisItemMetricsAuthorizationService;
 import org.dspace.metrics.CrisItemMetricsService;
+import org.dspace.services.ConfigurationService;
 import org.springframework.beans.factory.annotation.Autowired;
 
 /**
@@ -72,6 +77,20 @@ public class CrisLayoutBoxServiceImpl implements CrisLayoutBoxService {
     @Autowired
     private CrisItemMetricsService crisMetricService;
 
+    @Autowired
+    private ConfigurationService configurationService;
+
+    /**
+     * The visibility plans by entity type, compiled on demand
+     */
+    private final Map<String, CrisLayoutVisibilityPlan> visibilityPlans = new ConcurrentHashMap<>();
+
+    /**
+     * Incremented by each invalidation, so that a plan compiled from the boxes before a change is not cached
+     * after it
+     */
+    private final AtomicLong visibilityPlansGeneration = new AtomicLong();
+
     //constructor with all fields injected, used for test purposes (mock injection)
     CrisLayoutBoxServiceImpl(CrisLayoutBoxDAO dao, ItemService itemService, AuthorizeService authorizeService,
                              EntityTypeService entityTypeService,
@@ -98,6 +117,7 @@ public class CrisLayoutBoxServiceImpl implements CrisLayoutBoxService {
             throw new AuthorizeException(
                 "You must be an admin to create a Box");
         }
+        invalidateVisibilityPlans(context);
         return dao.create(context, new CrisLayoutBox());
     }
 
@@ -121,6 +141,7 @@ public class CrisLayoutBoxServiceImpl implements CrisLayoutBoxService {
             for (CrisLayoutBox box : boxList) {
                 dao.save(context, box);
             }
+            invalidateVisibilityPlans(context);
         }
     }
 
@@ -130,6 +151,7 @@ public class CrisLayoutBoxServiceImpl implements CrisLayoutBoxService {
             throw new AuthorizeException(
                 "You must be an admin to delete a Box");
         }
+        invalidateVisibilityPlans(context);
         dao.delete(context, box);
     }
 
@@ -139,6 +161,7 @@ public class CrisLayoutBoxServiceImpl implements CrisLayoutBoxService {
             throw new AuthorizeException(
                 "You must be an admin to create a Box");
         }
+        invalidateVisibilityPlans(context);
         return dao.create(context, box);
     }
 
@@ -154,6 +177,7 @@ public class CrisLayoutBoxServiceImpl implements CrisLayoutBoxService {
         box.setCollapsed(collapsed);
         box.setMinor(minor);
         box.setType(boxType);
+        invalidateVisibilityPlans(context);
         return dao.create(context, box);
     }
 
@@ -195,6 +219,32 @@ public class CrisLayoutBoxServiceImpl implements CrisLayoutBoxService {
         return dao.findByEntityType(context, entityType, null, limit, offset);
     }
 
+    @Override
+    public CrisLayoutVisibilityPlan getVisibilityPlan(Context context, String entityType) throws SQLException {
+        String key = Objects.toString(entityType, "");
+        CrisLayoutVisibilityPlan plan = visibilityPlans.get(key);
+        // the boxes may also be changed by another process, e.g. the layout import script
+        long maxAge = configurationService.getLongProperty("layout.visibility-plan.cache-seconds", 300) * 1000;
+        if (plan == null || System.currentTimeMillis() - plan.getCreated() > maxAge
+            || context.hasAfterCommitCallbacks()) {
+            long generation = visibilityPlansGeneration.get();
+            plan = CrisLayoutVisibilityPlan.compile(findEntityBoxes(context, entityType, 1000, 0));
+            // not cached if compiled from changes not committed yet or from boxes changed since
+            if (!context.hasAfterCommitCallbacks() && generation == visibilityPlansGeneration.get()) {
+                visibilityPlans.put(key, plan);
+            }
+        }
+        return plan;
+    }
+
+    @Override
+    public void invalidateVisibilityPlans(Context context) {
+        context.addAfterCommitCallback(() -> {
+            visibilityPlansGeneration.incrementAndGet();
+            visibilityPlans.clear();
+        });
+    }
+
     @Override
     public List<MetadataField> getMetadataField(Context context, Integer boxId, Integer limit, Integer offset)
         throws SQLException {
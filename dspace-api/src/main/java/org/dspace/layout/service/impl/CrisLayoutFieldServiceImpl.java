@@ -16,6 +16,7 @@ import org.dspace.content.MetadataField;
 import org.dspace.core.Context;
 import org.dspace.layout.CrisLayoutField;
 import org.dspace.layout.dao.CrisLayoutFieldDAO;
+import org.dspace.layout.service.CrisLayoutBoxService;
 import org.dspace.layout.service.CrisLayoutFieldService;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -30,8 +31,12 @@ public class CrisLayoutFieldServiceImpl implements CrisLayoutFieldService {
     @Autowired
     private CrisLayoutFieldDAO dao;
 
+    @Autowired
+    private CrisLayoutBoxService crisLayoutBoxService;
+
     @Override
     public CrisLayoutField create(Context context) throws SQLException, AuthorizeException {
+        crisLayoutBoxService.invalidateVisibilityPlans(context);
         return dao.create(context, new CrisLayoutField());
     }
 
@@ -42,6 +47,7 @@ public class CrisLayoutFieldServiceImpl implements CrisLayoutFieldService {
 
     @Override
     public void update(Context context, CrisLayoutField field) throws SQLException, AuthorizeException {
+        crisLayoutBoxService.invalidateVisibilityPlans(context);
         dao.save(context, field);
     }
 
@@ -56,11 +62,13 @@ public class CrisLayoutFieldServiceImpl implements CrisLayoutFieldService {
 
     @Override
     public void delete(Context context, CrisLayoutField field) throws SQLException, AuthorizeException {
+        crisLayoutBoxService.invalidateVisibilityPlans(context);
         dao.delete(context, field);
     }
 
     @Override
     public CrisLayoutField create(Context context, CrisLayoutField field) throws SQLException {
+        crisLayoutBoxService.invalidateVisibilityPlans(context);
         return dao.create(context, field);
     }
 
@@ -86,6 +94,7 @@ public class CrisLayoutFieldServiceImpl implements CrisLayoutFieldService {
         field.setRow(row);
         field.setPriority(priority);
         field.setMetadataField(mf);
+        crisLayoutBoxService.invalidateVisibilityPlans(context);
         return dao.create(context, field);
     }
 
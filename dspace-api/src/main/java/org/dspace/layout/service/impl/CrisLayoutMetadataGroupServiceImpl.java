@@ -16,6 +16,7 @@ import org.dspace.core.Context;
 import org.dspace.layout.CrisLayoutField;
 import org.dspace.layout.CrisMetadataGroup;
 import org.dspace.layout.dao.CrisLayoutMetadataGroupDAO;
+import org.dspace.layout.service.CrisLayoutBoxService;
 import org.dspace.layout.service.CrisLayoutMetadataGroupService;
 import org.springframework.beans.factory.annotation.Autowired;
 /**
@@ -28,8 +29,11 @@ public class CrisLayoutMetadataGroupServiceImpl implements CrisLayoutMetadataGro
 
     @Autowired
     private CrisLayoutMetadataGroupDAO dao;
+    @Autowired
+    private CrisLayoutBoxService crisLayoutBoxService;
     @Override
     public CrisMetadataGroup create(Context context) throws SQLException, AuthorizeException {
+        crisLayoutBoxService.invalidateVisibilityPlans(context);
         return dao.create(context, new CrisMetadataGroup());
     }
     @Override
@@ -38,6 +42,7 @@ public class CrisLayoutMetadataGroupServiceImpl implements CrisLayoutMetadataGro
     }
     @Override
     public void update(Context context, CrisMetadataGroup nestedField) throws SQLException, AuthorizeException {
+        crisLayoutBoxService.invalidateVisibilityPlans(context);
         dao.save(context, nestedField);
     }
     @Override
@@ -51,10 +56,12 @@ public class CrisLayoutMetadataGroupServiceImpl implements CrisLayoutMetadataGro
     }
     @Override
     public void delete(Context context, CrisMetadataGroup nestedField) throws SQLException, AuthorizeException {
+        crisLayoutBoxService.invalidateVisibilityPlans(context);
         dao.delete(context, nestedField);
     }
     @Override
     public CrisMetadataGroup create(Context context, CrisMetadataGroup nestedField) throws SQLException {
+        crisLayoutBoxService.invalidateVisibilityPlans(context);
         return dao.create(context, nestedField);
     }
     @Override
@@ -82,6 +89,7 @@ public class CrisLayoutMetadataGroupServiceImpl implements CrisLayoutMetadataGro
         nestedField.setPriority(priority);
         nestedField.setMetadataField(mf);
         nestedField.setCrisLayoutField(cf);
+        crisLayoutBoxService.invalidateVisibilityPlans(context);
         return dao.create(context, nestedField);
     }
 }
\ No newline at end of file
@@ -10,13 +10,20 @@ package org.dspace.metrics;
 
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 
 import org.apache.commons.cli.ParseException;
+import org.apache.commons.collections4.ListUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.solr.client.solrj.SolrServerException;
@@ -32,12 +39,16 @@ import org.dspace.core.Context;
 import org.dspace.discovery.DiscoverQuery;
 import org.dspace.discovery.DiscoverResultIterator;
 import org.dspace.discovery.SearchServiceException;
+import org.dspace.discovery.SolrSearchCore;
 import org.dspace.discovery.indexobject.IndexableCollection;
 import org.dspace.discovery.indexobject.IndexableCommunity;
 import org.dspace.discovery.indexobject.IndexableItem;
 import org.dspace.eperson.EPerson;
 import org.dspace.eperson.factory.EPersonServiceFactory;
 import org.dspace.scripts.DSpaceRunnable;
+import org.dspace.services.ConfigurationService;
+import org.dspace.services.factory.DSpaceServicesFactory;
+import org.dspace.statistics.factory.StatisticsServiceFactory;
 import org.dspace.utils.DSpace;
 import org.json.JSONObject;
 
@@ -52,9 +63,11 @@ public class StoreViewDownloadsCrisMetrics extends
     private static final Logger log = LogManager.getLogger(StoreViewDownloadsCrisMetrics.class);
     private Context context;
     private UpdateCrisMetricsInSolrDocService updateCrisMetricsInSolrDocService;
+    private ConfigurationService configurationService;
 
     @Override
     public void setup() throws ParseException {
+        configurationService = DSpaceServicesFactory.getInstance().getConfigurationService();
         updateCrisMetricsInSolrDocService = new DSpace()
                 .getServiceManager()
                 .getServiceByName(UpdateCrisMetricsInSolrDocService.class.getName(),
@@ -77,7 +90,11 @@ public class StoreViewDownloadsCrisMetrics extends
         assignSpecialGroupsInContext();
         try {
             context.turnOffAuthorisationSystem();
-            performUpdateAndStorage(context);
+            if (commandLine.hasOption("a")) {
+                performAggregatedUpdateAndStorage(context);
+            } else {
+                performUpdateAndStorage(context);
+            }
             updateCrisMetricsInSolrDocService.performUpdate(context, handler, commandLine.hasOption("o"));
             context.complete();
         } catch (Exception e) {
@@ -102,6 +119,57 @@ public class StoreViewDownloadsCrisMetrics extends
         }
     }
 
+    /**
+     * Store the same metrics of {@link #performUpdateAndStorage(Context)}, computing the views and downloads of
+     * all the objects with a few faceted queries and writing the metrics with JDBC batches, one page of objects
+     * at a time.
+     */
+    private void performAggregatedUpdateAndStorage(Context context)
+            throws SolrServerException, IOException, SQLException {
+        int pageSize = configurationService.getIntProperty("metrics.store-view-downloads.page-size", 500);
+        TotalDownloadsAndVisitsAggregator aggregator = new TotalDownloadsAndVisitsAggregator(
+                StatisticsServiceFactory.getInstance().getSolrLoggerService(),
+                new DSpace().getSingletonService(SolrSearchCore.class), pageSize);
+        storeAggregatedMetrics(context, aggregator, pageSize, aggregator.countViews(Constants.ITEM),
+                aggregator.countDownloads(), IndexableItem.TYPE, Item.class.getSimpleName() + "s",
+                "withdrawn:false", "archived:true");
+        storeAggregatedMetrics(context, aggregator, pageSize, aggregator.countViews(Constants.COLLECTION),
+                Collections.emptyMap(), IndexableCollection.TYPE, Collection.class.getSimpleName() + "s");
+        storeAggregatedMetrics(context, aggregator, pageSize, aggregator.countViews(Constants.COMMUNITY),
+                Collections.emptyMap(), IndexableCommunity.TYPE, "Communities");
+    }
+
+    private void storeAggregatedMetrics(Context context, TotalDownloadsAndVisitsAggregator aggregator, int pageSize,
+            Map<UUID, Double> views, Map<UUID, Double> downloads, String resourceType, String title,
+            String... filterQueries) throws SolrServerException, IOException, SQLException {
+        handler.logInfo("Addition start");
+        Date acquisitionDate = new Date();
+        Function<UUID, String> remarks = id -> new JSONObject()
+                .put("detailUrl", "/statistics/" + title + "/" + id).toString();
+        int countFoundItems = 0;
+        int countAddedItems = 0;
+        for (List<UUID> page : ListUtils.partition(new ArrayList<>(views.keySet()), pageSize)) {
+            // as in the metrics stored one by one, downloads are stored only for viewed objects
+            Set<UUID> indexed = aggregator.findIndexed(page, resourceType, filterQueries);
+            Map<UUID, Double> pageViews = new HashMap<>();
+            Map<UUID, Double> pageDownloads = new HashMap<>();
+            for (UUID id : indexed) {
+                pageViews.put(id, views.get(id));
+                if (downloads.containsKey(id)) {
+                    pageDownloads.put(id, downloads.get(id));
+                }
+            }
+            crisMetricsService.storeLastMetrics(context, "view", pageViews, remarks, acquisitionDate);
+            crisMetricsService.storeLastMetrics(context, "download", pageDownloads, remarks, acquisitionDate);
+            countFoundItems += indexed.size();
+            countAddedItems += pageViews.size() + pageDownloads.size();
+            context.commit();
+        }
+        handler.logInfo("Found " + countFoundItems + " viewed " + title);
+        handler.logInfo("Added " + countAddedItems + " metrics");
+        handler.logInfo("Update end");
+    }
+
     private Iterator<DSpaceObject> findItems(Context context) throws SearchServiceException {
         DiscoverQuery discoverQuery = new DiscoverQuery();
         discoverQuery.setDSpaceObjectFilter(IndexableItem.TYPE);
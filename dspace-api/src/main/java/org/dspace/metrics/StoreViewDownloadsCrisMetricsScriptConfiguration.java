@@ -49,6 +49,10 @@ public class StoreViewDownloadsCrisMetricsScriptConfiguration<T extends StoreVie
         if (options == null) {
 
             super.options = new Options();
+            options.addOption("a", "aggregate", false,
+                "If set, computes the views and downloads of all the objects with a few faceted queries and stores "
+                    + "the metrics with JDBC batches, instead of querying the statistics of each object");
+            options.getOption("a").setType(boolean.class);
         }
         return options;
     }
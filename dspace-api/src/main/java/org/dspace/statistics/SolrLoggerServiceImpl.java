@@ -35,6 +35,8 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
+import javax.annotation.PreDestroy;
 import javax.servlet.http.HttpServletRequest;
 
 import com.maxmind.geoip2.DatabaseReader;
@@ -118,6 +120,12 @@ public class SolrLoggerServiceImpl implements SolrLoggerService, InitializingBea
     private static final String MULTIPLE_VALUES_SPLITTER = "|";
     protected SolrClient solr;
 
+    /**
+     * Asynchronous buffer of the view and search events, null if the events are
+     * written synchronously (see solr-statistics.buffer.enabled)
+     */
+    protected SolrStatisticsBuffer buffer;
+
     public static final String DATE_FORMAT_8601 = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'";
 
     public static final String DATE_FORMAT_DCDATE = "yyyy-MM-dd'T'HH:mm:ss'Z'";
@@ -175,6 +183,16 @@ public class SolrLoggerServiceImpl implements SolrLoggerService, InitializingBea
     public void afterPropertiesSet() throws Exception {
         solr = solrStatisticsCore.getSolr();
 
+        if (solr != null && configurationService.getBooleanProperty("solr-statistics.buffer.enabled", false)) {
+            String journalDir = configurationService.getProperty("solr-statistics.buffer.journal.dir");
+            buffer = new SolrStatisticsBuffer(solr,
+                configurationService.getIntProperty("solr-statistics.buffer.capacity", 10000),
+                configurationService.getIntProperty("solr-statistics.buffer.batch-size", 500),
+                configurationService.getLongProperty("solr-statistics.buffer.max-delay", 2000),
+                configurationService.getLongProperty("solr-statistics.buffer.offer-timeout", 50),
+                StringUtils.isNotBlank(journalDir) ? new File(journalDir) : null);
+        }
+
         // Read in the file so we don't have to do it all the time
         //spiderIps = SpiderDetector.getSpiderIpAddresses();
 
@@ -203,6 +221,30 @@ public class SolrLoggerServiceImpl implements SolrLoggerService, InitializingBea
         locationService = service;
     }
 
+    @PreDestroy
+    public void closeBuffer() {
+        if (buffer != null) {
+            buffer.close(configurationService.getLongProperty("solr-statistics.buffer.shutdown-timeout", 10000));
+        }
+    }
+
+    /**
+     * Store a view or search event in the statistics core, through the asynchronous
+     * buffer if enabled. When the events are written synchronously and the solr
+     * autocommit is disabled the event is committed immediately.
+     *
+     * @param doc the event to store
+     * @throws IOException         if IO error
+     * @throws SolrServerException if the event could not be written to the statistics core
+     */
+    protected void addUsageEvent(SolrInputDocument doc) throws IOException, SolrServerException {
+        if (buffer != null) {
+            buffer.add(doc);
+            return;
+        }
+        solr.add(doc);
+    }
+
     @Override
     public void post(DSpaceObject dspaceObject, HttpServletRequest request,
                      EPerson currentUser) {
@@ -234,10 +276,10 @@ public class SolrLoggerServiceImpl implements SolrLoggerService, InitializingBea
             doc1.addField("statistics_type", StatisticsType.VIEW.text());
 
 
-            solr.add(doc1);
+            addUsageEvent(doc1);
             // commits are executed automatically using the solr autocommit
             boolean useAutoCommit = configurationService.getBooleanProperty("solr-statistics.autoCommit", true);
-            if (!useAutoCommit) {
+            if (!useAutoCommit && buffer == null) {
                 solr.commit(false, false);
             }
 
@@ -274,10 +316,10 @@ public class SolrLoggerServiceImpl implements SolrLoggerService, InitializingBea
 
             doc1.addField("statistics_type", StatisticsType.VIEW.text());
 
-            solr.add(doc1);
+            addUsageEvent(doc1);
             // commits are executed automatically using the solr autocommit
             boolean useAutoCommit = configurationService.getBooleanProperty("solr-statistics.autoCommit", true);
-            if (!useAutoCommit) {
+            if (!useAutoCommit && buffer == null) {
                 solr.commit(false, false);
             }
 
@@ -519,7 +561,7 @@ public class SolrLoggerServiceImpl implements SolrLoggerService, InitializingBea
                 solrDoc.addField("page", page);
             }
 
-            solr.add(solrDoc);
+            addUsageEvent(solrDoc);
         } catch (RuntimeException re) {
             throw re;
         } catch (Exception e) {
@@ -741,7 +783,7 @@ public class SolrLoggerServiceImpl implements SolrLoggerService, InitializingBea
                 };
 
                 /* query for ip, exclude results previously set as bots. */
-                processor.execute("ip:" + ip + "* AND -isBot:true");
+                processor.execute("ip:" + ClientUtils.escapeQueryChars(ip) + "* AND -isBot:true");
 
                 solr.commit();
 
@@ -789,7 +831,7 @@ public class SolrLoggerServiceImpl implements SolrLoggerService, InitializingBea
     @Override
     public void deleteIP(String ip) {
         try {
-            solr.deleteByQuery("ip:" + ip + "*");
+            solr.deleteByQuery("ip:" + ClientUtils.escapeQueryChars(ip) + "*");
         } catch (Exception e) {
             log.error(e.getMessage(), e);
         }
@@ -920,6 +962,41 @@ public class SolrLoggerServiceImpl implements SolrLoggerService, InitializingBea
         }
     }
 
+    @Override
+    public void streamFacetField(String query, String filterQuery, String facetField, int pageSize,
+                                 Consumer<ObjectCount> consumer)
+            throws SolrServerException, IOException {
+        if (solr == null) {
+            return;
+        }
+        SolrQuery solrQuery = createQuery(query, filterQuery, facetField, 0, pageSize, null, null, null, null, null,
+                                          false, 1, true);
+        // the index order is stable between the pages, unlike the count order
+        solrQuery.setFacetSort(FacetParams.FACET_SORT_INDEX);
+        int offset = 0;
+        int received;
+        do {
+            solrQuery.set(FacetParams.FACET_OFFSET, offset);
+            QueryResponse response;
+            try {
+                response = solr.query(solrQuery);
+            } catch (SolrServerException | IOException e) {
+                log.error("Error searching Solr usage events using query {}", query, e);
+                throw e;
+            }
+            FacetField field = response.getFacetField(facetField);
+            received = field != null ? field.getValueCount() : 0;
+            for (int i = 0; i < received; i++) {
+                FacetField.Count fieldCount = field.getValues().get(i);
+                ObjectCount objectCount = new ObjectCount();
+                objectCount.setCount(fieldCount.getCount());
+                objectCount.setValue(fieldCount.getName());
+                consumer.accept(objectCount);
+            }
+            offset += received;
+        } while (received == pageSize);
+    }
+
     @Override
     public ObjectCount[] queryFacetDate(String query,
                                         String filterQuery, int max, String dateType, String dateStart,
@@ -1043,6 +1120,27 @@ public class SolrLoggerServiceImpl implements SolrLoggerService, InitializingBea
             return null;
         }
 
+        SolrQuery solrQuery = createQuery(query, filterQuery, facetField, rows, max, dateType, dateStart, dateEnd,
+                                          facetQueries, sort, ascending, facetMinCount, defaultFilterQueries);
+        QueryResponse response;
+        try {
+            // solr.set
+            response = solr.query(solrQuery);
+        } catch (SolrServerException | IOException e) {
+            log.error("Error searching Solr usage events using query {}", query, e);
+            throw e;
+        }
+        return response;
+    }
+
+    /**
+     * Build the query of {@link #query(String, String, String, int, int, String, String, String, List, String,
+     * boolean, int, boolean)}, with the additional year cores and the default filter queries.
+     */
+    protected SolrQuery createQuery(String query, String filterQuery, String facetField, int rows, int max,
+                                    String dateType, String dateStart, String dateEnd, List<String> facetQueries,
+                                    String sort, boolean ascending, int facetMinCount,
+                                    boolean defaultFilterQueries) {
         // System.out.println("QUERY");
         SolrQuery solrQuery = new SolrQuery().setRows(rows).setQuery(query)
                                              .setFacetMinCount(facetMinCount);
@@ -1128,16 +1226,7 @@ public class SolrLoggerServiceImpl implements SolrLoggerService, InitializingBea
         if (filterQuery != null) {
             solrQuery.addFilterQuery(filterQuery);
         }
-
-        QueryResponse response;
-        try {
-            // solr.set
-            response = solr.query(solrQuery);
-        } catch (SolrServerException | IOException e) {
-            log.error("Error searching Solr usage events using query {}", query, e);
-            throw e;
-        }
-        return response;
+        return solrQuery;
     }
 
 
@@ -1157,7 +1246,7 @@ public class SolrLoggerServiceImpl implements SolrLoggerService, InitializingBea
                     first = false;
                 }
 
-                query.append(" NOT(ip: ").append(ip).append(")");
+                query.append(" NOT(ip: ").append(ClientUtils.escapeQueryChars(ip)).append(")");
             }
             filterQuery = query.toString();
         }
@@ -0,0 +1,391 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.statistics;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.util.JavaBinCodec;
+
+/**
+ * Bounded in-memory buffer of usage events that are sent to the statistics core
+ * asynchronously, by a single separate thread, with bulk add requests.
+ * <p>
+ * A batch is sent as soon as it reaches <code>batchSize</code> documents or
+ * <code>maxDelay</code> milliseconds after its first document has been buffered.
+ * When the buffer is full the caller waits at most <code>offerTimeout</code>
+ * milliseconds; documents that still don't fit, documents of batches refused by
+ * Solr and documents left in the buffer at shutdown are appended to a journal on
+ * disk, if a journal directory is configured, or dropped otherwise. Journals found
+ * at startup are replayed into the statistics core and removed. The offset reached
+ * in a journal is recorded after each record sent, so that a replay interrupted by
+ * a failure resumes from the first record not sent instead of counting the events
+ * already sent twice.
+ */
+public class SolrStatisticsBuffer {
+
+    private static final Logger log = LogManager.getLogger();
+
+    private static final String JOURNAL_SUFFIX = ".journal";
+
+    private static final String OFFSET_SUFFIX = ".offset";
+
+    private static final long METRICS_LOG_INTERVAL = TimeUnit.MINUTES.toMillis(5);
+
+    private final SolrClient solr;
+    private final BlockingQueue<SolrInputDocument> queue;
+    private final int batchSize;
+    private final long maxDelay;
+    private final long offerTimeout;
+    private final File journalDir;
+    private final ExecutorService executor;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+
+    /**
+     * Held by the callers adding a document while they check that the buffer is
+     * open, and by {@link #close(long)} while it closes the buffer, so that no
+     * document is queued after the buffer has been drained.
+     */
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+
+    private DataOutputStream journal;
+    private volatile boolean closed = false;
+    private boolean journalClosed = false;
+    private long lastMetricsLog = System.currentTimeMillis();
+
+    /**
+     * @param solr         the statistics core
+     * @param capacity     the maximum number of documents held in memory
+     * @param batchSize    the maximum number of documents sent in a single request
+     * @param maxDelay     the maximum time in milliseconds a document waits in the buffer
+     * @param offerTimeout the maximum time in milliseconds a caller waits when the buffer is full
+     * @param journalDir   the directory of the journal on disk, null to drop the documents that can't be sent
+     */
+    public SolrStatisticsBuffer(SolrClient solr, int capacity, int batchSize, long maxDelay, long offerTimeout,
+                                File journalDir) {
+        this.solr = solr;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.maxDelay = maxDelay;
+        this.offerTimeout = offerTimeout;
+        this.journalDir = journalDir;
+        List<File> journals = listJournals();
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "solr-statistics-buffer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.submit(() -> {
+            replay(journals);
+            flushLoop();
+        });
+    }
+
+    /**
+     * Buffer the given document, waiting if the buffer is full. If there is no room
+     * within the offer timeout the document is written to the journal or dropped.
+     *
+     * @param doc the usage event to store
+     */
+    public void add(SolrInputDocument doc) {
+        boolean queued = false;
+        closeLock.readLock().lock();
+        try {
+            if (!closed) {
+                queued = queue.offer(doc, offerTimeout, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeLock.readLock().unlock();
+        }
+        if (queued) {
+            accepted.incrementAndGet();
+        } else {
+            overflow(Arrays.asList(doc));
+        }
+    }
+
+    /**
+     * Stop accepting new documents, send the buffered ones and write to the
+     * journal what could not be sent within the given timeout.
+     *
+     * @param timeout the maximum time in milliseconds to wait for the buffer to be flushed
+     */
+    public void close(long timeout) {
+        closeLock.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(timeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor.shutdownNow();
+        List<SolrInputDocument> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            overflow(remaining);
+        }
+        closeJournal();
+        log.info("Usage statistics buffer closed: {}", getMetrics());
+    }
+
+    /**
+     * @return the number of documents waiting in the buffer
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getAcceptedCount() {
+        return accepted.get();
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getSpilledCount() {
+        return spilled.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getReplayedCount() {
+        return replayed.get();
+    }
+
+    public long getFailedBatchCount() {
+        return failedBatches.get();
+    }
+
+    /**
+     * @return a human readable summary of the buffer metrics
+     */
+    public String getMetrics() {
+        return "queued=" + getQueueDepth() + ", accepted=" + accepted.get() + ", written=" + written.get()
+            + ", spilled=" + spilled.get() + ", dropped=" + dropped.get() + ", replayed=" + replayed.get()
+            + ", failedBatches=" + failedBatches.get();
+    }
+
+    private void flushLoop() {
+        while (!closed || !queue.isEmpty()) {
+            List<SolrInputDocument> batch = new ArrayList<>(batchSize);
+            try {
+                SolrInputDocument first = queue.poll(maxDelay, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    long deadline = System.currentTimeMillis() + maxDelay;
+                    while (batch.size() < batchSize) {
+                        queue.drainTo(batch, batchSize - batch.size());
+                        long wait = deadline - System.currentTimeMillis();
+                        if (batch.size() >= batchSize || wait <= 0 || closed) {
+                            break;
+                        }
+                        SolrInputDocument next = queue.poll(wait, TimeUnit.MILLISECONDS);
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                    }
+                    write(batch);
+                }
+                logMetrics();
+            } catch (InterruptedException e) {
+                // the documents already taken from the buffer are not lost
+                if (!batch.isEmpty()) {
+                    overflow(batch);
+                }
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void write(List<SolrInputDocument> batch) {
+        try {
+            solr.add(batch);
+            written.addAndGet(batch.size());
+        } catch (Exception e) {
+            failedBatches.incrementAndGet();
+            log.error("Unable to store {} usage events in the statistics core", batch.size(), e);
+            overflow(batch);
+        }
+    }
+
+    private void logMetrics() {
+        long now = System.currentTimeMillis();
+        if (now - lastMetricsLog > METRICS_LOG_INTERVAL) {
+            lastMetricsLog = now;
+            log.info("Usage statistics buffer: {}", getMetrics());
+        }
+    }
+
+    private synchronized void overflow(Collection<SolrInputDocument> docs) {
+        if (journalDir != null) {
+            try {
+                if (journal == null) {
+                    journalDir.mkdirs();
+                    File file = new File(journalDir, "statistics-" + System.currentTimeMillis() + JOURNAL_SUFFIX);
+                    journal = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+                }
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (JavaBinCodec codec = new JavaBinCodec()) {
+                    codec.marshal(new ArrayList<>(docs), bytes);
+                }
+                journal.writeInt(bytes.size());
+                bytes.writeTo(journal);
+                journal.flush();
+                spilled.addAndGet(docs.size());
+                if (journalClosed) {
+                    // late documents of a closed buffer, don't leave the journal open
+                    journal.close();
+                    journal = null;
+                }
+                return;
+            } catch (IOException e) {
+                log.error("Unable to write {} usage events to the journal in {}", docs.size(), journalDir, e);
+            }
+        }
+        if (dropped.getAndAdd(docs.size()) == 0) {
+            log.warn("The usage statistics buffer is full, usage events are being dropped");
+        }
+    }
+
+    private synchronized void closeJournal() {
+        journalClosed = true;
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                log.error("Unable to close the usage statistics journal", e);
+            }
+            journal = null;
+        }
+    }
+
+    private List<File> listJournals() {
+        List<File> journals = new ArrayList<>();
+        if (journalDir != null) {
+            File[] files = journalDir.listFiles((dir, name) -> name.endsWith(JOURNAL_SUFFIX));
+            if (files != null) {
+                journals.addAll(Arrays.asList(files));
+            }
+        }
+        return journals;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void replay(List<File> journals) {
+        for (File file : journals) {
+            File offsetFile = new File(file.getPath() + OFFSET_SUFFIX);
+            long count = 0;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                long offset = readOffset(offsetFile);
+                for (long skip = offset; skip > 0; ) {
+                    long skipped = in.skip(skip);
+                    if (skipped <= 0) {
+                        throw new EOFException();
+                    }
+                    skip -= skipped;
+                }
+                while (true) {
+                    int length;
+                    try {
+                        length = in.readInt();
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    byte[] record = new byte[length];
+                    in.readFully(record);
+                    List<SolrInputDocument> docs;
+                    try (JavaBinCodec codec = new JavaBinCodec()) {
+                        docs = (List<SolrInputDocument>) codec.unmarshal(new ByteArrayInputStream(record));
+                    }
+                    solr.add(docs);
+                    count += docs.size();
+                    offset += Integer.BYTES + length;
+                    writeOffset(offsetFile, offset);
+                }
+            } catch (EOFException e) {
+                log.warn("The usage statistics journal {} is truncated, replayed {} events", file, count);
+            } catch (Exception e) {
+                log.error("Unable to replay the usage statistics journal {}, it will be resumed at next startup",
+                          file, e);
+                replayed.addAndGet(count);
+                continue;
+            }
+            replayed.addAndGet(count);
+            if (!file.delete()) {
+                log.warn("Unable to remove the replayed usage statistics journal {}", file);
+            } else if (!offsetFile.delete() && offsetFile.exists()) {
+                log.warn("Unable to remove the offset of the replayed usage statistics journal {}", file);
+            }
+            log.info("Replayed {} usage events from the journal {}", count, file);
+        }
+    }
+
+    /**
+     * @return the offset of the first record of the journal not sent yet, 0 if none has been sent
+     */
+    private long readOffset(File offsetFile) throws IOException {
+        if (!offsetFile.exists()) {
+            return 0;
+        }
+        String offset = new String(Files.readAllBytes(offsetFile.toPath()), StandardCharsets.US_ASCII).trim();
+        return offset.isEmpty() ? 0 : Long.parseLong(offset);
+    }
+
+    private void writeOffset(File offsetFile, long offset) throws IOException {
+        Path tmp = new File(offsetFile.getPath() + ".tmp").toPath();
+        Files.write(tmp, String.valueOf(offset).getBytes(StandardCharsets.US_ASCII));
+        Files.move(tmp, offsetFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
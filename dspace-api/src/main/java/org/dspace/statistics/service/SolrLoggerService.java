@@ -12,6 +12,7 @@ import java.net.UnknownHostException;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import javax.servlet.http.HttpServletRequest;
 
 import org.apache.solr.client.solrj.SolrServerException;
@@ -159,6 +160,24 @@ public interface SolrLoggerService {
                                          List<String> facetQueries, int facetMinCount)
         throws SolrServerException, IOException;
 
+    /**
+     * Pass the count of every value of the given facet field to the consumer. Unlike
+     * {@link #queryFacetField(String, String, String, int, boolean, List, int)} the number of values is not
+     * limited: they are requested in index order, one page of pageSize values at a time, so that all the values
+     * of a field can be aggregated without a single huge response.
+     *
+     * @param query        the query to be used
+     * @param filterQuery  filter query
+     * @param facetField   the facet field on which to group our values
+     * @param pageSize     the number of values requested at a time
+     * @param consumer     the consumer of the values and their counts
+     * @throws SolrServerException Exception from the Solr server to the solrj Java client.
+     * @throws java.io.IOException passed through.
+     */
+    public void streamFacetField(String query, String filterQuery, String facetField, int pageSize,
+                                 Consumer<ObjectCount> consumer)
+        throws SolrServerException, IOException;
+
     /**
      * Query used to get values grouped by the date.
      *
@@ -7,205 +7,352 @@
  */
 package org.dspace.statistics.util;
 
-import java.util.HashMap;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
 
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
+import org.apache.commons.lang3.StringUtils;
 
 /**
- * A Spare v4 IPTable implementation that uses nested HashMaps
- * to optimize IP address matching over ranges of IP addresses.
+ * A table of IPv4 and IPv6 addresses and networks, held in a binary radix trie of the address bits so that
+ * checking an address costs at most one step per bit, whatever the number of entries.
+ * <p>
+ * Each entry is a network prefix: adding a network already covered by another one is a no-op, and adding a
+ * network removes the entries it covers. IPv4-mapped IPv6 addresses (<code>::ffff:1.2.3.4</code>) are matched
+ * against the IPv4 entries.
+ * <p>
+ * The table is not thread safe while entries are added: populate it before sharing it between threads.
  *
  * @author mdiggory at atmire.com
  */
 public class IPTable {
-    private static final Logger log = LogManager.getLogger(IPTable.class);
 
-    /* A lookup tree for IP addresses and SubnetRanges */
-    private final Map<String, Map<String, Map<String, Set<String>>>> map
-            = new HashMap<>();
+    private static final int IPV4_BITS = 32;
+    private static final int IPV6_BITS = 128;
 
     /**
-     * Can be full v4 IP, subnet or range string.
+     * Root of the IPv4 trie; 0 is also used as "no child", as a root is never a child.
+     */
+    private static final int IPV4_ROOT = 0;
+    private static final int IPV6_ROOT = 1;
+
+    /**
+     * Children of the nodes, two entries for each node: the child for a 0 bit and for a 1 bit
+     */
+    private int[] children = new int[64];
+
+    /**
+     * Nodes ending a network prefix of the table, i.e. matching every address below them
+     */
+    private final BitSet terminal = new BitSet();
+
+    private int nodes = 2;
+
+    /**
+     * Can be a full IPv4 or IPv6 address, a subnet, a CIDR network or a range.
      * <ul>
-     *   <li>A full address is a complete dotted-quad:  {@code "1.2.3.4".}
+     *   <li>A full address is a complete dotted-quad {@code "1.2.3.4"} or an IPv6 address {@code "2001:db8::1"}.
      *   <li>A subnet is a dotted-triplet:  {@code "1.2.3"}.  It means an entire
      *       Class C subnet:  "1.2.3.0-1.2.3.255".
-     *   <li>A range is two dotted-quad addresses separated by hyphen:
-     *       {@code "1.2.3.4-1.2.3.14"}.  Only the final octet may be different.
+     *   <li>A CIDR network is an address followed by the prefix length: {@code "10.0.0.0/8"} or
+     *       {@code "2001:db8::/32"}.
+     *   <li>A range is two addresses of the same family separated by hyphen:
+     *       {@code "1.2.3.4-1.2.4.14"}.
      * </ul>
      *
-     * Any attempt at CIDR notation is ignored.
-     *
      * @param ip IP address(es)
      * @throws IPFormatException Exception Class to deal with IPFormat errors.
      */
     public void add(String ip) throws IPFormatException {
+        String value = StringUtils.trim(ip);
+        if (StringUtils.isEmpty(value)) {
+            throw new IPFormatException(ip + " - empty address");
+        }
 
-        String[] start;
-
-        String[] end;
-
-        String[] range = ip.split("-");
-
+        String[] range = value.split("-");
         if (range.length >= 2) {
-
-            start = range[0].trim().split("/")[0].split("\\.");
-            end = range[1].trim().split("/")[0].split("\\.");
-
-            if (start.length != 4 || end.length != 4) {
-                throw new IPFormatException(ip + " - Ranges need to be full IPv4 Addresses");
-            }
-
-            if (!(start[0].equals(end[0]) && start[1].equals(end[1]) && start[2].equals(end[2]))) {
-                throw new IPFormatException(ip + " - Ranges can only be across the last subnet x.y.z.0 - x.y.z.254");
-            }
-
-        } else {
-            //need to ignore CIDR notation for the moment.
-            //ip = ip.split("\\/")[0];
-
-            String[] subnets = ip.split("\\.");
-
-            if (subnets.length < 3) {
-                throw new IPFormatException(ip + " - require at least three subnet places (255.255.255.0");
+            // CIDR suffixes of the range bounds have always been ignored
+            byte[] start = parseAddress(StringUtils.substringBefore(range[0].trim(), "/"), ip);
+            byte[] end = parseAddress(StringUtils.substringBefore(range[1].trim(), "/"), ip);
+            if (start.length != end.length) {
+                throw new IPFormatException(ip + " - Range bounds need to be of the same address family");
             }
-
-            start = subnets;
-            end = subnets;
+            addRange(new BigInteger(1, start), new BigInteger(1, end), start.length * 8);
+            return;
         }
 
-        if (start.length >= 3) {
-            Map<String, Map<String, Set<String>>> first = map.get(start[0]);
-
-            if (first == null) {
-                first = new HashMap<>();
-                map.put(start[0], first);
+        String address = value;
+        int prefix = -1;
+        int slash = value.indexOf('/');
+        if (slash >= 0) {
+            address = value.substring(0, slash).trim();
+            try {
+                prefix = Integer.parseInt(value.substring(slash + 1).trim());
+            } catch (NumberFormatException e) {
+                throw new IPFormatException(ip + " - invalid prefix length");
             }
+        }
 
-            Map<String, Set<String>> second = first.get(start[1]);
-
-            if (second == null) {
-                second = new HashMap<>();
-                first.put(start[1], second);
+        if (address.indexOf(':') < 0 && StringUtils.countMatches(address, '.') == 2) {
+            // dotted-triplet, i.e. a class C subnet
+            address = address + ".0";
+            if (prefix < 0) {
+                prefix = 24;
             }
+        } else if (address.indexOf(':') < 0 && StringUtils.countMatches(address, '.') < 2) {
+            throw new IPFormatException(ip + " - require at least three subnet places (255.255.255.0");
+        }
 
-            Set<String> third = second.get(start[2]);
+        byte[] bytes = parseAddress(address, ip);
+        int bits = bytes.length * 8;
+        if (prefix < 0) {
+            prefix = bits;
+        } else if (prefix > bits) {
+            throw new IPFormatException(ip + " - invalid prefix length");
+        }
+        insert(bytes, prefix);
+    }
 
-            if (third == null) {
-                third = new HashSet<>();
-                second.put(start[2], third);
+    /**
+     * Check whether a given address is contained in this table.
+     *
+     * @param ip the address to be tested
+     * @return true if {@code ip} is within this table's limits.
+     * @throws IPFormatException Exception Class to deal with IPFormat errors.
+     */
+    public boolean contains(String ip) throws IPFormatException {
+        String address = StringUtils.trim(ip);
+        if (address == null) {
+            throw new IPFormatException("needs to be a single IP address");
+        }
+        if (address.indexOf(':') < 0) {
+            // fast path for IPv4, without allocations
+            return containsIPv4(parseIPv4(address, ip));
+        }
+        byte[] bytes = parseAddress(address, ip);
+        if (bytes.length == 4) {
+            // IPv4-mapped address
+            return containsIPv4(toInt(bytes));
+        }
+        int node = IPV6_ROOT;
+        for (int bit = 0; bit < IPV6_BITS; bit++) {
+            if (terminal.get(node)) {
+                return true;
             }
-
-            //now populate fourth place (* or value 0-254);
-
-            if (start.length == 3) {
-                third.add("*");
+            node = children[node * 2 + ((bytes[bit >>> 3] >>> (7 - (bit & 7))) & 1)];
+            if (node == 0) {
+                return false;
             }
+        }
+        return terminal.get(node);
+    }
 
-            if (third.contains("*")) {
-                return;
+    private boolean containsIPv4(int address) {
+        int node = IPV4_ROOT;
+        for (int bit = 0; bit < IPV4_BITS; bit++) {
+            if (terminal.get(node)) {
+                return true;
             }
-
-            if (start.length >= 4) {
-                int s = Integer.valueOf(start[3]);
-                int e = Integer.valueOf(end[3]);
-                for (int i = s; i <= e; i++) {
-                    third.add(String.valueOf(i));
-                }
+            node = children[node * 2 + ((address >>> (31 - bit)) & 1)];
+            if (node == 0) {
+                return false;
             }
         }
+        return terminal.get(node);
     }
 
     /**
-     * Check whether a given address is contained in this netblock.
+     * Convert to a Set of address prefixes, as used by the Solr queries of the statistics. Full IPv4 addresses
+     * are returned as dotted-quads and class C subnets as dotted-triplets; the larger IPv4 networks are split
+     * into class C subnets and the smaller ones into their addresses. Only the full IPv6 addresses are returned,
+     * as the IPv6 networks have no prefix notation.
      *
-     * @param ip the address to be tested
-     * @return true if {@code ip} is within this table's limits.  Returns false
-     *         if {@link ip} looks like an IPv6 address.
-     * @throws IPFormatException Exception Class to deal with IPFormat errors.
+     * @return this table's content as a Set
      */
-    public boolean contains(String ip) throws IPFormatException {
+    public Set<String> toSet() {
+        Set<String> set = new HashSet<>();
+        collect(IPV4_ROOT, new byte[4], 0, set, true);
+        collect(IPV6_ROOT, new byte[16], 0, set, true);
+        return set;
+    }
+
+    /**
+     * Convert to a Set of networks in CIDR notation, full addresses being returned without prefix length.
+     *
+     * @return this table's content as a Set
+     */
+    public Set<String> toCIDRSet() {
+        Set<String> set = new HashSet<>();
+        collect(IPV4_ROOT, new byte[4], 0, set, false);
+        collect(IPV6_ROOT, new byte[16], 0, set, false);
+        return set;
+    }
 
-        String[] subnets = ip.split("\\.");
+    /**
+     * Return whether IPTable is empty (having no entries)
+     * @return true if empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return terminal.isEmpty();
+    }
 
-        // Does it look like IPv6?
-        if (subnets.length > 4 || ip.contains("::")) {
-            log.warn("Address {} assumed not to match.  IPv6 is not implemented.", ip);
-            return false;
+    private void collect(int node, byte[] address, int depth, Set<String> set, boolean prefixes) {
+        if (terminal.get(node)) {
+            if (prefixes) {
+                addPrefixes(address, depth, set);
+            } else {
+                set.add(format(address, depth));
+            }
+            return;
         }
-
-        // Does it look like a subnet?
-        if (subnets.length < 4) {
-            throw new IPFormatException("needs to be a single IP address");
+        for (int bit = 0; bit < 2; bit++) {
+            int child = children[node * 2 + bit];
+            if (child != 0) {
+                byte[] next = address.clone();
+                if (bit == 1) {
+                    next[depth >>> 3] |= 1 << (7 - (depth & 7));
+                }
+                collect(child, next, depth + 1, set, prefixes);
+            }
         }
+    }
 
-        Map<String, Map<String, Set<String>>> first = map.get(subnets[0]);
-
-        if (first == null) {
-            return false;
+    private void addPrefixes(byte[] address, int prefix, Set<String> set) {
+        if (address.length == 4 && prefix <= 24) {
+            int first = toInt(address) >>> 8;
+            for (int subnet = 0; subnet < 1 << (24 - prefix); subnet++) {
+                int value = first + subnet;
+                set.add((value >>> 16 & 0xff) + "." + (value >>> 8 & 0xff) + "." + (value & 0xff));
+            }
+        } else if (address.length == 4) {
+            for (int last = 0; last < 1 << (32 - prefix); last++) {
+                set.add((address[0] & 0xff) + "." + (address[1] & 0xff) + "." + (address[2] & 0xff) + "."
+                    + ((address[3] & 0xff) + last));
+            }
+        } else if (prefix == IPV6_BITS) {
+            set.add(format(address, prefix));
         }
+    }
 
-        Map<String, Set<String>> second = first.get(subnets[1]);
-
-        if (second == null) {
-            return false;
+    private String format(byte[] address, int prefix) {
+        try {
+            String host = InetAddress.getByAddress(address).getHostAddress();
+            return prefix == address.length * 8 ? host : host + "/" + prefix;
+        } catch (UnknownHostException e) {
+            // not possible, the address has a valid length
+            throw new IllegalStateException(e);
         }
+    }
 
-        Set<String> third = second.get(subnets[2]);
-
-        if (third == null) {
-            return false;
+    /**
+     * Add the networks exactly covering a range of addresses.
+     */
+    private void addRange(BigInteger start, BigInteger end, int bits) throws IPFormatException {
+        if (start.compareTo(end) > 0) {
+            throw new IPFormatException(start + "-" + end + " - the range start follows its end");
         }
+        BigInteger current = start;
+        while (current.compareTo(end) <= 0) {
+            // the largest block aligned at current and not exceeding end
+            int size = current.signum() == 0 ? bits : Math.min(bits, current.getLowestSetBit());
+            while (current.add(BigInteger.ONE.shiftLeft(size)).subtract(BigInteger.ONE).compareTo(end) > 0) {
+                size--;
+            }
+            insert(toBytes(current, bits / 8), bits - size);
+            current = current.add(BigInteger.ONE.shiftLeft(size));
+        }
+    }
 
-        return third.contains(subnets[3]) || third.contains("*");
+    private void insert(byte[] address, int prefix) {
+        int node = address.length == 4 ? IPV4_ROOT : IPV6_ROOT;
+        for (int bit = 0; bit < prefix; bit++) {
+            if (terminal.get(node)) {
+                // already covered by a larger network
+                return;
+            }
+            int index = node * 2 + ((address[bit >>> 3] >>> (7 - (bit & 7))) & 1);
+            if (children[index] == 0) {
+                // allocate first, as it may replace the array
+                int child = newNode();
+                children[index] = child;
+            }
+            node = children[index];
+        }
+        terminal.set(node);
+        // the covered entries are unreachable now
+        children[node * 2] = 0;
+        children[node * 2 + 1] = 0;
+    }
 
+    private int newNode() {
+        if ((nodes + 1) * 2 > children.length) {
+            children = Arrays.copyOf(children, children.length * 2);
+        }
+        return nodes++;
     }
 
     /**
-     * Convert to a Set.
+     * Parse an address without any name lookup.
      *
-     * @return this table's content as a Set
+     * @return the 4 bytes of an IPv4 address, IPv4-mapped IPv6 addresses included, or the 16 bytes of an IPv6 one
      */
-    public Set<String> toSet() {
-        HashSet<String> set = new HashSet<>();
-
-        for (Map.Entry<String, Map<String, Map<String, Set<String>>>> first : map.entrySet()) {
-            String firstString = first.getKey();
-            Map<String, Map<String, Set<String>>> secondMap = first.getValue();
-
-            for (Map.Entry<String, Map<String, Set<String>>> second : secondMap.entrySet()) {
-                String secondString = second.getKey();
-                Map<String, Set<String>> thirdMap = second.getValue();
-
-                for (Map.Entry<String, Set<String>> third : thirdMap.entrySet()) {
-                    String thirdString = third.getKey();
-                    Set<String> fourthSet = third.getValue();
-
-                    if (fourthSet.contains("*")) {
-                        set.add(firstString + "." + secondString + "." + thirdString);
-                    } else {
-                        for (String fourth : fourthSet) {
-                            set.add(firstString + "." + secondString + "." + thirdString + "." + fourth);
-                        }
-                    }
+    private byte[] parseAddress(String address, String original) throws IPFormatException {
+        if (address.indexOf(':') < 0) {
+            int value = parseIPv4(address, original);
+            return new byte[] {(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+        }
+        String literal = StringUtils.substringBefore(StringUtils.removeEnd(StringUtils.removeStart(address, "["),
+                                                                           "]"), "%");
+        if (!StringUtils.containsOnly(literal.toLowerCase(), "0123456789abcdef:.")) {
+            throw new IPFormatException(original + " - invalid IPv6 address");
+        }
+        try {
+            // an address containing colons is always parsed as an IPv6 literal, never looked up
+            return InetAddress.getByName(literal).getAddress();
+        } catch (UnknownHostException e) {
+            throw new IPFormatException(original + " - invalid IPv6 address");
+        }
+    }
 
+    private int parseIPv4(String address, String original) throws IPFormatException {
+        int value = 0;
+        int octet = -1;
+        int octets = 0;
+        for (int i = 0; i < address.length(); i++) {
+            char c = address.charAt(i);
+            if (c >= '0' && c <= '9') {
+                octet = (octet < 0 ? 0 : octet * 10) + (c - '0');
+                if (octet > 255) {
+                    throw new IPFormatException(original + " - invalid IPv4 address");
                 }
+            } else if (c == '.' && octet >= 0 && octets < 3) {
+                value = (value << 8) | octet;
+                octet = -1;
+                octets++;
+            } else {
+                throw new IPFormatException("needs to be a single IP address");
             }
         }
+        if (octet < 0 || octets != 3) {
+            throw new IPFormatException("needs to be a single IP address");
+        }
+        return (value << 8) | octet;
+    }
 
-        return set;
+    private static int toInt(byte[] bytes) {
+        return ((bytes[0] & 0xff) << 24) | ((bytes[1] & 0xff) << 16) | ((bytes[2] & 0xff) << 8) | (bytes[3] & 0xff);
     }
 
-    /**
-     * Return whether IPTable is empty (having no entries)
-     * @return true if empty, false otherwise
-     */
-    public boolean isEmpty() {
-        return map.isEmpty();
+    private static byte[] toBytes(BigInteger value, int length) {
+        byte[] raw = value.toByteArray();
+        byte[] bytes = new byte[length];
+        int copy = Math.min(raw.length, length);
+        System.arraycopy(raw, raw.length - copy, bytes, length - copy, copy);
+        return bytes;
     }
 
     /**
@@ -0,0 +1,413 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.statistics.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Matches a text against a set of regular expressions with a single scan of the text for most of them.
+ * <p>
+ * For each pattern the longest run of literal characters that any match must contain is extracted, and all these
+ * literals are compiled into an Aho-Corasick automaton, matched ignoring the case of ASCII letters. A text is
+ * scanned once by the automaton and only the patterns whose literal has been found are then evaluated, so that
+ * a text matching none of the patterns usually costs a single pass instead of one search per pattern. The
+ * patterns without a usable literal, e.g. <code>^.?$</code>, are always evaluated. Since the literals are only
+ * used to skip the patterns that cannot match, the result is always the same as evaluating all the patterns
+ * with {@link java.util.regex.Matcher#find()}.
+ * <p>
+ * Instances are immutable and thread safe.
+ */
+public class MultiPatternMatcher {
+
+    /**
+     * Literals shorter than this are too frequent to skip any pattern, such patterns are always evaluated
+     */
+    private static final int MIN_LITERAL_LENGTH = 2;
+
+    private static final int ALPHABET = 128;
+
+    /**
+     * Flags that change how the characters of a pattern are matched, making its literals unreliable
+     */
+    private static final int UNSAFE_FLAGS = Pattern.COMMENTS | Pattern.LITERAL | Pattern.UNICODE_CASE
+        | Pattern.UNICODE_CHARACTER_CLASS | Pattern.CANON_EQ;
+
+    private static final Pattern UNSAFE_INLINE_FLAGS = Pattern.compile("\\(\\?[a-zA-Z-]*[xuU]");
+
+    private final Pattern[] patterns;
+
+    /**
+     * Indexes of the patterns without a literal
+     */
+    private final int[] unfiltered;
+
+    /**
+     * Transitions of the automaton, ALPHABET entries for each state, state 0 is the initial one
+     */
+    private final int[] transitions;
+
+    /**
+     * Indexes of the patterns whose literal ends at each state, including the ones of the suffix states
+     */
+    private final int[][] outputs;
+
+    /**
+     * @param patterns the patterns to match, null elements are ignored
+     */
+    public MultiPatternMatcher(Collection<Pattern> patterns) {
+        List<Pattern> list = new ArrayList<>(patterns.size());
+        for (Pattern pattern : patterns) {
+            if (pattern != null) {
+                list.add(pattern);
+            }
+        }
+        this.patterns = list.toArray(new Pattern[0]);
+
+        List<Integer> withoutLiteral = new ArrayList<>();
+        Trie trie = new Trie();
+        for (int i = 0; i < this.patterns.length; i++) {
+            Pattern pattern = this.patterns[i];
+            String literal = (pattern.flags() & UNSAFE_FLAGS) == 0 ? requiredLiteral(pattern.pattern()) : null;
+            if (literal == null || literal.length() < MIN_LITERAL_LENGTH) {
+                withoutLiteral.add(i);
+            } else {
+                trie.add(literal, i);
+            }
+        }
+        this.unfiltered = withoutLiteral.stream().mapToInt(Integer::intValue).toArray();
+        trie.build();
+        this.transitions = trie.transitions;
+        this.outputs = trie.outputs;
+    }
+
+    /**
+     * @param text the text to match
+     * @return true if any of the patterns is found in the text
+     */
+    public boolean find(CharSequence text) {
+        if (patterns.length == 0) {
+            return false;
+        }
+        long[] evaluated = null;
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= ALPHABET) {
+                // literals are ASCII only, no literal continues across this character
+                state = 0;
+                continue;
+            }
+            state = transitions[state * ALPHABET + fold(c)];
+            int[] candidates = outputs[state];
+            if (candidates != null) {
+                if (evaluated == null) {
+                    evaluated = new long[(patterns.length + 63) >>> 6];
+                }
+                for (int candidate : candidates) {
+                    if ((evaluated[candidate >>> 6] & (1L << candidate)) == 0) {
+                        evaluated[candidate >>> 6] |= 1L << candidate;
+                        if (patterns[candidate].matcher(text).find()) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        for (int candidate : unfiltered) {
+            if (patterns[candidate].matcher(text).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of patterns
+     */
+    public int size() {
+        return patterns.length;
+    }
+
+    /**
+     * @return the number of patterns evaluated for every text, as no literal could be extracted from them
+     */
+    public int getUnfilteredCount() {
+        return unfiltered.length;
+    }
+
+    private static int fold(char c) {
+        return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+    }
+
+    /**
+     * Extract the longest run of ASCII characters that must appear literally in any match of a regular expression.
+     * The analysis is conservative: anything that isn't a plain character ends the current run, and expressions
+     * with top level alternatives, quoting, escapes that may hide literal braces or flags changing the meaning of
+     * the characters have no literal at all.
+     *
+     * @param regex the regular expression
+     * @return the longest required literal, or null if none has been found
+     */
+    static String requiredLiteral(String regex) {
+        if (UNSAFE_INLINE_FLAGS.matcher(regex).find()) {
+            return null;
+        }
+        List<String> runs = new ArrayList<>();
+        StringBuilder run = new StringBuilder();
+        boolean lastAtomInRun = false;
+        int i = 0;
+        int n = regex.length();
+        while (i < n) {
+            char c = regex.charAt(i);
+            switch (c) {
+                case '\\':
+                    if (i + 1 >= n) {
+                        return null;
+                    }
+                    char escaped = regex.charAt(i + 1);
+                    i += 2;
+                    if (!Character.isLetterOrDigit(escaped)) {
+                        lastAtomInRun = append(run, runs, escaped);
+                    } else if ("pPxuc0NkQEg".indexOf(escaped) >= 0) {
+                        return null;
+                    } else {
+                        lastAtomInRun = endRun(run, runs);
+                    }
+                    break;
+                case '[':
+                    i = skipClass(regex, i);
+                    if (i < 0) {
+                        return null;
+                    }
+                    lastAtomInRun = endRun(run, runs);
+                    break;
+                case '(':
+                    i = skipGroup(regex, i);
+                    if (i < 0) {
+                        return null;
+                    }
+                    lastAtomInRun = endRun(run, runs);
+                    break;
+                case ')':
+                case '|':
+                    return null;
+                case '.':
+                case '^':
+                case '$':
+                    i++;
+                    lastAtomInRun = endRun(run, runs);
+                    break;
+                case '?':
+                case '*':
+                case '+':
+                case '{':
+                    boolean optional = c == '?' || c == '*';
+                    if (c == '{') {
+                        int close = regex.indexOf('}', i);
+                        if (close < 0) {
+                            return null;
+                        }
+                        optional = regex.charAt(i + 1) == '0' || regex.charAt(i + 1) == ',';
+                        i = close + 1;
+                    } else {
+                        i++;
+                    }
+                    if (lastAtomInRun && optional) {
+                        run.setLength(run.length() - 1);
+                    }
+                    lastAtomInRun = endRun(run, runs);
+                    // lazy and possessive quantifiers
+                    if (i < n && (regex.charAt(i) == '?' || regex.charAt(i) == '+')) {
+                        i++;
+                    }
+                    break;
+                default:
+                    i++;
+                    lastAtomInRun = append(run, runs, c);
+                    break;
+            }
+        }
+        endRun(run, runs);
+        String longest = null;
+        for (String literal : runs) {
+            if (longest == null || literal.length() > longest.length()) {
+                longest = literal;
+            }
+        }
+        return longest;
+    }
+
+    private static boolean append(StringBuilder run, List<String> runs, char c) {
+        if (c >= ALPHABET) {
+            return endRun(run, runs);
+        }
+        run.append(c);
+        return true;
+    }
+
+    private static boolean endRun(StringBuilder run, List<String> runs) {
+        if (run.length() > 0) {
+            runs.add(run.toString());
+            run.setLength(0);
+        }
+        return false;
+    }
+
+    /**
+     * @return the index following the character class starting at start, or -1 if it is not terminated
+     */
+    private static int skipClass(String regex, int start) {
+        int depth = 0;
+        int i = start;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i += 2;
+                continue;
+            }
+            if (c == '[') {
+                depth++;
+                // a closing bracket right after the opening one, or its negation, is a literal
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == '^') {
+                    i++;
+                }
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == ']') {
+                    i++;
+                }
+            } else if (c == ']' && --depth == 0) {
+                return i + 1;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the index following the group starting at start, or -1 if it is not terminated
+     */
+    private static int skipGroup(String regex, int start) {
+        int depth = 0;
+        int i = start;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i += 2;
+                continue;
+            }
+            if (c == '[') {
+                i = skipClass(regex, i);
+                if (i < 0) {
+                    return -1;
+                }
+                continue;
+            }
+            if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return i + 1;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    /**
+     * Builder of the automaton: a trie of the folded literals turned into a complete transition table.
+     */
+    private static final class Trie {
+        private int[] transitions = new int[ALPHABET * 16];
+        private final List<int[]> patternsAt = new ArrayList<>();
+        private int[][] outputs;
+        private int states = 1;
+
+        private Trie() {
+            patternsAt.add(null);
+        }
+
+        private void add(String literal, int pattern) {
+            int state = 0;
+            for (int i = 0; i < literal.length(); i++) {
+                int c = fold(literal.charAt(i));
+                int next = transitions[state * ALPHABET + c];
+                if (next == 0) {
+                    next = newState();
+                    transitions[state * ALPHABET + c] = next;
+                }
+                state = next;
+            }
+            patternsAt.set(state, append(patternsAt.get(state), pattern));
+        }
+
+        private int newState() {
+            if ((states + 1) * ALPHABET > transitions.length) {
+                transitions = Arrays.copyOf(transitions, transitions.length * 2);
+            }
+            patternsAt.add(null);
+            return states++;
+        }
+
+        /**
+         * Compute the failure links breadth first and replace the missing transitions with the ones of the
+         * failure state, so that matching never needs to follow them.
+         */
+        private void build() {
+            transitions = Arrays.copyOf(transitions, states * ALPHABET);
+            outputs = new int[states][];
+            int[] failure = new int[states];
+            Deque<Integer> queue = new ArrayDeque<>();
+            for (int c = 0; c < ALPHABET; c++) {
+                int next = transitions[c];
+                if (next != 0) {
+                    failure[next] = 0;
+                    queue.add(next);
+                }
+            }
+            outputs[0] = patternsAt.get(0);
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                outputs[state] = merge(patternsAt.get(state), outputs[failure[state]]);
+                for (int c = 0; c < ALPHABET; c++) {
+                    int next = transitions[state * ALPHABET + c];
+                    if (next != 0) {
+                        failure[next] = transitions[failure[state] * ALPHABET + c];
+                        queue.add(next);
+                    } else {
+                        transitions[state * ALPHABET + c] = transitions[failure[state] * ALPHABET + c];
+                    }
+                }
+            }
+        }
+
+        private static int[] append(int[] values, int value) {
+            if (values == null) {
+                return new int[] {value};
+            }
+            int[] result = Arrays.copyOf(values, values.length + 1);
+            result[values.length] = value;
+            return result;
+        }
+
+        private static int[] merge(int[] first, int[] second) {
+            if (first == null) {
+                return second;
+            }
+            if (second == null) {
+                return first;
+            }
+            int[] result = Arrays.copyOf(first, first.length + second.length);
+            System.arraycopy(second, 0, result, first.length, second.length);
+            return result;
+        }
+    }
+}
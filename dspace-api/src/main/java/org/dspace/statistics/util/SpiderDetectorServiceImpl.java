@@ -12,7 +12,6 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -43,19 +42,20 @@ public class SpiderDetectorServiceImpl implements SpiderDetectorService {
 
     private Boolean useCaseInsensitiveMatching;
 
-    private final List<Pattern> agents
-        = Collections.synchronizedList(new ArrayList<Pattern>());
+    /**
+     * Agent and domain patterns, each compiled in a single matcher on first use.
+     */
+    private volatile MultiPatternMatcher agents;
 
-    private final List<Pattern> domains
-        = Collections.synchronizedList(new ArrayList<Pattern>());
+    private volatile MultiPatternMatcher domains;
 
     private ConfigurationService configurationService;
     private ClientInfoService clientInfoService;
 
     /**
-     * Sparse HashTable structure to hold IP address ranges.
+     * Radix trie of the IP address ranges, published once populated.
      */
-    private IPTable table = null;
+    private volatile IPTable table = null;
 
     @Autowired(required = true)
     public SpiderDetectorServiceImpl(ConfigurationService configurationService, ClientInfoService clientInfoService) {
@@ -70,8 +70,8 @@ public class SpiderDetectorServiceImpl implements SpiderDetectorService {
     /**
      * Service Method for testing spiders against existing spider files.
      * <p>
-     * In future spiders HashSet may be optimized as byte offset array to
-     * improve performance and memory footprint further.
+     * The agent and domain patterns are matched with a {@link MultiPatternMatcher}
+     * and the addresses are looked up in the radix trie of an {@link IPTable}.
      *
      * @param clientIP address of the client.
      * @param proxyIPs comma-list of X-Forwarded-For addresses, or null.
@@ -82,25 +82,13 @@ public class SpiderDetectorServiceImpl implements SpiderDetectorService {
     public boolean isSpider(String clientIP, String proxyIPs, String hostname, String agent) {
         // See if any agent patterns match
         if (null != agent) {
-            synchronized (agents) {
-                if (agents.isEmpty()) {
-                    loadPatterns("agents", agents);
-                }
-            }
-
             if (isUseCaseInsensitiveMatching()) {
                 agent = StringUtils.lowerCase(agent);
                 hostname = StringUtils.lowerCase(hostname);
             }
 
-            for (Pattern candidate : agents) {
-
-                // prevent matcher() invocation from a null Pattern object
-                if (null != candidate && candidate.matcher(agent).find()) {
-                    return true;
-                }
-
-
+            if (getAgents().find(agent)) {
+                return true;
             }
         }
 
@@ -119,18 +107,8 @@ public class SpiderDetectorServiceImpl implements SpiderDetectorService {
         }
 
         // No.  See if any DNS names match
-        if (null != hostname) {
-            synchronized (domains) {
-                if (domains.isEmpty()) {
-                    loadPatterns("domains", domains);
-                }
-            }
-            for (Pattern candidate : domains) {
-                // prevent matcher() invocation from a null Pattern object
-                if (null != candidate && candidate.matcher(hostname).find()) {
-                    return true;
-                }
-            }
+        if (null != hostname && getDomains().find(hostname)) {
+            return true;
         }
 
         // Not a known spider.
@@ -171,16 +149,38 @@ public class SpiderDetectorServiceImpl implements SpiderDetectorService {
         return patterns;
     }
 
+    private MultiPatternMatcher getAgents() {
+        if (agents == null) {
+            synchronized (this) {
+                if (agents == null) {
+                    agents = loadPatterns("agents");
+                }
+            }
+        }
+        return agents;
+    }
+
+    private MultiPatternMatcher getDomains() {
+        if (domains == null) {
+            synchronized (this) {
+                if (domains == null) {
+                    domains = loadPatterns("domains");
+                }
+            }
+        }
+        return domains;
+    }
+
     /**
      * Load agent name patterns from all files in a single subdirectory of config/spiders.
      *
      * @param directory   simple directory name (e.g. "agents").
      *                    "${dspace.dir}/config/spiders" will be prepended to yield the path to
      *                    the directory of pattern files.
-     * @param patternList patterns read from the files in {@code directory} will
-     *                    be added to this List.
+     * @return the patterns read from the files in {@code directory}, compiled in a single matcher
      */
-    private void loadPatterns(String directory, List<Pattern> patternList) {
+    private MultiPatternMatcher loadPatterns(String directory) {
+        List<Pattern> patternList = new ArrayList<>();
         String dspaceHome = configurationService.getProperty("dspace.dir");
         File spidersDir = new File(dspaceHome, "config/spiders");
         File patternsDir = new File(spidersDir, directory);
@@ -208,6 +208,10 @@ public class SpiderDetectorServiceImpl implements SpiderDetectorService {
         } else {
             log.info("No patterns loaded from {}", patternsDir.getPath());
         }
+        MultiPatternMatcher matcher = new MultiPatternMatcher(patternList);
+        log.info("Compiled {} {} patterns, {} of them evaluated for every request", matcher.size(), directory,
+                 matcher.getUnfilteredCount());
+        return matcher;
     }
 
     /**
@@ -251,7 +255,7 @@ public class SpiderDetectorServiceImpl implements SpiderDetectorService {
     public synchronized void loadSpiderIpAddresses() {
 
         if (table == null) {
-            table = new IPTable();
+            IPTable ipTable = new IPTable();
 
             String filePath = configurationService.getProperty("dspace.dir");
 
@@ -263,7 +267,7 @@ public class SpiderDetectorServiceImpl implements SpiderDetectorService {
                         if (file.isFile()) {
                             for (String ip : readPatterns(file)) {
                                 log.debug("Loading {}", ip);
-                                if (!Character.isDigit(ip.charAt(0))) {
+                                if (!Character.isDigit(ip.charAt(0)) && ip.indexOf(':') < 0) {
                                     try {
                                         ip = DnsLookup.forward(ip);
                                         log.debug("Resolved to {}", ip);
@@ -272,7 +276,7 @@ public class SpiderDetectorServiceImpl implements SpiderDetectorService {
                                         continue;
                                     }
                                 }
-                                table.add(ip);
+                                ipTable.add(ip);
                             }
                             log.info("Loaded Spider IP file: " + file);
                         }
@@ -283,6 +287,7 @@ public class SpiderDetectorServiceImpl implements SpiderDetectorService {
             } catch (IOException | IPTable.IPFormatException e) {
                 log.error("Error Loading Spiders:" + e.getMessage(), e);
             }
+            table = ipTable;
 
         }
 
@@ -7,10 +7,13 @@
  */
 package org.dspace.storage.bitstore;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Map;
 
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.dspace.content.Bitstream;
 
 /**
@@ -44,6 +47,36 @@ public interface BitStoreService {
      */
     public InputStream get(Bitstream bitstream) throws IOException;
 
+    /**
+     * Retrieve a range of the bits for bitstream. The default implementation
+     * skips the bits before the range, stores able to seek should override it.
+     *
+     * @param bitstream DSpace Bitstream object
+     * @param offset    The position of the first byte to retrieve
+     * @param length    The number of bytes to retrieve, or -1 to retrieve all the bytes after the offset
+     * @return The stream of the requested bits
+     * @throws java.io.IOException If a problem occurs while retrieving the bits, or if no
+     *                             asset with ID exists in the store
+     */
+    public default InputStream get(Bitstream bitstream, long offset, long length) throws IOException {
+        InputStream in = get(bitstream);
+        IOUtils.skipFully(in, offset);
+        return length < 0 ? in : new BoundedInputStream(in, length);
+    }
+
+    /**
+     * Return the file holding the bits for bitstream, for stores that keep them
+     * on the local file system, so that they can be sent without being copied
+     * through the JVM.
+     *
+     * @param bitstream DSpace Bitstream object
+     * @return The file holding the bits, or null if the bits are not stored in a local file
+     * @throws java.io.IOException If a problem occurs while locating the bits
+     */
+    public default File getLocalFile(Bitstream bitstream) throws IOException {
+        return null;
+    }
+
     /**
      * Store a stream of bits.
      *
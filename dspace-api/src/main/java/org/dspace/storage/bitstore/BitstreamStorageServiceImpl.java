@@ -7,6 +7,7 @@
  */
 package org.dspace.storage.bitstore;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.sql.SQLException;
@@ -220,6 +221,19 @@ public class BitstreamStorageServiceImpl implements BitstreamStorageService, Ini
         return stores.get(storeNumber).get(bitstream);
     }
 
+    @Override
+    public InputStream retrieve(Context context, Bitstream bitstream, long offset, long length)
+        throws SQLException, IOException {
+        Integer storeNumber = bitstream.getStoreNumber();
+        return stores.get(storeNumber).get(bitstream, offset, length);
+    }
+
+    @Override
+    public File retrieveLocalFile(Context context, Bitstream bitstream) throws SQLException, IOException {
+        Integer storeNumber = bitstream.getStoreNumber();
+        return stores.get(storeNumber).getLocalFile(bitstream);
+    }
+
     @Override
     public void cleanup(boolean deleteDbRecords, boolean verbose) throws SQLException, IOException, AuthorizeException {
         Context context = null;
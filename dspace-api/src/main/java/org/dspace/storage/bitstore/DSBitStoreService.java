@@ -12,11 +12,15 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Map;
 
+import org.apache.commons.io.input.BoundedInputStream;
 import org.apache.logging.log4j.Logger;
 import org.dspace.content.Bitstream;
 import org.dspace.core.Utils;
@@ -94,6 +98,58 @@ public class DSBitStoreService implements BitStoreService {
         }
     }
 
+    /**
+     * Retrieve a range of the bits for the asset with ID, positioning a
+     * {@link FileChannel} on the first requested byte.
+     *
+     * @param bitstream The ID of the asset to retrieve
+     * @param offset    The position of the first byte to retrieve
+     * @param length    The number of bytes to retrieve, or -1 to retrieve all the bytes after the offset
+     * @return The stream of the requested bits
+     * @throws java.io.IOException If a problem occurs while retrieving the bits
+     */
+    @Override
+    public InputStream get(Bitstream bitstream, long offset, long length) throws IOException {
+        FileChannel channel = getChannel(bitstream);
+        try {
+            channel.position(offset);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        InputStream in = Channels.newInputStream(channel);
+        return length < 0 ? in : new BoundedInputStream(in, length);
+    }
+
+    /**
+     * Open a read only channel on the bits for the asset with ID.
+     *
+     * @param bitstream The ID of the asset to retrieve
+     * @return The channel on the bits, positioned at the beginning of the asset
+     * @throws java.io.IOException If a problem occurs while opening the channel
+     */
+    public FileChannel getChannel(Bitstream bitstream) throws IOException {
+        try {
+            return FileChannel.open(getFile(bitstream).toPath(), StandardOpenOption.READ);
+        } catch (Exception e) {
+            log.error("getChannel(" + bitstream.getInternalId() + ")", e);
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Return the file holding the bits for the asset with ID.
+     *
+     * @param bitstream The ID of the asset
+     * @return The file holding the bits, or null if it doesn't exist
+     * @throws java.io.IOException If a problem occurs while locating the file
+     */
+    @Override
+    public File getLocalFile(Bitstream bitstream) throws IOException {
+        File file = getFile(bitstream);
+        return file != null && file.isFile() ? file : null;
+    }
+
     /**
      * Store a stream of bits.
      *
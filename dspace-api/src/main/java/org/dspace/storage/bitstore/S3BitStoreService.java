@@ -7,10 +7,22 @@
  */
 package org.dspace.storage.bitstore;
 
-import java.io.File;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import javax.annotation.PreDestroy;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.auth.AWSCredentials;
@@ -19,13 +31,19 @@ import com.amazonaws.regions.Region;
 import com.amazonaws.regions.Regions;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.S3ClientOptions;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
 import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
 import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
 import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
 import com.amazonaws.services.s3.model.PutObjectRequest;
-import com.amazonaws.services.s3.model.PutObjectResult;
 import com.amazonaws.services.s3.model.S3Object;
-import org.apache.commons.io.FileUtils;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpStatus;
 import org.apache.logging.log4j.LogManager;
@@ -55,6 +73,16 @@ public class S3BitStoreService implements BitStoreService {
      */
     private static final String CSA = "MD5";
 
+    /**
+     * The ETag of objects stored with a multipart upload ends with a dash followed by the number of parts
+     */
+    private static final String MULTIPART_ETAG_SEPARATOR = "-";
+
+    /**
+     * Minimum size of a part of a multipart upload accepted by S3
+     */
+    private static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
     private String awsAccessKey;
     private String awsSecretKey;
     private String awsRegionName;
@@ -74,6 +102,29 @@ public class S3BitStoreService implements BitStoreService {
      */
     private AmazonS3 s3Service = null;
 
+    /**
+     * (Optional) endpoint of an S3 compatible service to use instead of Amazon S3
+     */
+    private String endpoint = null;
+
+    /**
+     * Whether to address the bucket in the path rather than in the host name, usually
+     * required by S3 compatible services
+     */
+    private boolean pathStyleAccess = false;
+
+    /**
+     * Size in bytes of the parts of a multipart upload, streams smaller than a part are stored with a single PUT
+     */
+    private int multipartPartSize = 16 * 1024 * 1024;
+
+    /**
+     * Number of parts of a multipart upload sent concurrently
+     */
+    private int multipartUploadThreads = 4;
+
+    private ExecutorService uploadExecutor = null;
+
     private static final ConfigurationService configurationService
             = DSpaceServicesFactory.getInstance().getConfigurationService();
     public S3BitStoreService() {
@@ -93,8 +144,28 @@ public class S3BitStoreService implements BitStoreService {
         }
 
         // init client
-        AWSCredentials awsCredentials = new BasicAWSCredentials(getAwsAccessKey(), getAwsSecretKey());
-        s3Service = new AmazonS3Client(awsCredentials);
+        if (s3Service == null) {
+            AWSCredentials awsCredentials = new BasicAWSCredentials(getAwsAccessKey(), getAwsSecretKey());
+            s3Service = new AmazonS3Client(awsCredentials);
+            if (StringUtils.isNotBlank(endpoint)) {
+                s3Service.setEndpoint(endpoint);
+                log.info("S3 endpoint set to: " + endpoint);
+            }
+            if (pathStyleAccess) {
+                s3Service.setS3ClientOptions(new S3ClientOptions().withPathStyleAccess(true));
+            }
+        }
+
+        if (multipartPartSize < MIN_PART_SIZE) {
+            log.warn("S3 multipartPartSize " + multipartPartSize + " is below the minimum allowed, setting "
+                         + MIN_PART_SIZE);
+            multipartPartSize = MIN_PART_SIZE;
+        }
+        uploadExecutor = Executors.newFixedThreadPool(Math.max(1, multipartUploadThreads), runnable -> {
+            Thread thread = new Thread(runnable, "s3-multipart-upload");
+            thread.setDaemon(true);
+            return thread;
+        });
 
         // bucket name
         if (StringUtils.isEmpty(bucketName)) {
@@ -115,7 +186,7 @@ public class S3BitStoreService implements BitStoreService {
         }
 
         // region
-        if (StringUtils.isNotBlank(awsRegionName)) {
+        if (StringUtils.isNotBlank(awsRegionName) && StringUtils.isBlank(endpoint)) {
             try {
                 Regions regions = Regions.fromName(awsRegionName);
                 Region region = Region.getRegion(regions);
@@ -129,6 +200,17 @@ public class S3BitStoreService implements BitStoreService {
         log.info("AWS S3 Assetstore ready to go! bucket:" + bucketName);
     }
 
+    /**
+     * Stop the threads of the multipart uploads with the application context, so that they don't outlive
+     * a redeployment.
+     */
+    @PreDestroy
+    public void destroy() {
+        if (uploadExecutor != null) {
+            uploadExecutor.shutdown();
+        }
+    }
+
 
     /**
      * Return an identifier unique to this asset store instance
@@ -160,6 +242,33 @@ public class S3BitStoreService implements BitStoreService {
         }
     }
 
+    /**
+     * Retrieve a range of the bits for the asset with ID, with a ranged GET
+     * request so that only the requested bits are transferred.
+     *
+     * @param bitstream The ID of the asset to retrieve
+     * @param offset    The position of the first byte to retrieve
+     * @param length    The number of bytes to retrieve, or -1 to retrieve all the bytes after the offset
+     * @return The stream of the requested bits
+     * @throws java.io.IOException If a problem occurs while retrieving the bits
+     */
+    @Override
+    public InputStream get(Bitstream bitstream, long offset, long length) throws IOException {
+        if (length == 0) {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+        String key = getFullKey(bitstream.getInternalId());
+        try {
+            // the end of the range is inclusive, S3 truncates it to the size of the object
+            long end = length < 0 ? Long.MAX_VALUE - 1 : offset + length - 1;
+            S3Object object = s3Service.getObject(new GetObjectRequest(bucketName, key).withRange(offset, end));
+            return (object != null) ? object.getObjectContent() : null;
+        } catch (AmazonClientException e) {
+            log.error("get(" + key + ", " + offset + ", " + length + ")", e);
+            throw new IOException(e);
+        }
+    }
+
     /**
      * Store a stream of bits.
      *
@@ -168,42 +277,117 @@ public class S3BitStoreService implements BitStoreService {
      * If an exception is thrown, the bits have not been stored.
      * </p>
      *
+     * <p>
+     * The stream is read in parts of {@link #getMultipartPartSize()} bytes, without
+     * copying it to a scratch file. A stream that fits in a single part is stored
+     * with a plain PUT, otherwise the parts are sent with a multipart upload, up to
+     * {@link #getMultipartUploadThreads()} parts at a time. The MD5 checksum and the
+     * size of the bits are computed while the stream is consumed.
+     * </p>
+     *
      * @param in The stream of bits to store
      * @throws java.io.IOException If a problem occurs while storing the bits
      */
     @Override
     public void put(Bitstream bitstream, InputStream in) throws IOException {
         String key = getFullKey(bitstream.getInternalId());
-        //Copy istream to temp file, and send the file, with some metadata
-        File scratchFile = File.createTempFile(bitstream.getInternalId(), "s3bs");
+        String uploadId = null;
         try {
-            FileUtils.copyInputStreamToFile(in, scratchFile);
-            long contentLength = scratchFile.length();
-
-            PutObjectRequest putObjectRequest = new PutObjectRequest(bucketName, key, scratchFile);
-            PutObjectResult putObjectResult = s3Service.putObject(putObjectRequest);
+            MessageDigest digest = MessageDigest.getInstance(CSA);
+            byte[] part = readPart(in, digest);
+            long contentLength = part.length;
+
+            if (part.length < multipartPartSize) {
+                ObjectMetadata objectMetadata = new ObjectMetadata();
+                objectMetadata.setContentLength(part.length);
+                s3Service.putObject(new PutObjectRequest(bucketName, key, new ByteArrayInputStream(part),
+                                                         objectMetadata));
+            } else {
+                uploadId = s3Service.initiateMultipartUpload(
+                    new InitiateMultipartUploadRequest(bucketName, key)).getUploadId();
+                // bound the number of parts held in memory
+                Semaphore inFlight = new Semaphore(multipartUploadThreads);
+                List<Future<PartETag>> partETags = new ArrayList<>();
+                int partNumber = 1;
+                while (part.length > 0) {
+                    inFlight.acquire();
+                    partETags.add(uploadPart(key, uploadId, partNumber++, part, inFlight));
+                    part = readPart(in, digest);
+                    contentLength += part.length;
+                }
+                List<PartETag> parts = new ArrayList<>();
+                for (Future<PartETag> partETag : partETags) {
+                    parts.add(partETag.get());
+                }
+                s3Service.completeMultipartUpload(new CompleteMultipartUploadRequest(bucketName, key, uploadId, parts));
+                uploadId = null;
+            }
 
             bitstream.setSizeBytes(contentLength);
-            bitstream.setChecksum(putObjectResult.getETag());
+            bitstream.setChecksum(Utils.toHex(digest.digest()));
             bitstream.setChecksumAlgorithm(CSA);
 
-            scratchFile.delete();
-
-        } catch (AmazonClientException | IOException e) {
+        } catch (AmazonClientException | IOException | NoSuchAlgorithmException | ExecutionException e) {
             log.error("put(" + bitstream.getInternalId() + ", is)", e);
             throw new IOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
         } finally {
-            if (scratchFile.exists()) {
-                scratchFile.delete();
+            if (uploadId != null) {
+                abortMultipartUpload(key, uploadId);
             }
         }
     }
 
+    /**
+     * Read the next part of the given stream, updating the digest.
+     *
+     * @param in     the stream of bits to store
+     * @param digest the digest of the bits read so far
+     * @return the bits read, up to the part size; an empty array at the end of the stream
+     * @throws IOException if the stream cannot be read
+     */
+    protected byte[] readPart(InputStream in, MessageDigest digest) throws IOException {
+        byte[] buffer = new byte[multipartPartSize];
+        int read = IOUtils.read(in, buffer);
+        digest.update(buffer, 0, read);
+        return read == buffer.length ? buffer : Arrays.copyOf(buffer, read);
+    }
+
+    private Future<PartETag> uploadPart(String key, String uploadId, int partNumber, byte[] part,
+                                        Semaphore inFlight) {
+        return uploadExecutor.submit(() -> {
+            try {
+                UploadPartRequest request = new UploadPartRequest()
+                    .withBucketName(bucketName)
+                    .withKey(key)
+                    .withUploadId(uploadId)
+                    .withPartNumber(partNumber)
+                    .withPartSize(part.length)
+                    .withInputStream(new ByteArrayInputStream(part));
+                return s3Service.uploadPart(request).getPartETag();
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    private void abortMultipartUpload(String key, String uploadId) {
+        try {
+            s3Service.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, key, uploadId));
+        } catch (AmazonClientException e) {
+            log.error("Unable to abort the multipart upload " + uploadId + " of " + key, e);
+        }
+    }
+
     /**
      * Obtain technical metadata about an asset in the asset store.
      *
      * Checksum used is (ETag) hex encoded 128-bit MD5 digest of an object's content as calculated by Amazon S3
-     * (Does not use getContentMD5, as that is 128-bit MD5 digest calculated on caller's side)
+     * (Does not use getContentMD5, as that is 128-bit MD5 digest calculated on caller's side).
+     * The ETag of an object stored with a multipart upload is not the MD5 digest of its content,
+     * in that case the digest is computed reading the object.
      *
      * @param bitstream The asset to describe
      * @param attrs     A Map whose keys consist of desired metadata fields
@@ -223,7 +407,7 @@ public class S3BitStoreService implements BitStoreService {
                     attrs.put("size_bytes", objectMetadata.getContentLength());
                 }
                 if (attrs.containsKey("checksum")) {
-                    attrs.put("checksum", objectMetadata.getETag());
+                    attrs.put("checksum", getChecksum(key, objectMetadata));
                     attrs.put("checksum_algorithm", CSA);
                 }
                 if (attrs.containsKey("modified")) {
@@ -242,6 +426,20 @@ public class S3BitStoreService implements BitStoreService {
         return null;
     }
 
+    private String getChecksum(String key, ObjectMetadata objectMetadata) throws IOException {
+        String etag = objectMetadata.getETag();
+        if (etag == null || !etag.contains(MULTIPART_ETAG_SEPARATOR)) {
+            return etag;
+        }
+        try (S3Object object = s3Service.getObject(new GetObjectRequest(bucketName, key));
+             DigestInputStream in = new DigestInputStream(object.getObjectContent(), MessageDigest.getInstance(CSA))) {
+            IOUtils.copy(in, NullOutputStream.NULL_OUTPUT_STREAM);
+            return Utils.toHex(in.getMessageDigest().digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
     /**
      * Remove an asset from the asset store. An irreversible operation.
      *
@@ -316,6 +514,48 @@ public class S3BitStoreService implements BitStoreService {
         this.subfolder = subfolder;
     }
 
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public void setEndpoint(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public boolean isPathStyleAccess() {
+        return pathStyleAccess;
+    }
+
+    public void setPathStyleAccess(boolean pathStyleAccess) {
+        this.pathStyleAccess = pathStyleAccess;
+    }
+
+    public int getMultipartPartSize() {
+        return multipartPartSize;
+    }
+
+    public void setMultipartPartSize(int multipartPartSize) {
+        this.multipartPartSize = multipartPartSize;
+    }
+
+    public int getMultipartUploadThreads() {
+        return multipartUploadThreads;
+    }
+
+    public void setMultipartUploadThreads(int multipartUploadThreads) {
+        this.multipartUploadThreads = multipartUploadThreads;
+    }
+
+    /**
+     * Use the given client instead of creating one in {@link #init()}, e.g. to
+     * work against a local S3 compatible stand-in.
+     *
+     * @param s3Service the S3 client
+     */
+    public void setS3Service(AmazonS3 s3Service) {
+        this.s3Service = s3Service;
+    }
+
     /**
      * Contains a command-line testing tool. Expects arguments:
      * -a accessKey -s secretKey -f assetFileName
@@ -7,6 +7,7 @@
  */
 package org.dspace.storage.bitstore.service;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.sql.SQLException;
@@ -126,6 +127,33 @@ public interface BitstreamStorageService {
     public InputStream retrieve(Context context, Bitstream bitstream)
         throws SQLException, IOException;
 
+    /**
+     * Retrieve a range of the bits for the bitstream with ID, reading only the
+     * requested bits when supported by the asset store of the bitstream.
+     *
+     * @param context   The current context
+     * @param bitstream The bitstream to retrieve
+     * @param offset    The position of the first byte to retrieve
+     * @param length    The number of bytes to retrieve, or -1 to retrieve all the bytes after the offset
+     * @return The stream of the requested bits, or null
+     * @throws IOException  If a problem occurs while retrieving the bits
+     * @throws SQLException If a problem occurs accessing the RDBMS
+     */
+    public InputStream retrieve(Context context, Bitstream bitstream, long offset, long length)
+        throws SQLException, IOException;
+
+    /**
+     * Return the file holding the bits for the bitstream with ID, if the asset
+     * store of the bitstream keeps them on the local file system.
+     *
+     * @param context   The current context
+     * @param bitstream The bitstream to retrieve
+     * @return The file holding the bits, or null if the bits are not stored in a local file
+     * @throws IOException  If a problem occurs while locating the bits
+     * @throws SQLException If a problem occurs accessing the RDBMS
+     */
+    public File retrieveLocalFile(Context context, Bitstream bitstream) throws SQLException, IOException;
+
     /**
      * Clean up the bitstream storage area. This method deletes any bitstreams
      * which are more than 1 hour old and marked deleted. The deletions cannot
@@ -0,0 +1,102 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.app.deduplication.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link MinHashSignature}
+ */
+public class MinHashSignatureTest {
+
+    private final MinHashSignature signature = new MinHashSignature();
+
+    @Test
+    public void testLayoutFollowsTheThreshold() {
+        assertArrayEquals(new int[] { 11, 11 }, signature.getLayout());
+        signature.setThreshold(0.5);
+        assertArrayEquals(new int[] { 25, 5 }, signature.getLayout());
+    }
+
+    @Test
+    public void testNormalizedValuesHaveTheSameBands() {
+        List<String> bands = signature.getBands("Publication", "A study of the Deduplication");
+
+        assertEquals(11, bands.size());
+        assertEquals(bands, signature.getBands("Publication", "a study of the deduplication!"));
+        assertTrue(Collections.disjoint(bands, signature.getBands("Product", "A study of the Deduplication")));
+        assertTrue(signature.getBands("Publication", " ").isEmpty());
+    }
+
+    /**
+     * Index a synthetic corpus of random titles, then check that the titles with a typo are found through the
+     * shared bands and that the unrelated titles are not.
+     */
+    @Test
+    public void testSyntheticCorpus() {
+        Random random = new Random(42);
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            words.add(randomWord(random));
+        }
+        SignatureBlocks blocks = new SignatureBlocks(10);
+        List<UUID> ids = new ArrayList<>();
+        List<String> titles = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            StringBuilder title = new StringBuilder();
+            for (int j = 6 + random.nextInt(8); j > 0; j--) {
+                title.append(words.get(random.nextInt(words.size()))).append(' ');
+            }
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            titles.add(title.toString());
+            blocks.add(id, signatures(title.toString()));
+        }
+        assertTrue(blocks.getCandidates().isEmpty());
+
+        int duplicates = 200;
+        for (int i = 0; i < duplicates; i++) {
+            String title = titles.get(i);
+            int typo = random.nextInt(title.length() - 1);
+            blocks.add(UUID.randomUUID(), signatures(title.substring(0, typo) + "x" + title.substring(typo + 1)));
+        }
+        List<Pair<UUID, UUID>> candidates = blocks.getCandidates();
+
+        long found = candidates.stream().filter(candidate -> ids.subList(0, duplicates).contains(candidate.getLeft())
+            || ids.subList(0, duplicates).contains(candidate.getRight())).count();
+        assertEquals(candidates.size(), found);
+        assertTrue("Found only " + found + " of " + duplicates + " near duplicates", found > duplicates * 0.7);
+    }
+
+    private Map<String, List<String>> signatures(String title) {
+        Map<String, List<String>> signatures = new HashMap<>();
+        signatures.put("fuzzytitle_signature", signature.getBands(null, title));
+        return signatures;
+    }
+
+    private static String randomWord(Random random) {
+        StringBuilder word = new StringBuilder();
+        for (int i = 3 + random.nextInt(8); i > 0; i--) {
+            word.append((char) ('a' + random.nextInt(26)));
+        }
+        return word.toString();
+    }
+}
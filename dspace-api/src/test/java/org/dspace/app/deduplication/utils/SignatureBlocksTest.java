@@ -0,0 +1,72 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.app.deduplication.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link SignatureBlocks}
+ */
+public class SignatureBlocksTest {
+
+    private final UUID first = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+    private final UUID second = UUID.fromString("00000000-0000-0000-0000-000000000002");
+
+    private final UUID third = UUID.fromString("00000000-0000-0000-0000-000000000003");
+
+    private static Map<String, List<String>> signatures(String type, String... values) {
+        Map<String, List<String>> signatures = new HashMap<>();
+        signatures.put(type, Arrays.asList(values));
+        return signatures;
+    }
+
+    @Test
+    public void testItemsSharingASignatureAreCandidates() {
+        SignatureBlocks blocks = new SignatureBlocks(10);
+        Map<String, List<String>> secondSignatures = signatures("title_signature", "a", "b");
+        secondSignatures.put("identifier_signature", Collections.singletonList("doi"));
+        blocks.add(second, secondSignatures);
+        blocks.add(first, signatures("title_signature", "b", "c"));
+        blocks.add(third, signatures("identifier_signature", "a"));
+
+        assertEquals(Collections.singletonList(Pair.of(first, second)), blocks.getCandidates());
+        assertEquals(signatures("title_signature", "b"), blocks.getSharedSignatures(first, second));
+    }
+
+    @Test
+    public void testPairsSharingManySignaturesAreCandidatesOnce() {
+        SignatureBlocks blocks = new SignatureBlocks(10);
+        blocks.add(first, signatures("title_signature", "a", "b", "a"));
+        blocks.add(second, signatures("title_signature", "a", "b"));
+
+        assertEquals(Collections.singletonList(Pair.of(first, second)), blocks.getCandidates());
+        assertEquals(signatures("title_signature", "a", "b", "a"), blocks.getSharedSignatures(first, second));
+    }
+
+    @Test
+    public void testTooLargeBlocksAreSkipped() {
+        SignatureBlocks blocks = new SignatureBlocks(2);
+        blocks.add(first, signatures("title_signature", "a"));
+        blocks.add(second, signatures("title_signature", "a"));
+        blocks.add(third, signatures("title_signature", "a"));
+
+        assertTrue(blocks.getCandidates().isEmpty());
+    }
+}
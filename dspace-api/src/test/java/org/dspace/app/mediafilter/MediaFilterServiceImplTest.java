@@ -0,0 +1,229 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.app.mediafilter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.matches;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.dspace.content.Bitstream;
+import org.dspace.content.Bundle;
+import org.dspace.content.Item;
+import org.dspace.content.service.BitstreamService;
+import org.dspace.content.service.ItemService;
+import org.dspace.core.Context;
+import org.dspace.services.ConfigurationService;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the parallel filtering, the filter timeouts and the incremental mode of
+ * {@link MediaFilterServiceImpl}
+ */
+public class MediaFilterServiceImplTest {
+
+    private final ConfigurationService configurationService = mock(ConfigurationService.class);
+    private final ItemService itemService = mock(ItemService.class);
+    private final BitstreamService bitstreamService = mock(BitstreamService.class);
+    private final Context filterContext = mock(Context.class);
+
+    private final List<Context> batchContexts = Collections.synchronizedList(new ArrayList<>());
+    private final Map<UUID, Context> filteredWith = new ConcurrentHashMap<>();
+
+    private MediaFilterServiceImpl mediaFilterService;
+
+    @Before
+    public void setUp() throws Exception {
+        mediaFilterService = new MediaFilterServiceImpl() {
+            @Override
+            protected Context createContext() {
+                Context context = mock(Context.class);
+                when(context.isValid()).thenReturn(true);
+                batchContexts.add(context);
+                return context;
+            }
+
+            @Override
+            protected Context createFilterContext() {
+                return filterContext;
+            }
+
+            @Override
+            public void applyFiltersItem(Context c, Item item) {
+                filteredWith.put(item.getID(), c);
+            }
+        };
+        mediaFilterService.configurationService = configurationService;
+        mediaFilterService.itemService = itemService;
+        mediaFilterService.bitstreamService = bitstreamService;
+        when(itemService.find(any(Context.class), any(UUID.class)))
+            .thenAnswer(invocation -> item(invocation.getArgument(1)));
+    }
+
+    private static Item item(UUID id) {
+        Item item = mock(Item.class);
+        when(item.getID()).thenReturn(id);
+        return item;
+    }
+
+    @Test
+    public void testItemsAreFilteredInParallelByBatches() throws Exception {
+        when(configurationService.getIntProperty("filter-media.threads", 1)).thenReturn(2);
+        when(configurationService.getIntProperty("filter-media.batch-size", 20)).thenReturn(2);
+        Context context = mock(Context.class);
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            items.add(item(UUID.randomUUID()));
+        }
+
+        mediaFilterService.applyFiltersItems(context, items.iterator());
+
+        assertEquals(5, filteredWith.size());
+        // each batch of two items has its own context, committed after each item
+        assertEquals(3, batchContexts.size());
+        assertSame(filteredWith.get(items.get(0).getID()), filteredWith.get(items.get(1).getID()));
+        assertSame(filteredWith.get(items.get(2).getID()), filteredWith.get(items.get(3).getID()));
+        for (Context batchContext : batchContexts) {
+            verify(batchContext).turnOffAuthorisationSystem();
+            verify(batchContext, times(batchContext == filteredWith.get(items.get(4).getID()) ? 1 : 2)).commit();
+            verify(batchContext).complete();
+        }
+        verify(context, times(5)).uncacheEntity(any(Item.class));
+    }
+
+    @Test
+    public void testTimedOutFilterKeepsItsPermitUntilItEnds() throws Exception {
+        when(configurationService.getIntProperty("filter-media.timeout", 0)).thenReturn(1);
+        when(configurationService.getIntProperty(matches("filter\\..*\\.maxConcurrency"), eq(0))).thenReturn(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Item> filteredItems = Collections.synchronizedList(new ArrayList<>());
+        FormatFilter formatFilter = mock(FormatFilter.class);
+        when(formatFilter.getDestinationStream(any(), any(), anyBoolean())).thenAnswer(invocation -> {
+            filteredItems.add(invocation.getArgument(0));
+            release.await(10, TimeUnit.SECONDS);
+            return new ByteArrayInputStream(new byte[0]);
+        });
+        Item item = item(UUID.randomUUID());
+        InputStream source = new ByteArrayInputStream("content".getBytes(StandardCharsets.UTF_8));
+
+        try {
+            mediaFilterService.getDestinationStream(item, source, formatFilter);
+            fail("The filter should time out");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        Semaphore permits = mediaFilterService.filterPermits.values().iterator().next();
+        assertEquals(0, permits.availablePermits());
+
+        release.countDown();
+        assertTrue(permits.tryAcquire(10, TimeUnit.SECONDS));
+        verify(filterContext).abort();
+        // the filter got its own copy of the item, not the one of the calling thread
+        assertEquals(1, filteredItems.size());
+        assertEquals(item.getID(), filteredItems.get(0).getID());
+        assertTrue(filteredItems.get(0) != item);
+    }
+
+    @Test
+    public void testFilterWithinTheTimeoutReleasesItsPermit() throws Exception {
+        when(configurationService.getIntProperty("filter-media.timeout", 0)).thenReturn(10);
+        when(configurationService.getIntProperty(matches("filter\\..*\\.maxConcurrency"), eq(0))).thenReturn(1);
+        FormatFilter formatFilter = mock(FormatFilter.class);
+        when(formatFilter.getDestinationStream(any(), any(), anyBoolean()))
+            .thenReturn(new ByteArrayInputStream("text".getBytes(StandardCharsets.UTF_8)));
+
+        InputStream destination = mediaFilterService.getDestinationStream(item(UUID.randomUUID()),
+            new ByteArrayInputStream(new byte[0]), formatFilter);
+
+        assertEquals(4, destination.available());
+        Semaphore permits = mediaFilterService.filterPermits.values().iterator().next();
+        // released by the filter thread once the result has been returned
+        assertTrue(permits.tryAcquire(10, TimeUnit.SECONDS));
+        verify(filterContext).abort();
+    }
+
+    @Test
+    public void testDerivativeIsUpToDateWithTheSameChecksumAndFilterVersion() {
+        FormatFilter formatFilter = mock(FormatFilter.class);
+        Bitstream source = bitstream("source.pdf", "a1b2");
+        Bitstream derivative = bitstream("source.pdf.txt", null);
+        when(configurationService.getProperty(matches("filter\\..*\\.version"), eq("1"))).thenReturn("2");
+        when(bitstreamService.getMetadataFirstValue(derivative, "dspace", "filter", "checksum", Item.ANY))
+            .thenReturn("MD5:a1b2");
+        when(bitstreamService.getMetadataFirstValue(derivative, "dspace", "filter", "version", Item.ANY))
+            .thenReturn("2");
+        assertTrue(mediaFilterService.isUpToDate(derivative, source, formatFilter));
+
+        when(source.getChecksum()).thenReturn("c3d4");
+        assertFalse(mediaFilterService.isUpToDate(derivative, source, formatFilter));
+
+        when(source.getChecksum()).thenReturn("a1b2");
+        when(configurationService.getProperty(matches("filter\\..*\\.version"), eq("1"))).thenReturn("3");
+        assertFalse(mediaFilterService.isUpToDate(derivative, source, formatFilter));
+    }
+
+    @Test
+    public void testDerivativeWithoutRecordIsAssumedUpToDate() throws Exception {
+        mediaFilterService.setIncremental(true);
+        mediaFilterService.setQuiet(true);
+        FormatFilter formatFilter = mock(FormatFilter.class);
+        when(formatFilter.preProcessBitstream(any(), any(), any(), anyBoolean())).thenReturn(true);
+        when(formatFilter.getFilteredName("source.pdf")).thenReturn("source.pdf.txt");
+        when(formatFilter.getBundleName()).thenReturn("TEXT");
+        when(configurationService.getProperty(matches("filter\\..*\\.version"), eq("1"))).thenReturn("1");
+        Bitstream source = bitstream("source.pdf", "a1b2");
+        Bitstream derivative = bitstream("source.pdf.txt", null);
+        Bundle bundle = mock(Bundle.class);
+        when(bundle.getBitstreams()).thenReturn(Arrays.asList(derivative));
+        Item item = item(UUID.randomUUID());
+        when(itemService.getBundles(item, "TEXT")).thenReturn(Arrays.asList(bundle));
+        Context context = mock(Context.class);
+
+        assertFalse(mediaFilterService.processBitstream(context, item, source, formatFilter));
+
+        verify(bitstreamService).setMetadataSingleValue(context, derivative, "dspace", "filter", "checksum", null,
+                                                        "MD5:a1b2");
+        verify(bitstreamService).setMetadataSingleValue(context, derivative, "dspace", "filter", "version", null,
+                                                        "1");
+        verify(bitstreamService).update(context, derivative);
+        verify(bitstreamService, never()).retrieve(any(), any());
+    }
+
+    private static Bitstream bitstream(String name, String checksum) {
+        Bitstream bitstream = mock(Bitstream.class);
+        when(bitstream.getName()).thenReturn(name);
+        when(bitstream.getChecksum()).thenReturn(checksum);
+        when(bitstream.getChecksumAlgorithm()).thenReturn("MD5");
+        return bitstream;
+    }
+}
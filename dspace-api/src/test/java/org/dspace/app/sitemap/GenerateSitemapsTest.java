@@ -0,0 +1,134 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.app.sitemap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.lang3.tuple.Triple;
+import org.dspace.AbstractDSpaceTest;
+import org.dspace.content.service.ItemService;
+import org.dspace.core.Context;
+import org.dspace.discovery.IndexPartition;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for the listing of the item shards of {@link GenerateSitemaps}
+ */
+public class GenerateSitemapsTest extends AbstractDSpaceTest {
+
+    private static final String UI_URL = "http://localhost:4000";
+
+    @Rule
+    public TemporaryFolder shardsDir = new TemporaryFolder();
+
+    private final Context context = mock(Context.class);
+    private final ItemService itemService = mock(ItemService.class);
+
+    private final UUID first = UUID.fromString("10000000-0000-0000-0000-000000000001");
+    private final UUID second = UUID.fromString("10000000-0000-0000-0000-000000000002");
+    private final UUID third = UUID.fromString("10000000-0000-0000-0000-000000000003");
+
+    @Test
+    public void testShardsAreListedWithinTheBoundsOfTheirPartition() throws Exception {
+        when(itemService.countArchived(any(), any(), any())).thenReturn(Pair.of(0L, (Date) null));
+        when(itemService.findArchivedSummaries(any(), any(), any(), anyInt())).thenReturn(Collections.emptyList());
+        List<IndexPartition> partitions = IndexPartition.split(4);
+
+        for (IndexPartition partition : partitions) {
+            File shardFile = shardsDir.newFile("items-" + partition.getIndex() + ".txt");
+            assertEquals(0, GenerateSitemaps.listItemShard(context, itemService, shardFile, partition, false,
+                                                           UI_URL, 10));
+        }
+
+        // the shards cover the whole UUID space, each from the upper bound of the previous one
+        assertNull(partitions.get(0).getLowerBound());
+        assertNull(partitions.get(3).getUpperBound());
+        for (IndexPartition partition : partitions) {
+            if (partition.getIndex() > 0) {
+                assertEquals(partitions.get(partition.getIndex() - 1).getUpperBound(), partition.getLowerBound());
+            }
+            verify(itemService).countArchived(context, partition.getLowerBound(), partition.getUpperBound());
+            verify(itemService).findArchivedSummaries(context, partition.getLowerBound(),
+                                                      partition.getUpperBound(), 10);
+        }
+    }
+
+    @Test
+    public void testItemsArePagedFromTheLastIdSeen() throws Exception {
+        when(itemService.countArchived(context, null, null)).thenReturn(Pair.of(3L, new Date(3000L)));
+        when(itemService.findArchivedSummaries(context, null, null, 2))
+            .thenReturn(Arrays.asList(Triple.of(first, new Date(1000L), "Publication"),
+                                      Triple.of(second, new Date(2000L), null)));
+        // the lower bound is inclusive, so each page starts with the last item of the previous one
+        when(itemService.findArchivedSummaries(context, second, null, 2))
+            .thenReturn(Arrays.asList(Triple.of(second, new Date(2000L), null),
+                                      Triple.of(third, new Date(3000L), "Person")));
+        // an item with two entity types is returned twice
+        when(itemService.findArchivedSummaries(context, third, null, 2))
+            .thenReturn(Arrays.asList(Triple.of(third, new Date(3000L), "Person"),
+                                      Triple.of(third, new Date(3000L), "Project")));
+        File shardFile = shardsDir.newFile("items-0.txt");
+
+        assertEquals(3, GenerateSitemaps.listItemShard(context, itemService, shardFile, new IndexPartition(0, 1),
+                                                       false, UI_URL, 2));
+
+        assertEquals(Arrays.asList(UI_URL + "/entities/publication/" + first + "\t1000",
+                                   UI_URL + "/items/" + second + "\t2000",
+                                   UI_URL + "/entities/person/" + third + "\t3000"),
+                     Files.readAllLines(shardFile.toPath(), StandardCharsets.UTF_8));
+        verify(itemService, times(3)).findArchivedSummaries(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    public void testIncrementalRunsOnlyListTheChangedShardsAgain() throws Exception {
+        when(itemService.countArchived(context, null, null)).thenReturn(Pair.of(1L, new Date(1000L)),
+                                                                         Pair.of(1L, new Date(1000L)),
+                                                                         Pair.of(1L, new Date(2000L)));
+        when(itemService.findArchivedSummaries(context, null, null, 10))
+            .thenReturn(Arrays.asList(Triple.of(first, new Date(1000L), null)),
+                        Arrays.asList(Triple.of(second, new Date(2000L), null)));
+        File shardFile = new File(shardsDir.getRoot(), "items-0.txt");
+        IndexPartition partition = new IndexPartition(0, 1);
+
+        GenerateSitemaps.listItemShard(context, itemService, shardFile, partition, true, UI_URL, 10);
+        assertEquals(Arrays.asList(UI_URL + "/items/" + first + "\t1000"),
+                     Files.readAllLines(shardFile.toPath(), StandardCharsets.UTF_8));
+
+        // same number of items and latest modification date: the shard file is reused
+        assertEquals(1, GenerateSitemaps.listItemShard(context, itemService, shardFile, partition, true,
+                                                       UI_URL, 10));
+        assertEquals(Arrays.asList(UI_URL + "/items/" + first + "\t1000"),
+                     Files.readAllLines(shardFile.toPath(), StandardCharsets.UTF_8));
+        verify(itemService, times(1)).findArchivedSummaries(any(), any(), any(), anyInt());
+
+        // an item of the shard changed: the shard is listed again
+        GenerateSitemaps.listItemShard(context, itemService, shardFile, partition, true, UI_URL, 10);
+        assertEquals(Arrays.asList(UI_URL + "/items/" + second + "\t2000"),
+                     Files.readAllLines(shardFile.toPath(), StandardCharsets.UTF_8));
+        verify(itemService, times(2)).findArchivedSummaries(any(), any(), any(), anyInt());
+    }
+}
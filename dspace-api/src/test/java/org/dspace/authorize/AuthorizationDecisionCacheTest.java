@@ -0,0 +1,165 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.authorize;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+
+import org.dspace.content.Bitstream;
+import org.dspace.content.Bundle;
+import org.dspace.content.Collection;
+import org.dspace.content.DSpaceObject;
+import org.dspace.content.Item;
+import org.dspace.core.Constants;
+import org.dspace.core.Context;
+import org.dspace.eperson.EPerson;
+import org.dspace.services.ConfigurationService;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Unit tests for {@link AuthorizationDecisionCache}
+ */
+public class AuthorizationDecisionCacheTest {
+
+    private final AuthorizationDecisionCache cache = new AuthorizationDecisionCache();
+
+    private final Context context = mock(Context.class);
+
+    private final EPerson eperson = dso(EPerson.class, Constants.EPERSON);
+    private final Item item = dso(Item.class, Constants.ITEM);
+
+    @Before
+    public void setUp() {
+        ConfigurationService configurationService = mock(ConfigurationService.class);
+        when(configurationService.getBooleanProperty("authorize.cache.enabled", false)).thenReturn(true);
+        when(configurationService.getLongProperty("authorize.cache.max-size", 10000)).thenReturn(100L);
+        when(configurationService.getLongProperty("authorize.cache.ttl", 300)).thenReturn(300L);
+        ReflectionTestUtils.setField(cache, "configurationService", configurationService);
+        cache.init();
+
+        when(context.getSpecialGroupUuids()).thenReturn(Collections.emptyList());
+    }
+
+    @Test
+    public void testDecisionsAreKeyedByActionEPersonAndInheritance() {
+        assertNull(cache.get(context, item, Constants.READ, eperson, true));
+        cache.put(context, item, Constants.READ, eperson, true, true, cache.getGeneration());
+
+        assertTrue(cache.get(context, item, Constants.READ, eperson, true));
+        assertNull(cache.get(context, item, Constants.WRITE, eperson, true));
+        assertNull(cache.get(context, item, Constants.READ, null, true));
+        assertNull(cache.get(context, item, Constants.READ, eperson, false));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(4, cache.getMissCount());
+
+        cache.put(context, item, Constants.READ, null, true, false, cache.getGeneration());
+        when(context.getSpecialGroupUuids()).thenReturn(Arrays.asList(UUID.randomUUID()));
+        assertNull(cache.get(context, item, Constants.READ, null, true));
+    }
+
+    @Test
+    public void testDecisionTakenDuringAnEvictionIsNotStored() {
+        long generation = cache.getGeneration();
+        // the policies change while the decision is taken from the old ones
+        cache.invalidateObject(UUID.randomUUID());
+        cache.put(context, item, Constants.READ, eperson, true, true, generation);
+
+        assertNull(cache.get(context, item, Constants.READ, eperson, true));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testPolicyChangeIsEvictedOnceCommitted() {
+        cache.put(context, item, Constants.READ, eperson, true, true, cache.getGeneration());
+        ArgumentCaptor<Runnable> afterCommit = ArgumentCaptor.forClass(Runnable.class);
+
+        cache.invalidateAfterCommit(context, item);
+        verify(context).addAfterCommitCallback(afterCommit.capture());
+        assertTrue(cache.get(context, item, Constants.READ, eperson, true));
+
+        afterCommit.getValue().run();
+        assertNull(cache.get(context, item, Constants.READ, eperson, true));
+    }
+
+    @Test
+    public void testCollectionPolicyChangeEvictsAllTheDecisions() {
+        cache.put(context, item, Constants.READ, eperson, true, true, cache.getGeneration());
+        ArgumentCaptor<Runnable> afterCommit = ArgumentCaptor.forClass(Runnable.class);
+
+        cache.invalidateAfterCommit(context, dso(Collection.class, Constants.COLLECTION));
+        verify(context).addAfterCommitCallback(afterCommit.capture());
+        afterCommit.getValue().run();
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testNothingIsRegisteredWhenDisabled() {
+        cache.setEnabled(false);
+        cache.invalidateAfterCommit(context, item);
+        verify(context, never()).addAfterCommitCallback(any());
+    }
+
+    @Test
+    public void testContextsWithUncommittedChangesDontUseTheCache() {
+        assertTrue(cache.isUsable(context));
+        when(context.hasAfterCommitCallbacks()).thenReturn(true);
+        assertFalse(cache.isUsable(context));
+        when(context.hasAfterCommitCallbacks()).thenReturn(false);
+        when(context.hasEvents()).thenReturn(true);
+        assertFalse(cache.isUsable(context));
+    }
+
+    @Test
+    public void testInvalidateEPersonKeepsTheAnonymousDecisions() {
+        cache.put(context, item, Constants.READ, eperson, true, true, cache.getGeneration());
+        cache.put(context, item, Constants.READ, null, true, false, cache.getGeneration());
+
+        cache.invalidateEPerson(eperson.getID());
+
+        assertNull(cache.get(context, item, Constants.READ, eperson, true));
+        assertFalse(cache.get(context, item, Constants.READ, null, true));
+    }
+
+    @Test
+    public void testBitstreamDecisionsDependOnTheirItem() {
+        Bundle bundle = dso(Bundle.class, Constants.BUNDLE);
+        Bitstream bitstream = dso(Bitstream.class, Constants.BITSTREAM);
+        when(bitstream.getBundles()).thenReturn(Arrays.asList(bundle));
+        when(bundle.getItems()).thenReturn(Arrays.asList(item));
+
+        cache.put(context, bitstream, Constants.READ, eperson, true, true, cache.getGeneration());
+        cache.invalidateObject(UUID.randomUUID());
+        assertTrue(cache.get(context, bitstream, Constants.READ, eperson, true));
+
+        cache.invalidateObject(item.getID());
+        assertNull(cache.get(context, bitstream, Constants.READ, eperson, true));
+    }
+
+    private <T extends DSpaceObject> T dso(Class<T> type, int typeConstant) {
+        T dso = mock(type);
+        UUID id = UUID.randomUUID();
+        when(dso.getID()).thenReturn(id);
+        when(dso.getType()).thenReturn(typeConstant);
+        return dso;
+    }
+}
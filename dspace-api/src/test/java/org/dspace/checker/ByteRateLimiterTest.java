@@ -0,0 +1,49 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.checker;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link ByteRateLimiter}.
+ */
+public class ByteRateLimiterTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRate() {
+        new ByteRateLimiter(0);
+    }
+
+    @Test
+    public void testLimitKeepsContent() throws Exception {
+        byte[] content = "some bitstream content".getBytes("UTF-8");
+        ByteRateLimiter limiter = new ByteRateLimiter(1024 * 1024);
+        try (InputStream in = limiter.limit(new ByteArrayInputStream(content))) {
+            assertArrayEquals(content, IOUtils.toByteArray(in));
+        }
+    }
+
+    @Test
+    public void testLimitDelaysReads() throws Exception {
+        ByteRateLimiter limiter = new ByteRateLimiter(1000);
+        long start = System.nanoTime();
+        // the first 200 bytes are free, the next 300 wait for the time of the first ones
+        limiter.acquire(200);
+        limiter.acquire(300);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("Elapsed " + elapsed + " ms", elapsed >= 180);
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.checker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.dspace.checker.service.ChecksumHistoryService;
+import org.dspace.checker.service.ChecksumResultService;
+import org.dspace.checker.service.MostRecentChecksumService;
+import org.dspace.content.Bitstream;
+import org.dspace.core.Context;
+import org.dspace.services.ConfigurationService;
+import org.dspace.storage.bitstore.service.BitstreamStorageService;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the parallel reads of {@link CheckerCommand}
+ */
+public class CheckerCommandTest {
+
+    private final Context context = mock(Context.class);
+    private final MostRecentChecksumService checksumService = mock(MostRecentChecksumService.class);
+    private final ChecksumHistoryService checksumHistoryService = mock(ChecksumHistoryService.class);
+    private final BitstreamStorageService bitstreamStorageService = mock(BitstreamStorageService.class);
+    private final ChecksumResultService checksumResultService = mock(ChecksumResultService.class);
+    private final ConfigurationService configurationService = mock(ConfigurationService.class);
+    private final ChecksumResultsCollector collector = mock(ChecksumResultsCollector.class);
+
+    private final List<MostRecentChecksum> infos = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        when(configurationService.getIntProperty("checker.threads", 1)).thenReturn(2);
+        when(configurationService.getIntProperty("checker.batch-size", 100)).thenReturn(3);
+        when(configurationService.getLongProperty(eq("checker.max-bytes-per-second"), anyLong())).thenReturn(0L);
+        when(configurationService.getArrayProperty("checker.store-priority")).thenReturn(new String[] {"1"});
+        when(checksumResultService.findByCode(any(), any())).thenAnswer(invocation -> {
+            ChecksumResult result = mock(ChecksumResult.class);
+            when(result.getResultCode()).thenReturn(invocation.getArgument(1));
+            return result;
+        });
+    }
+
+    private Bitstream bitstream(int storeNumber) throws Exception {
+        Bitstream bitstream = mock(Bitstream.class);
+        when(bitstream.getID()).thenReturn(UUID.randomUUID());
+        when(bitstream.getStoreNumber()).thenReturn(storeNumber);
+        MostRecentChecksum info = new MostRecentChecksum();
+        info.setBitstream(bitstream);
+        info.setToBeProcessed(true);
+        info.setExpectedChecksum("checksum-" + infos.size());
+        when(checksumService.findByBitstream(context, bitstream)).thenReturn(info);
+        when(bitstreamStorageService.computeChecksum(context, bitstream)).thenAnswer(invocation -> {
+            Map<String, String> checksumMap = new HashMap<>();
+            checksumMap.put("checksum", info.getExpectedChecksum());
+            checksumMap.put("checksum_algorithm", "MD5");
+            return checksumMap;
+        });
+        infos.add(info);
+        return bitstream;
+    }
+
+    @Test
+    public void testBatchesAreReadInStorePriorityOrderAndCommittedOnceRead() throws Exception {
+        List<Bitstream> bitstreams = Arrays.asList(bitstream(0), bitstream(1), bitstream(0), bitstream(1),
+                                                   bitstream(0));
+        BitstreamDispatcher dispatcher = mock(BitstreamDispatcher.class);
+        when(dispatcher.next()).thenReturn(bitstreams.get(0), bitstreams.get(1), bitstreams.get(2),
+                                           bitstreams.get(3), bitstreams.get(4), null);
+        List<MostRecentChecksum> updated = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> updated.add(invocation.getArgument(1)))
+            .when(checksumService).update(any(), any());
+        // no bitstream marked as processed is committed before its result
+        doAnswer(invocation -> {
+            for (MostRecentChecksum info : infos) {
+                if (info.getProcessStartDate() != null) {
+                    assertNotNull(info.getChecksumResult());
+                }
+            }
+            return null;
+        }).when(context).commit();
+
+        CheckerCommand checker = new CheckerCommand(context, checksumService, checksumHistoryService,
+                                                    bitstreamStorageService, checksumResultService,
+                                                    configurationService);
+        checker.setDispatcher(dispatcher);
+        checker.setCollector(collector);
+        checker.process();
+
+        // the store 1 first within each batch of three bitstreams
+        assertEquals(Arrays.asList(infos.get(1), infos.get(0), infos.get(2), infos.get(3), infos.get(4)), updated);
+        verify(context, times(2)).commit();
+        for (int i = 0; i < infos.size(); i++) {
+            MostRecentChecksum info = infos.get(i);
+            assertEquals(ChecksumResultCode.CHECKSUM_MATCH, info.getChecksumResult().getResultCode());
+            verify(checksumHistoryService).addHistory(context, info);
+            verify(checksumService).uncache(context, info);
+            verify(context).uncacheEntity(bitstreams.get(i));
+        }
+        verify(collector, never()).collect(any(), any());
+    }
+}
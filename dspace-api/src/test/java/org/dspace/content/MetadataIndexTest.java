@@ -0,0 +1,133 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.content;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link MetadataIndex}.
+ */
+public class MetadataIndexTest {
+
+    private final MetadataSchema dc = schema("dc");
+    private final MetadataSchema person = schema("person");
+
+    private final MetadataField title = field(dc, "title", null);
+    private final MetadataField alternativeTitle = field(dc, "title", "alternative");
+    private final MetadataField emptyQualifierTitle = field(dc, "title", "");
+    private final MetadataField author = field(dc, "contributor", "author");
+    private final MetadataField familyName = field(person, "familyName", null);
+
+    @Test
+    public void testCandidatesMatchScan() {
+        List<MetadataValue> values = Arrays.asList(value(author), value(title), value(alternativeTitle),
+                                                   value(author), value(emptyQualifierTitle), value(familyName),
+                                                   value(alternativeTitle), value(title));
+        MetadataIndex index = new MetadataIndex(values);
+
+        List<String[]> lookups = Arrays.asList(
+            new String[] {"dc", "title", null},
+            new String[] {"dc", "title", ""},
+            new String[] {"dc", "title", Item.ANY},
+            new String[] {"dc", "title", "alternative"},
+            new String[] {"dc", "contributor", "author"},
+            new String[] {"dc", "contributor", "editor"},
+            new String[] {"dc", "subject", Item.ANY},
+            new String[] {"person", "familyName", null},
+            new String[] {"person", "title", Item.ANY});
+        for (String[] lookup : lookups) {
+            assertSameValues(Arrays.toString(lookup), scan(values, lookup[0], lookup[1], lookup[2]),
+                             index.getCandidates(lookup[0], lookup[1], lookup[2]));
+        }
+    }
+
+    @Test
+    public void testWildcardsUseAllValues() {
+        MetadataIndex index = new MetadataIndex(Arrays.asList(value(title), value(familyName)));
+
+        assertNull(index.getCandidates(Item.ANY, "title", null));
+        assertNull(index.getCandidates("dc", Item.ANY, Item.ANY));
+    }
+
+    @Test
+    public void testValuesWithoutSchemaUseAllValues() {
+        MetadataIndex index = new MetadataIndex(Arrays.asList(value(title), value(field(null, "title", null))));
+
+        assertNull(index.getCandidates("dc", "title", null));
+    }
+
+    @Test
+    public void testIsIndexOf() {
+        List<MetadataValue> values = new ArrayList<>(Arrays.asList(value(title)));
+        MetadataIndex index = new MetadataIndex(values);
+
+        assertTrue(index.isIndexOf(values));
+        assertFalse(index.isIndexOf(new ArrayList<>(values)));
+        values.add(value(author));
+        assertFalse(index.isIndexOf(values));
+    }
+
+    private void assertSameValues(String message, List<MetadataValue> expected, List<MetadataValue> actual) {
+        assertEquals(message, expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(message, expected.get(i), actual.get(i));
+        }
+    }
+
+    /**
+     * The values matching the lookup on schema, element and qualifier as the
+     * DSpaceObject services do.
+     */
+    private List<MetadataValue> scan(List<MetadataValue> values, String schema, String element,
+                                     String qualifier) {
+        List<MetadataValue> matches = new ArrayList<>();
+        for (MetadataValue value : values) {
+            MetadataField field = value.getMetadataField();
+            boolean qualifierMatch = StringUtils.isBlank(qualifier) ? field.getQualifier() == null
+                : Item.ANY.equals(qualifier) || qualifier.equals(field.getQualifier());
+            if (field.getMetadataSchema().getName().equals(schema) && field.getElement().equals(element)
+                    && qualifierMatch) {
+                matches.add(value);
+            }
+        }
+        return matches;
+    }
+
+    private MetadataSchema schema(String name) {
+        MetadataSchema schema = mock(MetadataSchema.class);
+        when(schema.getName()).thenReturn(name);
+        return schema;
+    }
+
+    private MetadataField field(MetadataSchema schema, String element, String qualifier) {
+        MetadataField field = mock(MetadataField.class);
+        when(field.getMetadataSchema()).thenReturn(schema);
+        when(field.getElement()).thenReturn(element);
+        when(field.getQualifier()).thenReturn(qualifier);
+        return field;
+    }
+
+    private MetadataValue value(MetadataField field) {
+        MetadataValue value = new MetadataValue();
+        value.setMetadataField(field);
+        return value;
+    }
+}
@@ -11,6 +11,7 @@ import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.sql.SQLException;
@@ -35,6 +36,7 @@ import org.dspace.content.service.ItemService;
 import org.dspace.content.service.RelationshipService;
 import org.dspace.content.service.RelationshipTypeService;
 import org.dspace.content.service.WorkspaceItemService;
+import org.dspace.core.Context;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -205,9 +207,9 @@ public class RelationshipMetadataServiceIT extends AbstractIntegrationTestWithDa
         assertThat(rightRelationshipMetadataList.size(), equalTo(1));
         assertThat(rightRelationshipMetadataList.get(0).getValue(), equalTo(String.valueOf(leftItem.getID())));
 
-        //request the virtual metadata of the publication
+        //request the virtual metadata of the publication, with the context of the test
         List<RelationshipMetadataValue> rightList = relationshipMetadataService
-            .getRelationshipMetadata(rightItem, true);
+            .getRelationshipMetadata(context, rightItem, true);
         assertThat(rightList.size(), equalTo(1));
         assertThat(rightList.get(0).getValue(), equalTo(String.valueOf(leftItem.getID())));
         assertThat(rightList.get(0).getMetadataField().getMetadataSchema().getName(),
@@ -216,6 +218,31 @@ public class RelationshipMetadataServiceIT extends AbstractIntegrationTestWithDa
         assertThat(rightList.get(0).getAuthority(), equalTo("virtual::" + relationship.getID()));
     }
 
+    @Test
+    public void testGetMetadataWithTheContextOfTheCaller() throws Exception {
+        initPublicationAuthor();
+        context.uncacheEntity(leftItem);
+        leftItem = context.reloadEntity(leftItem);
+
+        List<MetadataValue> authorList = itemService.getMetadata(context, leftItem, "dc", "contributor", "author",
+                                                                 Item.ANY, true);
+        assertThat(authorList.size(), equalTo(1));
+        assertThat(authorList.get(0).getValue(), equalTo("familyName, firstName"));
+        assertThat(authorList.get(0).getAuthority(), equalTo("virtual::" + relationship.getID()));
+    }
+
+    @Test
+    public void testCallsWithoutContextShareTheContextOfTheThread() throws Exception {
+        initPublicationAuthor();
+        RelationshipMetadataServiceImpl relationshipMetadataServiceImpl =
+            (RelationshipMetadataServiceImpl) relationshipMetadataService;
+
+        Context threadContext = relationshipMetadataServiceImpl.getThreadContext();
+        assertThat(relationshipMetadataService.getRelationshipMetadata(leftItem, true).size(), equalTo(2));
+        assertThat(relationshipMetadataService.getRelationshipMetadata(rightItem, true).size(), equalTo(1));
+        assertSame(threadContext, relationshipMetadataServiceImpl.getThreadContext());
+    }
+
     @Test
     public void testDeleteAuthorRelationshipCopyToLeftItem() throws Exception {
         initPublicationAuthor();
@@ -13,7 +13,10 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 import org.dspace.authorize.service.AuthorizeService;
 import org.dspace.content.dao.RelationshipDAO;
@@ -126,6 +129,37 @@ public class RelationshipServiceImplTest {
         }
     }
 
+    @Test
+    public void testFindByItems() throws Exception {
+        Item cindy = mock(Item.class);
+        Item fred = mock(Item.class);
+        Item hank = mock(Item.class);
+        Item spot = mock(Item.class);
+        when(cindy.getID()).thenReturn(UUID.randomUUID());
+        when(fred.getID()).thenReturn(UUID.randomUUID());
+        RelationshipType hasDog = new RelationshipType();
+        RelationshipType hasMother = new RelationshipType();
+        RelationshipType isAuthorOf = new RelationshipType();
+        hasDog.setLeftwardType("hasDog");
+        hasMother.setLeftwardType("hasMother");
+        isAuthorOf.setLeftwardType("isAuthorOf");
+        isAuthorOf.setTilted(RelationshipType.Tilted.RIGHT);
+
+        Relationship cindyHasMother = getRelationship(fred, cindy, hasMother, 0, 0);
+        Relationship cindyHasDog = getRelationship(cindy, spot, hasDog, 0, 0);
+        // tilted right, so excluded for its left item
+        Relationship cindyIsAuthorOf = getRelationship(cindy, hank, isAuthorOf, 0, 0);
+        List<Item> items = Arrays.asList(cindy, fred);
+        when(relationshipDAO.findByItems(context, items, true))
+            .thenReturn(Arrays.asList(cindyHasMother, cindyHasDog, cindyIsAuthorOf));
+
+        Map<UUID, List<Relationship>> results = relationshipService.findByItems(context, items, true);
+
+        assertEquals(2, results.size());
+        assertEquals(Arrays.asList(cindyHasDog, cindyHasMother), results.get(cindy.getID()));
+        assertEquals(Arrays.asList(cindyHasMother), results.get(fred.getID()));
+    }
+
     @Test
     public void testFindLeftPlaceByLeftItem() throws Exception {
         // Declare objects utilized in unit test
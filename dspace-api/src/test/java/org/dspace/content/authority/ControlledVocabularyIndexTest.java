@@ -0,0 +1,105 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.content.authority;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.xml.sax.InputSource;
+
+/**
+ * Unit tests for {@link ControlledVocabularyIndex}.
+ */
+public class ControlledVocabularyIndexTest {
+
+    private static final String VOCABULARY = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+        + "<node id=\"root\" label=\"Subjects\">"
+        + "  <isComposedBy>"
+        + "    <node id=\"A\" label=\"Agriculture\">"
+        + "      <hasNote>Farming</hasNote>"
+        + "      <isComposedBy>"
+        + "        <node id=\"A1\" label=\"Crop science\"/>"
+        + "        <node id=\"A2\" label=\"Animal science\" selectable=\"false\"/>"
+        + "      </isComposedBy>"
+        + "    </node>"
+        + "    <node id=\"S\" label=\"Science\">"
+        + "      <isComposedBy>"
+        + "        <node label=\"Agriculture\"/>"
+        + "      </isComposedBy>"
+        + "    </node>"
+        + "  </isComposedBy>"
+        + "</node>";
+
+    private ControlledVocabularyIndex index;
+
+    @Before
+    public void setUp() throws Exception {
+        index = ControlledVocabularyIndex.load(new InputSource(new StringReader(VOCABULARY)));
+    }
+
+    @Test
+    public void testStructure() {
+        assertEquals(0, index.getRoot());
+        assertTrue(index.isRoot(0));
+
+        int agriculture = index.findById("A");
+        assertEquals(1, agriculture);
+        assertEquals(0, index.getParent(agriculture));
+        assertEquals(-1, index.getParent(0));
+        assertArrayEquals(new int[] {2, 3}, index.getChildren(agriculture));
+        assertTrue(index.hasChildrenWithId(agriculture));
+        assertFalse(index.hasChildrenWithId(index.findById("S")));
+        assertEquals("Farming", index.getNote(agriculture));
+        assertFalse(index.isSelectable(index.findById("A2")));
+        assertTrue(index.isSelectable(index.findById("A1")));
+        assertEquals(-1, index.findById("missing"));
+    }
+
+    @Test
+    public void testHierarchy() {
+        assertEquals("Subjects::Agriculture::Crop science", index.getHierarchy(index.findById("A1"), "::"));
+        assertEquals("Subjects", index.getHierarchy(0, "::"));
+    }
+
+    @Test
+    public void testSearchLabels() {
+        // the labels are searched by substring, case insensitive, in document order
+        assertEquals(Arrays.asList(2, 3, 4), index.searchLabels(new String[] {"science"}));
+        assertEquals(Arrays.asList(1, 5), index.searchLabels(new String[] {"agri"}));
+        // the last part is searched in the descendants of the nodes matching the previous one
+        assertEquals(Arrays.asList(5), index.searchLabels(new String[] {"science", "agri"}));
+        assertEquals(Arrays.asList(2, 3), index.searchLabels(new String[] {"subjects", "agri", "science"}));
+        assertEquals(Collections.emptyList(), index.searchLabels(new String[] {"crop", "science"}));
+    }
+
+    @Test
+    public void testFindByLabels() {
+        assertEquals(Arrays.asList(1, 5), index.findByLabels(new String[] {"Agriculture"}));
+        assertEquals(Arrays.asList(5), index.findByLabels(new String[] {"Science", "Agriculture"}));
+        assertEquals(Collections.emptyList(), index.findByLabels(new String[] {"agriculture"}));
+    }
+
+    @Test
+    public void testMissingRootNode() throws Exception {
+        ControlledVocabularyIndex other = ControlledVocabularyIndex.load(new InputSource(
+            new StringReader("<vocabulary><node id=\"x\" label=\"X\"/></vocabulary>")));
+
+        assertEquals(-1, other.getRoot());
+        assertFalse(other.isRoot(0));
+        assertNull(other.getNote(0));
+    }
+}
@@ -9,16 +9,28 @@ package org.dspace.content.authority;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
 
 import org.dspace.AbstractDSpaceTest;
+import org.dspace.core.I18nUtil;
 import org.dspace.core.factory.CoreServiceFactory;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.xml.sax.InputSource;
 
 /**
  * Unit tests for DSpaceControlledVocabulary.
@@ -26,6 +38,10 @@ import org.junit.Test;
  * @author mwood
  */
 public class DSpaceControlledVocabularyTest extends AbstractDSpaceTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     public DSpaceControlledVocabularyTest() {
     }
 
@@ -89,6 +105,63 @@ public class DSpaceControlledVocabularyTest extends AbstractDSpaceTest {
         assertEquals("the farm::north 40", result.values[0].value);
     }
 
+    /**
+     * The instances created by each lookup of the plugin share the index of the vocabulary.
+     * @throws java.lang.ClassNotFoundException passed through.
+     */
+    @Test
+    public void testIndexIsSharedByTheInstances() throws ClassNotFoundException {
+        Class<?> pluginInterface = Class.forName("org.dspace.content.authority.ChoiceAuthority");
+        DSpaceControlledVocabulary instance = (DSpaceControlledVocabulary)
+            CoreServiceFactory.getInstance().getPluginService().getNamedPlugin(pluginInterface, "farm");
+        DSpaceControlledVocabulary other = (DSpaceControlledVocabulary)
+            CoreServiceFactory.getInstance().getPluginService().getNamedPlugin(pluginInterface, "farm");
+        assertNotSame(instance, other);
+
+        assertEquals(1, instance.getMatches("SOUTH", 0, 10, null).values.length);
+        other.init();
+        assertSame(instance.getIndexByLocale(null), other.getIndexByLocale(null));
+    }
+
+    /**
+     * The vocabulary file is read again once modified.
+     * @throws java.lang.Exception passed through.
+     */
+    @Test
+    public void testIndexIsReadAgainWhenTheFileIsModified() throws Exception {
+        File file = folder.newFile("test.xml");
+        writeVocabulary(file, "north 40");
+        DSpaceControlledVocabulary instance = new DSpaceControlledVocabulary();
+        instance.vocabularies = new HashMap<>();
+        instance.vocabularies.put(I18nUtil.getSupportedLocale((String) null), new InputSource(file.getPath()));
+
+        ControlledVocabularyIndex index = instance.getIndexByLocale(null);
+        assertEquals(1, index.findByLabels(new String[] {"north 40"}).size());
+        assertSame(index, instance.getIndexByLocale(null));
+
+        writeVocabulary(file, "south 40");
+        assertTrue(file.setLastModified(file.lastModified() + 2000));
+        ControlledVocabularyIndex modified = instance.getIndexByLocale(null);
+        assertNotSame(index, modified);
+        assertEquals(0, modified.findByLabels(new String[] {"north 40"}).size());
+        assertEquals(1, modified.findByLabels(new String[] {"south 40"}).size());
+    }
+
+    private static void writeVocabulary(File file, String label) throws IOException {
+        Files.write(file.toPath(), ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<node id=\"root\" label=\"the farm\"><isComposedBy>"
+            + "<node id=\"1\" label=\"" + label + "\"/>"
+            + "</isComposedBy></node>").getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * An instance whose vocabulary files are not known has no index.
+     */
+    @Test
+    public void testNoIndexWithoutVocabularyFile() {
+        assertNull(new DSpaceControlledVocabulary().getIndexByLocale(null));
+    }
+
     /**
      * Test of getBestMatch method, of class DSpaceControlledVocabulary.
      */
@@ -0,0 +1,116 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.content.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.lang3.tuple.Triple;
+import org.dspace.AbstractIntegrationTestWithDatabase;
+import org.dspace.builder.CollectionBuilder;
+import org.dspace.builder.CommunityBuilder;
+import org.dspace.builder.ItemBuilder;
+import org.dspace.builder.WorkspaceItemBuilder;
+import org.dspace.content.Collection;
+import org.dspace.content.Item;
+import org.dspace.content.factory.ContentServiceFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Integration tests for the keyset paging of the archived items by UUID range of {@link ItemService}
+ */
+public class ItemServiceIT extends AbstractIntegrationTestWithDatabase {
+
+    private final ItemService itemService = ContentServiceFactory.getInstance().getItemService();
+
+    private Item publication;
+
+    private final Set<UUID> archived = new HashSet<>();
+
+    @Before
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        context.turnOffAuthorisationSystem();
+        parentCommunity = CommunityBuilder.createCommunity(context).build();
+        Collection collection = CollectionBuilder.createCollection(context, parentCommunity).build();
+        publication = ItemBuilder.createItem(context, collection).withTitle("Publication")
+                                 .withEntityType("Publication").build();
+        archived.add(publication.getID());
+        for (int i = 0; i < 4; i++) {
+            archived.add(ItemBuilder.createItem(context, collection).withTitle("Item " + i).build().getID());
+        }
+        context.setCurrentUser(admin);
+        ItemBuilder.createItem(context, collection).withTitle("Withdrawn").withdrawn().build();
+        WorkspaceItemBuilder.createWorkspaceItem(context, collection).withTitle("Workspace").build();
+        context.restoreAuthSystemState();
+    }
+
+    @Test
+    public void testArchivedSummariesArePagedFromTheInclusiveLowerBound() throws Exception {
+        List<Triple<UUID, Date, String>> all = itemService.findArchivedSummaries(context, null, null, 100);
+        List<UUID> ids = new ArrayList<>();
+        for (Triple<UUID, Date, String> summary : all) {
+            ids.add(summary.getLeft());
+            assertEquals(summary.getLeft().equals(publication.getID()) ? "Publication" : null, summary.getRight());
+        }
+        // only the archived items, once each, in the order of the database
+        assertEquals(archived, new HashSet<>(ids));
+        assertEquals(archived.size(), ids.size());
+
+        // the next page starts from the last id already seen, which is returned again
+        assertEquals(ids.subList(1, 3), ids(itemService.findArchivedSummaries(context, ids.get(1), null, 2)));
+        assertEquals(ids.subList(2, 4), ids(itemService.findArchivedSummaries(context, ids.get(2), null, 2)));
+        // the upper bound is exclusive
+        assertEquals(ids.subList(1, 3), ids(itemService.findArchivedSummaries(context, ids.get(1), ids.get(3),
+                                                                                100)));
+        assertEquals(ids.subList(3, 5), ids(itemService.findArchivedSummaries(context, ids.get(3), null, 100)));
+    }
+
+    @Test
+    public void testCountArchived() throws Exception {
+        List<Triple<UUID, Date, String>> all = itemService.findArchivedSummaries(context, null, null, 100);
+
+        Pair<Long, Date> count = itemService.countArchived(context, null, null);
+        assertEquals(Long.valueOf(5), count.getLeft());
+        assertEquals(latest(all.subList(0, 5)), count.getRight().getTime());
+
+        count = itemService.countArchived(context, all.get(1).getLeft(), all.get(3).getLeft());
+        assertEquals(Long.valueOf(2), count.getLeft());
+        assertEquals(latest(all.subList(1, 3)), count.getRight().getTime());
+
+        count = itemService.countArchived(context, all.get(3).getLeft(), all.get(3).getLeft());
+        assertEquals(Long.valueOf(0), count.getLeft());
+        assertNull(count.getRight());
+    }
+
+    private static List<UUID> ids(List<Triple<UUID, Date, String>> summaries) {
+        List<UUID> ids = new ArrayList<>();
+        for (Triple<UUID, Date, String> summary : summaries) {
+            ids.add(summary.getLeft());
+        }
+        return ids;
+    }
+
+    private static long latest(List<Triple<UUID, Date, String>> summaries) {
+        long latest = 0;
+        for (Triple<UUID, Date, String> summary : summaries) {
+            latest = Math.max(latest, summary.getMiddle().getTime());
+        }
+        return latest;
+    }
+}
@@ -8,15 +8,19 @@
 package org.dspace.core;
 
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.when;
 
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.UUID;
 
 import org.dspace.content.Item;
+import org.dspace.content.RelationshipMetadataValue;
 import org.dspace.eperson.EPerson;
 import org.dspace.eperson.Group;
 import org.junit.Before;
@@ -93,6 +97,19 @@ public class ContextReadOnlyCacheTest {
         assertNull(readOnlyCache.getCachedGroupMembership(group2, null));
     }
 
+    @Test
+    public void cacheRelationshipMetadata() throws Exception {
+        Item item = Mockito.mock(Item.class);
+        when(item.getID()).thenReturn(UUID.randomUUID());
+        List<RelationshipMetadataValue> values = Arrays.asList(new RelationshipMetadataValue());
+
+        readOnlyCache.cacheRelationshipMetadata(item, true, values);
+
+        assertSame(values, readOnlyCache.getCachedRelationshipMetadata(item, true));
+        assertNull(readOnlyCache.getCachedRelationshipMetadata(item, false));
+        assertNull(readOnlyCache.getCachedAuthorizationResult(item, Constants.READ, ePerson, true));
+    }
+
     @Test
     public void clear() throws Exception {
         Item item = Mockito.mock(Item.class);
@@ -102,10 +119,12 @@ public class ContextReadOnlyCacheTest {
         //load data into the cache
         readOnlyCache.cacheAuthorizedAction(item, Constants.READ, ePerson, true, true);
         readOnlyCache.cacheGroupMembership(group1, ePerson, true);
+        readOnlyCache.cacheRelationshipMetadata(item, true, Arrays.asList(new RelationshipMetadataValue()));
 
         //double check the data is there
         assertTrue(readOnlyCache.getCachedAuthorizationResult(item, Constants.READ, ePerson, true));
         assertTrue(readOnlyCache.getCachedGroupMembership(group1, ePerson));
+        assertNotNull(readOnlyCache.getCachedRelationshipMetadata(item, true));
 
         //clear the cache
         readOnlyCache.clear();
@@ -113,6 +132,7 @@ public class ContextReadOnlyCacheTest {
         //check that the data is not present anymore
         assertNull(readOnlyCache.getCachedAuthorizationResult(item, Constants.READ, ePerson, true));
         assertNull(readOnlyCache.getCachedGroupMembership(group1, ePerson));
+        assertNull(readOnlyCache.getCachedRelationshipMetadata(item, true));
     }
 
     private Group buildGroupMock(final String name) {
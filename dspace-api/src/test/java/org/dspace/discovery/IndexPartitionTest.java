@@ -0,0 +1,124 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.discovery;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import org.dspace.core.Context;
+import org.dspace.discovery.indexobject.factory.IndexFactory;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link IndexPartition}, and the partitions of the objects of the {@link IndexFactory}s that
+ * don't resolve them in the database
+ */
+public class IndexPartitionTest {
+
+    @Test
+    public void testFirstAndLastPartitionsAreOpen() {
+        List<IndexPartition> partitions = IndexPartition.split(7);
+        assertEquals(7, partitions.size());
+        assertNull(partitions.get(0).getLowerBound());
+        assertNull(partitions.get(6).getUpperBound());
+        for (int i = 0; i < 6; i++) {
+            assertEquals(partitions.get(i).getUpperBound(), partitions.get(i + 1).getLowerBound());
+        }
+    }
+
+    @Test
+    public void testEachUuidBelongsToTheRangeOfExactlyOnePartition() {
+        Random random = new Random(42);
+        List<IndexPartition> partitions = IndexPartition.split(7);
+        for (int n = 0; n < 10000; n++) {
+            UUID uuid = new UUID(random.nextLong(), random.nextLong());
+            int matches = 0;
+            for (IndexPartition partition : partitions) {
+                if (partition.contains(uuid)) {
+                    matches++;
+                    assertTrue(partition.getLowerBound() == null
+                        || Long.compareUnsigned(uuid.getMostSignificantBits(),
+                                                partition.getLowerBound().getMostSignificantBits()) >= 0);
+                    assertTrue(partition.getUpperBound() == null
+                        || Long.compareUnsigned(uuid.getMostSignificantBits(),
+                                                partition.getUpperBound().getMostSignificantBits()) < 0);
+                }
+            }
+            assertEquals(1, matches);
+        }
+    }
+
+    @Test
+    public void testBoundariesBelongToTheirPartition() {
+        for (IndexPartition partition : IndexPartition.split(13)) {
+            if (partition.getLowerBound() != null) {
+                assertTrue(partition.contains(partition.getLowerBound()));
+            }
+            if (partition.getUpperBound() != null) {
+                assertFalse(partition.contains(partition.getUpperBound()));
+            }
+        }
+    }
+
+    @Test
+    public void testNonUuidIdentifiers() {
+        List<IndexPartition> partitions = IndexPartition.split(4);
+        for (int id = -50; id < 50; id++) {
+            int matches = 0;
+            for (IndexPartition partition : partitions) {
+                matches += partition.contains(id) ? 1 : 0;
+            }
+            assertEquals(1, matches);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testObjectsNotPartitionedInTheDatabaseAreFiltered() throws Exception {
+        Context context = mock(Context.class);
+        IndexFactory<IndexableObject, Object> indexFactory = mock(IndexFactory.class, CALLS_REAL_METHODS);
+        Random random = new Random(42);
+        List<IndexableObject> objects = new ArrayList<>();
+        for (int n = 0; n < 100; n++) {
+            IndexableObject object = mock(IndexableObject.class);
+            when(object.getID()).thenReturn(new UUID(random.nextLong(), random.nextLong()));
+            objects.add(object);
+        }
+        doReturn(objects.iterator(), objects.iterator(), objects.iterator()).when(indexFactory).findAll(context);
+
+        List<IndexableObject> found = new ArrayList<>();
+        for (IndexPartition partition : IndexPartition.split(3)) {
+            Iterator<IndexableObject> partitionObjects = indexFactory.findAll(context, partition);
+            while (partitionObjects.hasNext()) {
+                IndexableObject object = partitionObjects.next();
+                assertTrue(partition.contains(object.getID()));
+                found.add(object);
+            }
+        }
+        assertEquals(objects.size(), found.size());
+        assertEquals(new HashSet<>(objects), new HashSet<>(found));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPartition() {
+        new IndexPartition(3, 3);
+    }
+}
@@ -0,0 +1,238 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.discovery;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.SolrInputDocument;
+import org.dspace.core.Context;
+import org.dspace.discovery.indexobject.factory.IndexFactory;
+import org.dspace.discovery.indexobject.factory.IndexObjectFactoryFactory;
+import org.dspace.services.ConfigurationService;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+/**
+ * Unit tests for {@link IndexingQueue}
+ */
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class IndexingQueueTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @InjectMocks
+    private IndexingQueue queue = new IndexingQueue() {
+        @Override
+        protected Context createContext() {
+            return context;
+        }
+    };
+
+    @Mock
+    private IndexObjectFactoryFactory indexObjectFactoryFactory;
+
+    @Mock
+    private SolrSearchCore solrSearchCore;
+
+    @Mock
+    private ConfigurationService configurationService;
+
+    @Mock
+    private SolrClient solr;
+
+    @Mock
+    private IndexFactory indexFactory;
+
+    private final Context context = mock(Context.class);
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        when(configurationService.getBooleanProperty("discovery.index.queue.enabled", false)).thenReturn(false);
+        when(configurationService.getLongProperty("discovery.index.queue.delay", 2000)).thenReturn(60000L);
+        when(configurationService.getLongProperty("discovery.index.queue.max-delay", 30000)).thenReturn(60000L);
+        when(configurationService.getIntProperty("discovery.index.queue.batch-size", 200)).thenReturn(2);
+        when(configurationService.getIntProperty("discovery.index.queue.commit-within", 5000)).thenReturn(1000);
+        when(configurationService.getIntProperty("discovery.index.queue.max-pending", 50000)).thenReturn(100);
+        when(configurationService.getIntProperty("discovery.index.queue.max-retries", 5)).thenReturn(2);
+        when(configurationService.getLongProperty("discovery.index.queue.retry-delay", 5000)).thenReturn(0L);
+        when(configurationService.getProperty("discovery.index.queue.pending-file"))
+            .thenReturn(new File(folder.getRoot(), "pending").getAbsolutePath());
+        queue.init();
+
+        when(solrSearchCore.getSolr()).thenReturn(solr);
+        when(indexObjectFactoryFactory.getIndexFactoryByType("Item")).thenReturn(indexFactory);
+        when(indexFactory.findIndexableObject(eq(context), any(String.class)))
+            .thenAnswer(invocation -> Optional.of(indexable(invocation.getArgument(1))));
+        when(indexFactory.buildCompleteDocument(eq(context), any(IndexableObject.class)))
+            .thenAnswer(invocation -> new SolrInputDocument());
+    }
+
+    private IndexableObject indexable(String id) {
+        IndexableObject indexableObject = mock(IndexableObject.class);
+        when(indexableObject.getType()).thenReturn("Item");
+        when(indexableObject.getID()).thenReturn(UUID.fromString(id));
+        return indexableObject;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRepeatedRequestsAreCoalesced() throws Exception {
+        String id = UUID.randomUUID().toString();
+        for (int i = 0; i < 5; i++) {
+            queue.update(indexable(id));
+        }
+        assertEquals(1, queue.getPendingCount());
+        assertEquals(4, queue.getCoalescedCount());
+
+        queue.flush(true);
+
+        ArgumentCaptor<Collection<SolrInputDocument>> documents = ArgumentCaptor.forClass(Collection.class);
+        verify(solr, times(1)).add(documents.capture(), eq(1000));
+        assertEquals(1, documents.getValue().size());
+        verify(solr, never()).commit();
+        assertEquals(0, queue.getPendingCount());
+        assertEquals(1, queue.getIndexedCount());
+    }
+
+    @Test
+    public void testRequestsAreDebounced() throws Exception {
+        queue.update(indexable(UUID.randomUUID().toString()));
+        queue.flush(false);
+        verify(solr, never()).add(anyList(), anyInt());
+        assertEquals(1, queue.getPendingCount());
+    }
+
+    @Test
+    public void testRequestsAreSentInBatches() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            queue.update(indexable(UUID.randomUUID().toString()));
+        }
+        queue.flush(true);
+        verify(solr, times(3)).add(anyList(), eq(1000));
+        assertEquals(5, queue.getIndexedCount());
+    }
+
+    @Test
+    public void testDeletionsPrecedeTheIndexingOfTheSameObject() throws Exception {
+        String id = UUID.randomUUID().toString();
+        queue.delete("Item-" + id);
+        queue.update(indexable(id));
+        queue.flush(true);
+
+        InOrder order = inOrder(indexFactory, solr);
+        order.verify(indexFactory).delete("Item-" + id);
+        order.verify(solr).add(anyList(), eq(1000));
+        assertEquals(1, queue.getDeletedCount());
+        assertEquals(1, queue.getIndexedCount());
+    }
+
+    @Test
+    public void testDeletedObjectsAreNotIndexed() throws Exception {
+        String id = UUID.randomUUID().toString();
+        when(indexFactory.findIndexableObject(context, id)).thenReturn(Optional.empty());
+        queue.update(indexable(id));
+        queue.delete("Item-" + id);
+        queue.flush(true);
+
+        verify(indexFactory).delete("Item-" + id);
+        verify(solr, never()).add(anyList(), anyInt());
+        assertEquals(0, queue.getIndexedCount());
+    }
+
+    @Test
+    public void testFailedBatchesAreRetried() throws Exception {
+        when(solr.add(anyList(), eq(1000))).thenThrow(new SolrServerException("Server down")).thenReturn(null);
+        queue.update(indexable(UUID.randomUUID().toString()));
+        queue.flush(true);
+
+        verify(solr, times(2)).add(anyList(), eq(1000));
+        assertEquals(1, queue.getRetriedCount());
+        assertEquals(1, queue.getIndexedCount());
+        assertEquals(0, queue.getPendingCount());
+    }
+
+    @Test
+    public void testRequestsAreGivenUpAfterTheRetries() throws Exception {
+        when(solr.add(anyList(), eq(1000))).thenThrow(new SolrServerException("Server down"));
+        queue.update(indexable(UUID.randomUUID().toString()));
+        queue.flush(true);
+
+        verify(solr, times(3)).add(anyList(), eq(1000));
+        assertEquals(1, queue.getFailedCount());
+        assertEquals(0, queue.getPendingCount());
+    }
+
+    @Test
+    public void testRequestsWaitForTheirRetryDelay() throws Exception {
+        when(configurationService.getLongProperty("discovery.index.queue.retry-delay", 5000)).thenReturn(60000L);
+        queue.init();
+        when(solr.add(anyList(), eq(1000))).thenThrow(new SolrServerException("Server down")).thenReturn(null);
+        queue.update(indexable(UUID.randomUUID().toString()));
+        queue.flush(true);
+        queue.flush(true);
+
+        verify(solr, times(1)).add(anyList(), eq(1000));
+        assertEquals(1, queue.getPendingCount());
+    }
+
+    @Test
+    public void testRequestsNotFlushedAtShutdownAreQueuedAtTheNextStart() throws Exception {
+        when(configurationService.getLongProperty("discovery.index.queue.retry-delay", 5000)).thenReturn(60000L);
+        queue.init();
+        when(solr.add(anyList(), eq(1000))).thenThrow(new SolrServerException("Server down"));
+        String id = UUID.randomUUID().toString();
+        queue.update(indexable(id));
+        queue.delete("Item-" + UUID.randomUUID());
+        queue.destroy();
+        assertTrue(new File(folder.getRoot(), "pending").exists());
+
+        when(configurationService.getBooleanProperty("discovery.index.queue.enabled", false)).thenReturn(true);
+        IndexingQueue restarted = new IndexingQueue();
+        restarted.configurationService = configurationService;
+        restarted.init();
+        try {
+            assertEquals(2, restarted.getPendingCount());
+            assertFalse(new File(folder.getRoot(), "pending").exists());
+        } finally {
+            // stop the flushing thread, the requests are discarded without a search core
+            restarted.solrSearchCore = solrSearchCore;
+            when(solrSearchCore.getSolr()).thenReturn(null);
+            restarted.destroy();
+        }
+    }
+}
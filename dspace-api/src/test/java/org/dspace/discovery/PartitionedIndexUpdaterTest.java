@@ -0,0 +1,142 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.discovery;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.common.SolrInputDocument;
+import org.dspace.content.Item;
+import org.dspace.core.Context;
+import org.dspace.discovery.indexobject.IndexableItem;
+import org.dspace.discovery.indexobject.factory.IndexFactory;
+import org.dspace.services.ConfigurationService;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link PartitionedIndexUpdater}
+ */
+public class PartitionedIndexUpdaterTest {
+
+    private static final int PARTITIONS = 4;
+
+    @Rule
+    public TemporaryFolder checkpointDir = new TemporaryFolder();
+
+    private final Context context = mock(Context.class);
+    private final SolrClient solr = mock(SolrClient.class);
+    private final IndexFactory indexFactory = mock(IndexFactory.class);
+
+    private PartitionedIndexUpdater updater;
+
+    @Before
+    public void setUp() throws Exception {
+        ConfigurationService configurationService = mock(ConfigurationService.class);
+        when(configurationService.getIntProperty("discovery.index.parallel.threads", 1)).thenReturn(2);
+        when(configurationService.getIntProperty("discovery.index.parallel.partitions", 64)).thenReturn(PARTITIONS);
+        when(configurationService.getIntProperty("discovery.index.parallel.batch-size", 500)).thenReturn(2);
+        when(configurationService.getBooleanProperty("discovery.index.parallel.resume", true)).thenReturn(true);
+        when(configurationService.getProperty("discovery.index.parallel.checkpoint-dir"))
+            .thenReturn(checkpointDir.getRoot().getAbsolutePath());
+
+        updater = new PartitionedIndexUpdater(mock(SolrServiceImpl.class), solr, configurationService) {
+            @Override
+            protected Context createContext() {
+                return context;
+            }
+        };
+
+        when(indexFactory.getType()).thenReturn("Item");
+        when(indexFactory.buildCompleteDocument(any(), any())).thenReturn(new SolrInputDocument());
+    }
+
+    @Test
+    public void testPartitionedType() throws Exception {
+        when(indexFactory.supportsPartitions()).thenReturn(true);
+        when(indexFactory.findAll(eq(context), any(IndexPartition.class)))
+            .thenAnswer(invocation -> objects(1));
+
+        assertEquals(PARTITIONS, updater.update(indexFactory, true));
+
+        verify(indexFactory, times(PARTITIONS)).findAll(eq(context), any(IndexPartition.class));
+        verify(indexFactory, never()).findAll(context);
+        verify(solr, times(PARTITIONS)).add(anyCollection());
+    }
+
+    @Test
+    public void testTypeWithoutPartitionsIsScannedOnce() throws Exception {
+        Iterator<IndexableObject> objects = objects(5);
+        when(indexFactory.findAll(context)).thenReturn(objects);
+
+        assertEquals(5, updater.update(indexFactory, true));
+
+        verify(indexFactory).findAll(context);
+        verify(indexFactory, never()).findAll(eq(context), any(IndexPartition.class));
+        // the documents are sent by batches of two
+        verify(solr, times(3)).add(anyCollection());
+        verify(context, times(5)).uncacheEntity(any(Item.class));
+    }
+
+    @Test
+    public void testFailedPartitionIsResumed() throws Exception {
+        Set<Integer> requested = ConcurrentHashMap.newKeySet();
+        AtomicBoolean failing = new AtomicBoolean(true);
+        when(indexFactory.supportsPartitions()).thenReturn(true);
+        when(indexFactory.findAll(eq(context), any(IndexPartition.class))).thenAnswer(invocation -> {
+            IndexPartition partition = invocation.getArgument(1);
+            requested.add(partition.getIndex());
+            if (partition.getIndex() == 1 && failing.get()) {
+                throw new SQLException("Connection lost");
+            }
+            return objects(1);
+        });
+
+        try {
+            updater.update(indexFactory, true);
+            fail("The failed partition should be reported");
+        } catch (IOException e) {
+            assertEquals(PARTITIONS, requested.size());
+        }
+
+        // a second run only processes the partition that failed
+        requested.clear();
+        failing.set(false);
+        assertEquals(1, updater.update(indexFactory, true));
+        assertEquals(Collections.singleton(1), requested);
+    }
+
+    private Iterator<IndexableObject> objects(int count) {
+        List<IndexableObject> objects = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            objects.add(new IndexableItem(mock(Item.class)));
+        }
+        return Collections.unmodifiableList(objects).iterator();
+    }
+}
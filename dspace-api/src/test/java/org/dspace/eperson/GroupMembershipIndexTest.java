@@ -0,0 +1,149 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.eperson;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.UUID;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.dspace.core.Context;
+import org.dspace.eperson.dao.GroupDAO;
+import org.dspace.services.ConfigurationService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+/**
+ * Unit tests for {@link GroupMembershipIndex}
+ */
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class GroupMembershipIndexTest {
+
+    @InjectMocks
+    private GroupMembershipIndex index;
+
+    @Mock
+    private GroupDAO groupDAO;
+
+    @Mock
+    private ConfigurationService configurationService;
+
+    @Mock
+    private Context context;
+
+    @Mock
+    private EPerson ePerson;
+
+    @Mock
+    private Group directGroup;
+
+    // root <- middle <- leaf, other is not related
+    private final UUID root = UUID.randomUUID();
+    private final UUID middle = UUID.randomUUID();
+    private final UUID leaf = UUID.randomUUID();
+    private final UUID other = UUID.randomUUID();
+
+    @Before
+    public void setUp() throws Exception {
+        when(configurationService.getBooleanProperty("eperson.group.membership-index.enabled", false))
+            .thenReturn(true);
+        when(configurationService.getLongProperty("eperson.group.membership-index.ttl", 3600)).thenReturn(3600L);
+        when(configurationService.getLongProperty("eperson.group.membership-index.max-size", 10000))
+            .thenReturn(100L);
+        index.init();
+
+        when(groupDAO.getGroup2GroupResults(context, false))
+            .thenReturn(Arrays.asList(Pair.of(root, middle), Pair.of(middle, leaf)));
+        when(ePerson.getID()).thenReturn(UUID.randomUUID());
+        when(directGroup.getID()).thenReturn(leaf);
+        when(groupDAO.findByEPerson(context, ePerson)).thenReturn(Arrays.asList(directGroup));
+    }
+
+    @Test
+    public void testClosureIsLoadedOnce() throws Exception {
+        assertTrue(index.isParentOf(context, root, leaf));
+        assertTrue(index.isParentOf(context, middle, leaf));
+        assertFalse(index.isParentOf(context, leaf, root));
+        assertFalse(index.isParentOf(context, other, leaf));
+        verify(groupDAO, times(1)).getGroup2GroupResults(context, false);
+    }
+
+    @Test
+    public void testMemberGroupsIncludeTheAncestorsOfTheDirectGroups() throws Exception {
+        assertEquals(new HashSet<>(Arrays.asList(root, middle, leaf)), index.getMemberGroups(context, ePerson));
+        index.getMemberGroups(context, ePerson);
+        verify(groupDAO, times(1)).findByEPerson(context, ePerson);
+    }
+
+    @Test
+    public void testAddGroupMember() throws Exception {
+        index.isParentOf(context, root, leaf);
+        index.getMemberGroups(context, ePerson);
+
+        // other <- root: all the descendants of root become members of other
+        index.addGroupMember(other, root);
+        assertTrue(index.isParentOf(context, other, leaf));
+        assertTrue(index.isParentOf(context, other, middle));
+        assertTrue(index.getMemberGroups(context, ePerson).contains(other));
+    }
+
+    @Test
+    public void testRemoveGroupMember() throws Exception {
+        index.isParentOf(context, root, leaf);
+
+        index.removeGroupMember(root, middle);
+        assertFalse(index.isParentOf(context, root, leaf));
+        assertTrue(index.isParentOf(context, middle, leaf));
+        assertEquals(new HashSet<>(Arrays.asList(middle, leaf)), index.getMemberGroups(context, ePerson));
+    }
+
+    @Test
+    public void testRemoveGroup() throws Exception {
+        index.isParentOf(context, root, leaf);
+
+        index.removeGroup(middle);
+        assertFalse(index.isParentOf(context, root, leaf));
+        assertFalse(index.isParentOf(context, middle, leaf));
+    }
+
+    @Test
+    public void testMembershipsLoadedDuringAChangeAreNotKept() throws Exception {
+        // the eperson is removed from its group and the change is committed while its groups are read
+        when(groupDAO.findByEPerson(context, ePerson)).thenAnswer(invocation -> {
+            index.invalidateEPerson(ePerson.getID());
+            return Arrays.asList(directGroup);
+        }).thenReturn(Collections.emptyList());
+
+        assertTrue(index.getMemberGroups(context, ePerson).contains(leaf));
+        assertTrue(index.getMemberGroups(context, ePerson).isEmpty());
+        verify(groupDAO, times(2)).findByEPerson(context, ePerson);
+    }
+
+    @Test
+    public void testContextsWithUncommittedChangesDontUseTheIndex() {
+        when(context.hasEvents()).thenReturn(false, true, false);
+        when(context.hasAfterCommitCallbacks()).thenReturn(false, true);
+        assertTrue(index.isUsable(context));
+        // events not dispatched yet
+        assertFalse(index.isUsable(context));
+        // events dispatched, waiting for the commit
+        assertFalse(index.isUsable(context));
+    }
+}
@@ -0,0 +1,225 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.event;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.dspace.core.Constants;
+import org.dspace.core.Context;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link AsyncConsumerExecutor}
+ */
+public class AsyncConsumerExecutorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Consumer recording the details of the events it consumed, per subject. The events with the "fail"
+     * detail fail while the shared failure count is positive, leaving the previous events of the batch pending.
+     */
+    private static class RecordingConsumer implements Consumer {
+        private final Map<UUID, List<String>> consumed;
+        private final List<String> pending = new ArrayList<>();
+        private final List<UUID> subjects = new ArrayList<>();
+        private final AtomicInteger failures;
+
+        RecordingConsumer(Map<UUID, List<String>> consumed, AtomicInteger failures) {
+            this.consumed = consumed;
+            this.failures = failures;
+        }
+
+        @Override
+        public void initialize() {
+        }
+
+        @Override
+        public void consume(Context ctx, Event event) {
+            if ("fail".equals(event.getDetail()) && failures.getAndDecrement() > 0) {
+                throw new IllegalStateException("failure");
+            }
+            pending.add(event.getDetail());
+            subjects.add(event.getSubjectID());
+        }
+
+        @Override
+        public void end(Context ctx) {
+            for (int i = 0; i < pending.size(); i++) {
+                consumed.computeIfAbsent(subjects.get(i), id -> Collections.synchronizedList(new ArrayList<>()))
+                        .add(pending.get(i));
+            }
+            pending.clear();
+            subjects.clear();
+        }
+
+        @Override
+        public void finish(Context ctx) {
+        }
+    }
+
+    private AsyncConsumerExecutor executor(Map<UUID, List<String>> consumed, int failures, File deadLetterDir) {
+        AtomicInteger remainingFailures = new AtomicInteger(failures);
+        return executor(() -> new RecordingConsumer(consumed, remainingFailures), deadLetterDir);
+    }
+
+    private AsyncConsumerExecutor executor(Supplier<Consumer> consumerFactory,
+                                           File deadLetterDir) {
+        return new AsyncConsumerExecutor("default.test", consumerFactory, 3, 10, 2, 1, deadLetterDir) {
+            @Override
+            protected Context createContext(UUID userId, List<UUID> specialGroups) {
+                Context context = mock(Context.class);
+                when(context.isValid()).thenReturn(true);
+                return context;
+            }
+        };
+    }
+
+    private Event event(UUID subject, String detail) {
+        return new Event(Event.MODIFY, Constants.ITEM, subject, detail);
+    }
+
+    @Test
+    public void testEventsOfEachObjectAreConsumedInOrder() {
+        Map<UUID, List<String>> consumed = new ConcurrentHashMap<>();
+        AsyncConsumerExecutor executor = executor(consumed, 0, null);
+        List<UUID> subjects = Arrays.asList(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(),
+                                            UUID.randomUUID());
+        for (int transaction = 0; transaction < 20; transaction++) {
+            List<Event> events = new ArrayList<>();
+            for (UUID subject : subjects) {
+                events.add(event(subject, String.valueOf(transaction)));
+            }
+            executor.submit(events, null, Collections.emptyList());
+        }
+        executor.shutdown(10000);
+
+        assertEquals(80, executor.getProcessedCount());
+        for (UUID subject : subjects) {
+            List<String> expected = new ArrayList<>();
+            for (int transaction = 0; transaction < 20; transaction++) {
+                expected.add(String.valueOf(transaction));
+            }
+            assertEquals(expected, consumed.get(subject));
+        }
+        assertEquals(0, executor.getQueueDepth());
+    }
+
+    @Test
+    public void testFailedBatchesAreRetriedWithANewConsumer() {
+        Map<UUID, List<String>> consumed = new ConcurrentHashMap<>();
+        AsyncConsumerExecutor executor = executor(consumed, 2, null);
+        UUID subject = UUID.randomUUID();
+        executor.submit(Arrays.asList(event(subject, "a"), event(subject, "fail")), null, Collections.emptyList());
+        executor.shutdown(10000);
+
+        // the events left pending by the failed attempts are not consumed again
+        assertEquals(Arrays.asList("a", "fail"), consumed.get(subject));
+        assertEquals(2, executor.getRetriedCount());
+        assertEquals(0, executor.getDeadLetterCount());
+    }
+
+    @Test
+    public void testExhaustedRetriesGoToTheDeadLetterFile() throws Exception {
+        Map<UUID, List<String>> consumed = new ConcurrentHashMap<>();
+        File deadLetterDir = folder.newFolder();
+        AsyncConsumerExecutor executor = executor(consumed, 3, deadLetterDir);
+        UUID subject = UUID.randomUUID();
+        executor.submit(Arrays.asList(event(subject, "fail")), null, Collections.emptyList());
+        executor.shutdown(10000);
+
+        assertTrue(consumed.isEmpty());
+        assertEquals(1, executor.getDeadLetterCount());
+        List<String> lines = Files.readAllLines(new File(deadLetterDir, "default.test.deadletter").toPath(),
+                                                StandardCharsets.UTF_8);
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).contains(subject.toString()));
+    }
+
+    @Test
+    public void testEventsSubmittedAfterTheShutdownGoToTheDeadLetterFile() throws Exception {
+        Map<UUID, List<String>> consumed = new ConcurrentHashMap<>();
+        File deadLetterDir = folder.newFolder();
+        AsyncConsumerExecutor executor = executor(consumed, 0, deadLetterDir);
+        executor.shutdown(10000);
+
+        UUID subject = UUID.randomUUID();
+        executor.submit(Arrays.asList(event(subject, "a")), null, Collections.emptyList());
+
+        assertTrue(consumed.isEmpty());
+        assertEquals(1, executor.getDeadLetterCount());
+        assertTrue(new File(deadLetterDir, "default.test.deadletter").exists());
+    }
+
+    @Test
+    public void testEventsStillQueuedWhenTheShutdownTimesOutGoToTheDeadLetterFile() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AsyncConsumerExecutor executor = executor(() -> new RecordingConsumer(new ConcurrentHashMap<>(),
+                                                                              new AtomicInteger()) {
+            @Override
+            public void end(Context ctx) {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }, null);
+        UUID subject = UUID.randomUUID();
+        for (int i = 0; i < 4; i++) {
+            executor.submit(Arrays.asList(event(subject, String.valueOf(i))), null, Collections.emptyList());
+        }
+
+        // the first batch is still being consumed, the three queued ones are not
+        executor.shutdown(100);
+
+        assertEquals(3, executor.getDeadLetterCount());
+        assertEquals(0, executor.getQueueDepth());
+        release.countDown();
+    }
+
+    @Test
+    public void testEventsAreConsumedOnWorkerThreads() {
+        List<Boolean> workerThreads = Collections.synchronizedList(new ArrayList<>());
+        AsyncConsumerExecutor executor = executor(() -> new RecordingConsumer(new ConcurrentHashMap<>(),
+                                                                              new AtomicInteger()) {
+            @Override
+            public void consume(Context ctx, Event event) {
+                workerThreads.add(AsyncConsumerExecutor.isWorkerThread());
+            }
+        }, null);
+        executor.submit(Arrays.asList(event(UUID.randomUUID(), "a")), null, Collections.emptyList());
+        executor.shutdown(10000);
+
+        // the dispatchers of the workers consume their events inline instead of waiting for the queues
+        assertEquals(Arrays.asList(true), workerThreads);
+        assertFalse(AsyncConsumerExecutor.isWorkerThread());
+    }
+}
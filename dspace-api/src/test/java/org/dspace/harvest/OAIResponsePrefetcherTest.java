@@ -0,0 +1,85 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.harvest;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.dspace.harvest.model.OAIHarvesterResponseDTO;
+import org.dspace.harvest.service.OAIHarvesterClient;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link OAIResponsePrefetcher}.
+ */
+public class OAIResponsePrefetcherTest {
+
+    private static final String BASE_URL = "http://localhost/oai/request";
+
+    private final OAIHarvesterClient client = mock(OAIHarvesterClient.class);
+
+    @Test
+    public void testPrefetchPages() {
+        testPages(2);
+    }
+
+    @Test
+    public void testWithoutPrefetch() {
+        testPages(0);
+    }
+
+    private void testPages(int prefetchPages) {
+        OAIHarvesterResponseDTO first = response("token-1", Collections.emptySet());
+        OAIHarvesterResponseDTO second = response("token-2", Collections.emptySet());
+        OAIHarvesterResponseDTO third = response(null, Collections.emptySet());
+        when(client.listRecords(BASE_URL, "token-1")).thenReturn(second);
+        when(client.listRecords(BASE_URL, "token-2")).thenReturn(third);
+
+        try (OAIResponsePrefetcher prefetcher = new OAIResponsePrefetcher(client, BASE_URL, first, prefetchPages)) {
+            assertSame(second, prefetcher.next());
+            assertSame(third, prefetcher.next());
+            assertNull(prefetcher.next());
+            assertNull(prefetcher.next());
+        }
+
+        verify(client).listRecords(BASE_URL, "token-1");
+        verify(client).listRecords(BASE_URL, "token-2");
+    }
+
+    @Test(expected = HarvestingException.class)
+    public void testFailure() {
+        OAIHarvesterResponseDTO first = response("token-1", Collections.emptySet());
+        when(client.listRecords(BASE_URL, "token-1")).thenThrow(new HarvestingException("Connection refused"));
+
+        try (OAIResponsePrefetcher prefetcher = new OAIResponsePrefetcher(client, BASE_URL, first, 1)) {
+            prefetcher.next();
+        }
+    }
+
+    @Test
+    public void testResponseWithErrors() {
+        OAIHarvesterResponseDTO first = response("token-1", Collections.singleton("badResumptionToken"));
+
+        try (OAIResponsePrefetcher prefetcher = new OAIResponsePrefetcher(client, BASE_URL, first, 1)) {
+            assertNull(prefetcher.next());
+        }
+
+        verifyNoInteractions(client);
+    }
+
+    private OAIHarvesterResponseDTO response(String resumptionToken, Set<String> errors) {
+        return new OAIHarvesterResponseDTO(null, resumptionToken, errors);
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.layout;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.dspace.content.MetadataField;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link CrisLayoutVisibilityPlan}.
+ */
+public class CrisLayoutVisibilityPlanTest {
+
+    private final MetadataField title = field(1);
+    private final MetadataField email = field(2);
+    private final MetadataField affiliation = field(3);
+    private final MetadataField role = field(4);
+    private final MetadataField abstractField = field(5);
+
+    @Test
+    public void testEmptyPlan() {
+        CrisLayoutVisibilityPlan plan = CrisLayoutVisibilityPlan.compile(Collections.emptyList());
+
+        assertTrue(plan.isEmpty());
+        assertFalse(plan.isPublic(title));
+        assertTrue(plan.getGuardingBoxes(title).isEmpty());
+    }
+
+    @Test
+    public void testFieldVisibility() {
+        CrisLayoutBox publicBox = box(10, LayoutSecurity.PUBLIC, metadataField(title));
+        CrisLayoutBox ownerBox = box(11, LayoutSecurity.OWNER_ONLY, metadataField(email),
+                                     metadataField(affiliation, role));
+        CrisLayoutBox adminBox = box(12, LayoutSecurity.ADMINISTRATOR, metadataField(email), metadataField(email));
+
+        CrisLayoutVisibilityPlan plan = CrisLayoutVisibilityPlan.compile(Arrays.asList(publicBox, ownerBox,
+                                                                                       adminBox));
+
+        assertFalse(plan.isEmpty());
+        assertTrue(plan.isPublic(title));
+        assertTrue(plan.getGuardingBoxes(title).isEmpty());
+
+        assertFalse(plan.isPublic(email));
+        assertEquals(Arrays.asList(11, 12), plan.getGuardingBoxes(email));
+        // the fields of the metadata groups are guarded by the box of the group
+        assertEquals(Arrays.asList(11), plan.getGuardingBoxes(affiliation));
+        assertEquals(Arrays.asList(11), plan.getGuardingBoxes(role));
+
+        assertFalse(plan.isPublic(abstractField));
+        assertTrue(plan.getGuardingBoxes(abstractField).isEmpty());
+    }
+
+    private MetadataField field(int id) {
+        MetadataField field = mock(MetadataField.class);
+        when(field.getID()).thenReturn(id);
+        return field;
+    }
+
+    private CrisLayoutField metadataField(MetadataField field, MetadataField... groupFields) {
+        CrisLayoutField layoutField = new CrisLayoutFieldMetadata();
+        layoutField.setMetadataField(field);
+        for (MetadataField groupField : groupFields) {
+            CrisMetadataGroup group = new CrisMetadataGroup();
+            group.setMetadataField(groupField);
+            layoutField.getCrisMetadataGroupList().add(group);
+        }
+        return layoutField;
+    }
+
+    private CrisLayoutBox box(int id, LayoutSecurity security, CrisLayoutField... fields) {
+        CrisLayoutBox box = new CrisLayoutBox();
+        box.setId(id);
+        box.setSecurity(security);
+        box.setLayoutFields(Arrays.asList(fields));
+        return box;
+    }
+}
@@ -12,10 +12,14 @@ import static java.util.Collections.singletonList;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Arrays;
@@ -36,17 +40,21 @@ import org.dspace.discovery.configuration.DiscoveryConfigurationUtilsService;
 import org.dspace.layout.CrisLayoutBox;
 import org.dspace.layout.CrisLayoutField;
 import org.dspace.layout.CrisLayoutMetric2Box;
+import org.dspace.layout.CrisLayoutVisibilityPlan;
 import org.dspace.layout.dao.CrisLayoutBoxDAO;
 import org.dspace.layout.service.CrisLayoutBoxAccessService;
 import org.dspace.metrics.CrisItemMetricsAuthorizationService;
 import org.dspace.metrics.CrisItemMetricsService;
 import org.dspace.metrics.embeddable.model.EmbeddableCrisMetrics;
+import org.dspace.services.ConfigurationService;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
 
 /**
  * Unit tests for CrisLayoutBoxServiceImpl, so far only findByItem method is tested.
@@ -394,6 +402,41 @@ public class CrisLayoutBoxServiceImplTest {
         return metadataValue;
     }
 
+    @Test
+    public void visibilityPlanIsDiscardedOnceTheBoxChangeIsCommitted() throws Exception {
+        mockVisibilityPlanConfiguration();
+        when(dao.findByEntityType(context, "Person", null, 1000, 0)).thenReturn(emptyList());
+        when(authorizeService.isAdmin(context)).thenReturn(true);
+        CrisLayoutVisibilityPlan plan = crisLayoutBoxService.getVisibilityPlan(context, "Person");
+
+        crisLayoutBoxService.update(context, new CrisLayoutBox());
+        ArgumentCaptor<Runnable> afterCommit = ArgumentCaptor.forClass(Runnable.class);
+        verify(context).addAfterCommitCallback(afterCommit.capture());
+        assertSame(plan, crisLayoutBoxService.getVisibilityPlan(context, "Person"));
+
+        afterCommit.getValue().run();
+        assertNotSame(plan, crisLayoutBoxService.getVisibilityPlan(context, "Person"));
+        verify(dao, times(2)).findByEntityType(context, "Person", null, 1000, 0);
+    }
+
+    @Test
+    public void visibilityPlanWithUncommittedChangesIsNotCached() throws Exception {
+        mockVisibilityPlanConfiguration();
+        when(dao.findByEntityType(context, "Person", null, 1000, 0)).thenReturn(emptyList());
+        when(context.hasAfterCommitCallbacks()).thenReturn(true);
+
+        crisLayoutBoxService.getVisibilityPlan(context, "Person");
+        crisLayoutBoxService.getVisibilityPlan(context, "Person");
+
+        verify(dao, times(2)).findByEntityType(context, "Person", null, 1000, 0);
+    }
+
+    private void mockVisibilityPlanConfiguration() {
+        ConfigurationService configurationService = mock(ConfigurationService.class);
+        when(configurationService.getLongProperty("layout.visibility-plan.cache-seconds", 300)).thenReturn(300L);
+        ReflectionTestUtils.setField(crisLayoutBoxService, "configurationService", configurationService);
+    }
+
     private CrisLayoutField crisLayoutField(MetadataField metadataField) {
         CrisLayoutField crisLayoutField = new CrisLayoutField();
         crisLayoutField.setMetadataField(metadataField);
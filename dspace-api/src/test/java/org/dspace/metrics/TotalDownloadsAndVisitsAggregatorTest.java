@@ -0,0 +1,135 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.dspace.discovery.SolrSearchCore;
+import org.dspace.statistics.ObjectCount;
+import org.dspace.statistics.service.SolrLoggerService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+/**
+ * Unit tests for {@link TotalDownloadsAndVisitsAggregator}
+ */
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class TotalDownloadsAndVisitsAggregatorTest {
+
+    @Mock
+    private SolrLoggerService solrLoggerService;
+
+    @Mock
+    private SolrSearchCore solrSearchCore;
+
+    @Mock
+    private SolrClient solr;
+
+    @Mock
+    private QueryResponse queryResponse;
+
+    private TotalDownloadsAndVisitsAggregator aggregator;
+
+    private final UUID first = UUID.randomUUID();
+
+    private final UUID second = UUID.randomUUID();
+
+    @Before
+    public void setUp() throws Exception {
+        aggregator = new TotalDownloadsAndVisitsAggregator(solrLoggerService, solrSearchCore, 100);
+        when(solrSearchCore.getSolr()).thenReturn(solr);
+        when(solr.query(any(SolrQuery.class))).thenReturn(queryResponse);
+    }
+
+    private static ObjectCount objectCount(String value, long count) {
+        ObjectCount objectCount = new ObjectCount();
+        objectCount.setValue(value);
+        objectCount.setCount(count);
+        return objectCount;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void facet(String query, String facetField, ObjectCount... counts) throws Exception {
+        doAnswer(invocation -> {
+            Consumer<ObjectCount> consumer = invocation.getArgument(4);
+            Arrays.stream(counts).forEach(consumer);
+            return null;
+        }).when(solrLoggerService).streamFacetField(eq(query), eq("(statistics_type:view)"), eq(facetField),
+                                                   eq(100), any(Consumer.class));
+    }
+
+    @Test
+    public void testCountViews() throws Exception {
+        facet("type:2", "id", objectCount(first.toString(), 3), objectCount(second.toString(), 1),
+              objectCount("not-a-uuid", 5));
+
+        Map<UUID, Double> views = aggregator.countViews(2);
+
+        assertEquals(2, views.size());
+        assertEquals(3, views.get(first), 0);
+        assertEquals(1, views.get(second), 0);
+    }
+
+    @Test
+    public void testCountDownloadsByOwningItem() throws Exception {
+        facet("type:0", "owningItem", objectCount(first.toString(), 2));
+
+        Map<UUID, Double> downloads = aggregator.countDownloads();
+
+        assertEquals(Collections.singletonMap(first, 2.0), downloads);
+    }
+
+    @Test
+    public void testFindIndexed() throws Exception {
+        SolrDocument document = new SolrDocument();
+        document.setField("search.resourceid", first.toString());
+        SolrDocumentList documents = new SolrDocumentList();
+        documents.add(document);
+        when(queryResponse.getResults()).thenReturn(documents);
+
+        Set<UUID> indexed = aggregator.findIndexed(Arrays.asList(first, second), "Item", "withdrawn:false");
+
+        assertEquals(Collections.singleton(first), indexed);
+        ArgumentCaptor<SolrQuery> query = ArgumentCaptor.forClass(SolrQuery.class);
+        verify(solr).query(query.capture());
+        assertEquals(2, query.getValue().getRows().intValue());
+        assertTrue(Arrays.asList(query.getValue().getFilterQueries()).contains("search.resourcetype:Item"));
+        assertTrue(Arrays.asList(query.getValue().getFilterQueries()).contains("withdrawn:false"));
+        assertTrue(Arrays.asList(query.getValue().getFilterQueries())
+                         .contains("{!terms f=search.resourceid}" + first + "," + second));
+    }
+
+    @Test
+    public void testFindIndexedWithoutIds() throws Exception {
+        assertTrue(aggregator.findIndexed(Collections.emptyList(), "Item").isEmpty());
+        verify(solr, never()).query(any(SolrQuery.class));
+    }
+}
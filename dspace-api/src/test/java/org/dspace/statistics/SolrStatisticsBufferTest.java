@@ -0,0 +1,149 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.statistics;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link SolrStatisticsBuffer}
+ */
+public class SolrStatisticsBufferTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testEventsAreWrittenInBulk() throws Exception {
+        List<SolrInputDocument> written = new ArrayList<>();
+        SolrClient solr = mock(SolrClient.class);
+        when(solr.add(anyCollection())).thenAnswer(invocation -> {
+            written.addAll(invocation.getArgument(0));
+            return null;
+        });
+
+        SolrStatisticsBuffer buffer = new SolrStatisticsBuffer(solr, 100, 10, 50, 10, null);
+        for (int i = 0; i < 25; i++) {
+            buffer.add(event(i));
+        }
+        buffer.close(5000);
+
+        assertEquals(25, written.size());
+        assertEquals(25, buffer.getWrittenCount());
+        assertEquals(0, buffer.getDroppedCount());
+        verify(solr, atLeastOnce()).add(anyCollection());
+    }
+
+    @Test
+    public void testFailedEventsAreJournaledAndReplayed() throws Exception {
+        File journalDir = folder.newFolder("journal");
+        SolrClient failingSolr = mock(SolrClient.class);
+        when(failingSolr.add(anyCollection())).thenThrow(new SolrServerException("unavailable"));
+
+        SolrStatisticsBuffer buffer = new SolrStatisticsBuffer(failingSolr, 100, 10, 50, 10, journalDir);
+        for (int i = 0; i < 15; i++) {
+            buffer.add(event(i));
+        }
+        buffer.close(5000);
+        assertEquals(15, buffer.getSpilledCount());
+
+        List<SolrInputDocument> written = new ArrayList<>();
+        SolrClient solr = mock(SolrClient.class);
+        when(solr.add(anyCollection())).thenAnswer(invocation -> {
+            written.addAll(invocation.getArgument(0));
+            return null;
+        });
+        SolrStatisticsBuffer replayingBuffer = new SolrStatisticsBuffer(solr, 100, 10, 50, 10, journalDir);
+        replayingBuffer.close(5000);
+
+        assertEquals(15, replayingBuffer.getReplayedCount());
+        assertEquals(15, written.size());
+        assertEquals("0", written.get(0).getFieldValue("id"));
+        assertEquals(0, journalDir.listFiles().length);
+    }
+
+    @Test
+    public void testInterruptedReplayIsResumedWithoutDuplicates() throws Exception {
+        File journalDir = folder.newFolder("journal");
+        SolrClient failingSolr = mock(SolrClient.class);
+        when(failingSolr.add(anyCollection())).thenThrow(new SolrServerException("unavailable"));
+
+        // batches of at most 10 events, so the journal holds at least two records
+        SolrStatisticsBuffer buffer = new SolrStatisticsBuffer(failingSolr, 100, 10, 50, 10, journalDir);
+        for (int i = 0; i < 15; i++) {
+            buffer.add(event(i));
+        }
+        buffer.close(5000);
+
+        // the first record is sent, then the statistics core fails again
+        List<SolrInputDocument> written = new ArrayList<>();
+        SolrClient unstableSolr = mock(SolrClient.class);
+        when(unstableSolr.add(anyCollection())).thenAnswer(invocation -> {
+            written.addAll(invocation.getArgument(0));
+            return null;
+        }).thenThrow(new SolrServerException("unavailable"));
+        new SolrStatisticsBuffer(unstableSolr, 100, 10, 50, 10, journalDir).close(5000);
+        int firstRecord = written.size();
+
+        SolrClient solr = mock(SolrClient.class);
+        when(solr.add(anyCollection())).thenAnswer(invocation -> {
+            written.addAll(invocation.getArgument(0));
+            return null;
+        });
+        SolrStatisticsBuffer replayingBuffer = new SolrStatisticsBuffer(solr, 100, 10, 50, 10, journalDir);
+        replayingBuffer.close(5000);
+
+        assertEquals(15 - firstRecord, replayingBuffer.getReplayedCount());
+        Set<Object> ids = new HashSet<>();
+        for (SolrInputDocument doc : written) {
+            ids.add(doc.getFieldValue("id"));
+        }
+        assertEquals(15, written.size());
+        assertEquals(15, ids.size());
+        assertEquals(0, journalDir.listFiles().length);
+    }
+
+    @Test
+    public void testEventsAreDroppedWhenFullWithoutJournal() throws Exception {
+        SolrClient solr = mock(SolrClient.class);
+        when(solr.add(anyCollection())).thenThrow(new SolrServerException("unavailable"));
+
+        SolrStatisticsBuffer buffer = new SolrStatisticsBuffer(solr, 5, 5, 50, 1, null);
+        for (int i = 0; i < 20; i++) {
+            buffer.add(event(i));
+        }
+        buffer.close(5000);
+
+        assertEquals(20, buffer.getDroppedCount());
+        assertEquals(0, buffer.getWrittenCount());
+    }
+
+    private SolrInputDocument event(int id) {
+        SolrInputDocument doc = new SolrInputDocument();
+        doc.addField("id", String.valueOf(id));
+        doc.addField("statistics_type", "view");
+        return doc;
+    }
+}
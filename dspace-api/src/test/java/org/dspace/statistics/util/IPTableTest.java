@@ -11,6 +11,9 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
 import java.util.Set;
 
 import org.dspace.statistics.util.IPTable.IPFormatException;
@@ -18,7 +21,6 @@ import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
-import org.junit.Ignore;
 import org.junit.Test;
 
 /**
@@ -120,6 +122,70 @@ public class IPTableTest {
         assertTrue("IP within an add()ed range should match", contains);
     }
 
+    /**
+     * Test of contains method with CIDR networks and ranges spanning several subnets.
+     * @throws java.lang.Exception passed through.
+     */
+    @Test
+    public void testContainsCIDRAndRanges() throws Exception {
+        IPTable instance = new IPTable();
+        instance.add("10.0.0.0/8");
+        instance.add("172.16.0.0/12");
+        instance.add("1.2.3.250-1.2.4.5");
+
+        assertTrue(instance.contains("10.255.1.1"));
+        assertTrue(instance.contains("172.31.255.255"));
+        assertFalse(instance.contains("172.32.0.1"));
+        assertFalse(instance.contains("1.2.3.249"));
+        assertTrue(instance.contains("1.2.3.250"));
+        assertTrue(instance.contains("1.2.4.5"));
+        assertFalse(instance.contains("1.2.4.6"));
+        assertTrue("IPv4-mapped address should match the IPv4 network", instance.contains("::ffff:10.1.2.3"));
+    }
+
+    /**
+     * Test of contains method with IPv6 addresses and networks.
+     * @throws java.lang.Exception passed through.
+     */
+    @Test
+    public void testContainsIPv6() throws Exception {
+        IPTable instance = new IPTable();
+        instance.add("2001:db8::/32");
+        instance.add("fe80::1");
+
+        assertTrue(instance.contains("2001:db8:1::5"));
+        assertFalse(instance.contains("2001:db9::1"));
+        assertTrue(instance.contains("fe80::1"));
+        assertFalse(instance.contains("fe80::2"));
+        assertFalse("IPv4 address should not match IPv6 networks", instance.contains("192.168.1.1"));
+
+        Set<String> ipSet = instance.toCIDRSet();
+        assertEquals(2, ipSet.size());
+        assertTrue(ipSet.contains("2001:db8:0:0:0:0:0:0/32"));
+        assertTrue(ipSet.contains("fe80:0:0:0:0:0:0:1"));
+    }
+
+    /**
+     * Test of contains method against a scan of the added subnets.
+     * @throws java.lang.Exception passed through.
+     */
+    @Test
+    public void testContainsManySubnets() throws Exception {
+        Random random = new Random(42);
+        IPTable instance = new IPTable();
+        Set<String> subnets = new HashSet<>();
+        for (int i = 0; i < 10000; i++) {
+            String subnet = random.nextInt(224) + "." + random.nextInt(256) + "." + random.nextInt(256);
+            instance.add(subnet + ".0/24");
+            subnets.add(subnet);
+        }
+        for (int i = 0; i < 10000; i++) {
+            String subnet = random.nextInt(224) + "." + random.nextInt(256) + "." + random.nextInt(256);
+            assertEquals(subnet, subnets.contains(subnet), instance.contains(subnet + "." + random.nextInt(256)));
+        }
+        assertEquals(subnets, instance.toSet());
+    }
+
     /**
      * Test of isEmpty method, of class IPTable.
      * @throws java.lang.Exception passed through.
@@ -149,10 +215,20 @@ public class IPTableTest {
     }
 
     /**
-     * Test of toSet method, of class IPTable.
+     * Test of toSet method, of class IPTable: the statistics query the addresses by these prefixes.
+     * @throws java.lang.Exception passed through.
      */
-    @Ignore
     @Test
-    public void testToSet() {
+    public void testToSet() throws Exception {
+        IPTable instance = new IPTable();
+        instance.add("10.1.0.0/23");
+        instance.add("1.2.3.4/31");
+        instance.add("2001:db8::/32");
+        instance.add("fe80::1");
+
+        assertEquals(new HashSet<>(Arrays.asList("10.1.0", "10.1.1", "1.2.3.4", "1.2.3.5", "fe80:0:0:0:0:0:0:1")),
+                     instance.toSet());
+        assertEquals(new HashSet<>(Arrays.asList("10.1.0.0/23", "1.2.3.4/31", "2001:db8:0:0:0:0:0:0/32",
+                                                 "fe80:0:0:0:0:0:0:1")), instance.toCIDRSet());
     }
 }
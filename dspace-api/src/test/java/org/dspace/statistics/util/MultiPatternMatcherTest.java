@@ -0,0 +1,120 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.statistics.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link MultiPatternMatcher}
+ */
+public class MultiPatternMatcherTest {
+
+    private static final List<String> AGENTS = Arrays.asList("bot", "^Buck\\/[0-9]", "spider", "^.?$", "[^a]fish",
+        "^IDA$", "Alexandria(\\s|\\+)prototype(\\s|\\+)project", "API[\\+\\s]scraper", "aria2\\/\\d",
+        "(?i)curl", "Wget|libwww");
+
+    private static MultiPatternMatcher matcher(List<String> regexes) {
+        List<Pattern> patterns = new ArrayList<>();
+        for (String regex : regexes) {
+            patterns.add(Pattern.compile(regex));
+        }
+        return new MultiPatternMatcher(patterns);
+    }
+
+    @Test
+    public void testRequiredLiteral() {
+        assertEquals("spider", MultiPatternMatcher.requiredLiteral("spider"));
+        assertEquals("Buck/", MultiPatternMatcher.requiredLiteral("^Buck\\/[0-9]"));
+        assertEquals("Alexandria", MultiPatternMatcher.requiredLiteral("Alexandria(\\s|\\+)prototype(\\s|\\+)"));
+        assertEquals("cd", MultiPatternMatcher.requiredLiteral("ab?cd"));
+        assertEquals("abc", MultiPatternMatcher.requiredLiteral("abc+d"));
+        assertNull(MultiPatternMatcher.requiredLiteral("Wget|libwww"));
+        assertNull(MultiPatternMatcher.requiredLiteral("(?x)a b c"));
+        assertNull(MultiPatternMatcher.requiredLiteral("^.?$"));
+    }
+
+    @Test
+    public void testFindMatchesLikeEachPattern() {
+        MultiPatternMatcher matcher = matcher(AGENTS);
+        List<String> agents = Arrays.asList("Googlebot/2.1", "Buck/1.0", "xBuck/1.0", "a", "", "IDA", "xIDA",
+            "Alexandria+prototype project", "API scraper", "aria2/1.3", "catfish", "afish", "CURL/7.68",
+            "Wget/1.20", "libwww-perl", "Mozilla/5.0 (X11; Linux x86_64; rv:91.0) Gecko/20100101 Firefox/91.0",
+            "Spider-Man", "\u00e9bot");
+        for (String agent : agents) {
+            boolean expected = false;
+            for (String regex : AGENTS) {
+                expected |= Pattern.compile(regex).matcher(agent).find();
+            }
+            assertEquals(agent, expected, matcher.find(agent));
+        }
+    }
+
+    @Test
+    public void testFindMatchesLikeTheShippedPatterns() throws Exception {
+        File file = new File("../dspace/config/spiders/agents/example");
+        assumeTrue(file.isFile());
+        List<String> regexes = new ArrayList<>(new SpiderDetectorServiceImpl(null, null).readPatterns(file));
+        MultiPatternMatcher matcher = matcher(regexes);
+        List<String> agents = Arrays.asList(
+            "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/118.0.0.0 "
+                + "Safari/537.36",
+            "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/605.1.15 (KHTML, like Gecko) "
+                + "Version/17.0 Safari/605.1.15",
+            "Mozilla/5.0 (X11; Linux x86_64; rv:109.0) Gecko/20100101 Firefox/118.0",
+            "Mozilla/5.0 (iPhone; CPU iPhone OS 17_0 like Mac OS X) AppleWebKit/605.1.15 (KHTML, like Gecko) "
+                + "Version/17.0 Mobile/15E148 Safari/604.1",
+            "Mozilla/5.0 (compatible; Googlebot/2.1; +http://www.google.com/bot.html)",
+            "Mozilla/5.0 (compatible; bingbot/2.0; +http://www.bing.com/bingbot.htm)",
+            "Mozilla/5.0 (compatible; YandexBot/3.0; +http://yandex.com/bots)",
+            "Mozilla/5.0 (compatible; SemrushBot/7~bl; +http://www.semrush.com/bot.html)",
+            "python-requests/2.31.0", "curl/8.1.2", "Zotero/6.0.27");
+        for (String agent : agents) {
+            boolean expected = false;
+            for (String regex : regexes) {
+                expected |= Pattern.compile(regex).matcher(agent).find();
+            }
+            assertEquals(agent, expected, matcher.find(agent));
+        }
+    }
+
+    @Test
+    public void testLiteralsAreMatchedIgnoringCase() {
+        MultiPatternMatcher matcher = matcher(Arrays.asList("BingPreview"));
+        // the literal is found, but the pattern itself is case sensitive
+        assertFalse(matcher.find("bingpreview"));
+        assertTrue(matcher.find("Mozilla/5.0 BingPreview/1.0b"));
+    }
+
+    @Test
+    public void testPatternsWithoutLiteralAreAlwaysEvaluated() {
+        MultiPatternMatcher matcher = matcher(AGENTS);
+        assertEquals(AGENTS.size(), matcher.size());
+        assertEquals(2, matcher.getUnfilteredCount());
+        assertTrue(matcher.find("x"));
+    }
+
+    @Test
+    public void testEmpty() {
+        MultiPatternMatcher matcher = new MultiPatternMatcher(Collections.emptyList());
+        assertEquals(0, matcher.size());
+        assertFalse(matcher.find("bot"));
+    }
+}
@@ -0,0 +1,155 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.statistics.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+/**
+ * Compare the cost of checking a User-Agent against the spider agent patterns one by one, as done before, with
+ * the {@link MultiPatternMatcher}, and measure the cost of an {@link IPTable} lookup.
+ * <p>
+ * The patterns are read from <code>dspace/config/spiders/agents</code>, or from the directory in the
+ * <code>benchmark.spiders.agents</code> system property. The User-Agents checked are a sample of common ones, or
+ * the lines of the file in the <code>benchmark.spiders.corpus</code> system property, e.g. the User-Agents of
+ * an access log. The benchmark is skipped unless the <code>benchmark.spiders</code> system property is set, e.g.
+ * <code>mvn test -Dtest=SpiderDetectorBenchmarkTest -Dbenchmark.spiders=true</code>
+ */
+public class SpiderDetectorBenchmarkTest {
+
+    private static final int ROUNDS = 200;
+
+    /**
+     * Mostly browsers, as in the usage events of a repository, with some crawlers and tools
+     */
+    private static final List<String> SAMPLE_AGENTS = Arrays.asList(
+        "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/118.0.0.0 "
+            + "Safari/537.36",
+        "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/118.0.0.0 "
+            + "Safari/537.36 Edg/118.0.2088.46",
+        "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/17.0 "
+            + "Safari/605.1.15",
+        "Mozilla/5.0 (X11; Linux x86_64; rv:109.0) Gecko/20100101 Firefox/118.0",
+        "Mozilla/5.0 (Windows NT 10.0; Win64; x64; rv:109.0) Gecko/20100101 Firefox/118.0",
+        "Mozilla/5.0 (iPhone; CPU iPhone OS 17_0 like Mac OS X) AppleWebKit/605.1.15 (KHTML, like Gecko) "
+            + "Version/17.0 Mobile/15E148 Safari/604.1",
+        "Mozilla/5.0 (Linux; Android 10; K) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/118.0.0.0 Mobile "
+            + "Safari/537.36",
+        "Mozilla/5.0 (iPad; CPU OS 16_6 like Mac OS X) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/16.6 "
+            + "Mobile/15E148 Safari/604.1",
+        "Mozilla/5.0 (compatible; Googlebot/2.1; +http://www.google.com/bot.html)",
+        "Mozilla/5.0 (compatible; bingbot/2.0; +http://www.bing.com/bingbot.htm)",
+        "Mozilla/5.0 (compatible; YandexBot/3.0; +http://yandex.com/bots)",
+        "Mozilla/5.0 (compatible; SemrushBot/7~bl; +http://www.semrush.com/bot.html)",
+        "python-requests/2.31.0",
+        "curl/8.1.2",
+        "Zotero/6.0.27");
+
+    @Test
+    public void compareAgentMatching() throws Exception {
+        assumeTrue(Boolean.getBoolean("benchmark.spiders"));
+
+        File directory = new File(System.getProperty("benchmark.spiders.agents", "../dspace/config/spiders/agents"));
+        SpiderDetectorServiceImpl reader = new SpiderDetectorServiceImpl(null, null);
+        List<Pattern> patterns = new ArrayList<>();
+        for (File file : directory.listFiles()) {
+            for (String pattern : reader.readPatterns(file)) {
+                patterns.add(Pattern.compile(pattern));
+            }
+        }
+        List<String> agents = readAgents();
+        MultiPatternMatcher matcher = new MultiPatternMatcher(patterns);
+        Predicate<String> oneByOne = agent -> {
+            for (Pattern pattern : patterns) {
+                if (pattern.matcher(agent).find()) {
+                    return true;
+                }
+            }
+            return false;
+        };
+
+        // same results, then warm up both before measuring
+        for (String agent : agents) {
+            assertEquals(agent, oneByOne.test(agent), matcher.find(agent));
+        }
+        measure("one by one", agents, oneByOne);
+        measure("multi-pattern", agents, matcher::find);
+        measure("one by one", agents, oneByOne);
+        measure("multi-pattern", agents, matcher::find);
+        System.out.println(patterns.size() + " patterns, " + matcher.getUnfilteredCount()
+            + " evaluated for every agent, " + agents.size() + " agents");
+    }
+
+    @Test
+    public void measureAddressLookup() throws Exception {
+        assumeTrue(Boolean.getBoolean("benchmark.spiders"));
+
+        Random random = new Random(42);
+        IPTable table = new IPTable();
+        for (int i = 0; i < 10000; i++) {
+            table.add(random.nextInt(224) + "." + random.nextInt(256) + "." + random.nextInt(256) + "/24");
+        }
+        String[] addresses = new String[10000];
+        for (int i = 0; i < addresses.length; i++) {
+            addresses[i] = random.nextInt(224) + "." + random.nextInt(256) + "." + random.nextInt(256) + "."
+                + random.nextInt(256);
+        }
+        int found = 0;
+        long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            for (String address : addresses) {
+                found += table.contains(address) ? 1 : 0;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.println(String.format("%-14s %8.1f ns per address (%d found)", "IPTable",
+            (double) elapsed / ROUNDS / addresses.length, found));
+    }
+
+    private List<String> readAgents() throws IOException {
+        String corpus = System.getProperty("benchmark.spiders.corpus");
+        if (corpus == null) {
+            return SAMPLE_AGENTS;
+        }
+        List<String> agents = new ArrayList<>();
+        for (String agent : Files.readAllLines(Paths.get(corpus), StandardCharsets.UTF_8)) {
+            if (!agent.trim().isEmpty()) {
+                agents.add(agent);
+            }
+        }
+        return agents;
+    }
+
+    private void measure(String name, List<String> agents, Predicate<String> spider) {
+        int rounds = Math.max(1, ROUNDS * 10 * SAMPLE_AGENTS.size() / agents.size());
+        int found = 0;
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            for (String agent : agents) {
+                found += spider.test(agent) ? 1 : 0;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.println(String.format("%-14s %8.1f ns per agent (%d spiders)", name,
+            (double) elapsed / rounds / agents.size(), found));
+    }
+}
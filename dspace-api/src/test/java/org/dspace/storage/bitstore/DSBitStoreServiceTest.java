@@ -0,0 +1,88 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.storage.bitstore;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.commons.io.IOUtils;
+import org.dspace.content.Bitstream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for the ranged reads of {@link DSBitStoreService}
+ */
+public class DSBitStoreServiceTest {
+
+    private static final int SIZE = 10000;
+
+    @Rule
+    public TemporaryFolder assetstore = new TemporaryFolder();
+
+    private DSBitStoreService store;
+
+    private Bitstream bitstream;
+
+    private byte[] content;
+
+    @Before
+    public void setUp() throws Exception {
+        store = new DSBitStoreService();
+        store.setBaseDir(assetstore.getRoot());
+        store.init();
+
+        bitstream = mock(Bitstream.class);
+        when(bitstream.getInternalId()).thenReturn("12345678901234567890");
+        content = new byte[SIZE];
+        new Random(42).nextBytes(content);
+        store.put(bitstream, new ByteArrayInputStream(content));
+    }
+
+    @Test
+    public void testRangeIsReadFromTheOffset() throws Exception {
+        assertArrayEquals(Arrays.copyOfRange(content, 100, 150), read(100, 50));
+        assertArrayEquals(Arrays.copyOfRange(content, 0, 1), read(0, 1));
+    }
+
+    @Test
+    public void testRangeWithoutLengthIsReadToTheEnd() throws Exception {
+        assertArrayEquals(Arrays.copyOfRange(content, 500, SIZE), read(500, -1));
+    }
+
+    @Test
+    public void testRangePastTheEndIsTruncated() throws Exception {
+        assertArrayEquals(Arrays.copyOfRange(content, SIZE - 10, SIZE), read(SIZE - 10, 50));
+        assertEquals(0, read(SIZE, 10).length);
+        assertEquals(0, read(SIZE + 100, 10).length);
+    }
+
+    @Test
+    public void testChannelStartsAtTheBeginningOfTheFile() throws Exception {
+        try (FileChannel channel = store.getChannel(bitstream)) {
+            assertEquals(0, channel.position());
+            assertEquals(SIZE, channel.size());
+        }
+    }
+
+    private byte[] read(long offset, long length) throws Exception {
+        try (InputStream in = store.get(bitstream, offset, length)) {
+            return IOUtils.toByteArray(in);
+        }
+    }
+}
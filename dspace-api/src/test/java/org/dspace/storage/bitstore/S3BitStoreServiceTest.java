@@ -0,0 +1,167 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.storage.bitstore;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+import org.dspace.AbstractDSpaceTest;
+import org.dspace.content.Bitstream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+/**
+ * Unit tests for the streaming upload of {@link S3BitStoreService}, against an
+ * in-memory stand-in of the S3 client.
+ */
+public class S3BitStoreServiceTest extends AbstractDSpaceTest {
+
+    private static final int PART_SIZE = 5 * 1024 * 1024;
+
+    private AmazonS3 s3;
+
+    private S3BitStoreService store;
+
+    private Bitstream bitstream;
+
+    private final Map<Integer, byte[]> uploadedParts = new TreeMap<>();
+
+    @Before
+    public void setUp() throws Exception {
+        s3 = mock(AmazonS3.class);
+        store = new S3BitStoreService();
+        store.setS3Service(s3);
+        store.setBucketName("dspace-test");
+        store.setMultipartPartSize(PART_SIZE);
+        store.setMultipartUploadThreads(2);
+        store.init();
+
+        bitstream = mock(Bitstream.class);
+        when(bitstream.getInternalId()).thenReturn("123456789");
+    }
+
+    @After
+    public void tearDown() {
+        store.destroy();
+    }
+
+    @Test
+    public void testSmallStreamIsStoredWithSinglePut() throws Exception {
+        byte[] content = randomBytes(1024);
+
+        store.put(bitstream, new ByteArrayInputStream(content));
+
+        verify(s3).putObject(any(PutObjectRequest.class));
+        verify(s3, never()).initiateMultipartUpload(any(InitiateMultipartUploadRequest.class));
+        verify(bitstream).setSizeBytes(1024);
+        verify(bitstream).setChecksum(DigestUtils.md5Hex(content));
+        verify(bitstream).setChecksumAlgorithm("MD5");
+    }
+
+    @Test
+    public void testLargeStreamIsStoredWithMultipartUpload() throws Exception {
+        mockMultipartUpload();
+        byte[] content = randomBytes(2 * PART_SIZE + 12345);
+
+        store.put(bitstream, new ByteArrayInputStream(content));
+
+        verify(s3, never()).putObject(any(PutObjectRequest.class));
+        verify(s3).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+        assertEquals(3, uploadedParts.size());
+        ByteArrayOutputStream stored = new ByteArrayOutputStream();
+        for (byte[] part : uploadedParts.values()) {
+            stored.write(part);
+        }
+        assertArrayEquals(content, stored.toByteArray());
+        verify(bitstream).setSizeBytes(content.length);
+        verify(bitstream).setChecksum(DigestUtils.md5Hex(content));
+    }
+
+    @Test
+    public void testFailedMultipartUploadIsAborted() throws Exception {
+        InitiateMultipartUploadResult initiated = new InitiateMultipartUploadResult();
+        initiated.setUploadId("upload-1");
+        when(s3.initiateMultipartUpload(any(InitiateMultipartUploadRequest.class))).thenReturn(initiated);
+        when(s3.uploadPart(any(UploadPartRequest.class))).thenThrow(new AmazonClientException("unavailable"));
+
+        try {
+            store.put(bitstream, new ByteArrayInputStream(randomBytes(PART_SIZE + 1)));
+            fail("The upload should fail");
+        } catch (IOException e) {
+            // expected
+        }
+
+        verify(s3).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+        verify(s3, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+
+    @Test
+    public void testRangeIsRetrievedWithRangedGet() throws Exception {
+        when(s3.getObject(any(GetObjectRequest.class))).thenReturn(new S3Object());
+
+        store.get(bitstream, 100, 50);
+
+        ArgumentCaptor<GetObjectRequest> request = ArgumentCaptor.forClass(GetObjectRequest.class);
+        verify(s3).getObject(request.capture());
+        assertArrayEquals(new long[] {100, 149}, request.getValue().getRange());
+    }
+
+    private void mockMultipartUpload() {
+        InitiateMultipartUploadResult initiated = new InitiateMultipartUploadResult();
+        initiated.setUploadId("upload-1");
+        when(s3.initiateMultipartUpload(any(InitiateMultipartUploadRequest.class))).thenReturn(initiated);
+        when(s3.uploadPart(any(UploadPartRequest.class))).thenAnswer(invocation -> {
+            UploadPartRequest request = invocation.getArgument(0);
+            byte[] part = IOUtils.toByteArray(request.getInputStream());
+            synchronized (uploadedParts) {
+                uploadedParts.put(request.getPartNumber(), part);
+            }
+            UploadPartResult result = new UploadPartResult();
+            result.setPartNumber(request.getPartNumber());
+            result.setETag(DigestUtils.md5Hex(part));
+            return result;
+        });
+        when(s3.completeMultipartUpload(any(CompleteMultipartUploadRequest.class)))
+            .thenReturn(new CompleteMultipartUploadResult());
+    }
+
+    private byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+}
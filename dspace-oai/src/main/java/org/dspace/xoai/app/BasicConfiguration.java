@@ -31,6 +31,7 @@ import org.dspace.xoai.services.impl.DSpaceEarliestDateResolver;
 import org.dspace.xoai.services.impl.DSpaceFieldResolver;
 import org.dspace.xoai.services.impl.DSpaceHandleResolver;
 import org.dspace.xoai.services.impl.cache.DSpaceEmptyCacheService;
+import org.dspace.xoai.services.impl.cache.DSpaceShardedXOAIItemCacheService;
 import org.dspace.xoai.services.impl.cache.DSpaceXOAICacheService;
 import org.dspace.xoai.services.impl.cache.DSpaceXOAIItemCacheService;
 import org.dspace.xoai.services.impl.cache.DSpaceXOAILastCompilationCacheService;
@@ -94,6 +95,9 @@ public class BasicConfiguration {
 
     @Bean
     public XOAIItemCacheService xoaiItemCacheService() {
+        if ("sharded".equals(configurationService().getProperty("oai", "cache.items.storage"))) {
+            return new DSpaceShardedXOAIItemCacheService();
+        }
         return new DSpaceXOAIItemCacheService();
     }
 
@@ -58,4 +58,8 @@ public class CCElementItemCompilePlugin implements XOAIExtensionItemCompilePlugi
         return metadata;
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
 }
@@ -112,4 +112,8 @@ public class FulltextAccessElementItemCompilePlugin implements XOAIExtensionItem
         return metadata;
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
 }
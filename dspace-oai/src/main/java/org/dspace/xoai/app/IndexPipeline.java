@@ -0,0 +1,235 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.xoai.app;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.SolrInputDocument;
+import org.dspace.core.Context;
+
+/**
+ * Indexes the batches of items submitted by the reading thread: the items of a batch are compiled by a pool of
+ * workers, each with its own {@link Context} as the Hibernate sessions are bound to threads, or by the reading
+ * thread with its context if there is a single worker, while a writer thread sends the compiled batches to Solr in
+ * order. At most two batches are waiting to be written, to keep memory consumption low.
+ * <p>
+ * Once a batch fails to be written, the items still queued are no longer compiled and the next
+ * {@link #submit(List)} or {@link #finish()} reports the failure. {@link #shutdown()} waits for the workers to
+ * close their contexts.
+ */
+public abstract class IndexPipeline {
+
+    private static final Logger log = LogManager.getLogger(IndexPipeline.class);
+
+    private static final Consumer<Context> STOP = workerContext -> { };
+
+    private final SolrClient server;
+    private final Context context;
+    private final int threads;
+    private final ExecutorService workers;
+    private final BlockingQueue<Consumer<Context>> tasks = new LinkedBlockingQueue<>();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor();
+    private final List<Future<?>> writes = new ArrayList<>();
+    private final Semaphore pending = new Semaphore(2);
+
+    private volatile Exception failure;
+
+    /**
+     * @param server  the OAI core
+     * @param context the context of the reading thread
+     * @param threads the number of workers compiling the items, 1 to compile them with the reading thread
+     */
+    public IndexPipeline(SolrClient server, Context context, int threads) {
+        this.server = server;
+        this.context = context;
+        this.threads = threads > 1 ? threads : 0;
+        if (this.threads > 0) {
+            AtomicInteger count = new AtomicInteger();
+            workers = Executors.newFixedThreadPool(this.threads, runnable -> {
+                Thread thread = new Thread(runnable, "oai-index-" + count.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+            for (int i = 0; i < this.threads; i++) {
+                workers.execute(this::work);
+            }
+        } else {
+            workers = null;
+        }
+    }
+
+    /**
+     * Find which of the given items are already indexed and whether they are flagged visible.
+     *
+     * @param ids the items of a batch
+     * @return the item.public flag of each indexed item, by item id
+     */
+    protected abstract Map<String, Boolean> findIndexedVisibility(List<UUID> ids) throws IOException;
+
+    /**
+     * Compile an item with the given context.
+     *
+     * @return the document of the item, or null if it can't be compiled
+     */
+    protected abstract SolrInputDocument compile(Context context, UUID id, Map<String, Boolean> visibility);
+
+    /**
+     * Create the context of a worker, used by its thread only.
+     */
+    protected Context createWorkerContext() {
+        return new Context(Context.Mode.READ_ONLY);
+    }
+
+    private void work() {
+        Context workerContext = createWorkerContext();
+        try {
+            while (true) {
+                Consumer<Context> task = tasks.take();
+                if (task == STOP) {
+                    return;
+                }
+                try {
+                    task.accept(workerContext);
+                } catch (RuntimeException e) {
+                    log.error(e.getMessage(), e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            workerContext.abort();
+        }
+    }
+
+    /**
+     * Compile and write a batch of items, waiting if two batches are already waiting to be written.
+     *
+     * @param ids the items of the batch
+     */
+    public void submit(List<UUID> ids) throws SolrServerException, IOException, InterruptedException {
+        pending.acquire();
+        if (failure != null) {
+            pending.release();
+            throw rethrow(failure);
+        }
+        Map<String, Boolean> visibility = findIndexedVisibility(ids);
+        SolrInputDocument[] documents = new SolrInputDocument[ids.size()];
+        CountDownLatch compiled = new CountDownLatch(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            int position = i;
+            if (workers == null) {
+                documents[position] = compile(context, ids.get(position), visibility);
+                compiled.countDown();
+            } else {
+                tasks.put(workerContext -> {
+                    try {
+                        if (failure == null) {
+                            documents[position] = compile(workerContext, ids.get(position), visibility);
+                        }
+                    } finally {
+                        compiled.countDown();
+                    }
+                });
+            }
+        }
+        writes.add(writer.submit(() -> {
+            try {
+                compiled.await();
+                if (failure != null) {
+                    return null;
+                }
+                List<SolrInputDocument> list = new ArrayList<>(documents.length);
+                for (SolrInputDocument document : documents) {
+                    if (document != null) {
+                        list.add(document);
+                    }
+                }
+                if (!list.isEmpty()) {
+                    server.add(list);
+                }
+                server.commit();
+                return null;
+            } catch (Exception e) {
+                if (failure == null) {
+                    failure = e;
+                }
+                throw e;
+            } finally {
+                pending.release();
+            }
+        }));
+    }
+
+    /**
+     * Wait for all the submitted batches to be written.
+     */
+    public void finish() throws SolrServerException, IOException, InterruptedException {
+        for (Future<?> write : writes) {
+            try {
+                write.get();
+            } catch (ExecutionException e) {
+                throw rethrow(e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Stop the workers, dropping the items not compiled yet, and wait for them to close their contexts.
+     */
+    public void shutdown() {
+        if (workers != null) {
+            tasks.clear();
+            for (int i = 0; i < threads; i++) {
+                tasks.add(STOP);
+            }
+            workers.shutdown();
+            try {
+                if (!workers.awaitTermination(1, TimeUnit.MINUTES)) {
+                    log.warn("OAI index workers still running after one minute, interrupting them");
+                    workers.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                workers.shutdownNow();
+            }
+        }
+        writer.shutdownNow();
+    }
+
+    private static IOException rethrow(Throwable cause) throws SolrServerException {
+        if (cause instanceof SolrServerException) {
+            throw (SolrServerException) cause;
+        }
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        return new IOException(cause);
+    }
+}
@@ -82,4 +82,9 @@ public class LinkedEntityMetadataElementItemCompilePlugin implements XOAIExtensi
     public void setMapping(Map<String, Map<String, String>> mapping) {
         this.mapping = mapping;
     }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
 }
@@ -18,9 +18,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import javax.xml.stream.XMLStreamException;
 
@@ -32,12 +34,13 @@ import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
 import org.apache.commons.cli.DefaultParser;
 import org.apache.commons.cli.Options;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.SolrQuery.ORDER;
 import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentList;
 import org.apache.solr.common.SolrInputDocument;
 import org.dspace.authorize.ResourcePolicy;
@@ -99,7 +102,7 @@ public class XOAI {
 
     private List<XOAIExtensionItemCompilePlugin> extensionPlugins;
 
-    private List<String> getFileFormats(Item item) {
+    private List<String> getFileFormats(Context context, Item item) {
         List<String> formats = new ArrayList<>();
         try {
             for (Bundle b : itemService.getBundles(item, "ORIGINAL")) {
@@ -250,62 +253,69 @@ public class XOAI {
     }
 
     /**
-     * Check if an item is already indexed. Using this, it is possible to check
-     * if withdrawn or nondiscoverable items have to be indexed at all.
+     * Find which of the given items are already indexed and whether they are flagged visible, with one query.
+     * Using this, it is possible to check if withdrawn or nondiscoverable items have to be indexed at all.
      *
-     * @param item
-     *            Item that should be checked for its presence in the index.
-     * @return has it been indexed?
-     */
-    private boolean checkIfIndexed(Item item) throws IOException {
-        SolrQuery params = new SolrQuery("item.id:" + item.getID().toString()).addField("item.id");
-        try {
-            SolrDocumentList documents = DSpaceSolrSearch.query(solrServerResolver.getServer(), params);
-            return documents.getNumFound() == 1;
-        } catch (DSpaceSolrException | SolrServerException e) {
-            return false;
-        }
-    }
-     /**
-     * Check if an item is flagged visible in the index.
-     *
-     * @param item
-     *            Item that should be checked for its presence in the index.
-     * @return has it been indexed?
+     * @param ids
+     *            Items that should be checked for their presence in the index.
+     * @return the item.public flag of each indexed item, by item id
      */
-    private boolean checkIfVisibleInOAI(Item item) throws IOException {
-        SolrQuery params = new SolrQuery("item.id:" + item.getID().toString()).addField("item.public");
+    private Map<String, Boolean> findIndexedVisibility(List<UUID> ids) throws IOException {
+        Map<String, Boolean> visibility = new HashMap<>();
+        SolrQuery params = new SolrQuery("*:*")
+            .addFilterQuery("{!terms f=item.id}" + StringUtils.join(ids, ","))
+            .addField("item.id").addField("item.public").setRows(ids.size());
         try {
-            SolrDocumentList documents = DSpaceSolrSearch.query(solrServerResolver.getServer(), params);
-            if (documents.getNumFound() == 1) {
-                return (boolean) documents.get(0).getFieldValue("item.public");
-            } else {
-                return false;
+            for (SolrDocument document : DSpaceSolrSearch.query(solrServerResolver.getServer(), params)) {
+                visibility.put((String) document.getFieldValue("item.id"),
+                               Boolean.TRUE.equals(document.getFieldValue("item.public")));
             }
-        } catch (DSpaceSolrException | SolrServerException e) {
-            return false;
+        } catch (DSpaceSolrException e) {
+            // as if the items weren't indexed
+            log.error(e.getMessage(), e);
         }
+        return visibility;
     }
 
     private int index(Iterator<Item> iterator)
         throws DSpaceSolrIndexerException {
+        int batchSize = configurationService.getIntProperty("oai.import.batch.size", 1000);
+        int threads = configurationService.getIntProperty("oai.import.threads", 1);
+        if (threads > 1) {
+            for (XOAIExtensionItemCompilePlugin plugin : extensionPlugins) {
+                if (!plugin.isThreadSafe()) {
+                    log.warn("Compiling the items with a single thread, {} is not thread safe",
+                             plugin.getClass().getName());
+                    threads = 1;
+                }
+            }
+        }
+        IndexPipeline pipeline = new IndexPipeline(solrServerResolver.getServer(), context, threads) {
+            @Override
+            protected Map<String, Boolean> findIndexedVisibility(List<UUID> ids) throws IOException {
+                return XOAI.this.findIndexedVisibility(ids);
+            }
+
+            @Override
+            protected SolrInputDocument compile(Context context, UUID id, Map<String, Boolean> visibility) {
+                return XOAI.this.compile(context, id, visibility);
+            }
+        };
         try {
             int i = 0;
-            int batchSize = configurationService.getIntProperty("oai.import.batch.size", 1000);
-            SolrClient server = solrServerResolver.getServer();
-            ArrayList<SolrInputDocument> list = new ArrayList<>();
+            List<UUID> batch = new ArrayList<>();
             while (iterator.hasNext()) {
                 try {
                     Item item = iterator.next();
                     if (item.getHandle() == null) {
                         log.warn("Skipped item without handle: " + item.getID());
                     } else {
-                        list.add(this.index(item));
+                        batch.add(item.getID());
                     }
-                    //Uncache the item to keep memory consumption low
+                    //Uncache the item to keep memory consumption low, it is compiled from its id
                     context.uncacheEntity(item);
 
-                } catch (SQLException | IOException | XMLStreamException | WritingXmlException ex) {
+                } catch (SQLException ex) {
                     log.error(ex.getMessage(), ex);
                 }
                 i++;
@@ -314,22 +324,47 @@ public class XOAI {
                 }
                 if (i % batchSize == 0) {
                     System.out.println(i + " items imported so far...");
-                    server.add(list);
-                    server.commit();
-                    list.clear();
+                    pipeline.submit(batch);
+                    batch = new ArrayList<>();
                 }
             }
+            if (!batch.isEmpty()) {
+                pipeline.submit(batch);
+            }
+            pipeline.finish();
             System.out.println("Total: " + i + " items");
             if (i > 0) {
-                if (!list.isEmpty()) {
-                    server.add(list);
-                }
-                server.commit(true, true);
-                list.clear();
+                solrServerResolver.getServer().commit(true, true);
             }
             return i;
         } catch (SolrServerException | IOException ex) {
             throw new DSpaceSolrIndexerException(ex.getMessage(), ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new DSpaceSolrIndexerException(ex.getMessage(), ex);
+        } finally {
+            pipeline.shutdown();
+        }
+    }
+
+    /**
+     * Compile an item with the given context, as the Hibernate sessions are bound to threads.
+     *
+     * @return the document of the item, or null if it can't be compiled
+     */
+    private SolrInputDocument compile(Context context, UUID id, Map<String, Boolean> visibility) {
+        try {
+            Item item = itemService.find(context, id);
+            if (item == null) {
+                return null;
+            }
+            SolrInputDocument document = this.index(context, item, visibility);
+            //Uncache the item to keep memory consumption low
+            context.uncacheEntity(item);
+            return document;
+        } catch (SQLException | IOException | XMLStreamException | WritingXmlException ex) {
+            log.error(ex.getMessage(), ex);
+            return null;
         }
     }
 
@@ -343,7 +378,7 @@ public class XOAI {
      * @return date
      * @throws SQLException
      */
-    private Date getMostRecentModificationDate(Item item) throws SQLException {
+    private Date getMostRecentModificationDate(Context context, Item item) throws SQLException {
         List<Date> dates = new LinkedList<>();
         List<ResourcePolicy> policies = authorizeService.getPoliciesActionFilter(context, item, Constants.READ);
         for (ResourcePolicy policy : policies) {
@@ -369,7 +404,7 @@ public class XOAI {
         return lastChange;
     }
 
-    private SolrInputDocument index(Item item)
+    private SolrInputDocument index(Context context, Item item, Map<String, Boolean> indexedVisibility)
             throws SQLException, IOException, XMLStreamException, WritingXmlException {
         SolrInputDocument doc = new SolrInputDocument();
         doc.addField("item.id", item.getID().toString());
@@ -377,9 +412,9 @@ public class XOAI {
         String handle = item.getHandle();
         doc.addField("item.handle", handle);
 
-        boolean isEmbargoed = !this.isPublic(item);
-        boolean isCurrentlyVisible = this.checkIfVisibleInOAI(item);
-        boolean isIndexed = this.checkIfIndexed(item);
+        boolean isEmbargoed = !this.isPublic(context, item);
+        boolean isCurrentlyVisible = Boolean.TRUE.equals(indexedVisibility.get(item.getID().toString()));
+        boolean isIndexed = indexedVisibility.containsKey(item.getID().toString());
 
         /*
          * If the item is not under embargo, it should be visible. If it is,
@@ -401,7 +436,7 @@ public class XOAI {
         // if the visibility of the item will change in the future due to an
         // embargo, mark it as such.
 
-        doc.addField("item.willChangeStatus", willChangeStatus(item));
+        doc.addField("item.willChangeStatus", willChangeStatus(context, item));
 
         /*
          * Mark an item as deleted not only if it is withdrawn, but also if it
@@ -424,7 +459,7 @@ public class XOAI {
          * most recent of those which have already passed.
          */
         doc.addField("item.lastmodified", SolrUtils.getDateFormatter()
-                .format(this.getMostRecentModificationDate(item)));
+                .format(this.getMostRecentModificationDate(context, item)));
 
         if (item.getSubmitter() != null) {
             doc.addField("item.submitter", item.getSubmitter().getEmail());
@@ -451,7 +486,7 @@ public class XOAI {
             }
         }
 
-        for (String f : getFileFormats(item)) {
+        for (String f : getFileFormats(context, item)) {
             doc.addField("metadata.dc.format.mimetype", f);
         }
 
@@ -483,7 +518,7 @@ public class XOAI {
         return doc;
     }
 
-    private boolean willChangeStatus(Item item) throws SQLException {
+    private boolean willChangeStatus(Context context, Item item) throws SQLException {
         List<ResourcePolicy> policies = authorizeService.getPoliciesActionFilter(context, item, Constants.READ);
         for (ResourcePolicy policy : policies) {
             if ((policy.getGroup() != null) && (policy.getGroup().getName().equals("Anonymous"))) {
@@ -499,7 +534,7 @@ public class XOAI {
         return false;
     }
 
-    private boolean isPublic(Item item) {
+    private boolean isPublic(Context context, Item item) {
         boolean pub = false;
         try {
             // Check if READ access allowed on this Item
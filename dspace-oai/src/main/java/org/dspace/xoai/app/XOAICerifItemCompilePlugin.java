@@ -113,4 +113,9 @@ public class XOAICerifItemCompilePlugin implements XOAIExtensionItemCompilePlugi
         }
         return metadata;
     }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
 }
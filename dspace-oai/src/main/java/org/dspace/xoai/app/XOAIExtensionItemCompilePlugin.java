@@ -32,4 +32,15 @@ public interface XOAIExtensionItemCompilePlugin {
      */
     public Metadata additionalMetadata(Context context, Metadata metadata, Item item);
 
+    /**
+     * Whether {@link #additionalMetadata(Context, Metadata, Item)} can be called by several threads at once,
+     * each with its own context. The items are only compiled in parallel (<code>oai.import.threads</code>) if
+     * all the plugins are thread safe.
+     *
+     * @return true if the plugin can be used by several threads at once
+     */
+    public default boolean isThreadSafe() {
+        return false;
+    }
+
 }
@@ -39,6 +39,7 @@ import org.dspace.xoai.services.api.xoai.IdentifyResolver;
 import org.dspace.xoai.services.api.xoai.ItemRepositoryResolver;
 import org.dspace.xoai.services.api.xoai.SetRepositoryResolver;
 import org.dspace.xoai.services.impl.xoai.DSpaceResumptionTokenFormatter;
+import org.dspace.xoai.services.impl.xoai.ResumptionCursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Controller;
@@ -152,6 +153,7 @@ public class DSpaceOAIDataProvider {
             response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
                                "Unexpected error while writing the output. For more information visit the log files.");
         } finally {
+            ResumptionCursor.clear();
             closeContext(context);
         }
 
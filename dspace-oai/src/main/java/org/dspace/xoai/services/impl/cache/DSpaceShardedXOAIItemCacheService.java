@@ -0,0 +1,210 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.xoai.services.impl.cache;
+
+import static org.apache.commons.io.FileUtils.deleteDirectory;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+import com.lyncode.xoai.dataprovider.xml.xoai.Element;
+import com.lyncode.xoai.dataprovider.xml.xoai.Metadata;
+import org.dspace.content.Item;
+import org.dspace.xoai.services.api.cache.XOAIItemCacheService;
+import org.dspace.xoai.services.api.config.ConfigurationService;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Item cache storing the compiled metadata of each item in a compact binary file, compressed with deflate, instead
+ * of an XML file. The files are spread over two levels of 256 directories, chosen by a hash of the item handle, so
+ * that no directory holds more than a few entries even with millions of items. Files are read through a memory
+ * mapping and written atomically, so that a reader never sees a partially written entry.
+ */
+public class DSpaceShardedXOAIItemCacheService implements XOAIItemCacheService {
+    private static final String ITEMDIR = File.separator + "items-sharded";
+
+    private static final int MAGIC = 0x584f4149;
+
+    private static final byte VERSION = 1;
+
+    /**
+     * Magic number, version and length of the uncompressed data
+     */
+    private static final int HEADER_LENGTH = 9;
+
+    @Autowired
+    ConfigurationService configurationService;
+
+    private String baseDir;
+
+    private String getBaseDir() {
+        if (baseDir == null) {
+            baseDir = configurationService.getProperty("oai", "cache.dir") + ITEMDIR;
+        }
+        return baseDir;
+    }
+
+    private Path getMetadataCache(Item item) {
+        String handle = item.getHandle();
+        int hash = handle.hashCode();
+        // spread the similar handles of a repository over all the shards
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return Paths.get(getBaseDir(), String.format("%02x", (hash >>> 8) & 0xff), String.format("%02x", hash & 0xff),
+                         handle.replace('/', '_'));
+    }
+
+    @Override
+    public boolean hasCache(Item item) {
+        return Files.exists(getMetadataCache(item));
+    }
+
+    @Override
+    public Metadata get(Item item) throws IOException {
+        Path file = getMetadataCache(item);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_LENGTH || buffer.getInt() != MAGIC || buffer.get() != VERSION) {
+                throw new IOException("Invalid OAI item cache file " + file);
+            }
+            byte[] data = new byte[buffer.getInt()];
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(buffer);
+                int length = 0;
+                while (length < data.length) {
+                    int inflated = inflater.inflate(data, length, data.length - length);
+                    if (inflated == 0 && (inflater.finished() || inflater.needsInput())) {
+                        throw new IOException("Truncated OAI item cache file " + file);
+                    }
+                    length += inflated;
+                }
+            } catch (DataFormatException e) {
+                throw new IOException(e);
+            } finally {
+                inflater.end();
+            }
+            Metadata metadata = new Metadata();
+            readElements(new DataInputStream(new ByteArrayInputStream(data)), metadata.getElement());
+            return metadata;
+        }
+    }
+
+    @Override
+    public void put(Item item, Metadata metadata) throws IOException {
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(data);
+        writeElements(output, metadata.getElement());
+        output.flush();
+
+        Path file = getMetadataCache(item);
+        Files.createDirectories(file.getParent());
+        Path temporary = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream header = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                header.writeInt(MAGIC);
+                header.writeByte(VERSION);
+                header.writeInt(data.size());
+                DeflaterOutputStream deflater = new DeflaterOutputStream(header);
+                data.writeTo(deflater);
+                deflater.finish();
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    @Override
+    public void delete(Item item) {
+        try {
+            Files.deleteIfExists(getMetadataCache(item));
+        } catch (IOException e) {
+            // as File.delete, a failure leaves the entry in place
+        }
+    }
+
+    @Override
+    public void deleteAll() throws IOException {
+        deleteDirectory(new File(getBaseDir()));
+    }
+
+    private static void writeElements(DataOutputStream output, List<Element> elements) throws IOException {
+        output.writeInt(elements.size());
+        for (Element element : elements) {
+            writeString(output, element.getName());
+            output.writeInt(element.getField().size());
+            for (Element.Field field : element.getField()) {
+                writeString(output, field.getName());
+                writeString(output, field.getValue());
+            }
+            writeElements(output, element.getElement());
+        }
+    }
+
+    private static void readElements(DataInputStream input, List<Element> elements) throws IOException {
+        int count = input.readInt();
+        for (int i = 0; i < count; i++) {
+            Element element = new Element();
+            element.setName(readString(input));
+            int fields = input.readInt();
+            for (int j = 0; j < fields; j++) {
+                Element.Field field = new Element.Field();
+                field.setName(readString(input));
+                field.setValue(readString(input));
+                element.getField().add(field);
+            }
+            readElements(input, element.getElement());
+            elements.add(element);
+        }
+    }
+
+    /**
+     * Unlike {@link DataOutputStream#writeUTF(String)}, supports null and values longer than 64KB.
+     */
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        if (value == null) {
+            output.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        }
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -26,8 +26,10 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.params.CursorMarkParams;
 import org.dspace.xoai.data.DSpaceSolrItem;
 import org.dspace.xoai.services.api.CollectionsService;
 import org.dspace.xoai.services.api.HandleResolver;
@@ -104,14 +106,26 @@ public class DSpaceItemSolrRepository extends DSpaceItemRepository {
             throws DSpaceSolrException, IOException {
         List<Item> list = new ArrayList<>();
         SolrQuery params = new SolrQuery(solrQueryResolver.buildQuery(filters))
-            .setRows(length)
-            .setStart(offset);
-        SolrDocumentList solrDocuments = DSpaceSolrSearch.query(server, params);
+            .setRows(length);
+        String cursorMark = offset == 0 ? CursorMarkParams.CURSOR_MARK_START : ResumptionCursor.takeParsed(offset);
+        SolrDocumentList solrDocuments;
+        String nextCursorMark = null;
+        if (cursorMark != null) {
+            QueryResponse response = DSpaceSolrSearch.queryAfter(server, params, cursorMark);
+            solrDocuments = response.getResults();
+            nextCursorMark = response.getNextCursorMark();
+        } else {
+            // resumption token issued before the cursors
+            solrDocuments = DSpaceSolrSearch.query(server, params.setStart(offset));
+        }
         for (SolrDocument doc : solrDocuments) {
             list.add(new DSpaceSolrItem(doc));
         }
-        return new QueryResult(list, (solrDocuments.getNumFound() > offset + length),
-                               (int) solrDocuments.getNumFound());
+        boolean hasMore = solrDocuments.getNumFound() > offset + length;
+        if (hasMore && nextCursorMark != null && !nextCursorMark.equals(cursorMark)) {
+            ResumptionCursor.setNext(offset + length, nextCursorMark);
+        }
+        return new QueryResult(list, hasMore, (int) solrDocuments.getNumFound());
     }
 
     private class QueryResult {
@@ -31,7 +31,7 @@ public class DSpaceResumptionTokenFormatter implements ResumptionTokenFormatter
             return new ResumptionToken();
         }
         String[] res = resumptionToken.split("/", -1);
-        if (res.length != 5) {
+        if (res.length != 5 && res.length != 6) {
             throw new BadResumptionToken();
         } else {
             try {
@@ -40,6 +40,8 @@ public class DSpaceResumptionTokenFormatter implements ResumptionTokenFormatter
                 String set = (res[3].equals("")) ? null : res[3];
                 Date from = (res[1].equals("")) ? null : DateUtils.parse(res[1]);
                 Date until = res[2].equals("") ? null : DateUtils.parse(res[2]);
+                // the Solr cursor mark of the page, missing in the tokens issued before the cursors
+                ResumptionCursor.setParsed(offset, res.length == 6 && !res[5].equals("") ? fromToken(res[5]) : null);
                 return new ResumptionToken(offset, prefix, set, from, until);
             } catch (Exception e) {
                 log.error(e.getMessage(), e);
@@ -69,7 +71,22 @@ public class DSpaceResumptionTokenFormatter implements ResumptionTokenFormatter
         }
         result += "/";
         result += resumptionToken.getOffset();
+        String cursorMark = ResumptionCursor.takeNext(resumptionToken.getOffset());
+        if (cursorMark != null) {
+            result += "/" + toToken(cursorMark);
+        }
         return result;
     }
 
+    /**
+     * Cursor marks are base64 encoded, so their slashes are replaced with a character out of the base64 alphabet.
+     */
+    private static String toToken(String cursorMark) {
+        return cursorMark.replace('/', '_').replace('+', '-');
+    }
+
+    private static String fromToken(String token) {
+        return token.replace('_', '/').replace('-', '+');
+    }
+
 }
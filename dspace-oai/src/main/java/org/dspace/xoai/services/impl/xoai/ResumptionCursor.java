@@ -0,0 +1,65 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.xoai.services.impl.xoai;
+
+import org.apache.commons.lang3.tuple.Pair;
+
+/**
+ * Carries the Solr cursor marks of a list request between the {@link DSpaceResumptionTokenFormatter} and the
+ * {@link DSpaceItemSolrRepository}, as the XOAI resumption token only holds an offset: the cursor parsed from the
+ * request token is taken by the repository, which sets the cursor of the next page for the formatter of the
+ * response token. A request is handled by a single thread, so the cursors are bound to the thread, and only used
+ * for the offset they have been recorded with. The controller clears them at the end of each request, so that the
+ * cursors left by a failed request are not kept by the pooled thread.
+ */
+public final class ResumptionCursor {
+
+    private static final ThreadLocal<Pair<Integer, String>> PARSED = new ThreadLocal<>();
+
+    private static final ThreadLocal<Pair<Integer, String>> NEXT = new ThreadLocal<>();
+
+    private ResumptionCursor() { }
+
+    /**
+     * Clear the cursors of the current thread, at the end of a request.
+     */
+    public static void clear() {
+        PARSED.remove();
+        NEXT.remove();
+    }
+
+    static void setParsed(int offset, String cursorMark) {
+        set(PARSED, offset, cursorMark);
+    }
+
+    static String takeParsed(int offset) {
+        return take(PARSED, offset);
+    }
+
+    static void setNext(int offset, String cursorMark) {
+        set(NEXT, offset, cursorMark);
+    }
+
+    static String takeNext(int offset) {
+        return take(NEXT, offset);
+    }
+
+    private static void set(ThreadLocal<Pair<Integer, String>> cursor, int offset, String cursorMark) {
+        if (cursorMark == null) {
+            cursor.remove();
+        } else {
+            cursor.set(Pair.of(offset, cursorMark));
+        }
+    }
+
+    private static String take(ThreadLocal<Pair<Integer, String>> cursor, int offset) {
+        Pair<Integer, String> value = cursor.get();
+        cursor.remove();
+        return value != null && value.getLeft() == offset ? value.getRight() : null;
+    }
+}
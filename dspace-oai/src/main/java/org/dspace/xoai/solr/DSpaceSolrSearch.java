@@ -17,6 +17,7 @@ import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.params.CursorMarkParams;
 import org.dspace.xoai.solr.exceptions.DSpaceSolrException;
 import org.dspace.xoai.solr.exceptions.SolrSearchEmptyException;
 
@@ -41,6 +42,28 @@ public class DSpaceSolrSearch {
         }
     }
 
+    /**
+     * Query a page of documents after the given cursor mark, sorted by last modification date and handle, the unique
+     * key of the OAI core, as required by Solr for cursors. Unlike offsets, the cost of a page after a cursor does
+     * not grow with the number of the documents before it.
+     *
+     * @param server     the OAI core
+     * @param solrParams the query, with the rows of the page
+     * @param cursorMark the cursor mark of the page, {@link CursorMarkParams#CURSOR_MARK_START} for the first one
+     * @return the response, holding the cursor mark of the next page
+     */
+    public static QueryResponse queryAfter(SolrClient server, SolrQuery solrParams, String cursorMark)
+        throws DSpaceSolrException, IOException {
+        try {
+            solrParams.addSort("item.lastmodified", ORDER.asc);
+            solrParams.addSort("item.handle", ORDER.asc);
+            solrParams.set(CursorMarkParams.CURSOR_MARK_PARAM, cursorMark);
+            return server.query(solrParams);
+        } catch (SolrServerException ex) {
+            throw new DSpaceSolrException(ex.getMessage(), ex);
+        }
+    }
+
     public static SolrDocument querySingle(SolrClient server, SolrQuery solrParams)
         throws SolrSearchEmptyException, IOException {
         try {
@@ -0,0 +1,160 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.xoai.tests.unit.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.SolrInputDocument;
+import org.dspace.core.Context;
+import org.dspace.xoai.app.IndexPipeline;
+import org.junit.Test;
+
+public class IndexPipelineTest {
+
+    private final SolrClient server = mock(SolrClient.class);
+    private final Context workerContext = mock(Context.class);
+
+    /**
+     * @param blocked the items whose compilation starts by counting down started, then waits for release
+     */
+    private IndexPipeline pipeline(int threads, Set<UUID> blocked, CountDownLatch started, CountDownLatch release,
+                                   AtomicInteger compiled) {
+        return new IndexPipeline(server, mock(Context.class), threads) {
+            private final Random random = new Random();
+
+            @Override
+            protected Map<String, Boolean> findIndexedVisibility(List<UUID> ids) {
+                return Collections.emptyMap();
+            }
+
+            @Override
+            protected SolrInputDocument compile(Context context, UUID id, Map<String, Boolean> visibility) {
+                try {
+                    if (blocked.contains(id)) {
+                        started.countDown();
+                        release.await(10, TimeUnit.SECONDS);
+                    } else {
+                        Thread.sleep(random.nextInt(3));
+                    }
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                compiled.incrementAndGet();
+                SolrInputDocument document = new SolrInputDocument();
+                document.addField("item.id", id.toString());
+                return document;
+            }
+
+            @Override
+            protected Context createWorkerContext() {
+                return workerContext;
+            }
+        };
+    }
+
+    private static List<UUID> ids(int count) {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(UUID.randomUUID());
+        }
+        return ids;
+    }
+
+    @Test
+    public void testBatchesAreWrittenInOrder() throws Exception {
+        List<String> written = Collections.synchronizedList(new ArrayList<>());
+        when(server.add(anyCollection())).thenAnswer(invocation -> {
+            Collection<SolrInputDocument> documents = invocation.getArgument(0);
+            for (SolrInputDocument document : documents) {
+                written.add((String) document.getFieldValue("item.id"));
+            }
+            return null;
+        });
+        IndexPipeline pipeline = pipeline(4, Collections.emptySet(), null, null, new AtomicInteger());
+        List<String> expected = new ArrayList<>();
+        try {
+            for (int batch = 0; batch < 5; batch++) {
+                List<UUID> ids = ids(20);
+                ids.forEach(id -> expected.add(id.toString()));
+                pipeline.submit(ids);
+            }
+            pipeline.finish();
+        } finally {
+            pipeline.shutdown();
+        }
+
+        assertEquals(expected, written);
+        verify(server, times(5)).commit();
+        // each worker closes its own context
+        verify(workerContext, times(4)).abort();
+    }
+
+    @Test
+    public void testQueuedItemsAreNotCompiledAfterAFailure() throws Exception {
+        CountDownLatch secondBatchQueued = new CountDownLatch(1);
+        when(server.add(anyCollection())).thenAnswer(invocation -> {
+            secondBatchQueued.await(10, TimeUnit.SECONDS);
+            throw new SolrServerException("Server down");
+        });
+        List<UUID> secondBatch = ids(10);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger compiled = new AtomicInteger();
+        IndexPipeline pipeline = pipeline(2, new HashSet<>(secondBatch), started, release, compiled);
+        try {
+            pipeline.submit(ids(1));
+            pipeline.submit(secondBatch);
+            // both workers are compiling an item of the second batch when the first one fails to be written
+            started.await(10, TimeUnit.SECONDS);
+            secondBatchQueued.countDown();
+            try {
+                pipeline.finish();
+                fail("The failed write should be reported");
+            } catch (SolrServerException e) {
+                // expected
+            }
+            release.countDown();
+            try {
+                pipeline.submit(ids(1));
+                fail("No batch should be accepted after a failure");
+            } catch (SolrServerException e) {
+                // expected
+            }
+        } finally {
+            pipeline.shutdown();
+        }
+
+        // the first batch and the two items of the second one being compiled when the write failed
+        assertEquals(3, compiled.get());
+        verify(server, times(1)).add(anyCollection());
+        verify(server, never()).commit();
+        verify(workerContext, times(2)).abort();
+    }
+}
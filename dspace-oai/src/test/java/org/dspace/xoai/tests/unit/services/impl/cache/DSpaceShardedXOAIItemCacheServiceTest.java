@@ -0,0 +1,133 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.xoai.tests.unit.services.impl.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+
+import com.lyncode.xoai.dataprovider.xml.xoai.Element;
+import com.lyncode.xoai.dataprovider.xml.xoai.Metadata;
+import org.apache.commons.lang3.StringUtils;
+import org.dspace.content.Item;
+import org.dspace.xoai.services.api.config.ConfigurationService;
+import org.dspace.xoai.services.impl.cache.DSpaceShardedXOAIItemCacheService;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class DSpaceShardedXOAIItemCacheServiceTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final DSpaceShardedXOAIItemCacheService underTest = new DSpaceShardedXOAIItemCacheService();
+
+    @Before
+    public void setUp() {
+        ConfigurationService configurationService = mock(ConfigurationService.class);
+        when(configurationService.getProperty("oai", "cache.dir")).thenReturn(folder.getRoot().getAbsolutePath());
+        ReflectionTestUtils.setField(underTest, "configurationService", configurationService);
+    }
+
+    private Item item(String handle) {
+        Item item = mock(Item.class);
+        when(item.getHandle()).thenReturn(handle);
+        return item;
+    }
+
+    private static Element element(String name) {
+        Element element = new Element();
+        element.setName(name);
+        return element;
+    }
+
+    private static Element.Field field(String name, String value) {
+        Element.Field field = new Element.Field();
+        field.setName(name);
+        field.setValue(value);
+        return field;
+    }
+
+    private Metadata metadata(String title) {
+        Element value = element("none");
+        value.getField().add(field("value", title));
+        value.getField().add(field("authority", null));
+        Element element = element("title");
+        element.getElement().add(value);
+        Element schema = element("dc");
+        schema.getElement().add(element);
+        Metadata metadata = new Metadata();
+        metadata.getElement().add(schema);
+        return metadata;
+    }
+
+    @Test
+    public void putAndGet() throws Exception {
+        Item item = item("123456789/1");
+        String title = "A title \u00e8 " + StringUtils.repeat("long ", 20000);
+        assertFalse(underTest.hasCache(item));
+
+        underTest.put(item, metadata(title));
+
+        assertTrue(underTest.hasCache(item));
+        Metadata metadata = underTest.get(item);
+        Element schema = metadata.getElement().get(0);
+        assertEquals("dc", schema.getName());
+        Element value = schema.getElement().get(0).getElement().get(0);
+        assertEquals("none", value.getName());
+        assertEquals(title, value.getField().get(0).getValue());
+        assertEquals("authority", value.getField().get(1).getName());
+        assertNull(value.getField().get(1).getValue());
+    }
+
+    @Test
+    public void putReplacesTheEntry() throws Exception {
+        Item item = item("123456789/2");
+        underTest.put(item, metadata("first"));
+        underTest.put(item, metadata("second"));
+
+        assertEquals("second", underTest.get(item).getElement().get(0).getElement().get(0).getElement().get(0)
+                                          .getField().get(0).getValue());
+    }
+
+    @Test
+    public void entriesAreSharded() throws Exception {
+        underTest.put(item("123456789/3"), metadata("title"));
+
+        File base = new File(folder.getRoot(), "items-sharded");
+        File[] shards = base.listFiles();
+        assertEquals(1, shards.length);
+        assertEquals(2, shards[0].getName().length());
+        File[] files = shards[0].listFiles()[0].listFiles();
+        assertEquals(1, files.length);
+        assertEquals("123456789_3", files[0].getName());
+    }
+
+    @Test
+    public void deleteAndDeleteAll() throws Exception {
+        Item first = item("123456789/4");
+        Item second = item("123456789/5");
+        underTest.put(first, metadata("first"));
+        underTest.put(second, metadata("second"));
+
+        underTest.delete(first);
+        assertFalse(underTest.hasCache(first));
+        assertTrue(underTest.hasCache(second));
+
+        underTest.deleteAll();
+        assertFalse(underTest.hasCache(second));
+    }
+}
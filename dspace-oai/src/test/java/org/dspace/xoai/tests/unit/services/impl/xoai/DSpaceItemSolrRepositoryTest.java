@@ -0,0 +1,149 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.xoai.tests.unit.services.impl.xoai;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import com.lyncode.xoai.dataprovider.core.ListItemsResults;
+import com.lyncode.xoai.dataprovider.core.ResumptionToken;
+import com.lyncode.xoai.dataprovider.filter.ScopedFilter;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.CursorMarkParams;
+import org.apache.solr.common.params.SolrParams;
+import org.dspace.xoai.services.api.CollectionsService;
+import org.dspace.xoai.services.api.HandleResolver;
+import org.dspace.xoai.services.api.solr.SolrQueryResolver;
+import org.dspace.xoai.services.impl.xoai.DSpaceItemSolrRepository;
+import org.dspace.xoai.services.impl.xoai.DSpaceResumptionTokenFormatter;
+import org.dspace.xoai.services.impl.xoai.ResumptionCursor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class DSpaceItemSolrRepositoryTest {
+
+    private static final int TOTAL = 5;
+
+    private static final String SECOND_PAGE = "AoJ4/2Qw+a==";
+
+    private static final String THIRD_PAGE = "AoJ5/0Rx+b==";
+
+    private final SolrClient server = mock(SolrClient.class);
+
+    private final SolrQueryResolver solrQueryResolver = mock(SolrQueryResolver.class);
+
+    private final List<ScopedFilter> filters = Collections.emptyList();
+
+    private final DSpaceResumptionTokenFormatter formatter = new DSpaceResumptionTokenFormatter();
+
+    private DSpaceItemSolrRepository underTest;
+
+    @Before
+    public void setUp() {
+        when(solrQueryResolver.buildQuery(filters)).thenReturn("*:*");
+        underTest = new DSpaceItemSolrRepository(server, mock(CollectionsService.class), mock(HandleResolver.class),
+                                                 solrQueryResolver);
+    }
+
+    @After
+    public void tearDown() {
+        ResumptionCursor.clear();
+    }
+
+    @Test
+    public void cursorIsFollowedAcrossPages() throws Exception {
+        when(server.query(any(SolrParams.class))).thenReturn(response(SECOND_PAGE, "1", "2"),
+                                                             response(THIRD_PAGE, "3", "4"));
+
+        // first page, from the start of the cursor
+        ListItemsResults results = underTest.getItems(filters, 0, 2);
+        assertEquals(2, results.getResults().size());
+        assertTrue(results.hasMore());
+        String token = formatter.format(new ResumptionToken(2, "oai_dc", null, null, null));
+        assertEquals("oai_dc////2/AoJ4_2Qw-a==", token);
+
+        // second page, from the cursor of the token
+        ResumptionToken parsed = formatter.parse(token);
+        results = underTest.getItems(filters, parsed.getOffset(), 2);
+        assertEquals(new Date(3000L), results.getResults().get(0).getDatestamp());
+        assertEquals("oai_dc////4/AoJ5_0Rx-b==",
+                     formatter.format(new ResumptionToken(4, "oai_dc", null, null, null)));
+
+        ArgumentCaptor<SolrParams> params = ArgumentCaptor.forClass(SolrParams.class);
+        verify(server, times(2)).query(params.capture());
+        assertEquals(CursorMarkParams.CURSOR_MARK_START,
+                     params.getAllValues().get(0).get(CursorMarkParams.CURSOR_MARK_PARAM));
+        assertEquals(SECOND_PAGE, params.getAllValues().get(1).get(CursorMarkParams.CURSOR_MARK_PARAM));
+        assertNull(params.getAllValues().get(1).get(CommonParams.START));
+        assertEquals("2", params.getAllValues().get(1).get(CommonParams.ROWS));
+    }
+
+    @Test
+    public void tokenWithoutCursorIsPagedByOffset() throws Exception {
+        when(server.query(any(SolrParams.class))).thenReturn(response(null, "3", "4"));
+
+        ResumptionToken parsed = formatter.parse("oai_dc////2");
+        ListItemsResults results = underTest.getItems(filters, parsed.getOffset(), 2);
+        assertEquals(2, results.getResults().size());
+        assertTrue(results.hasMore());
+        // no cursor came back with the page, so the next token only holds the offset
+        assertEquals("oai_dc////4", formatter.format(new ResumptionToken(4, "oai_dc", null, null, null)));
+
+        ArgumentCaptor<SolrParams> params = ArgumentCaptor.forClass(SolrParams.class);
+        verify(server).query(params.capture());
+        assertNull(params.getValue().get(CursorMarkParams.CURSOR_MARK_PARAM));
+        assertEquals("2", params.getValue().get(CommonParams.START));
+        assertEquals("2", params.getValue().get(CommonParams.ROWS));
+    }
+
+    @Test
+    public void cursorOfAnotherOffsetIsIgnored() throws Exception {
+        when(server.query(any(SolrParams.class))).thenReturn(response(null, "3", "4"));
+
+        // the page of the token is asked at another offset than the one of its cursor
+        formatter.parse("oai_dc////2/AoJ4_2Qw-a==");
+        underTest.getItems(filters, 4, 2);
+
+        ArgumentCaptor<SolrParams> params = ArgumentCaptor.forClass(SolrParams.class);
+        verify(server).query(params.capture());
+        assertNull(params.getValue().get(CursorMarkParams.CURSOR_MARK_PARAM));
+        assertEquals("4", params.getValue().get(CommonParams.START));
+    }
+
+    private static QueryResponse response(String nextCursorMark, String... ids) {
+        SolrDocumentList documents = new SolrDocumentList();
+        documents.setNumFound(TOTAL);
+        for (String id : ids) {
+            SolrDocument document = new SolrDocument();
+            document.setField("item.handle", "123456789/" + id);
+            document.setField("item.lastmodified", new Date(Long.parseLong(id) * 1000L));
+            document.setField("item.deleted", Boolean.FALSE);
+            documents.add(document);
+        }
+        QueryResponse response = mock(QueryResponse.class);
+        when(response.getResults()).thenReturn(documents);
+        when(response.getNextCursorMark()).thenReturn(nextCursorMark);
+        return response;
+    }
+}
@@ -0,0 +1,46 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.xoai.tests.unit.services.impl.xoai;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import com.lyncode.xoai.dataprovider.core.ResumptionToken;
+import com.lyncode.xoai.dataprovider.exceptions.BadResumptionToken;
+import org.dspace.xoai.services.impl.xoai.DSpaceResumptionTokenFormatter;
+import org.junit.Test;
+
+public class DSpaceResumptionTokenFormatterTest {
+
+    private final DSpaceResumptionTokenFormatter underTest = new DSpaceResumptionTokenFormatter();
+
+    @Test
+    public void parseTokenWithoutCursor() throws Exception {
+        ResumptionToken token = underTest.parse("oai_dc///col_123456789_1/100");
+
+        assertEquals(100, token.getOffset());
+        assertEquals("oai_dc", token.getMetadataPrefix());
+        assertEquals("col_123456789_1", token.getSet());
+        assertFalse(token.hasFrom());
+        assertEquals("oai_dc///col_123456789_1/100", underTest.format(token));
+    }
+
+    @Test
+    public void parseTokenWithCursor() throws Exception {
+        ResumptionToken token = underTest.parse("oai_dc////100/AoJ4_2Qw-a==");
+
+        assertEquals(100, token.getOffset());
+        assertEquals("oai_dc", token.getMetadataPrefix());
+        assertFalse(token.hasSet());
+    }
+
+    @Test(expected = BadResumptionToken.class)
+    public void parseInvalidToken() throws Exception {
+        underTest.parse("oai_dc////100/cursor/other");
+    }
+}
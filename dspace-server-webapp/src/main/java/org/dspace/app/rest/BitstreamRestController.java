@@ -11,6 +11,7 @@ import static org.dspace.app.rest.utils.ContextUtil.obtainContext;
 import static org.dspace.app.rest.utils.RegexUtils.REGEX_REQUESTMAPPING_IDENTIFIER_AS_UUID;
 import static org.springframework.web.bind.annotation.RequestMethod.PUT;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.sql.SQLException;
@@ -44,6 +45,8 @@ import org.dspace.usage.UsageEvent;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.rest.webmvc.ResourceNotFoundException;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PostAuthorize;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -78,6 +81,12 @@ public class BitstreamRestController {
     //Most file systems are configured to use block sizes of 4096 or 8192 and our buffer should be a multiple of that.
     private static final int BUFFER_SIZE = 4096 * 10;
 
+    // request attributes of the sendfile support of Tomcat, see org.apache.coyote.Constants
+    private static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
     @Autowired
     private BitstreamService bitstreamService;
 
@@ -118,7 +127,19 @@ public class BitstreamRestController {
         String mimetype = format.getMIMEType();
         String name = getBitstreamName(bit, format);
 
-        Pair<InputStream, Long> bitstreamTuple = getBitstreamInputStreamAndSize(context, bit);
+        HttpRange range = getSingleRange(context, bit, request.getHeader(HttpHeaders.RANGE));
+        // multiple or unsatisfiable ranges are left to Spring, that needs the stream
+        File localFile = range != null || StringUtils.isBlank(request.getHeader(HttpHeaders.RANGE))
+            ? getSendfile(context, bit, request) : null;
+        Pair<InputStream, Long> bitstreamTuple;
+        if (localFile != null) {
+            // the container sends the file itself, there is no need to open it here
+            bitstreamTuple = Pair.of(null, bit.getSizeBytes());
+        } else if (range != null) {
+            bitstreamTuple = getBitstreamRangeAndSize(context, bit, range);
+        } else {
+            bitstreamTuple = getBitstreamInputStreamAndSize(context, bit);
+        }
 
         if (StringUtils.isBlank(request.getHeader("Range"))) {
             //We only log a download request when serving a request without Range header. This is because
@@ -134,8 +155,8 @@ public class BitstreamRestController {
         // Pipe the bits
         InputStream is = bitstreamTuple.getLeft();
         try {
-            HttpHeadersInitializer httpHeadersInitializer = HttpHeadersInitializer
-                    .fromInputStream(is)
+            HttpHeadersInitializer httpHeadersInitializer = (localFile != null
+                    ? HttpHeadersInitializer.fromFile(localFile) : HttpHeadersInitializer.fromInputStream(is))
                     .withBufferSize(BUFFER_SIZE)
                     .withFileName(name)
                     .withLength(bitstreamTuple.getRight())
@@ -155,8 +176,10 @@ public class BitstreamRestController {
             }
 
 
+            long contentLength = range != null ? range.getRangeEnd(bit.getSizeBytes())
+                - range.getRangeStart(bit.getSizeBytes()) + 1 : bit.getSizeBytes();
             org.dspace.app.rest.utils.BitstreamResource bitstreamResource =
-                new org.dspace.app.rest.utils.BitstreamResource(is, name, uuid, bit.getSizeBytes());
+                new org.dspace.app.rest.utils.BitstreamResource(is, name, uuid, contentLength);
 
             //We have all the data we need, close the connection to the database so that it doesn't stay open during
             //download/streaming
@@ -165,6 +188,18 @@ public class BitstreamRestController {
             //Send the data
             if (httpHeadersInitializer.isValid()) {
                 HttpHeaders httpHeaders = httpHeadersInitializer.initialiseHeaders();
+                if (localFile != null) {
+                    return sendfile(request, localFile, range, bit.getSizeBytes(), httpHeaders);
+                }
+                if (range != null) {
+                    //The requested range has already been read from the assetstore, send it as it is
+                    if (httpHeaders != null) {
+                        httpHeaders.set(HttpHeaders.CONTENT_RANGE, "bytes " + range.getRangeStart(bit.getSizeBytes())
+                            + "-" + range.getRangeEnd(bit.getSizeBytes()) + "/" + bit.getSizeBytes());
+                    }
+                    return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT).headers(httpHeaders)
+                                         .body(bitstreamResource);
+                }
                 return ResponseEntity.ok().headers(httpHeaders).body(bitstreamResource);
             }
 
@@ -175,6 +210,53 @@ public class BitstreamRestController {
         return null;
     }
 
+    /**
+     * Find the local file of the requested bitstream when it can be handed to the servlet container, that will
+     * send it with sendfile (zero-copy) instead of copying it through the heap. This is only possible for GET
+     * requests served by a connector that supports sendfile, for bitstreams of a local assetstore that are
+     * not served with a citation page. It can be disabled with the bitstream.content.sendfile.enabled property.
+     *
+     * @param context the DSpace context
+     * @param bit     the requested bitstream
+     * @param request the current request
+     * @return the file to send or null if the bitstream has to be streamed
+     */
+    private File getSendfile(Context context, Bitstream bit, HttpServletRequest request)
+        throws SQLException, IOException, AuthorizeException {
+        if (!RequestMethod.GET.name().equals(request.getMethod())
+            || !Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR))
+            || !configurationService.getBooleanProperty("bitstream.content.sendfile.enabled", true)
+            || citationDocumentService.isCitationEnabledForBitstream(bit, context)) {
+            return null;
+        }
+        context.turnOffAuthorisationSystem();
+        try {
+            File file = bitstreamService.retrieveLocalFile(context, bit);
+            // the file can only be sent as it is if it matches the recorded size
+            return file != null && file.length() == bit.getSizeBytes() ? file : null;
+        } finally {
+            context.restoreAuthSystemState();
+        }
+    }
+
+    /**
+     * Ask the servlet container to send the given file, or the requested range of it, after the headers.
+     */
+    private ResponseEntity sendfile(HttpServletRequest request, File file, HttpRange range, long size,
+                                    HttpHeaders httpHeaders) {
+        long start = range != null ? range.getRangeStart(size) : 0;
+        long end = range != null ? range.getRangeEnd(size) + 1 : size;
+        request.setAttribute(SENDFILE_FILENAME_ATTR, file.getAbsolutePath());
+        request.setAttribute(SENDFILE_START_ATTR, start);
+        request.setAttribute(SENDFILE_END_ATTR, end);
+        httpHeaders.setContentLength(end - start);
+        if (range != null) {
+            httpHeaders.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (end - 1) + "/" + size);
+            return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT).headers(httpHeaders).build();
+        }
+        return ResponseEntity.ok().headers(httpHeaders).build();
+    }
+
     private Pair<InputStream, Long> getBitstreamInputStreamAndSize(Context context, Bitstream bit)
         throws SQLException, IOException, AuthorizeException {
 
@@ -190,6 +272,47 @@ public class BitstreamRestController {
         }
     }
 
+    /**
+     * Parse the Range header of the request, when it asks for a single range of a bitstream that can be read
+     * directly from the assetstore. Multiple ranges, unsatisfiable ranges and bitstreams served with a citation
+     * page are left to the default handling of Spring, that skips through the whole stream.
+     *
+     * @param context     the DSpace context
+     * @param bit         the requested bitstream
+     * @param rangeHeader the value of the Range header, if any
+     * @return the requested range or null if the bitstream has to be read from the beginning
+     */
+    private HttpRange getSingleRange(Context context, Bitstream bit, String rangeHeader) throws SQLException {
+        if (StringUtils.isBlank(rangeHeader) || bit.getSizeBytes() <= 0
+            || citationDocumentService.isCitationEnabledForBitstream(bit, context)) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            if (ranges.size() != 1) {
+                return null;
+            }
+            HttpRange range = ranges.get(0);
+            // validate the range against the size of the bitstream
+            range.getRangeStart(bit.getSizeBytes());
+            return range;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private Pair<InputStream, Long> getBitstreamRangeAndSize(Context context, Bitstream bit, HttpRange range)
+        throws SQLException, IOException, AuthorizeException {
+        long start = range.getRangeStart(bit.getSizeBytes());
+        long end = range.getRangeEnd(bit.getSizeBytes());
+        context.turnOffAuthorisationSystem();
+        try {
+            return Pair.of(bitstreamService.retrieve(context, bit, start, end - start + 1), bit.getSizeBytes());
+        } finally {
+            context.restoreAuthSystemState();
+        }
+    }
+
     private Pair<InputStream, Long> generateBitstreamWithCitation(Context context, Bitstream bitstream)
         throws SQLException, IOException, AuthorizeException {
         //Create the cited document
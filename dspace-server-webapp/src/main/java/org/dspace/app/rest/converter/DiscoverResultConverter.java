@@ -7,6 +7,8 @@
  */
 package org.dspace.app.rest.converter;
 
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -20,6 +22,8 @@ import org.dspace.app.rest.model.SearchResultEntryRest;
 import org.dspace.app.rest.model.SearchResultsRest;
 import org.dspace.app.rest.parameter.SearchFilter;
 import org.dspace.app.rest.projection.Projection;
+import org.dspace.content.Item;
+import org.dspace.content.service.ItemService;
 import org.dspace.core.Context;
 import org.dspace.discovery.DiscoverResult;
 import org.dspace.discovery.IndexableObject;
@@ -47,6 +51,8 @@ public class DiscoverResultConverter {
     private DiscoverFacetsConverter facetConverter;
     @Autowired
     private SearchFilterToAppliedFilterConverter searchFilterToAppliedFilterConverter;
+    @Autowired
+    private ItemService itemService;
 
     public SearchResultsRest convert(final Context context, final String query, final List<String> dsoTypes,
                                      final String configurationName, final String scope,
@@ -59,6 +65,8 @@ public class DiscoverResultConverter {
 
         setRequestInformation(context, query, dsoTypes, configurationName, scope, searchFilters, page, resultsRest);
 
+        cacheVirtualMetadata(context, searchResult);
+
         addSearchResults(searchResult, resultsRest, projection);
 
         addFacetValues(context, searchResult, resultsRest, configuration, projection);
@@ -73,6 +81,24 @@ public class DiscoverResultConverter {
         facetConverter.addFacetValues(context, searchResult, resultsRest, configuration, projection);
     }
 
+    /**
+     * Resolve at once the virtual metadata of the items of the page, the conversion of each item would resolve
+     * them item by item otherwise.
+     */
+    private void cacheVirtualMetadata(final Context context, final DiscoverResult searchResult) {
+        List<Item> items = new ArrayList<>();
+        for (IndexableObject indexableObject : CollectionUtils.emptyIfNull(searchResult.getIndexableObjects())) {
+            if (indexableObject.getIndexedObject() instanceof Item) {
+                items.add((Item) indexableObject.getIndexedObject());
+            }
+        }
+        try {
+            itemService.cacheVirtualMetadata(context, items);
+        } catch (SQLException e) {
+            log.error("Error resolving the virtual metadata of the search results", e);
+        }
+    }
+
     private void addSearchResults(final DiscoverResult searchResult, final SearchResultsRest resultsRest,
                                   final Projection projection) {
         for (IndexableObject dspaceObject : CollectionUtils.emptyIfNull(searchResult.getIndexableObjects())) {
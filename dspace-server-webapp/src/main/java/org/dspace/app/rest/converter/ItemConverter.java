@@ -10,6 +10,7 @@ package org.dspace.app.rest.converter;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -40,10 +41,7 @@ import org.dspace.discovery.IndexableObject;
 import org.dspace.eperson.EPerson;
 import org.dspace.eperson.service.GroupService;
 import org.dspace.layout.CrisLayoutBox;
-import org.dspace.layout.CrisLayoutField;
-import org.dspace.layout.CrisLayoutFieldMetadata;
-import org.dspace.layout.CrisMetadataGroup;
-import org.dspace.layout.LayoutSecurity;
+import org.dspace.layout.CrisLayoutVisibilityPlan;
 import org.dspace.layout.service.CrisLayoutBoxAccessService;
 import org.dspace.layout.service.CrisLayoutBoxService;
 import org.dspace.services.ConfigurationService;
@@ -121,6 +119,14 @@ public class ItemConverter
     @Override
     public MetadataValueList getPermissionFilteredMetadata(Context context, Item obj, Projection projection) {
 
+        if (context != null) {
+            // resolve the virtual metadata with the context of the request
+            try {
+                itemService.cacheVirtualMetadata(context, Collections.singletonList(obj));
+            } catch (SQLException e) {
+                log.error("Error resolving the virtual metadata of the item " + obj.getID(), e);
+            }
+        }
         List<MetadataValue> fullList = itemService.getMetadata(obj, Item.ANY, Item.ANY, Item.ANY, Item.ANY, true);
 
         List<MetadataValue> returnList = new LinkedList<>();
@@ -133,22 +139,24 @@ public class ItemConverter
                 return new MetadataValueList(new ArrayList<MetadataValue>());
             }
 
-            List<CrisLayoutBox> boxes;
+            CrisLayoutVisibilityPlan plan;
             if (context != null && !preventSecurityCheck(projection)) {
-                boxes = crisLayoutBoxService.findEntityBoxes(context, entityType, 1000, 0);
+                plan = crisLayoutBoxService.getVisibilityPlan(context, entityType);
             } else {
                 // the context could be null if the converter is used to prepare test data or in a batch script
-                boxes = new ArrayList<CrisLayoutBox>();
+                plan = CrisLayoutVisibilityPlan.compile(Collections.emptyList());
             }
 
             Optional<List<DCInputSet>> submissionDefinitionInputs = submissionDefinitionInputs();
             if (submissionDefinitionInputs.isPresent()) {
-                return fromSubmissionDefinition(context, boxes, obj, submissionDefinitionInputs.get(), fullList);
+                return fromSubmissionDefinition(new VisibilityCheck(context, plan, obj, null), obj,
+                                                submissionDefinitionInputs.get(), fullList);
             }
 
+            VisibilityCheck visibilityCheck = new VisibilityCheck(context, plan, obj, projection);
             for (MetadataValue metadataValue : fullList) {
                 MetadataField metadataField = metadataValue.getMetadataField();
-                if (checkMetadataFieldVisibility(context, boxes, obj, metadataField, projection)) {
+                if (visibilityCheck.isVisible(metadataField)) {
                     if (metadataValue.getSecurityLevel() != null) {
                         MetadataSecurityEvaluation metadataSecurityEvaluation =
                             mapBetweenSecurityLevelAndClassSecurityLevel( metadataValue.getSecurityLevel());
@@ -175,8 +183,8 @@ public class ItemConverter
     public boolean checkMetadataFieldVisibility(Context context, Item item,
             MetadataField metadataField, Projection projection) throws SQLException {
         String entityType = itemService.getMetadataFirstValue(item, "dspace", "entity", "type", Item.ANY);
-        List<CrisLayoutBox> boxes = crisLayoutBoxService.findEntityBoxes(context, entityType, 1000, 0);
-        return checkMetadataFieldVisibility(context, boxes, item, metadataField, projection);
+        CrisLayoutVisibilityPlan plan = crisLayoutBoxService.getVisibilityPlan(context, entityType);
+        return new VisibilityCheck(context, plan, item, projection).isVisible(metadataField);
     }
 
     private Optional<List<DCInputSet>> submissionDefinitionInputs() {
@@ -195,14 +203,14 @@ public class ItemConverter
         }
     }
 
-    private MetadataValueList fromSubmissionDefinition(Context context, List<CrisLayoutBox> boxes, Item item,
+    private MetadataValueList fromSubmissionDefinition(VisibilityCheck visibilityCheck, Item item,
             final List<DCInputSet> dcInputSets, final List<MetadataValue> fullList) {
 
         Predicate<MetadataValue> inDcInputs = mv -> dcInputSets.stream()
                 .anyMatch((dc) -> {
                     try {
                         return dc.isFieldPresent(mv.getMetadataField().toString('.')) ||
-                                checkMetadataFieldVisibilityByBoxes(context, boxes, item, mv.getMetadataField(), null);
+                                visibilityCheck.isVisibleByBoxes(mv.getMetadataField());
                     } catch (SQLException e) {
                         return false;
                     }
@@ -215,59 +223,6 @@ public class ItemConverter
         return new MetadataValueList(metadataFields);
     }
 
-    private boolean checkMetadataFieldVisibility(Context context, List<CrisLayoutBox> boxes, Item item,
-            MetadataField metadataField, Projection projection) throws SQLException {
-        if (boxes.size() == 0 && !preventSecurityCheck(projection)) {
-            if (context != null && authorizeService.isAdmin(context)) {
-                return true;
-            } else {
-                if (!metadataExposureService
-                        .isHidden(context, metadataField.getMetadataSchema().getName(),
-                                  metadataField.getElement(),
-                                  metadataField.getQualifier())) {
-                    return true;
-                }
-            }
-        } else {
-            return checkMetadataFieldVisibilityByBoxes(context, boxes, item, metadataField, projection);
-        }
-        return false;
-    }
-
-    private boolean checkMetadataFieldVisibilityByBoxes(Context context, List<CrisLayoutBox> boxes, Item item,
-                                                        MetadataField metadataField,
-                                                        Projection projection) throws SQLException {
-        boolean performSecurityCheck = !preventSecurityCheck(projection);
-        List<String> allPublicMetadata = performSecurityCheck ? getPublicMetadata(boxes) : publicMetadataFromConfig();
-        if (isPublicMetadataField(metadataField, allPublicMetadata)) {
-            return true;
-        } else if (performSecurityCheck) {
-
-            EPerson currentUser = context.getCurrentUser();
-            List<CrisLayoutBox> boxesWithMetadataFieldExcludedPublic = getBoxesWithMetadataFieldExcludedPublic(
-                metadataField, boxes);
-
-            if (Objects.nonNull(currentUser)) {
-
-                for (CrisLayoutBox box : boxesWithMetadataFieldExcludedPublic) {
-                    if (crisLayoutBoxAccessService.hasAccess(context, currentUser, box, item)) {
-                        return true;
-                    }
-                }
-            }
-            // the metadata is not included in any box so use the default dspace security
-            if (boxesWithMetadataFieldExcludedPublic.size() == 0) {
-                if (!metadataExposureService
-                    .isHidden(context, metadataField.getMetadataSchema().getName(),
-                        metadataField.getElement(),
-                        metadataField.getQualifier())) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
     private List<String> publicMetadataFromConfig() {
         return Arrays.stream(configurationService.getArrayProperty("metadata.publicField"))
             .collect(Collectors.toList());
@@ -279,52 +234,80 @@ public class ItemConverter
             .orElse(false);
     }
 
-    private List<CrisLayoutBox> getBoxesWithMetadataFieldExcludedPublic(MetadataField metadataField,
-            List<CrisLayoutBox> boxes) {
-        List<CrisLayoutBox> boxesWithMetadataField = new LinkedList<CrisLayoutBox>();
-        for (CrisLayoutBox box : boxes) {
-            List<CrisLayoutField> crisLayoutFields = box.getLayoutFields();
-            for (CrisLayoutField field : crisLayoutFields) {
-                if (field instanceof CrisLayoutFieldMetadata) {
-                    checkField(metadataField, boxesWithMetadataField, box, field.getMetadataField());
-                    for (CrisMetadataGroup metadataGroup : field.getCrisMetadataGroupList()) {
-                        checkField(metadataField, boxesWithMetadataField, box, metadataGroup.getMetadataField());
-                    }
-                }
-            }
+    /**
+     * The visibility of the metadata fields of an item, checked with the visibility plan of its entity type. The
+     * results are kept for the filtering of all the values of the item, as many values share the same field and
+     * many fields are guarded by the same boxes.
+     */
+    private class VisibilityCheck {
+
+        private final Context context;
+        private final CrisLayoutVisibilityPlan plan;
+        private final Item item;
+        private final boolean performSecurityCheck;
+
+        private final Map<Integer, Boolean> visibleFields = new HashMap<>();
+        private final Map<Integer, Boolean> boxAccess = new HashMap<>();
+        private List<String> publicMetadata;
+
+        VisibilityCheck(Context context, CrisLayoutVisibilityPlan plan, Item item, Projection projection) {
+            this.context = context;
+            this.plan = plan;
+            this.item = item;
+            this.performSecurityCheck = !preventSecurityCheck(projection);
         }
-        return boxesWithMetadataField;
-    }
 
-    private void checkField(MetadataField metadataField, List<CrisLayoutBox> boxesWithMetadataField, CrisLayoutBox box,
-            MetadataField field) {
-        if (field.equals(metadataField) && box.getSecurity() != LayoutSecurity.PUBLIC.getValue()) {
-            boxesWithMetadataField.add(box);
+        boolean isVisible(MetadataField metadataField) throws SQLException {
+            Boolean visible = visibleFields.get(metadataField.getID());
+            if (visible == null) {
+                if (plan.isEmpty() && performSecurityCheck) {
+                    visible = context != null && authorizeService.isAdmin(context) || !isHidden(metadataField);
+                } else {
+                    visible = isVisibleByBoxes(metadataField);
+                }
+                visibleFields.put(metadataField.getID(), visible);
+            }
+            return visible;
         }
-    }
 
-    private boolean isPublicMetadataField(MetadataField metadataField, List<String> allPublicMetadata) {
-        for (String publicField : allPublicMetadata) {
-            if (publicField.equals(metadataField.toString('.'))) {
+        boolean isVisibleByBoxes(MetadataField metadataField) throws SQLException {
+            if (!performSecurityCheck) {
+                if (publicMetadata == null) {
+                    publicMetadata = publicMetadataFromConfig();
+                }
+                return publicMetadata.contains(metadataField.toString('.'));
+            }
+            if (plan.isPublic(metadataField)) {
                 return true;
             }
-        }
-        return false;
-    }
 
-    private List<String> getPublicMetadata(List<CrisLayoutBox> boxes) {
-        List<String> publicMetadata = new ArrayList<String>();
-        for (CrisLayoutBox box : boxes) {
-            if (box.getSecurity() == LayoutSecurity.PUBLIC.getValue()) {
-                List<CrisLayoutField> crisLayoutFields = box.getLayoutFields();
-                for (CrisLayoutField field : crisLayoutFields) {
-                    if (field instanceof CrisLayoutFieldMetadata) {
-                        publicMetadata.add(field.getMetadataField().toString('.'));
+            List<Integer> guardingBoxes = plan.getGuardingBoxes(metadataField);
+            EPerson currentUser = context != null ? context.getCurrentUser() : null;
+            if (Objects.nonNull(currentUser)) {
+                for (Integer boxId : guardingBoxes) {
+                    if (hasAccess(currentUser, boxId)) {
+                        return true;
                     }
                 }
             }
+            // the metadata is not included in any box so use the default dspace security
+            return guardingBoxes.isEmpty() && !isHidden(metadataField);
+        }
+
+        private boolean hasAccess(EPerson currentUser, Integer boxId) throws SQLException {
+            Boolean access = boxAccess.get(boxId);
+            if (access == null) {
+                CrisLayoutBox box = crisLayoutBoxService.find(context, boxId);
+                access = box != null && crisLayoutBoxAccessService.hasAccess(context, currentUser, box, item);
+                boxAccess.put(boxId, access);
+            }
+            return access;
+        }
+
+        private boolean isHidden(MetadataField metadataField) throws SQLException {
+            return metadataExposureService.isHidden(context, metadataField.getMetadataSchema().getName(),
+                                                    metadataField.getElement(), metadataField.getQualifier());
         }
-        return publicMetadata;
     }
 
     @Override
@@ -11,6 +11,7 @@ import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 
 import java.io.BufferedInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
@@ -65,6 +66,7 @@ public class HttpHeadersInitializer {
     private static final String CACHE_CONTROL_SETTING = "private,no-cache";
 
     private BufferedInputStream inputStream;
+    private File file;
     private HttpServletRequest request;
     private HttpServletResponse response;
     private String contentType;
@@ -80,10 +82,24 @@ public class HttpHeadersInitializer {
     }
 
 
+    public HttpHeadersInitializer(final File file) {
+        this.file = file;
+    }
+
     public static HttpHeadersInitializer fromInputStream(InputStream inputStream) {
         return new HttpHeadersInitializer(inputStream);
     }
 
+    /**
+     * Initialize the headers for content that will be sent by the servlet container directly from the given
+     * file, without going through an input stream
+     * @param file the file holding the content
+     * @return the initializer of the headers
+     */
+    public static HttpHeadersInitializer fromFile(File file) {
+        return new HttpHeadersInitializer(file);
+    }
+
     public HttpHeadersInitializer with(HttpServletRequest httpRequest) {
         request = httpRequest;
         return this;
@@ -198,7 +214,7 @@ public class HttpHeadersInitializer {
             return false;
         }
 
-        if (inputStream == null) {
+        if (inputStream == null && (file == null || !file.canRead())) {
             log.error("Input stream has no content");
             response.sendError(HttpServletResponse.SC_NOT_FOUND);
             return false;
@@ -32,6 +32,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.io.ByteArrayInputStream;
@@ -41,6 +42,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.util.Arrays;
+import java.util.Random;
 import java.util.UUID;
 
 import org.apache.commons.io.IOUtils;
@@ -293,6 +296,187 @@ public class BitstreamRestControllerIT extends AbstractControllerIntegrationTest
             checkNumberOfStatsRecords(bitstream, 0);
     }
 
+    @Test
+    public void retrieveRangeBitstreamFromAssetstore() throws Exception {
+        context.turnOffAuthorisationSystem();
+
+        parentCommunity = CommunityBuilder.createCommunity(context)
+                                          .withName("Parent Community")
+                                          .build();
+
+        Collection col1 = CollectionBuilder.createCollection(context, parentCommunity).withName("Collection 1").build();
+
+        //A binary bitstream larger than the buffers of the streams
+        byte[] bitstreamContent = new byte[65536];
+        new Random(42).nextBytes(bitstreamContent);
+
+        try (InputStream is = new ByteArrayInputStream(bitstreamContent)) {
+
+            Item publicItem1 = ItemBuilder.createItem(context, col1)
+                                          .withTitle("Public item 1")
+                                          .build();
+
+            bitstream = BitstreamBuilder
+                .createBitstream(context, publicItem1, is)
+                .withName("Test bitstream")
+                .withDescription("This is a bitstream to test the ranged reads of the assetstore")
+                .withMimeType("application/octet-stream")
+                .build();
+        }
+        context.restoreAuthSystemState();
+
+        //** WHEN **
+        //A range in the middle of the bitstream is requested
+        getClient().perform(get("/api/core/bitstreams/" + bitstream.getID() + "/content")
+                                .header("Range", "bytes=10000-19999"))
+
+                   //** THEN **
+                   //Only the bytes of the range are read and sent
+                   .andExpect(status().is(206))
+                   .andExpect(header().longValue("Content-Length", 10000))
+                   .andExpect(header().string("Content-Range", "bytes 10000-19999/65536"))
+                   .andExpect(content().bytes(Arrays.copyOfRange(bitstreamContent, 10000, 20000)));
+
+        //** WHEN **
+        //A range running past the end of the bitstream is requested
+        getClient().perform(get("/api/core/bitstreams/" + bitstream.getID() + "/content")
+                                .header("Range", "bytes=65000-70000"))
+
+                   //** THEN **
+                   //The range stops at the last byte
+                   .andExpect(status().is(206))
+                   .andExpect(header().longValue("Content-Length", 536))
+                   .andExpect(header().string("Content-Range", "bytes 65000-65535/65536"))
+                   .andExpect(content().bytes(Arrays.copyOfRange(bitstreamContent, 65000, 65536)));
+
+        //** WHEN **
+        //The last bytes of the bitstream are requested
+        getClient().perform(get("/api/core/bitstreams/" + bitstream.getID() + "/content")
+                                .header("Range", "bytes=-100"))
+
+                   //** THEN **
+                   .andExpect(status().is(206))
+                   .andExpect(header().longValue("Content-Length", 100))
+                   .andExpect(header().string("Content-Range", "bytes 65436-65535/65536"))
+                   .andExpect(content().bytes(Arrays.copyOfRange(bitstreamContent, 65436, 65536)));
+
+        //Check that NO statistics record was logged for the Range requests
+        checkNumberOfStatsRecords(bitstream, 0);
+    }
+
+    @Test
+    public void retrieveBitstreamWithSendfile() throws Exception {
+        context.turnOffAuthorisationSystem();
+
+        parentCommunity = CommunityBuilder.createCommunity(context)
+                                          .withName("Parent Community")
+                                          .build();
+
+        Collection col1 = CollectionBuilder.createCollection(context, parentCommunity).withName("Collection 1").build();
+
+        String bitstreamContent = "0123456789";
+
+        try (InputStream is = IOUtils.toInputStream(bitstreamContent, CharEncoding.UTF_8)) {
+
+            Item publicItem1 = ItemBuilder.createItem(context, col1)
+                                          .withTitle("Public item 1")
+                                          .withIssueDate("2017-10-17")
+                                          .withAuthor("Smith, Donald").withAuthor("Doe, John")
+                                          .build();
+
+            bitstream = BitstreamBuilder
+                .createBitstream(context, publicItem1, is)
+                .withName("Test bitstream")
+                .withDescription("This is a bitstream to test zero-copy downloads")
+                .withMimeType("text/plain")
+                .build();
+        }
+        context.restoreAuthSystemState();
+
+        //** WHEN **
+        //The connector supports sendfile
+        getClient().perform(get("/api/core/bitstreams/" + bitstream.getID() + "/content")
+                                .requestAttr("org.apache.tomcat.sendfile.support", Boolean.TRUE))
+
+                   //** THEN **
+                   .andExpect(status().isOk())
+                   .andExpect(header().longValue("Content-Length", 10))
+                   .andExpect(header().string("ETag", "\"" + bitstream.getChecksum() + "\""))
+                   .andExpect(content().contentType("text/plain"))
+                   //The file is handed to the container, that sends it after the headers
+                   .andExpect(request().attribute("org.apache.tomcat.sendfile.filename", not(nullValue())))
+                   .andExpect(request().attribute("org.apache.tomcat.sendfile.start", 0L))
+                   .andExpect(request().attribute("org.apache.tomcat.sendfile.end", 10L))
+                   .andExpect(content().bytes(new byte[0]));
+
+        //** WHEN **
+        //A range is requested
+        getClient().perform(get("/api/core/bitstreams/" + bitstream.getID() + "/content")
+                                .requestAttr("org.apache.tomcat.sendfile.support", Boolean.TRUE)
+                                .header("Range", "bytes=4-"))
+
+                   //** THEN **
+                   .andExpect(status().is(206))
+                   .andExpect(header().longValue("Content-Length", 6))
+                   .andExpect(header().string("Content-Range", "bytes 4-9/10"))
+                   .andExpect(request().attribute("org.apache.tomcat.sendfile.start", 4L))
+                   .andExpect(request().attribute("org.apache.tomcat.sendfile.end", 10L));
+
+        //Check that only the full download was logged
+        checkNumberOfStatsRecords(bitstream, 1);
+    }
+
+    @Test
+    public void retrieveBitstreamWithSendfileDisabled() throws Exception {
+        context.turnOffAuthorisationSystem();
+
+        parentCommunity = CommunityBuilder.createCommunity(context)
+                                          .withName("Parent Community")
+                                          .build();
+
+        Collection col1 = CollectionBuilder.createCollection(context, parentCommunity).withName("Collection 1").build();
+
+        String bitstreamContent = "0123456789";
+
+        try (InputStream is = IOUtils.toInputStream(bitstreamContent, CharEncoding.UTF_8)) {
+
+            Item publicItem1 = ItemBuilder.createItem(context, col1)
+                                          .withTitle("Public item 1")
+                                          .build();
+
+            bitstream = BitstreamBuilder
+                .createBitstream(context, publicItem1, is)
+                .withName("Test bitstream")
+                .withMimeType("text/plain")
+                .build();
+        }
+        context.restoreAuthSystemState();
+
+        configurationService.setProperty("bitstream.content.sendfile.enabled", false);
+
+        //** WHEN **
+        //The connector supports sendfile, but it is disabled
+        getClient().perform(get("/api/core/bitstreams/" + bitstream.getID() + "/content")
+                                .requestAttr("org.apache.tomcat.sendfile.support", Boolean.TRUE))
+
+                   //** THEN **
+                   //The content is streamed by the controller
+                   .andExpect(status().isOk())
+                   .andExpect(request().attribute("org.apache.tomcat.sendfile.filename", nullValue()))
+                   .andExpect(content().bytes(bitstreamContent.getBytes()));
+
+        configurationService.setProperty("bitstream.content.sendfile.enabled", true);
+
+        //** WHEN **
+        //The connector doesn't support sendfile
+        getClient().perform(get("/api/core/bitstreams/" + bitstream.getID() + "/content"))
+
+                   //** THEN **
+                   .andExpect(status().isOk())
+                   .andExpect(request().attribute("org.apache.tomcat.sendfile.filename", nullValue()))
+                   .andExpect(content().bytes(bitstreamContent.getBytes()));
+    }
+
     @Test
     public void testBitstreamNotFound() throws Exception {
         getClient().perform(get("/api/core/bitstreams/" + UUID.randomUUID() + "/content"))
@@ -0,0 +1,106 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.app.rest.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Compare the throughput and the heap allocation of a bitstream download copied through the JVM, as done when
+ * streaming from the assetstore, with a {@link FileChannel#transferTo} of the file, as done by the servlet
+ * container when a bitstream is sent with sendfile.
+ * <p>
+ * The benchmark is skipped unless the <code>benchmark.sendfile</code> system property is set, e.g.
+ * <code>mvn test -Dtest=SendfileBenchmarkTest -Dbenchmark.sendfile=true</code>
+ */
+public class SendfileBenchmarkTest {
+
+    private static final int FILE_SIZE = 64 * 1024 * 1024;
+    private static final int ROUNDS = 10;
+    private static final int BUFFER_SIZE = 4096 * 10;
+    // a file channel target lets the JDK use sendfile, as the container does with the socket
+    private static final File DEV_NULL = new File("/dev/null");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void compareStreamCopyWithTransferTo() throws Exception {
+        assumeTrue(Boolean.getBoolean("benchmark.sendfile") && DEV_NULL.exists());
+
+        File file = folder.newFile("bitstream");
+        byte[] chunk = new byte[1024 * 1024];
+        new Random(42).nextBytes(chunk);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            for (int i = 0; i < FILE_SIZE / chunk.length; i++) {
+                channel.write(ByteBuffer.wrap(chunk));
+            }
+        }
+
+        // warm up both paths before measuring
+        streamCopy(file);
+        transferTo(file);
+
+        measure("stream copy", () -> streamCopy(file));
+        measure("transferTo", () -> transferTo(file));
+    }
+
+    private void measure(String name, Transfer transfer) throws IOException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+            .getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocated = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            assertEquals(FILE_SIZE, transfer.run());
+        }
+        long elapsed = System.nanoTime() - start;
+        allocated = threads.getThreadAllocatedBytes(threadId) - allocated;
+        System.out.println(String.format("%-12s %8.1f MB/s %12d bytes allocated per download", name,
+            (double) FILE_SIZE * ROUNDS / (1024 * 1024) / (elapsed / 1e9), allocated / ROUNDS));
+    }
+
+    private long streamCopy(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file);
+             OutputStream out = new FileOutputStream(DEV_NULL)) {
+            return IOUtils.copyLarge(in, out, new byte[BUFFER_SIZE]);
+        }
+    }
+
+    private long transferTo(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+             FileChannel target = FileChannel.open(DEV_NULL.toPath(), StandardOpenOption.WRITE)) {
+            long position = 0;
+            while (position < channel.size()) {
+                position += channel.transferTo(position, channel.size() - position, target);
+            }
+            return position;
+        }
+    }
+
+    private interface Transfer {
+        long run() throws IOException;
+    }
+}